@@ -0,0 +1,69 @@
+create schema bench version '1.0';
+
+/**Sequence used for generation of item identifiers.*/
+create sequence item_id cache 100;
+
+/**Narrow table used for single record operations.*/
+create table item (
+  id int not null default nextval(item_id) primary key,
+  code varchar(20) not null,
+  qty int not null default 0,
+  price decimal(10, 2),
+  created datetime
+);
+
+create index idx_item_code on item (code);
+
+/**Wide table used for scans.*/
+create table wide (
+  id int not null primary key,
+  int_01 int,
+  int_02 int,
+  int_03 int,
+  int_04 int,
+  int_05 int,
+  int_06 int,
+  int_07 int,
+  int_08 int,
+  int_09 int,
+  int_10 int,
+  str_01 varchar(30),
+  str_02 varchar(30),
+  str_03 varchar(30),
+  str_04 varchar(30),
+  str_05 varchar(30),
+  str_06 varchar(30),
+  str_07 varchar(30),
+  str_08 varchar(30),
+  str_09 varchar(30),
+  str_10 varchar(30),
+  num_01 decimal(12,2),
+  num_02 decimal(12,2),
+  num_03 decimal(12,2),
+  num_04 decimal(12,2),
+  num_05 decimal(12,2),
+  dt_01 datetime,
+  dt_02 datetime,
+  dt_03 datetime,
+  flag_01 bit,
+  flag_02 bit
+);
+
+/**Table with a materialized view.*/
+create table line (
+  id int not null primary key,
+  code varchar(2) not null,
+  qty int not null
+);
+
+create materialized view line_total as
+  select code, sum(qty) as total, count(*) as cnt
+  from bench.line
+  group by code;
+
+/**Same as line, but without a materialized view.*/
+create table plain_line (
+  id int not null primary key,
+  code varchar(2) not null,
+  qty int not null
+);
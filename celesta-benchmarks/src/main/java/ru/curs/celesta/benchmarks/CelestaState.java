@@ -0,0 +1,99 @@
+package ru.curs.celesta.benchmarks;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import ru.curs.celesta.CallContext;
+import ru.curs.celesta.Celesta;
+import ru.curs.celesta.CelestaException;
+import ru.curs.celesta.SystemCallContext;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Date;
+import java.util.Properties;
+
+/**
+ * Celesta instance working with in-memory H2 database filled with the benchmark data,
+ * shared by all the benchmark threads.
+ */
+@State(Scope.Benchmark)
+public class CelestaState {
+
+    /**
+     * Number of records in <em>item</em> table.
+     */
+    public static final int ITEMS = 1000;
+    /**
+     * Number of records in <em>wide</em> table.
+     */
+    public static final int WIDE_ROWS = 10000;
+
+    private static final int CODES = 26;
+
+    private Celesta celesta;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Properties properties = new Properties();
+        properties.setProperty("h2.in-memory", "true");
+        celesta = Celesta.createInstance(properties);
+        try (CallContext context = new SystemCallContext(celesta)) {
+            fillItems(context);
+            fillWide(context);
+        }
+    }
+
+    private static void fillItems(CallContext context) {
+        ItemCursor item = new ItemCursor(context);
+        for (int i = 0; i < ITEMS; i++) {
+            item.clear();
+            item.setCode(code(i)).setQty(i).setPrice(BigDecimal.valueOf(i, 2)).setCreated(new Date());
+            item.insert();
+        }
+    }
+
+    private static void fillWide(CallContext context) {
+        WideCursor wide = new WideCursor(context);
+        Date now = new Date();
+        for (int i = 1; i <= WIDE_ROWS; i++) {
+            wide.clear();
+            wide.setId(i)
+                    .setInt01(i).setInt02(i % CODES).setInt03(-i).setInt04(i * 2).setInt05(i / 2)
+                    .setStr01(code(i)).setStr02("Lorem ipsum " + i).setStr03("dolor sit amet")
+                    .setStr04(code(i + 1)).setStr05(String.valueOf(i))
+                    .setNum01(BigDecimal.valueOf(i, 2)).setNum02(BigDecimal.ONE)
+                    .setDt01(now).setFlag01(i % 2 == 0);
+            wide.insert();
+        }
+    }
+
+    static String code(int i) {
+        return String.valueOf((char) ('A' + i % CODES));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        try (Connection conn = celesta.getConnectionPool().get();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("SHUTDOWN");
+        } catch (SQLException e) {
+            throw new CelestaException(e);
+        }
+        celesta.close();
+    }
+
+    /**
+     * Returns the Celesta instance.
+     *
+     * @return
+     */
+    public Celesta getCelesta() {
+        return celesta;
+    }
+
+}
@@ -0,0 +1,95 @@
+package ru.curs.celesta.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.curs.celesta.Celesta;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load benchmark of call contexts: thousands of concurrent contexts are run
+ * with {@link Celesta#runInContext} and compete for pooled connections.
+ * <p>
+ * Contexts are run on a fixed pool of platform threads. On Java 21+ the benchmark can be run
+ * with {@code -p executorType=virtual}, so that a virtual thread is created per context.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ContextLoadBenchmark {
+
+    private static final int PLATFORM_THREADS = 200;
+
+    private static final String USER_ID = "super";
+
+    @Param({"1000", "5000"})
+    private int contexts;
+
+    @Param("platform")
+    private String executorType;
+
+    private Celesta celesta;
+    private ExecutorService executor;
+
+    @Setup(Level.Trial)
+    public void setUp(CelestaState celestaState) {
+        celesta = celestaState.getCelesta();
+        executor = "virtual".equals(executorType)
+                ? newVirtualThreadPerTaskExecutor() : Executors.newFixedThreadPool(PLATFORM_THREADS);
+    }
+
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Virtual threads require Java 21+", e);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Runs the contexts concurrently, each reading a record and inserting and deleting another one.
+     * The contexts are run on behalf of the predefined user with the editor role,
+     * so that the permission checks are performed as well.
+     */
+    @Benchmark
+    public int readInsertDelete() {
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[contexts];
+        for (int i = 0; i < contexts; i++) {
+            int id = i % CelestaState.ITEMS + 1;
+            futures[i] = celesta.runInContext(executor, USER_ID, "readInsertDelete", context -> {
+                ItemCursor item = new ItemCursor(context);
+                item.get(id);
+                ItemCursor inserted = new ItemCursor(context);
+                inserted.setCode(item.getCode()).setQty(item.getQty());
+                inserted.insert();
+                inserted.delete();
+                return inserted.getId();
+            });
+        }
+        CompletableFuture.allOf(futures).join();
+        return futures.length;
+    }
+
+}
@@ -0,0 +1,39 @@
+package ru.curs.celesta.benchmarks;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import ru.curs.celesta.CallContext;
+import ru.curs.celesta.SystemCallContext;
+
+/**
+ * Call context of a benchmark thread. The context is opened for each iteration,
+ * all the changes made within the iteration are committed on its closing.
+ */
+@State(Scope.Thread)
+public class ContextState {
+
+    private CallContext context;
+
+    @Setup(Level.Iteration)
+    public void setUp(CelestaState celestaState) {
+        context = new SystemCallContext(celestaState.getCelesta(), "benchmark");
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        context.close();
+    }
+
+    /**
+     * Returns the call context.
+     *
+     * @return
+     */
+    public CallContext getContext() {
+        return context;
+    }
+
+}
@@ -0,0 +1,112 @@
+package ru.curs.celesta.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import ru.curs.celesta.CallContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of cursor operations on the hot paths of business logic.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class CursorBenchmark {
+
+    private ItemCursor item;
+    private ItemCursor updatedItem;
+    private WideCursor wide;
+    private WideCursor filtered;
+    private ItemIdSequence sequence;
+    private int next;
+
+    @Setup(Level.Iteration)
+    public void setUp(ContextState contextState) {
+        CallContext context = contextState.getContext();
+        item = new ItemCursor(context);
+        updatedItem = new ItemCursor(context);
+        updatedItem.get(1);
+        wide = new WideCursor(context);
+        filtered = new WideCursor(context);
+        sequence = new ItemIdSequence(context);
+    }
+
+    private int nextId(int bound) {
+        next = next % bound + 1;
+        return next;
+    }
+
+    @Benchmark
+    public Integer insertDelete() {
+        item.clear();
+        item.setCode("benchmark").setQty(1);
+        item.insert();
+        item.delete();
+        return item.getId();
+    }
+
+    @Benchmark
+    public boolean tryUpdate() {
+        updatedItem.setQty(updatedItem.getQty() + 1);
+        return updatedItem.tryUpdate();
+    }
+
+    @Benchmark
+    public boolean get() {
+        return item.tryGet(nextId(CelestaState.ITEMS));
+    }
+
+    @Benchmark
+    public void nextInSetScan(Blackhole bh) {
+        wide.clear();
+        if (wide.tryFindSet()) {
+            do {
+                bh.consume(wide.getStr02());
+            } while (wide.nextInSet());
+        }
+    }
+
+    @Benchmark
+    public boolean navigate() {
+        wide.clear();
+        wide.setId(nextId(CelestaState.WIDE_ROWS));
+        return wide.navigate(">");
+    }
+
+    /**
+     * Filters are parsed when the query is built, so the filtered query is executed as well.
+     * The filter is changed on every invocation to force building of a new query.
+     */
+    @Benchmark
+    public boolean setFilter() {
+        filtered.setFilter(filtered.COLUMNS.str01(), (++next & 1) == 0 ? "'A'|'B'|'C'%" : "'D'|'E'%");
+        filtered.setFilter(filtered.COLUMNS.int01(), "10..100|1000..");
+        return filtered.tryFirst();
+    }
+
+    @Benchmark
+    public WideCursor setComplexFilter() {
+        filtered.setComplexFilter("int_01 > 10 and (str_01 = 'A' or str_01 = 'B') and int_02 <> 0");
+        return filtered;
+    }
+
+    @Benchmark
+    public long sequenceNextValue() {
+        return sequence.nextValue();
+    }
+
+}
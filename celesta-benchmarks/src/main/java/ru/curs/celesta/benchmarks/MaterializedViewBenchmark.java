@@ -0,0 +1,67 @@
+package ru.curs.celesta.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.curs.celesta.CallContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of materialized view triggers overhead: the same modifications are made
+ * in a table with a materialized view and in a table without it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class MaterializedViewBenchmark {
+
+    private static final int CODES = 10;
+
+    private LineCursor line;
+    private PlainLineCursor plainLine;
+    private int next;
+
+    @Setup(Level.Iteration)
+    public void setUp(ContextState contextState) {
+        CallContext context = contextState.getContext();
+        line = new LineCursor(context);
+        plainLine = new PlainLineCursor(context);
+    }
+
+    @Benchmark
+    public LineCursor withMaterializedView() {
+        next++;
+        line.clear();
+        line.setId(next).setCode(CelestaState.code(next % CODES)).setQty(next);
+        line.insert();
+        line.setQty(next + 1);
+        line.update();
+        line.delete();
+        return line;
+    }
+
+    @Benchmark
+    public PlainLineCursor withoutMaterializedView() {
+        next++;
+        plainLine.clear();
+        plainLine.setId(next).setCode(CelestaState.code(next % CODES)).setQty(next);
+        plainLine.insert();
+        plainLine.setQty(next + 1);
+        plainLine.update();
+        plainLine.delete();
+        return plainLine;
+    }
+
+}
@@ -0,0 +1,42 @@
+package ru.curs.celesta.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.curs.celesta.score.ParseException;
+import ru.curs.celesta.score.Score;
+import ru.curs.celesta.score.discovery.ScoreByScoreResourceDiscovery;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of parsing of the benchmark score (along with the system grain)
+ * with grains parsed one after another and concurrently.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ScoreParsingBenchmark {
+
+    @Param({"1", "4"})
+    private int parallelism;
+
+    @Benchmark
+    public Score parseScore() throws ParseException {
+        return new Score.ScoreBuilder<>(Score.class)
+                .scoreDiscovery(new ScoreByScoreResourceDiscovery())
+                .parallelism(parallelism)
+                .build();
+    }
+
+}
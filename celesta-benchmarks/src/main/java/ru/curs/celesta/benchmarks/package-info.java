@@ -0,0 +1,4 @@
+/**
+ * Contains JMH benchmarks of Celesta.
+ */
+package ru.curs.celesta.benchmarks;
@@ -18,6 +18,23 @@ public abstract class BaseAppSettings {
      */
     public static final String H2_IN_MEMORY_URL = "jdbc:h2:mem:celesta;DB_CLOSE_DELAY=-1";
 
+    /**
+     * Default maximal number of idle prepared statements kept per connection.
+     * Statements are not cached by default, since the cache lives as long as the call context.
+     */
+    public static final int DEFAULT_STATEMENT_CACHE_SIZE = 0;
+
+    /**
+     * Default time (in milliseconds) to wait for a connection of the internal connection pool.
+     */
+    public static final int DEFAULT_POOL_ACQUIRE_TIMEOUT = 30000;
+
+    /**
+     * Default time (in milliseconds) a connection can stay idle in the internal connection pool
+     * without validation.
+     */
+    public static final int DEFAULT_POOL_VALIDATION_IDLE_TIME = 5000;
+
     private final Properties properties;
 
     private final String scorePath;
@@ -31,6 +48,21 @@ public abstract class BaseAppSettings {
     private final boolean skipDBUpdate;
     private final boolean forceDBInitialize;
     private final boolean logLogins;
+    private final int statementCacheSize;
+    private final int fetchSize;
+    private final int logBufferSize;
+    private final int poolMinSize;
+    private final int poolMaxSize;
+    private final int poolAcquireTimeout;
+    private final int poolValidationIdleTime;
+    private final int poolMaxLifetime;
+    private final int poolLeakDetectionThreshold;
+    private final boolean connectionReleaseOnCommit;
+    private final boolean statementMetrics;
+    private final int slowQueryThreshold;
+    private final int materializedViewRefreshInterval;
+    private final int dbUpdateParallelism;
+    private final int scoreParsingParallelism;
 
     {
         logger = Logger.getLogger("ru.curs.flute");
@@ -103,12 +135,46 @@ public abstract class BaseAppSettings {
         forceDBInitialize = Boolean.parseBoolean(properties.getProperty("force.dbinitialize", "").trim());
         logLogins = Boolean.parseBoolean(properties.getProperty("log.logins", "").trim());
 
+        statementCacheSize = readNonNegativeInt(properties, "statement.cache.size", DEFAULT_STATEMENT_CACHE_SIZE, sb);
+        fetchSize = readNonNegativeInt(properties, "fetch.size", 0, sb);
+        logBufferSize = readNonNegativeInt(properties, "log.buffer.size", 0, sb);
+        poolMinSize = readNonNegativeInt(properties, "pool.min.size", 0, sb);
+        poolMaxSize = readNonNegativeInt(properties, "pool.max.size", 0, sb);
+        poolAcquireTimeout = readNonNegativeInt(properties, "pool.acquire.timeout",
+                DEFAULT_POOL_ACQUIRE_TIMEOUT, sb);
+        poolValidationIdleTime = readNonNegativeInt(properties, "pool.validation.idle.time",
+                DEFAULT_POOL_VALIDATION_IDLE_TIME, sb);
+        poolMaxLifetime = readNonNegativeInt(properties, "pool.max.lifetime", 0, sb);
+        poolLeakDetectionThreshold = readNonNegativeInt(properties, "pool.leak.detection.threshold", 0, sb);
+        connectionReleaseOnCommit = Boolean.parseBoolean(
+                properties.getProperty("connection.release.on.commit", "").trim());
+        statementMetrics = Boolean.parseBoolean(properties.getProperty("statement.metrics", "").trim());
+        slowQueryThreshold = readNonNegativeInt(properties, "slow.query.threshold", 0, sb);
+        materializedViewRefreshInterval = readNonNegativeInt(properties, "materialized.view.refresh.interval",
+                0, sb);
+        dbUpdateParallelism = readNonNegativeInt(properties, "dbupdate.parallelism", 1, sb);
+        scoreParsingParallelism = readNonNegativeInt(properties, "score.parsing.parallelism", 1, sb);
+
         if (sb.length() > 0) {
             throw new CelestaException(sb.toString());
         }
 
     }
 
+    private static int readNonNegativeInt(Properties properties, String propertyName, int defaultValue,
+                                          StringBuffer sb) {
+        int value = defaultValue;
+        try {
+            value = Integer.parseInt(properties.getProperty(propertyName, String.valueOf(defaultValue)).trim());
+            if (value < 0) {
+                sb.append(propertyName).append(" should not be negative.\n");
+            }
+        } catch (NumberFormatException e) {
+            sb.append(propertyName).append(" should contain a number.\n");
+        }
+        return value;
+    }
+
     protected static void checkEntries(String path, String propertyName, StringBuffer sb) {
         if (!path.isEmpty()) {
             for (String pathEntry : path.split(File.pathSeparator)) {
@@ -222,6 +288,155 @@ public abstract class BaseAppSettings {
         return properties;
     }
 
+    /**
+     * Returns maximal number of idle prepared statements kept per connection
+     * (0 disables statement caching).
+     *
+     * @return
+     */
+    public int getStatementCacheSize() {
+        return statementCacheSize;
+    }
+
+    /**
+     * Returns default number of records fetched from the DB at a time while iterating cursors
+     * (0 means the JDBC driver's default).
+     *
+     * @return
+     */
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    /**
+     * Returns maximal number of change log entries buffered within a transaction
+     * before they are written to the DB (0 means the entries are written immediately).
+     *
+     * @return
+     */
+    public int getLogBufferSize() {
+        return logBufferSize;
+    }
+
+    /**
+     * Returns the number of connections opened on the internal connection pool creation.
+     *
+     * @return
+     */
+    public int getPoolMinSize() {
+        return poolMinSize;
+    }
+
+    /**
+     * Returns the maximal number of connections leased from the internal connection pool
+     * at the same time (0 means unlimited). Nested system call contexts lease connections
+     * from a separate reserve of the same size.
+     *
+     * @return
+     */
+    public int getPoolMaxSize() {
+        return poolMaxSize;
+    }
+
+    /**
+     * Returns the time (in milliseconds) to wait for a connection when all the connections
+     * of the internal connection pool are leased.
+     *
+     * @return
+     */
+    public int getPoolAcquireTimeout() {
+        return poolAcquireTimeout;
+    }
+
+    /**
+     * Returns the time (in milliseconds) a connection can stay idle in the internal connection pool
+     * before it is validated on lease.
+     *
+     * @return
+     */
+    public int getPoolValidationIdleTime() {
+        return poolValidationIdleTime;
+    }
+
+    /**
+     * Returns the maximal lifetime (in milliseconds) of a connection of the internal connection pool
+     * (0 means unlimited).
+     *
+     * @return
+     */
+    public int getPoolMaxLifetime() {
+        return poolMaxLifetime;
+    }
+
+    /**
+     * Returns the time (in milliseconds) a connection can be leased from the internal connection pool
+     * before a possible leak is reported (0 means no leak detection).
+     *
+     * @return
+     */
+    public int getPoolLeakDetectionThreshold() {
+        return poolLeakDetectionThreshold;
+    }
+
+    /**
+     * Returns parameter value "return the connection of a call context to the pool on commit or rollback
+     * if no data accessors are open".
+     *
+     * @return
+     */
+    public boolean isConnectionReleaseOnCommit() {
+        return connectionReleaseOnCommit;
+    }
+
+    /**
+     * Returns parameter value "collect statistics of statements executed by cursors".
+     *
+     * @return
+     */
+    public boolean isStatementMetrics() {
+        return statementMetrics;
+    }
+
+    /**
+     * Returns the execution time (in milliseconds) starting from which statements executed by cursors
+     * are logged as slow queries (0 means no slow query logging).
+     *
+     * @return
+     */
+    public int getSlowQueryThreshold() {
+        return slowQueryThreshold;
+    }
+
+    /**
+     * Returns the interval (in milliseconds) between background refreshes of materialized views
+     * with deferred refresh (0 means no background refresh).
+     *
+     * @return
+     */
+    public int getMaterializedViewRefreshInterval() {
+        return materializedViewRefreshInterval;
+    }
+
+    /**
+     * Returns the maximum number of grains updated concurrently during the database upgrade
+     * (0 or 1 means grains are updated one after another).
+     *
+     * @return
+     */
+    public int getDbUpdateParallelism() {
+        return dbUpdateParallelism;
+    }
+
+    /**
+     * Returns the maximum number of grains parsed concurrently on startup
+     * (0 or 1 means grains are parsed one after another).
+     *
+     * @return
+     */
+    public int getScoreParsingParallelism() {
+        return scoreParsingParallelism;
+    }
+
     /**
      * Returns port of H2 DB.
      *
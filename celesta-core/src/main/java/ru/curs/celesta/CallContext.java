@@ -1,6 +1,7 @@
 package ru.curs.celesta;
 
 import ru.curs.celesta.dbutils.BasicDataAccessor;
+import ru.curs.celesta.dbutils.Cursor;
 import ru.curs.celesta.dbutils.ILoggingManager;
 import ru.curs.celesta.dbutils.IPermissionManager;
 import ru.curs.celesta.dbutils.adaptors.DBAdaptor;
@@ -8,14 +9,24 @@ import ru.curs.celesta.score.Score;
 
 import java.sql.Connection;
 import java.sql.SQLException;
-import java.util.Collections;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.WeakHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
 
 /**
  * Call context containing a DB connection carrying a transaction and a user identifier.
+ * <p>
+ * The connection is borrowed from the connection pool on the first request (usually
+ * when the first data accessor is created) and is returned to the pool when the context
+ * is closed, so that contexts that do not access the database do not occupy pool connections.
+ * If {@link ICelesta#isConnectionReleasedOnCommit()} is set, the connection is also returned
+ * to the pool when the transaction is finished and no data accessors are open.
  */
 public class CallContext implements ICallContext {
 
@@ -30,12 +41,13 @@ public class CallContext implements ICallContext {
      */
     public static final int MAX_DATA_ACCESSORS = 1023;
 
-    private static final Map<Connection, Integer> PIDSCACHE = Collections
-            .synchronizedMap(new WeakHashMap<>());
+    private static final Map<Connection, Integer> PIDSCACHE = new WeakHashMap<>();
+    private static final ReentrantLock PIDSCACHE_LOCK = new ReentrantLock();
 
     private final String userId;
 
     private ICelesta celesta;
+    private Connection pooledConn;
     private Connection conn;
     private String procName;
 
@@ -45,6 +57,8 @@ public class CallContext implements ICallContext {
     private long closingTime;
 
     private BasicDataAccessor lastDataAccessor;
+    // Cursors having records added by insertBatch() and not inserted yet, in the order of the first addition
+    private final Set<Cursor> pendingBatches = new LinkedHashSet<>();
 
     private int dataAccessorsCount;
     private State state;
@@ -103,22 +117,47 @@ public class CallContext implements ICallContext {
         this.celesta = celesta;
         this.procName = procName;
         this.state = State.ACTIVE;
-        conn = celesta.getConnectionPool().get();
-        dbPid = PIDSCACHE.computeIfAbsent(conn,
-                getDbAdaptor()::getDBPid);
         startTime = new Date();
         activationTime = System.nanoTime();
     }
 
     /**
-     * Returns active database JDBC connection.
+     * Returns active database JDBC connection, borrowing it from the connection pool if needed.
+     * <p>
+     * If {@link ICelesta#isConnectionReleasedOnCommit()} is set, the connection may be returned
+     * to the pool on {@link #commit()} or {@link #rollback()}, after which it can be leased
+     * by another context. So the returned connection must not be used after the transaction
+     * is finished: this method should be called again instead.
      *
-     * @return
+     * @return {@code null} for not activated or closed context
      */
     public Connection getConn() {
+        if (conn == null && state == State.ACTIVE) {
+            pooledConn = celesta.getConnectionPool().get();
+            int statementCacheSize = celesta.getStatementCacheSize();
+            conn = statementCacheSize > 0
+                    ? new StatementCachingConnection(pooledConn, statementCacheSize) : pooledConn;
+        }
         return conn;
     }
 
+    /**
+     * Returns the connection to the pool if no data accessors use it.
+     */
+    private void releaseConnectionIfIdle() {
+        if (conn != null && dataAccessorsCount == 0) {
+            Connection c = conn;
+            conn = null;
+            pooledConn = null;
+            dbPid = 0;
+            try {
+                c.close();
+            } catch (SQLException e) {
+                throw new CelestaException("Can't release connection", e);
+            }
+        }
+    }
+
     /**
      * Returns name of the current user.
      *
@@ -131,15 +170,27 @@ public class CallContext implements ICallContext {
     /**
      * Commits the current transaction. Will cause error for not-activated or closed context.
      * <p>
+     * Records batched by cursors and log entries buffered within the transaction are written
+     * before the commit, the permission manager is notified after it.
      * Wraps SQLException into CelestaException.
      */
     public void commit() {
         if (state == State.ACTIVE) {
+            flushPendingBatches();
+            celesta.getLoggingManager().flush(this);
+            if (conn == null) {
+                return;
+            }
             try {
                 conn.commit();
             } catch (SQLException e) {
                 throw new CelestaException(
                         String.format("Commit unsuccessful: %s", e.getMessage()), e);
+            } finally {
+                celesta.getPermissionManager().transactionCompleted(this);
+            }
+            if (celesta.isConnectionReleasedOnCommit()) {
+                releaseConnectionIfIdle();
             }
         } else {
             throw new CelestaException("Not active context cannot be committed");
@@ -149,15 +200,24 @@ public class CallContext implements ICallContext {
     /**
      * Rollbacks the current transaction. Does nothing for not-activated context.
      * <p>
+     * Records batched by cursors and log entries buffered within the transaction are discarded,
+     * the permission manager is notified after the rollback.
      * Wraps SQLException into CelestaException.
      */
     public void rollback() {
+        discardPendingBatches();
         if (conn != null) {
+            celesta.getLoggingManager().discard(this);
             try {
                 conn.rollback();
             } catch (SQLException e) {
                 throw new CelestaException(
                         String.format("Rollback unsuccessful: %s", e.getMessage()), e);
+            } finally {
+                celesta.getPermissionManager().transactionCompleted(this);
+            }
+            if (celesta.isConnectionReleasedOnCommit()) {
+                releaseConnectionIfIdle();
             }
         }
     }
@@ -210,6 +270,37 @@ public class CallContext implements ICallContext {
         dataAccessorsCount--;
     }
 
+    /**
+     * Registers a cursor having records added by {@link Cursor#insertBatch()}, so that the records
+     * are inserted before the transaction is committed and discarded on its rollback.
+     *
+     * @param cursor cursor with pending records
+     */
+    public void addPendingBatch(Cursor cursor) {
+        pendingBatches.add(cursor);
+    }
+
+    /**
+     * Unregisters a cursor whose pending records have been inserted or discarded.
+     *
+     * @param cursor cursor without pending records
+     */
+    public void removePendingBatch(Cursor cursor) {
+        pendingBatches.remove(cursor);
+    }
+
+    private void flushPendingBatches() {
+        for (Cursor cursor : new ArrayList<>(pendingBatches)) {
+            cursor.flushBatch();
+        }
+    }
+
+    private void discardPendingBatches() {
+        for (Cursor cursor : new ArrayList<>(pendingBatches)) {
+            cursor.discardBatch();
+        }
+    }
+
     /**
      * Returns the last data accessor object.
      *
@@ -223,20 +314,51 @@ public class CallContext implements ICallContext {
      * Closes all data accessor classes.
      */
     private void closeDataAccessors() {
+        RuntimeException failure = null;
         while (lastDataAccessor != null) {
-            lastDataAccessor.close();
+            try {
+                lastDataAccessor.close();
+            } catch (RuntimeException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
         }
     }
 
     /**
      * Returns Process Id of current connection to the database.
      *
-     * @return
+     * @return {@code 0} for not activated or closed context
      */
     public int getDBPid() {
+        if (dbPid == 0 && getConn() != null) {
+            Integer pid = withPidsCache(() -> PIDSCACHE.get(pooledConn));
+            if (pid == null) {
+                // the query is made outside of the lock
+                pid = getDbAdaptor().getDBPid(pooledConn);
+                final Integer newPid = pid;
+                withPidsCache(() -> PIDSCACHE.put(pooledConn, newPid));
+            }
+            dbPid = pid;
+        }
         return dbPid;
     }
 
+    private static Integer withPidsCache(Supplier<Integer> action) {
+        PIDSCACHE_LOCK.lock();
+        try {
+            return action.get();
+        } finally {
+            PIDSCACHE_LOCK.unlock();
+        }
+    }
+
     /**
      * Returns procedure name that was initially called.
      *
@@ -311,9 +433,33 @@ public class CallContext implements ICallContext {
     @Override
     public final void close() {
         try {
-            closeDataAccessors();
+            try {
+                closeDataAccessors();
+            } catch (RuntimeException e) {
+                // e.g. records batched by a cursor failed to be inserted on its closing,
+                // so the transaction is not committed
+                try {
+                    rollback();
+                } catch (RuntimeException e1) {
+                    e.addSuppressed(e1);
+                }
+                closingTime = System.nanoTime();
+                state = State.CLOSED;
+                throw e;
+            }
             if (conn != null) {
-                conn.close();
+                // closing of a pooled connection commits the transaction
+                try {
+                    celesta.getLoggingManager().flush(this);
+                } finally {
+                    try {
+                        conn.close();
+                    } finally {
+                        conn = null;
+                        pooledConn = null;
+                        celesta.getPermissionManager().transactionCompleted(this);
+                    }
+                }
             }
             if (celesta != null) {
                 celesta.getProfiler().logCall(this);
@@ -4,6 +4,7 @@ import ru.curs.celesta.dbutils.ILoggingManager;
 import ru.curs.celesta.dbutils.IPermissionManager;
 import ru.curs.celesta.dbutils.IProfiler;
 import ru.curs.celesta.dbutils.adaptors.DBAdaptor;
+import ru.curs.celesta.dbutils.stmt.StatementListener;
 import ru.curs.celesta.event.TriggerDispatcher;
 import ru.curs.celesta.score.Score;
 
@@ -69,4 +70,44 @@ public interface ICelesta extends AutoCloseable {
      */
     DBAdaptor getDBAdaptor();
 
+    /**
+     * Whether a call context returns its connection to the pool on commit or rollback
+     * if no data accessors are open.
+     *
+     * @return
+     */
+    default boolean isConnectionReleasedOnCommit() {
+        return false;
+    }
+
+    /**
+     * Returns maximal number of idle prepared statements kept per connection of a call context.
+     * Zero value means that statements are not cached.
+     *
+     * @return
+     */
+    default int getStatementCacheSize() {
+        return 0;
+    }
+
+    /**
+     * Returns default number of records fetched from the DB at a time while iterating cursors.
+     * Zero value means that the JDBC driver's default is used.
+     *
+     * @return
+     */
+    default int getFetchSize() {
+        return 0;
+    }
+
+    /**
+     * Returns listener of statements prepared and executed by cursors.
+     * {@code null} value means that statements are not reported.
+     *
+     * @return
+     */
+    default StatementListener getStatementListener() {
+        return null;
+    }
+
 }
@@ -50,21 +50,28 @@ import ru.curs.celesta.dbutils.stmt.MaskedStatementHolder;
 import ru.curs.celesta.dbutils.stmt.ParameterSetter;
 import ru.curs.celesta.dbutils.stmt.PreparedStatementHolderFactory;
 import ru.curs.celesta.dbutils.stmt.PreparedStmtHolder;
+import ru.curs.celesta.dbutils.stmt.StatementInfo;
+import ru.curs.celesta.dbutils.stmt.StatementKind;
+import ru.curs.celesta.dbutils.stmt.StatementListener;
 import ru.curs.celesta.dbutils.term.FromTerm;
 import ru.curs.celesta.dbutils.term.WhereMakerParamsProvider;
 import ru.curs.celesta.dbutils.term.WhereTerm;
 import ru.curs.celesta.dbutils.term.WhereTermsMaker;
+import ru.curs.celesta.score.BinaryColumn;
 import ru.curs.celesta.score.CelestaParser;
 import ru.curs.celesta.score.ColumnMeta;
 import ru.curs.celesta.score.DataGrainElement;
 import ru.curs.celesta.score.Expr;
 import ru.curs.celesta.score.ParseException;
+import ru.curs.celesta.score.VersionedElement;
 
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Calendar;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -74,6 +81,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TimeZone;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -118,7 +126,8 @@ public abstract class BasicCursor extends BasicDataAccessor {
             () -> BasicCursor.this.getOrderBy(),
             () -> BasicCursor.this.offset,
             () -> BasicCursor.this.rowCount,
-            () -> BasicCursor.this.fieldsForStatement
+            () -> BasicCursor.this.fieldsForStatement,
+            () -> BasicCursor.this.fetchSize
     );
 
     final PreparedStmtHolder count = new PreparedStmtHolder() {
@@ -208,6 +217,25 @@ public abstract class BasicCursor extends BasicDataAccessor {
 
     };
 
+    final PreparedStmtHolder page = new OrderFieldsMaskedStatementHolder() {
+        @Override
+        protected PreparedStatement initStatement(List<ParameterSetter> program) {
+            FromClause from = getFrom();
+
+            if (fromTerm == null) {
+                fromTerm = new FromTerm(from.getParameters());
+            }
+
+            WhereTerm where = qmaker.getWhereTerm('>');
+            fromTerm.programParams(program, db());
+            where.programParams(program, db());
+            return db().getRecordSetStatement(
+                    conn(), from, where.getWhere(), getOrderBy(), 0, pageSize, fieldsForStatement, fetchSize
+            );
+        }
+
+    };
+
     final PreparedStmtHolder here = getHereHolder();
 
     final PreparedStmtHolder first = new PreparedStmtHolder() {
@@ -256,7 +284,15 @@ public abstract class BasicCursor extends BasicDataAccessor {
     private long offset = 0;
     private long navigationOffset = 0;
     private long rowCount = 0;
+    private long pageSize = 0;
     private Expr complexFilter;
+    private int fetchSize;
+
+    // Column positions in the result set of the last parsed statement
+    private Statement columnPositionsStatement;
+    private Set<String> columnPositionsFields;
+    private int[] columnPositions;
+    private Calendar utcCalendar;
 
     private final WhereTermsMaker qmaker = new WhereTermsMaker(new WhereMakerParamsProvider() {
 
@@ -315,6 +351,10 @@ public abstract class BasicCursor extends BasicDataAccessor {
 
     public BasicCursor(CallContext context) {
         super(context);
+        fetchSize = context.getCelesta().getFetchSize();
+        listenStatements(StatementKind.SET, set, page);
+        listenStatements(StatementKind.COUNT, count, position);
+        listenStatements(StatementKind.NAVIGATION, forwards, backwards, here, first, last);
     }
 
     public BasicCursor(CallContext context, Set<String> fields) {
@@ -344,6 +384,22 @@ public abstract class BasicCursor extends BasicDataAccessor {
         }
     }
 
+    /**
+     * Sets the statement listener of the Celesta instance (if any) to statement holders of the cursor.
+     *
+     * @param kind     kind of the holders' statements
+     * @param holders  statement holders
+     */
+    final void listenStatements(StatementKind kind, PreparedStmtHolder... holders) {
+        StatementListener listener = callContext().getCelesta().getStatementListener();
+        if (listener != null) {
+            StatementInfo info = new StatementInfo(meta().getGrain().getName() + "." + meta().getName(), kind);
+            for (PreparedStmtHolder holder : holders) {
+                holder.setStatementListener(listener, info, callContext()::getProcName);
+            }
+        }
+    }
+
     @SuppressWarnings("unchecked")
     static Class<? extends BasicCursor> getCursorClass(DataGrainElement element) throws ClassNotFoundException {
         final String namespace = element.getGrain().getNamespace().getValue();
@@ -386,7 +442,7 @@ public abstract class BasicCursor extends BasicDataAccessor {
     @Override
     protected void closeInternal() {
         super.closeInternal();
-        closeStatements(set, forwards, backwards, here, first, last, count, position);
+        closeStatements(set, page, forwards, backwards, here, first, last, count, position);
     }
 
     final Map<String, AbstractFilter> getFilters() {
@@ -447,6 +503,7 @@ public abstract class BasicCursor extends BasicDataAccessor {
     protected final void closeSet() {
         cursor = null;
         set.close();
+        page.close();
         forwards.close();
         backwards.close();
         first.close();
@@ -530,6 +587,42 @@ public abstract class BasicCursor extends BasicDataAccessor {
         }
 
         PreparedStatement ps = set.getStatement(_currentValues(), 0);
+        return openSet(ps);
+    }
+
+    /**
+     * Moves to the first of at most {@code pageSize} records following the current record
+     * in the filtered and sorted data set. The rest of the page records are iterated
+     * with {@link #nextInSet()}.
+     * <p>
+     * Unlike {@link #limit(long, long)}, records preceding the page are not scanned by the DB:
+     * the page is looked up by the values of the sort fields of the current record (keyset pagination).
+     * Hence the sort order has to identify records uniquely, which is always the case for tables,
+     * as their sorting includes primary key fields. Limits set with {@link #limit(long, long)}
+     * are not taken into account.
+     *
+     * @param pageSize  maximal number of records in the page
+     * @return {@code true} if the transition was successful,
+     * {@code false} if there are no records following the current one.
+     */
+    @SuppressWarnings("HiddenField")
+    public final boolean pageAfter(long pageSize) {
+        if (!canRead()) {
+            throw new PermissionDeniedException(callContext(), meta(), Action.READ);
+        }
+        if (pageSize <= 0) {
+            throw new CelestaException("Invalid page size (%d) in pageAfter(...) call", pageSize);
+        }
+
+        if (this.pageSize != pageSize) {
+            this.pageSize = pageSize;
+            page.close();
+        }
+        PreparedStatement ps = page.getStatement(_currentValues(), 0);
+        return openSet(ps);
+    }
+
+    private boolean openSet(PreparedStatement ps) {
         boolean result;
         try {
             if (cursor != null) {
@@ -1015,6 +1108,33 @@ public abstract class BasicCursor extends BasicDataAccessor {
         closeSet();
     }
 
+    /**
+     * Sets the number of records fetched from the DB at a time while iterating
+     * the records set with {@link #nextInSet()}. A positive value lets large data sets
+     * be read without loading all the records into memory.
+     *
+     * @param fetchSize  number of records (0 - the JDBC driver's default)
+     */
+    @SuppressWarnings("HiddenField")
+    public final void setFetchSize(int fetchSize) {
+        if (fetchSize < 0) {
+            throw new CelestaException("Negative fetch size (%d)", fetchSize);
+        }
+        if (this.fetchSize != fetchSize) {
+            this.fetchSize = fetchSize;
+            closeSet();
+        }
+    }
+
+    /**
+     * Returns the number of records fetched from the DB at a time while iterating the records set.
+     *
+     * @return
+     */
+    public final int getFetchSize() {
+        return fetchSize;
+    }
+
     /**
      * Resets filters and sorting.
      */
@@ -1294,6 +1414,15 @@ public abstract class BasicCursor extends BasicDataAccessor {
     public final void setValue(String name, Object value) {
         validateColumnName(name);
         _setFieldValue(name, value);
+        fieldValueSet(name);
+    }
+
+    /**
+     * Is called after a field value has been set via {@link #setValue(String, Object)}.
+     *
+     * @param name field name
+     */
+    void fieldValueSet(String name) {
     }
 
     /**
@@ -1312,6 +1441,51 @@ public abstract class BasicCursor extends BasicDataAccessor {
         return fieldsForStatement.isEmpty() || fieldsForStatement.contains(field);
     }
 
+    /**
+     * Returns positions of the columns in the result set, in the order of the columns
+     * of the data element. The position is 0 for the columns that are not selected
+     * (see {@link #inRec(String)}) and for BLOB columns. For versioned elements the last item
+     * is the position of the record version. Positions are resolved once per statement.
+     *
+     * @param rs result set
+     * @return
+     * @throws SQLException if a selected column is not found in the result set
+     */
+    protected final int[] getColumnPositions(ResultSet rs) throws SQLException {
+        Statement stmt = rs.getStatement();
+        if (columnPositions == null || stmt == null || stmt != columnPositionsStatement
+                || columnPositionsFields != fieldsForStatement) {
+            DataGrainElement ge = meta();
+            int[] result = new int[ge.getColumns().size() + 1];
+            int i = 0;
+            for (Map.Entry<String, ? extends ColumnMeta<?>> e : ge.getColumns().entrySet()) {
+                if (!BinaryColumn.CELESTA_TYPE.equals(e.getValue().getCelestaType()) && inRec(e.getKey())) {
+                    result[i] = rs.findColumn(e.getKey());
+                }
+                i++;
+            }
+            if (ge instanceof VersionedElement && ((VersionedElement) ge).isVersioned()) {
+                result[i] = rs.findColumn(VersionedElement.REC_VERSION);
+            }
+            columnPositions = result;
+            columnPositionsStatement = stmt;
+            columnPositionsFields = fieldsForStatement;
+        }
+        return columnPositions;
+    }
+
+    /**
+     * Returns a calendar of UTC time zone for reading timestamps with time zone.
+     *
+     * @return
+     */
+    protected final Calendar getUtcCalendar() {
+        if (utcCalendar == null) {
+            utcCalendar = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        }
+        return utcCalendar;
+    }
+
     /**
      * Returns In condition.
      */
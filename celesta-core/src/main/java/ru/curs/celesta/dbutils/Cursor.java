@@ -44,6 +44,7 @@ import ru.curs.celesta.dbutils.stmt.MaskedStatementHolder;
 import ru.curs.celesta.dbutils.stmt.ParameterSetter;
 import ru.curs.celesta.dbutils.stmt.PreparedStatementHolderFactory;
 import ru.curs.celesta.dbutils.stmt.PreparedStmtHolder;
+import ru.curs.celesta.dbutils.stmt.StatementKind;
 import ru.curs.celesta.dbutils.term.WhereTerm;
 import ru.curs.celesta.dbutils.term.WhereTermsMaker;
 import ru.curs.celesta.event.TriggerType;
@@ -57,11 +58,14 @@ import ru.curs.celesta.score.Table;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.sql.BatchUpdateException;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
@@ -74,11 +78,20 @@ import java.util.stream.Collectors;
  */
 public abstract class Cursor extends BasicCursor implements InFilterSupport {
 
+    /**
+     * Default number of records accumulated by {@link #insertBatch()} before
+     * they are automatically sent to the database.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
     final MaskedStatementHolder insert = PreparedStatementHolderFactory.createInsertHolder(meta(), db(), conn());
+    final MaskedStatementHolder insertIfAbsent = PreparedStatementHolderFactory.createInsertIfAbsentHolder(
+            meta(), db(), conn()
+    );
     final CursorGetHelper getHelper;
     boolean[] updateMask = null;
     boolean[] nullUpdateMask = null;
-    final PreparedStmtHolder update = PreparedStatementHolderFactory.createUpdateHolder(
+    final MaskedStatementHolder update = PreparedStatementHolderFactory.createUpdateHolder(
             meta(), db(), conn(), () -> updateMask, () -> nullUpdateMask
     );
     final PreparedStmtHolder delete = new PreparedStmtHolder() {
@@ -104,8 +117,16 @@ public abstract class Cursor extends BasicCursor implements InFilterSupport {
 
     };
     private byte canOptimizeInsertion;
+    private byte canInsertIfAbsent;
+    private byte canUpdateBlindly;
     private Cursor xRec;
     private int recversion;
+    // Records pending for batch insertion, in the order they were added
+    private final List<Object[]> batch = new ArrayList<>();
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    // Fields set since the buffer was last synchronized with the database
+    private final BitSet modifiedFields = new BitSet();
+    private boolean blindUpdate;
 
     public Cursor(CallContext context) {
         super(context);
@@ -117,6 +138,7 @@ public abstract class Cursor extends BasicCursor implements InFilterSupport {
 
         getHelper = cghb.build();
         inFilterHolder = new InFilterHolder(this);
+        listenCursorStatements();
     }
 
     public Cursor(CallContext context, ColumnMeta<?>... columns) {
@@ -135,6 +157,14 @@ public abstract class Cursor extends BasicCursor implements InFilterSupport {
 
         getHelper = cghb.build();
         inFilterHolder = new InFilterHolder(this);
+        listenCursorStatements();
+    }
+
+    private void listenCursorStatements() {
+        listenStatements(StatementKind.INSERT, insert, insertIfAbsent);
+        listenStatements(StatementKind.UPDATE, update);
+        listenStatements(StatementKind.DELETE, delete, deleteAll);
+        listenStatements(StatementKind.GET, getHelper.getHolder());
     }
 
     /**
@@ -176,11 +206,16 @@ public abstract class Cursor extends BasicCursor implements InFilterSupport {
 
     @Override
     protected void closeInternal() {
-        super.closeInternal();
-        if (xRec != null) {
-            xRec.close();
+        try {
+            flushBatch();
+        } finally {
+            discardBatch();
+            super.closeInternal();
+            if (xRec != null) {
+                xRec.close();
+            }
+            closeStatements(getHelper.getHolder(), insert, insertIfAbsent, delete, update);
         }
-        closeStatements(getHelper.getHolder(), insert, delete, update);
     }
 
     /**
@@ -207,49 +242,29 @@ public abstract class Cursor extends BasicCursor implements InFilterSupport {
         preInsert();
 
         try {
-            //Pre-insertion select: we need to check if the record already exists
-            //and if it does, populate the cursor's XRec with the existing values
-            //and return `false`.
-            //However, in case when we have a null value for auto-incremented PK,
-            //we are guaranteed to insert a fresh record, so this can be skipped.
-            if (!canOptimizeInsertion()) {
-                try (PreparedStatement g = getHelper.prepareGet(recversion, _currentKeyValues());
-                     ResultSet rs = g.executeQuery()) {
-                    if (rs.next()) {
-                        getXRec()._parseResult(rs);
-                        //transmit recversion from xRec to rec for possible future
-                        //record update
-                        if (getRecversion() == 0) {
-                            setRecversion(xRec.getRecversion());
-                        }
-                        return false;
-                    }
-                }
-            }
-
-            PreparedStatement ins = insert.getStatement(_currentValues(), recversion);
-
-            ILoggingManager loggingManager = callContext().getLoggingManager();
-            if (ins.execute()) {
-                loggingManager.log(this, Action.INSERT);
-                try (ResultSet ret = ins.getResultSet()) {
-                    ret.next();
-                    int id = ret.getInt(1);
-                    _setAutoIncrement(id);
+            if (canInsertIfAbsent()) {
+                //Insertion that skips an existing record: the existence check and the insertion
+                //are performed by a single statement, and only if the record already exists
+                //we need to select it in order to populate the cursor's XRec.
+                PreparedStatement ins = insertIfAbsent.getStatement(_currentValues(), recversion);
+                if (ins.executeUpdate() == 0) {
+                    readExistingRecord();
+                    return false;
                 }
+                callContext().getLoggingManager().log(this, Action.INSERT);
             } else {
-                loggingManager.log(this, Action.INSERT);
-                meta().getAutoincrementedColumn().ifPresent(
-                        // Post-insertion select to get the value of auto-incremented field.
-                        // NB: this is currently needed only for Oracle (in all the cases)
-                        // and MS SQL Server (for the case when there are MViews for the table,
-                        // as insert..output does not work in MS SQL in this scenario).
-                        // In all other scenarios, we are using the value returned by the
-                        // insertion command (like select..returning in PostgreSQL).
-                        ic -> _setAutoIncrement(db().getCurrentIdent(conn(), meta())));
+                //Pre-insertion select: we need to check if the record already exists
+                //and if it does, populate the cursor's XRec with the existing values
+                //and return `false`.
+                //However, in case when we have a null value for auto-incremented PK,
+                //we are guaranteed to insert a fresh record, so this can be skipped.
+                if (!canOptimizeInsertion() && readExistingRecord()) {
+                    return false;
+                }
+                executeInsert();
             }
 
-            getHelper.internalGet(this::_parseResultInternal, Optional.of(this::initXRec),
+            getHelper.internalGet(this::_parseResultInternal, Optional.of(this::syncXRec),
                     recversion, _currentKeyValues());
 
             postInsert();
@@ -260,6 +275,229 @@ public abstract class Cursor extends BasicCursor implements InFilterSupport {
         return true;
     }
 
+    /**
+     * Adds current cursor content to the batch of records to be inserted.
+     * <p>
+     * Records are sent to the database with JDBC statement batching in the order they
+     * were added, when {@link #flushBatch()} is called, when the number of pending records
+     * reaches the batch size, when the cursor is closed or when the call context's transaction
+     * is committed. Pending records are discarded when the transaction is rolled back.
+     * Unlike {@link #tryInsert()}, no
+     * pre-insertion select is performed, so an attempt to insert an already existing
+     * record causes an error on flush. PRE_INSERT triggers are fired immediately,
+     * POST_INSERT triggers and logging are performed after the batch is executed.
+     * <p>
+     * For tables with an auto-incremented column the record is inserted immediately
+     * (as with {@link #insert()}), since the generated value has to be returned
+     * to the cursor.
+     */
+    public final void insertBatch() {
+        if (!canInsert()) {
+            throw new PermissionDeniedException(callContext(), meta(), Action.INSERT);
+        }
+        if (meta().getAutoincrementedColumn().isPresent()) {
+            insert();
+            return;
+        }
+
+        preInsert();
+
+        if (batch.isEmpty()) {
+            callContext().addPendingBatch(this);
+        }
+        batch.add(_currentValues());
+        if (batch.size() >= batchSize) {
+            flushBatch();
+        }
+    }
+
+    /**
+     * Inserts into the DB all the records accumulated by {@link #insertBatch()}.
+     * <p>
+     * Consecutive records with the same nulls mask are sent with a single JDBC batch, so records
+     * that alternate null values of some fields are inserted one by one. The records are not
+     * regrouped by nulls masks in order to keep the order of insertion.
+     * Logging and POST_INSERT triggers are performed after each JDBC batch is executed,
+     * so if a batch fails, the records inserted by the preceding batches are already
+     * processed, and the exception identifies the records that were not inserted.
+     * The records that follow the failed batch are discarded.
+     *
+     * @return number of inserted records.
+     */
+    public final int flushBatch() {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        List<Object[]> records = new ArrayList<>(batch);
+        discardBatch();
+
+        ILoggingManager loggingManager = callContext().getLoggingManager();
+        String[] columnNames = meta().getColumns().keySet().toArray(new String[0]);
+        Cursor rec = (Cursor) _getBufferCopy(callContext(), null);
+        try {
+            int from = 0;
+            while (from < records.size()) {
+                int to = from + 1;
+                while (to < records.size() && haveSameNulls(records.get(from), records.get(to))) {
+                    to++;
+                }
+                List<Object[]> inserted = records.subList(from, to);
+                executeBatchInsert(inserted);
+                for (Object[] values : inserted) {
+                    for (int i = 0; i < columnNames.length; i++) {
+                        rec._setFieldValue(columnNames[i], values[i]);
+                    }
+                    loggingManager.log(rec, Action.INSERT);
+                    rec.postInsert();
+                }
+                from = to;
+            }
+        } finally {
+            rec.close();
+        }
+        return records.size();
+    }
+
+    /**
+     * Discards all the records accumulated by {@link #insertBatch()} without inserting them.
+     */
+    public final void discardBatch() {
+        batch.clear();
+        callContext().removePendingBatch(this);
+    }
+
+    private void executeBatchInsert(List<Object[]> records) {
+        PreparedStatement ins = null;
+        int[] counts;
+        try {
+            for (Object[] values : records) {
+                // all the records share the same nulls mask, so they share the statement
+                ins = insert.getStatement(values, 0);
+                ins.addBatch();
+            }
+            counts = ins.executeBatch();
+        } catch (SQLException e) {
+            if (ins != null) {
+                try {
+                    ins.clearBatch();
+                } catch (SQLException e1) {
+                    e.addSuppressed(e1);
+                }
+            }
+            int[] executed = e instanceof BatchUpdateException
+                    ? ((BatchUpdateException) e).getUpdateCounts() : null;
+            throw new CelestaException(String.format("Batch insert into %s.%s failure, records %s are not inserted: %s",
+                    meta().getGrain().getName(), meta().getName(), describeFailed(records, executed),
+                    e.getMessage()), e);
+        }
+        for (int i = 0; i < records.size(); i++) {
+            if (i >= counts.length || counts[i] == 0 || counts[i] == Statement.EXECUTE_FAILED) {
+                throw new CelestaException(String.format(
+                        "Batch insert into %s.%s failure, records %s are not inserted",
+                        meta().getGrain().getName(), meta().getName(), describeFailed(records, counts)));
+            }
+        }
+    }
+
+    /**
+     * Lists primary keys of the records whose update counts don't indicate success.
+     * All the records are listed if the update counts are unknown.
+     */
+    private String describeFailed(List<Object[]> records, int[] counts) {
+        List<String> columnNames = new ArrayList<>(meta().getColumns().keySet());
+        int[] keyIndices = meta().getPrimaryKey().keySet().stream().mapToInt(columnNames::indexOf).toArray();
+        List<String> failed = new ArrayList<>();
+        for (int i = 0; i < records.size(); i++) {
+            if (counts == null || i >= counts.length || counts[i] == 0 || counts[i] == Statement.EXECUTE_FAILED) {
+                Object[] values = records.get(i);
+                failed.add(Arrays.toString(Arrays.stream(keyIndices).mapToObj(k -> values[k]).toArray()));
+            }
+        }
+        return String.join(", ", failed);
+    }
+
+    private static boolean haveSameNulls(Object[] values1, Object[] values2) {
+        for (int i = 0; i < values1.length; i++) {
+            if ((values1[i] == null) != (values2[i] == null)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Sets the number of records accumulated by {@link #insertBatch()} before
+     * they are automatically flushed to the DB.
+     *
+     * @param batchSize batch size (should be positive).
+     */
+    @SuppressWarnings("HiddenField")
+    public final void setBatchSize(int batchSize) {
+        if (batchSize <= 0) {
+            throw new CelestaException("Invalid batch size: %d, should be positive", batchSize);
+        }
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Returns the number of records accumulated by {@link #insertBatch()} and not yet
+     * flushed to the DB.
+     *
+     * @return
+     */
+    public final int getBatchCount() {
+        return batch.size();
+    }
+
+    private boolean readExistingRecord() throws SQLException {
+        try (PreparedStatement g = getHelper.prepareGet(recversion, _currentKeyValues());
+             ResultSet rs = g.executeQuery()) {
+            if (rs.next()) {
+                getXRec()._parseResult(rs);
+                //transmit recversion from xRec to rec for possible future
+                //record update
+                if (getRecversion() == 0) {
+                    setRecversion(xRec.getRecversion());
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void executeInsert() throws SQLException {
+        PreparedStatement ins = insert.getStatement(_currentValues(), recversion);
+
+        ILoggingManager loggingManager = callContext().getLoggingManager();
+        if (ins.execute()) {
+            loggingManager.log(this, Action.INSERT);
+            try (ResultSet ret = ins.getResultSet()) {
+                ret.next();
+                int id = ret.getInt(1);
+                _setAutoIncrement(id);
+            }
+        } else {
+            loggingManager.log(this, Action.INSERT);
+            meta().getAutoincrementedColumn().ifPresent(
+                    // Post-insertion select to get the value of auto-incremented field.
+                    // NB: this is currently needed only for Oracle (in all the cases)
+                    // and MS SQL Server (for the case when there are MViews for the table,
+                    // as insert..output does not work in MS SQL in this scenario).
+                    // In all other scenarios, we are using the value returned by the
+                    // insertion command (like select..returning in PostgreSQL).
+                    ic -> _setAutoIncrement(db().getCurrentIdent(conn(), meta())));
+        }
+    }
+
+    final boolean canInsertIfAbsent() {
+        /*Single-statement insertion is possible when the adaptor supports it for the table
+         * and all the key values are known.*/
+        if (canInsertIfAbsent == 0) {
+            canInsertIfAbsent = db().supportsInsertIfAbsent(meta()) ? (byte) 2 : (byte) 1;
+        }
+        return canInsertIfAbsent == 2 && Arrays.stream(_currentKeyValues()).allMatch(Objects::nonNull);
+    }
+
     final boolean canOptimizeInsertion() {
         /*If the only key value is an auto-incremented integer,
          * and the inserted value is null, then we can skip the selection phase.*/
@@ -304,58 +542,59 @@ public abstract class Cursor extends BasicCursor implements InFilterSupport {
         }
 
         preUpdate();
-        PreparedStatement g = getHelper.prepareGet(recversion, _currentKeyValues());
+        Object[] values = _currentValues();
+        boolean[] myMask = blindUpdate ? getBlindUpdateMask(values) : null;
+        boolean[] myNullsMask = new boolean[values.length];
+        for (int i = 0; i < values.length; i++) {
+            myNullsMask[i] = values[i] == null;
+        }
         try {
-            try (ResultSet rs = g.executeQuery()) {
-                if (!rs.next()) {
-                    return false;
-                }
-                // Прочитали из базы данных значения -- обновляем xRec
-                if (xRec == null) {
-                    xRec = (Cursor) _getBufferCopy(callContext(), null);
-                    // Вопрос на будущее: эта строчка должна быть здесь или за
-                    // фигурной скобкой? (проблема совместной работы над базой)
-                    xRec._parseResult(rs);
+            if (myMask == null) {
+                PreparedStatement g = getHelper.prepareGet(recversion, _currentKeyValues());
+                try (ResultSet rs = g.executeQuery()) {
+                    if (!rs.next()) {
+                        return false;
+                    }
+                    // Прочитали из базы данных значения -- обновляем xRec
+                    if (xRec == null) {
+                        xRec = (Cursor) _getBufferCopy(callContext(), null);
+                        // Вопрос на будущее: эта строчка должна быть здесь или за
+                        // фигурной скобкой? (проблема совместной работы над базой)
+                        xRec._parseResult(rs);
+                    }
                 }
-            }
 
-            Object[] values = _currentValues();
-            Object[] xValues = getXRec()._currentValues();
-            // Маска: true для тех случаев, когда поле не было изменено
-            boolean[] myMask = new boolean[values.length];
-            boolean[] myNullsMask = new boolean[values.length];
-            boolean notChanged = true;
-            for (int i = 0; i < values.length; i++) {
-                myMask[i] = compareValues(values[i], xValues[i]);
-                notChanged &= myMask[i];
-                myNullsMask[i] = values[i] == null;
-            }
-            // Если ничего не изменилось -- выполнять дальнейшие действия нет
-            // необходимости
-            if (notChanged) {
-                return true;
-            }
+                Object[] xValues = getXRec()._currentValues();
+                // Маска: true для тех случаев, когда поле не было изменено
+                myMask = new boolean[values.length];
+                boolean notChanged = true;
+                for (int i = 0; i < values.length; i++) {
+                    myMask[i] = compareValues(values[i], xValues[i]);
+                    notChanged &= myMask[i];
+                }
+                // Если ничего не изменилось -- выполнять дальнейшие действия нет
+                // необходимости
+                if (notChanged) {
+                    return true;
+                }
 
-            if (!(Arrays.equals(myMask, updateMask) && Arrays.equals(myNullsMask, nullUpdateMask))) {
-                update.close();
-                updateMask = myMask;
-                nullUpdateMask = myNullsMask;
-            }
+                // for a completely new record
+                if (getRecversion() == 0) {
+                    setRecversion(xRec.getRecversion());
+                }
 
-            // for a completely new record
-            if (getRecversion() == 0) {
-                setRecversion(xRec.getRecversion());
+                executeUpdate(values, myMask, myNullsMask);
+            } else if (executeUpdate(values, myMask, myNullsMask) == 0) {
+                // Blind update: the record does not exist
+                return false;
             }
 
-            PreparedStatement upd = update.getStatement(values, recversion);
-
-            upd.execute();
             ILoggingManager loggingManager = callContext().getLoggingManager();
             loggingManager.log(this, Action.MODIFY);
             if (meta().isVersioned()) {
                 recversion++;
             }
-            this.initXRec();
+            this.syncXRec();
             postUpdate();
 
         } catch (SQLException e) {
@@ -372,6 +611,93 @@ public abstract class Cursor extends BasicCursor implements InFilterSupport {
         return true;
     }
 
+    /**
+     * Builds the update mask out of the fields modified since the last synchronization
+     * of the buffer with the DB, so that the record can be updated without reading it
+     * first. Absence of the record is then detected by the row count, and concurrent
+     * modification of a versioned record is reported by the recversion check trigger.
+     *
+     * @param values current field values
+     * @return update mask or {@code null} if the record has to be read before the update
+     */
+    private boolean[] getBlindUpdateMask(Object[] values) {
+        // Without a known record version the pre-update SELECT is the only way to obtain it
+        if (recversion == 0 && meta().isVersioned() || !canUpdateBlindly()) {
+            return null;
+        }
+        boolean[] result = new boolean[values.length];
+        boolean notChanged = true;
+        int i = 0;
+        for (String columnName : meta().getColumns().keySet()) {
+            boolean modified = modifiedFields.get(i)
+                    || values[i] instanceof BLOB && ((BLOB) values[i]).isModified();
+            result[i] = !modified;
+            notChanged &= !modified || meta().getPrimaryKey().containsKey(columnName);
+            i++;
+        }
+        // Only key fields were set: the SET clause would be empty
+        return notChanged ? null : result;
+    }
+
+    private boolean canUpdateBlindly() {
+        if (canUpdateBlindly == 0) {
+            canUpdateBlindly = db().supportsBlindUpdate(meta()) ? (byte) 2 : (byte) 1;
+        }
+        // Old values of the record are logged and passed to POST_UPDATE triggers via xRec
+        return canUpdateBlindly == 2
+                && !callContext().getCelesta().getTriggerDispatcher().hasTriggers(TriggerType.POST_UPDATE, getClass())
+                && !callContext().getLoggingManager().isLoggingNeeded(this, Action.MODIFY);
+    }
+
+    private int executeUpdate(Object[] values, boolean[] myMask, boolean[] myNullsMask) throws SQLException {
+        // The holder keeps statements prepared for recently used masks
+        updateMask = myMask;
+        nullUpdateMask = myNullsMask;
+        PreparedStatement upd = update.getStatement(values, recversion);
+        return upd.executeUpdate();
+    }
+
+    /**
+     * Turns the blind update mode on or off. In this mode {@link #tryUpdate()} does
+     * not read the record before updating it: only the fields set since the buffer
+     * was last read from or written to the DB are updated. For versioned tables the mode
+     * applies only when the record version is known, i.e. the record has been read by
+     * this cursor before. Records are read before the update anyway if the old values
+     * are needed, i.e. when modification of the table is logged or POST_UPDATE triggers
+     * are registered for the cursor, and if the DB adaptor doesn't support blind updates
+     * of the table (MS SQL Server tables with materialized views).
+     *
+     * @param blindUpdate {@code true} to update records without reading them first
+     */
+    @SuppressWarnings("HiddenField")
+    public final void setBlindUpdate(boolean blindUpdate) {
+        this.blindUpdate = blindUpdate;
+    }
+
+    /**
+     * Whether the blind update mode is on.
+     *
+     * @return
+     */
+    public final boolean isBlindUpdate() {
+        return blindUpdate;
+    }
+
+    /**
+     * Marks a field as modified since the last synchronization of the buffer with the DB.
+     * Is called by the setters of generated cursors.
+     *
+     * @param columnIndex index of the column in the table
+     */
+    protected final void markModified(int columnIndex) {
+        modifiedFields.set(columnIndex);
+    }
+
+    @Override
+    final void fieldValueSet(String name) {
+        markModified(meta().getColumnIndex(name));
+    }
+
     /**
      * Compares the values in order to find: what exactly was changed in the record.
      *
@@ -404,7 +730,7 @@ public abstract class Cursor extends BasicCursor implements InFilterSupport {
             del.execute();
             ILoggingManager loggingManager = callContext().getLoggingManager();
             loggingManager.log(this, Action.DELETE);
-            this.initXRec();
+            this.syncXRec();
             postDelete();
         } catch (SQLException e) {
             throw new CelestaException(e.getMessage(), e);
@@ -419,6 +745,15 @@ public abstract class Cursor extends BasicCursor implements InFilterSupport {
         }
     }
 
+    /**
+     * Is called when the buffer matches the DB record: refreshes xRec
+     * and resets modifications.
+     */
+    private void syncXRec() {
+        initXRec();
+        modifiedFields.clear();
+    }
+
     /**
      * Deletes all records that were caught by current filter.
      */
@@ -468,7 +803,7 @@ public abstract class Cursor extends BasicCursor implements InFilterSupport {
         if (!canRead()) {
             throw new PermissionDeniedException(callContext(), meta(), Action.READ);
         }
-        return getHelper.internalGet(this::_parseResultInternal, Optional.of(this::initXRec),
+        return getHelper.internalGet(this::_parseResultInternal, Optional.of(this::syncXRec),
                 recversion, values);
     }
 
@@ -482,7 +817,7 @@ public abstract class Cursor extends BasicCursor implements InFilterSupport {
         if (!canRead()) {
             throw new PermissionDeniedException(callContext(), meta(), Action.READ);
         }
-        return getHelper.internalGet(this::_parseResultInternal, Optional.of(this::initXRec),
+        return getHelper.internalGet(this::_parseResultInternal, Optional.of(this::syncXRec),
                 recversion, _currentKeyValues());
     }
 
@@ -595,6 +930,7 @@ public abstract class Cursor extends BasicCursor implements InFilterSupport {
             xRec.close();
         }
         xRec = null;
+        modifiedFields.clear();
     }
 
     /**
@@ -635,6 +971,7 @@ public abstract class Cursor extends BasicCursor implements InFilterSupport {
             xRec.close();
         }
         xRec = null;
+        modifiedFields.clear();
     }
 
     /**
@@ -699,7 +1036,7 @@ public abstract class Cursor extends BasicCursor implements InFilterSupport {
     @Override
     protected void _parseResult(ResultSet rs) throws SQLException {
         this._parseResultInternal(rs);
-        this.initXRec();
+        this.syncXRec();
     }
 
     private void preDelete() {
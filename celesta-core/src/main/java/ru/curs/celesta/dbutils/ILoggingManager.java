@@ -1,6 +1,36 @@
 package ru.curs.celesta.dbutils;
 
+import ru.curs.celesta.CallContext;
+
 public interface ILoggingManager {
 
     void log(Cursor c, Action a);
+
+    /**
+     * Whether the action on the cursor's table is logged.
+     *
+     * @param c  cursor
+     * @param a  action
+     */
+    default boolean isLoggingNeeded(Cursor c, Action a) {
+        return true;
+    }
+
+    /**
+     * Writes log entries buffered for the call context to the DB using
+     * the context's connection. Is called before the context's transaction is committed.
+     *
+     * @param context  call context
+     */
+    default void flush(CallContext context) {
+    }
+
+    /**
+     * Discards log entries buffered for the call context.
+     * Is called when the context's transaction is rolled back.
+     *
+     * @param context  call context
+     */
+    default void discard(CallContext context) {
+    }
 }
@@ -22,4 +22,12 @@ public interface IPermissionManager {
      * @return
      */
     boolean isActionAllowed(CallContext c, GrainElement t, Action a);
+
+    /**
+     * Is called after the context's transaction is committed or rolled back.
+     *
+     * @param context  call context
+     */
+    default void transactionCompleted(CallContext context) {
+    }
 }
@@ -167,6 +167,15 @@ public abstract class MaterializedViewCursor extends BasicCursor {
     return _currentKeyValues();
   }
 
+  /**
+   * Applies the changes of the referenced table accumulated since the last refresh to the materialized view
+   * with deferred refresh. The refresh is made in a separate transaction, so changes that are not committed
+   * yet are applied by the next refresh. Does nothing for materialized views with other refresh modes.
+   */
+  public final void refresh() {
+    db().refreshMaterializedView(meta());
+  }
+
   // CHECKSTYLE:OFF
     /*
      * This group of methods is named according to Python rules, and not Java.
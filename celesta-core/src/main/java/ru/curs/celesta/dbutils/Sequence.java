@@ -41,10 +41,17 @@ public abstract class Sequence extends BasicDataAccessor {
 
     /**
      * Returns the <em>next value</em> of the sequence.
+     * <p>
+     * If the sequence is declared with {@code CACHE} option, values are reserved in the DB
+     * by portions and handed out without DB round trips.
      *
      */
     public final long nextValue() {
-        return db().nextSequenceValue(conn(), meta());
+        SequenceElement s = meta();
+        if (s.getCacheSize() > 1) {
+            return db().getSequenceValueAllocator(s).nextValue(conn());
+        }
+        return db().nextSequenceValue(conn(), s);
     }
 
     @Override
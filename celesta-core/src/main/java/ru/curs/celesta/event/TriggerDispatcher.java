@@ -29,6 +29,16 @@ public final class TriggerDispatcher {
         cursorClassMap.computeIfAbsent(cursorClass, s -> new ArrayList<>()).add(consumer);
     }
 
+    /**
+     * Whether triggers of the type are registered for the cursor class.
+     *
+     * @param type         trigger type
+     * @param cursorClass  cursor class
+     */
+    public boolean hasTriggers(TriggerType type, Class<? extends Cursor> cursorClass) {
+        return triggerMap.get(type).containsKey(cursorClass);
+    }
+
     @SuppressWarnings("unchecked")
     public void fireTrigger(TriggerType type, Cursor cursor) {
         Map<Class<? extends Cursor>, List<Consumer<?>>> cursorClassMap = triggerMap.get(type);
@@ -10,6 +10,8 @@ public final class Score extends AbstractScore {
      */
     public static final String SYSTEM_SCHEMA_NAME = "celesta";
 
+    private static final long serialVersionUID = 1L;
+
     private final IdentifierParser identifierParser = new PlainIdentifierParser();
 
     public Score() {
@@ -18,6 +18,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Consumer;
@@ -32,20 +33,22 @@ abstract class AbstractGenCursorsMojo extends AbstractCelestaMojo {
     @Override
     public void execute() {
         this.getLog().info("celesta project is " + project);
-        getScorePaths.get().forEach(this::processScore);
+        CursorGenerationState state = new CursorGenerationState(getStateFile(), isSnakeToCamel());
+        getScorePaths.get().forEach(properties -> processScore(properties, state));
+        state.save();
         addSourceRoot(getSourceRoot());
     }
 
-    private void processScore(ScoreProperties properties) {
+    private void processScore(ScoreProperties properties, CursorGenerationState state) {
         final String scorePath = properties.getPath();
         Score score = initScore(scorePath);
         score.getGrains().values()
                 .stream()
                 .filter(this::isAllowGrain)
-                .forEach(g -> generateCursors(g, scorePath));
+                .forEach(g -> generateCursors(g, scorePath, state));
     }
 
-    private void generateCursors(Grain g, String scorePath) {
+    private void generateCursors(Grain g, String scorePath, CursorGenerationState state) {
 
         final boolean isSysSchema = g.getName().equals(g.getScore().getSysSchemaName());
 
@@ -64,7 +67,7 @@ abstract class AbstractGenCursorsMojo extends AbstractCelestaMojo {
                         .add(ge)
         );
 
-        CursorGenerator generator = new CursorGenerator(getSourceRoot(), isSnakeToCamel());
+        Map<GrainElement, String> elementsToScorePaths = new LinkedHashMap<>();
         partsToElements.forEach((key, value) -> {
             final String sp;
             if (isSysSchema) {
@@ -78,10 +81,21 @@ abstract class AbstractGenCursorsMojo extends AbstractCelestaMojo {
                 sp = scoreDir.getAbsolutePath();
             }
             value.forEach(
-                    ge -> generator.generateCursor(ge, sp)
+                    ge -> elementsToScorePaths.put(ge, sp)
             );
         });
 
+        CursorGenerator generator = new CursorGenerator(getSourceRoot(), isSnakeToCamel());
+        final String stateKey = g.getName() + "@" + scorePath;
+        if (state.isUpToDate(stateKey, g)
+                && elementsToScorePaths.entrySet().stream()
+                        .allMatch(e -> generator.getSourceFile(e.getKey(), e.getValue()).exists())) {
+            this.getLog().debug("Cursors of grain " + g.getName() + " are up to date");
+        } else {
+            elementsToScorePaths.forEach(generator::generateCursor);
+        }
+        state.update(stateKey, g);
+
     }
 
     private File getSourceRoot() {
@@ -89,6 +103,12 @@ abstract class AbstractGenCursorsMojo extends AbstractCelestaMojo {
                         + File.separator + generatedSourcesDirName + File.separator + "celesta");
     }
 
+    private File getStateFile() {
+        return new File(project.getBuild().getDirectory()
+                + File.separator + "maven-status" + File.separator + "celesta-maven-plugin"
+                + File.separator + generatedSourcesDirName + "-cursors.properties");
+    }
+
     private void addSourceRoot(File directory) {
         if (this.project != null) {
             this.getLog().info("Adding compile source root for cursors: " + directory);
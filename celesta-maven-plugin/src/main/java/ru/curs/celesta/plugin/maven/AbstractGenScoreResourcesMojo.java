@@ -2,14 +2,17 @@ package ru.curs.celesta.plugin.maven;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
 import java.util.function.Consumer;
@@ -22,6 +25,7 @@ import org.apache.maven.plugin.MojoFailureException;
 import ru.curs.celesta.CelestaException;
 import ru.curs.celesta.score.Namespace;
 import ru.curs.celesta.score.Score;
+import ru.curs.celesta.score.ScoreSnapshot;
 import ru.curs.celesta.score.io.FileResource;
 import ru.curs.celesta.score.io.Resource;
 
@@ -38,6 +42,7 @@ abstract class AbstractGenScoreResourcesMojo extends AbstractCelestaMojo {
         this.getLog().info("Celesta project is " + project);
 
         List<GrainSourceBag> grainsSources = new ArrayList<>();
+        List<Score> scores = new ArrayList<>();
         for (ScoreProperties sp : getScorePaths.get()) {
             final String scorePath = sp.getPath();
             List<FileResource> scoreResources =  Arrays.stream(scorePath.split(File.pathSeparator))
@@ -46,6 +51,7 @@ abstract class AbstractGenScoreResourcesMojo extends AbstractCelestaMojo {
                     .map(FileResource::new)
                     .collect(Collectors.toList());
             Score score = initScore(scorePath);
+            scores.add(score);
             score.getGrains().values().stream()
                 .filter(this::isAllowGrain)
                 .flatMap(g -> g.getGrainParts().stream())
@@ -70,6 +76,10 @@ abstract class AbstractGenScoreResourcesMojo extends AbstractCelestaMojo {
 
         copyGrainSourceFilesToResources(grainsSources);
         generateScoreFiles(grainsSources);
+        // A snapshot describes the whole score, so it is only generated for a single score path
+        if (scores.size() == 1) {
+            generateScoreSnapshot(scores.get(0), grainsSources);
+        }
 
         org.apache.maven.model.Resource scoreResource = new org.apache.maven.model.Resource();
         scoreResource.setDirectory(getResourcesRoot().getAbsolutePath());
@@ -138,6 +148,22 @@ abstract class AbstractGenScoreResourcesMojo extends AbstractCelestaMojo {
         }
     }
 
+    private void generateScoreSnapshot(Score score, List<GrainSourceBag> grainsSources)
+            throws MojoExecutionException {
+
+        Map<Resource, String> relativeSourcesPaths = new HashMap<>();
+        for (GrainSourceBag gs : grainsSources) {
+            relativeSourcesPaths.put(gs.grainSource, convertSeparatorChar(gs.getGrainSourceRelativePath().toString()));
+        }
+
+        Path scoreSnapshotPath = new File(getResourcesRoot(), ScoreSnapshot.SNAPSHOT_FILE_NAME).toPath();
+        try (OutputStream out = Files.newOutputStream(scoreSnapshotPath)) {
+            ScoreSnapshot.write(score, relativeSourcesPaths::get, out);
+        } catch (IOException ex) {
+            throw new MojoExecutionException("Error writing a score.snapshot", ex);
+        }
+    }
+
     private static class GrainSourceBag {
         final Resource scoreSource;
         final Resource grainSource;
@@ -0,0 +1,108 @@
+package ru.curs.celesta.plugin.maven;
+
+import ru.curs.celesta.CelestaException;
+import ru.curs.celesta.score.Grain;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Comparator;
+import java.util.Properties;
+import java.util.zip.CRC32;
+
+/**
+ * Cursor generation state kept between builds.
+ * <p>
+ * The state holds checksums of the grains that cursors were generated for. Checksums of the grains
+ * the grain depends on are included since view cursors depend on their columns, and so is the checksum
+ * of the generator itself. Grains not processed by the current build are dropped from the state.
+ */
+final class CursorGenerationState {
+
+    private final File file;
+    private final String generatorChecksum;
+    private final Properties previousChecksums = new Properties();
+    private final Properties checksums = new Properties();
+
+    /**
+     * Loads the state saved by the previous build (if any).
+     *
+     * @param file  state file
+     * @param snakeToCamel  whether snake_case identifiers are converted to camelCase by the generator
+     */
+    CursorGenerationState(File file, boolean snakeToCamel) {
+        this.file = file;
+        this.generatorChecksum = calcGeneratorChecksum(snakeToCamel);
+        if (file.isFile()) {
+            try (InputStream is = Files.newInputStream(file.toPath())) {
+                previousChecksums.load(is);
+            } catch (IOException | IllegalArgumentException e) {
+                // The state is rebuilt
+                previousChecksums.clear();
+            }
+        }
+    }
+
+    /**
+     * Whether the grain hasn't changed since its cursors were generated by the previous build.
+     *
+     * @param key  key of the grain in the state
+     * @param g  grain
+     */
+    boolean isUpToDate(String key, Grain g) {
+        return calcChecksum(g).equals(previousChecksums.getProperty(key));
+    }
+
+    /**
+     * Records that cursors of the grain are generated.
+     *
+     * @param key  key of the grain in the state
+     * @param g  grain
+     */
+    void update(String key, Grain g) {
+        checksums.setProperty(key, calcChecksum(g));
+    }
+
+    /**
+     * Saves the state for the next build.
+     */
+    void save() {
+        try {
+            Files.createDirectories(file.getParentFile().toPath());
+            try (OutputStream os = Files.newOutputStream(file.toPath())) {
+                checksums.store(os, "Checksums of grains with generated cursors");
+            }
+        } catch (IOException e) {
+            throw new CelestaException("Unable to save cursor generation state to %s: %s", file, e.getMessage());
+        }
+    }
+
+    private String calcChecksum(Grain g) {
+        StringBuilder sb = new StringBuilder(generatorChecksum);
+        appendChecksum(sb, g);
+        g.getDependencies().stream()
+                .sorted(Comparator.comparing(Grain::getName))
+                .forEach(dependency -> appendChecksum(sb, dependency));
+        return sb.toString();
+    }
+
+    private static void appendChecksum(StringBuilder sb, Grain g) {
+        sb.append(String.format(" %s:%08X:%d", g.getName(), g.getChecksum(), g.getLength()));
+    }
+
+    private static String calcGeneratorChecksum(boolean snakeToCamel) {
+        CRC32 crc = new CRC32();
+        try (InputStream is = CursorGenerator.class.getResourceAsStream(
+                CursorGenerator.class.getSimpleName() + ".class")) {
+            if (is != null) {
+                crc.update(is.readAllBytes());
+            }
+        } catch (IOException e) {
+            throw new CelestaException(e);
+        }
+        return String.format("%08X:%b", crc.getValue(), snakeToCamel);
+    }
+
+}
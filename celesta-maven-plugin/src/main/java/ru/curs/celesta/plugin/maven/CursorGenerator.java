@@ -54,6 +54,9 @@ import javax.annotation.Generated;
 import javax.lang.model.element.Modifier;
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Timestamp;
@@ -63,7 +66,6 @@ import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Calendar;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -75,16 +77,18 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
-import java.util.TimeZone;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 public final class CursorGenerator {
     private static final String GRAIN_FIELD_NAME = "GRAIN_NAME";
     private static final String OBJECT_FIELD_NAME = "OBJECT_NAME";
     private static final String COLUMNS_FIELD_NAME = "COLUMNS";
+    private static final Pattern GENERATION_DATE_PATTERN = Pattern.compile(
+            "(value = \"" + Pattern.quote(CursorGenerator.class.getCanonicalName()) + "\",\\s*date = )\"[^\"]*\"");
     private static final HashMap<
             Class<? extends GrainElement>,
             Function<GrainElement, Class<? extends BasicDataAccessor>>
@@ -170,7 +174,7 @@ public final class CursorGenerator {
             List<FieldSpec> fieldSpecs = buildDataFields(dge);
             cursorClass.addFields(fieldSpecs);
 
-            cursorClass.addMethods(generateGettersAndSetters(fieldSpecs, classType));
+            cursorClass.addMethods(generateGettersAndSetters(fieldSpecs, classType, dge instanceof Table));
 
             cursorClass.addMethod(buildGetFieldValue(dge.getColumns()));
             cursorClass.addMethod(buildSetFieldValue(dge.getColumns()));
@@ -224,12 +228,45 @@ public final class CursorGenerator {
                 .build();
 
         try {
-            javaFile.writeTo(srcDir);
+            writeSource(getSourceFile(sourcePackage, className), javaFile.toString());
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
 
+    /**
+     * Returns the file of the code generated for schema (grain) element.
+     *
+     * @param ge        Schema (grain) element
+     * @param scorePath path to CelestaSQL file
+     */
+    File getSourceFile(GrainElement ge, String scorePath) {
+        return getSourceFile(calcSourcePackage(ge, scorePath), calcClassName(ge));
+    }
+
+    private File getSourceFile(String sourcePackage, String className) {
+        return new File(srcDir, sourcePackage.replace('.', File.separatorChar) + File.separator + className + ".java");
+    }
+
+    /**
+     * Writes the source unless the file already contains the same code (apart from the generation date),
+     * so that the file stays untouched for incremental compilation.
+     */
+    private static void writeSource(File sourceFile, String source) throws IOException {
+        Path path = sourceFile.toPath();
+        if (Files.isRegularFile(path)
+                && withoutGenerationDate(new String(Files.readAllBytes(path), StandardCharsets.UTF_8))
+                        .equals(withoutGenerationDate(source))) {
+            return;
+        }
+        Files.createDirectories(path.getParent());
+        Files.write(path, source.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String withoutGenerationDate(String source) {
+        return GENERATION_DATE_PATTERN.matcher(source).replaceAll("$1\"\"");
+    }
+
     static String calcSourcePackage(GrainElement ge, String scorePath) {
         String result;
 
@@ -550,28 +587,32 @@ public final class CursorGenerator {
 
     }
 
-    private List<MethodSpec> generateGettersAndSetters(List<FieldSpec> fieldSpecs, TypeName selfTypeName) {
+    private List<MethodSpec> generateGettersAndSetters(
+            List<FieldSpec> fieldSpecs, TypeName selfTypeName, boolean trackModifications
+    ) {
         List<MethodSpec> result = new ArrayList<>();
 
-        fieldSpecs.forEach(
-                fieldSpec -> {
-                    String methodSuffix = CaseUtils.capitalize(camelize(fieldSpec.name));
-
-                    MethodSpec getter = MethodSpec.methodBuilder("get" + methodSuffix)
-                            .addModifiers(Modifier.PUBLIC)
-                            .returns(fieldSpec.type)
-                            .addStatement("return this.$N", fieldSpec.name).build();
-                    MethodSpec setter = MethodSpec.methodBuilder("set" + methodSuffix)
-                            .addModifiers(Modifier.PUBLIC)
-                            .returns(selfTypeName)
-                            .addParameter(fieldSpec.type, fieldSpec.name)
-                            .addStatement("this.$N = $N", fieldSpec.name, fieldSpec.name)
-                            .addStatement("return this").build();
+        for (int i = 0; i < fieldSpecs.size(); i++) {
+            FieldSpec fieldSpec = fieldSpecs.get(i);
+            String methodSuffix = CaseUtils.capitalize(camelize(fieldSpec.name));
+
+            MethodSpec getter = MethodSpec.methodBuilder("get" + methodSuffix)
+                    .addModifiers(Modifier.PUBLIC)
+                    .returns(fieldSpec.type)
+                    .addStatement("return this.$N", fieldSpec.name).build();
+            MethodSpec.Builder setter = MethodSpec.methodBuilder("set" + methodSuffix)
+                    .addModifiers(Modifier.PUBLIC)
+                    .returns(selfTypeName)
+                    .addParameter(fieldSpec.type, fieldSpec.name)
+                    .addStatement("this.$N = $N", fieldSpec.name, fieldSpec.name);
+            if (trackModifications) {
+                setter.addStatement("markModified($L)", i);
+            }
+            setter.addStatement("return this");
 
-                    result.add(getter);
-                    result.add(setter);
-                }
-        );
+            result.add(getter);
+            result.add(setter.build());
+        }
 
         return result;
     }
@@ -612,16 +653,19 @@ public final class CursorGenerator {
                 .addParameter(ResultSet.class, "rs")
                 .addException(SQLException.class);
 
-        columns.forEach((name, meta) -> {
-            String cursorField = camelize(name);
+        builder.addStatement("int[] positions = this.getColumnPositions(rs)");
+        int i = 0;
+        for (Map.Entry<String, ? extends ColumnMeta<?>> column : columns.entrySet()) {
+            ColumnMeta<?> meta = column.getValue();
+            String cursorField = camelize(column.getKey());
             if (BinaryColumn.CELESTA_TYPE.equals(meta.getCelestaType())) {
                 builder.addStatement("this.$N = null", cursorField);
             } else {
-                builder.beginControlFlow("if (this.$N($S))", "inRec", name);
+                builder.beginControlFlow("if (positions[$L] > 0)", i);
                 if (ZonedDateTimeColumn.CELESTA_TYPE.equals(meta.getCelestaType())) {
                     builder.addStatement(
-                            "$T ts = rs.$N($S, $T.getInstance($T.getTimeZone($S)))",
-                            Timestamp.class, meta.jdbcGetterName(), name, Calendar.class, TimeZone.class, "UTC"
+                            "$T ts = rs.$N(positions[$L], this.getUtcCalendar())",
+                            Timestamp.class, meta.jdbcGetterName(), i
                     );
                     builder.beginControlFlow("if ($N != null)", "ts");
                     builder.addStatement("this.$N = $T.of(ts.toLocalDateTime(), $T.systemDefault())",
@@ -631,17 +675,18 @@ public final class CursorGenerator {
                     builder.addStatement("this.$N = null", cursorField);
                     builder.endControlFlow();
                 } else {
-                    builder.addStatement("this.$N = rs.$N($S)", cursorField, meta.jdbcGetterName(), name);
+                    builder.addStatement("this.$N = rs.$N(positions[$L])", cursorField, meta.jdbcGetterName(), i);
                     builder.beginControlFlow("if (rs.$N())", "wasNull");
                     builder.addStatement("this.$N = null", cursorField);
                     builder.endControlFlow();
                 }
                 builder.endControlFlow();
             }
-        });
+            i++;
+        }
 
         if (isVersionedObject) {
-            builder.addStatement("this.setRecversion(rs.getInt($S))", "recversion");
+            builder.addStatement("this.setRecversion(rs.getInt(positions[$L]))", columns.size());
         }
 
         return builder.build();
@@ -5,6 +5,9 @@ import ru.curs.celesta.CelestaException;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
 import java.util.Arrays;
 import java.util.List;
 
@@ -59,6 +62,43 @@ public class GenCursorsMojoTest extends AbstractCelestaMojoTestCase {
         );
     }
 
+    public void testExecuteGenCursorsIncrementally() throws Exception {
+        File pom = setupPom("pom.xml");
+        setupScore("scorePart1", CELESTASQL_SOURCES_DIR);
+
+        ((GenCursorsMojo) lookupMojo("gen-cursors", pom)).execute();
+        File tableCursor = getTestFile(CELESTA_GENERATED_SOURCES_DIR + "/data/table/TestTableCursor.java");
+        File sequence = getTestFile(CELESTA_GENERATED_SOURCES_DIR + "/seq/SeqSequence.java");
+        assertTrue(tableCursor.setLastModified(0));
+        assertTrue(sequence.setLastModified(0));
+
+        // Grains are unchanged: cursors aren't regenerated
+        ((GenCursorsMojo) lookupMojo("gen-cursors", pom)).execute();
+        assertEquals(0, tableCursor.lastModified());
+        assertEquals(0, sequence.lastModified());
+
+        // Deleted cursor is regenerated
+        assertTrue(sequence.delete());
+        ((GenCursorsMojo) lookupMojo("gen-cursors", pom)).execute();
+        assertTrue(sequence.exists());
+        assertEquals(0, tableCursor.lastModified());
+        assertTrue(sequence.setLastModified(0));
+
+        // Cursors of changed grain are regenerated, but only changed sources are rewritten
+        Files.write(getTestFile(CELESTASQL_SOURCES_DIR + "/seq/sequence.sql").toPath(),
+                "\ncreate sequence seq2;\n".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        ((GenCursorsMojo) lookupMojo("gen-cursors", pom)).execute();
+        assertTrue(getTestFile(CELESTA_GENERATED_SOURCES_DIR + "/seq/Seq2Sequence.java").exists());
+        assertEquals(0, tableCursor.lastModified());
+        assertEquals(0, sequence.lastModified());
+        assertGeneratedCursors(
+            CELESTA_GENERATED_SOURCES_DIR,
+            Arrays.asList(
+                "seq/SeqSequence.java",
+                "data/table/TestTableCursor.java")
+        );
+    }
+
     /*
      * This test fails since partial grains are not resolved properly.")
      */
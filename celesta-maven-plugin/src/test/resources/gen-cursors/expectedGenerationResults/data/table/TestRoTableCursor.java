@@ -71,8 +71,9 @@ public class TestRoTableCursor extends ReadOnlyTableCursor implements Iterable<T
 
     @Override
     protected void _parseResult(ResultSet rs) throws SQLException {
-        if (this.inRec("id")) {
-            this.id = rs.getInt("id");
+        int[] positions = this.getColumnPositions(rs);
+        if (positions[0] > 0) {
+            this.id = rs.getInt(positions[0]);
             if (rs.wasNull()) {
                 this.id = null;
             }
@@ -5,12 +5,10 @@ import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
-import java.util.Calendar;
 import java.util.Collection;
 import java.util.Date;
 import java.util.Iterator;
 import java.util.Objects;
-import java.util.TimeZone;
 import java.util.function.Consumer;
 import javax.annotation.Generated;
 import ru.curs.celesta.CallContext;
@@ -66,6 +64,7 @@ public class TestSnakeTableCursor extends Cursor implements Iterable<TestSnakeTa
 
     public TestSnakeTableCursor setSnakeField(Integer snakeField) {
         this.snakeField = snakeField;
+        markModified(0);
         return this;
     }
 
@@ -75,6 +74,7 @@ public class TestSnakeTableCursor extends Cursor implements Iterable<TestSnakeTa
 
     public TestSnakeTableCursor setSnakeBlob(BLOB snakeBlob) {
         this.snakeBlob = snakeBlob;
+        markModified(1);
         return this;
     }
 
@@ -84,6 +84,7 @@ public class TestSnakeTableCursor extends Cursor implements Iterable<TestSnakeTa
 
     public TestSnakeTableCursor setDateOne(Date dateOne) {
         this.dateOne = dateOne;
+        markModified(2);
         return this;
     }
 
@@ -93,6 +94,7 @@ public class TestSnakeTableCursor extends Cursor implements Iterable<TestSnakeTa
 
     public TestSnakeTableCursor setDateTwo(ZonedDateTime dateTwo) {
         this.dateTwo = dateTwo;
+        markModified(3);
         return this;
     }
 
@@ -102,6 +104,7 @@ public class TestSnakeTableCursor extends Cursor implements Iterable<TestSnakeTa
 
     public TestSnakeTableCursor setTextField(String textField) {
         this.textField = textField;
+        markModified(4);
         return this;
     }
 
@@ -111,6 +114,7 @@ public class TestSnakeTableCursor extends Cursor implements Iterable<TestSnakeTa
 
     public TestSnakeTableCursor setStatusField(Integer statusField) {
         this.statusField = statusField;
+        markModified(5);
         return this;
     }
 
@@ -173,21 +177,22 @@ public class TestSnakeTableCursor extends Cursor implements Iterable<TestSnakeTa
 
     @Override
     protected void _parseResultInternal(ResultSet rs) throws SQLException {
-        if (this.inRec("snake_field")) {
-            this.snakeField = rs.getInt("snake_field");
+        int[] positions = this.getColumnPositions(rs);
+        if (positions[0] > 0) {
+            this.snakeField = rs.getInt(positions[0]);
             if (rs.wasNull()) {
                 this.snakeField = null;
             }
         }
         this.snakeBlob = null;
-        if (this.inRec("date_one")) {
-            this.dateOne = rs.getTimestamp("date_one");
+        if (positions[2] > 0) {
+            this.dateOne = rs.getTimestamp(positions[2]);
             if (rs.wasNull()) {
                 this.dateOne = null;
             }
         }
-        if (this.inRec("date_two")) {
-            Timestamp ts = rs.getTimestamp("date_two", Calendar.getInstance(TimeZone.getTimeZone("UTC")));
+        if (positions[3] > 0) {
+            Timestamp ts = rs.getTimestamp(positions[3], this.getUtcCalendar());
             if (ts != null) {
                 this.dateTwo = ZonedDateTime.of(ts.toLocalDateTime(), ZoneOffset.systemDefault());
             }
@@ -195,19 +200,19 @@ public class TestSnakeTableCursor extends Cursor implements Iterable<TestSnakeTa
                 this.dateTwo = null;
             }
         }
-        if (this.inRec("text_field")) {
-            this.textField = rs.getString("text_field");
+        if (positions[4] > 0) {
+            this.textField = rs.getString(positions[4]);
             if (rs.wasNull()) {
                 this.textField = null;
             }
         }
-        if (this.inRec("status_field")) {
-            this.statusField = rs.getInt("status_field");
+        if (positions[5] > 0) {
+            this.statusField = rs.getInt(positions[5]);
             if (rs.wasNull()) {
                 this.statusField = null;
             }
         }
-        this.setRecversion(rs.getInt("recversion"));
+        this.setRecversion(rs.getInt(positions[6]));
     }
 
     @Override
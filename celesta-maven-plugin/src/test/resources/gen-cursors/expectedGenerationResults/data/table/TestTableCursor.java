@@ -7,12 +7,10 @@ import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
-import java.util.Calendar;
 import java.util.Collection;
 import java.util.Date;
 import java.util.Iterator;
 import java.util.Objects;
-import java.util.TimeZone;
 import java.util.function.Consumer;
 import javax.annotation.Generated;
 import ru.curs.celesta.CallContext;
@@ -74,6 +72,7 @@ public class TestTableCursor extends Cursor implements Iterable<TestTableCursor>
 
     public TestTableCursor setId(Integer id) {
         this.id = id;
+        markModified(0);
         return this;
     }
 
@@ -83,6 +82,7 @@ public class TestTableCursor extends Cursor implements Iterable<TestTableCursor>
 
     public TestTableCursor setStr(String str) {
         this.str = str;
+        markModified(1);
         return this;
     }
 
@@ -92,6 +92,7 @@ public class TestTableCursor extends Cursor implements Iterable<TestTableCursor>
 
     public TestTableCursor setDeleted(Boolean deleted) {
         this.deleted = deleted;
+        markModified(2);
         return this;
     }
 
@@ -101,6 +102,7 @@ public class TestTableCursor extends Cursor implements Iterable<TestTableCursor>
 
     public TestTableCursor setWeight(Double weight) {
         this.weight = weight;
+        markModified(3);
         return this;
     }
 
@@ -110,6 +112,7 @@ public class TestTableCursor extends Cursor implements Iterable<TestTableCursor>
 
     public TestTableCursor setContent(String content) {
         this.content = content;
+        markModified(4);
         return this;
     }
 
@@ -119,6 +122,7 @@ public class TestTableCursor extends Cursor implements Iterable<TestTableCursor>
 
     public TestTableCursor setCreated(Date created) {
         this.created = created;
+        markModified(5);
         return this;
     }
 
@@ -128,6 +132,7 @@ public class TestTableCursor extends Cursor implements Iterable<TestTableCursor>
 
     public TestTableCursor setRawData(BLOB rawData) {
         this.rawData = rawData;
+        markModified(6);
         return this;
     }
 
@@ -137,6 +142,7 @@ public class TestTableCursor extends Cursor implements Iterable<TestTableCursor>
 
     public TestTableCursor setCost(BigDecimal cost) {
         this.cost = cost;
+        markModified(7);
         return this;
     }
 
@@ -146,6 +152,7 @@ public class TestTableCursor extends Cursor implements Iterable<TestTableCursor>
 
     public TestTableCursor setToDelete(ZonedDateTime toDelete) {
         this.toDelete = toDelete;
+        markModified(8);
         return this;
     }
 
@@ -223,51 +230,52 @@ public class TestTableCursor extends Cursor implements Iterable<TestTableCursor>
 
     @Override
     protected void _parseResultInternal(ResultSet rs) throws SQLException {
-        if (this.inRec("id")) {
-            this.id = rs.getInt("id");
+        int[] positions = this.getColumnPositions(rs);
+        if (positions[0] > 0) {
+            this.id = rs.getInt(positions[0]);
             if (rs.wasNull()) {
                 this.id = null;
             }
         }
-        if (this.inRec("str")) {
-            this.str = rs.getString("str");
+        if (positions[1] > 0) {
+            this.str = rs.getString(positions[1]);
             if (rs.wasNull()) {
                 this.str = null;
             }
         }
-        if (this.inRec("deleted")) {
-            this.deleted = rs.getBoolean("deleted");
+        if (positions[2] > 0) {
+            this.deleted = rs.getBoolean(positions[2]);
             if (rs.wasNull()) {
                 this.deleted = null;
             }
         }
-        if (this.inRec("weight")) {
-            this.weight = rs.getDouble("weight");
+        if (positions[3] > 0) {
+            this.weight = rs.getDouble(positions[3]);
             if (rs.wasNull()) {
                 this.weight = null;
             }
         }
-        if (this.inRec("content")) {
-            this.content = rs.getString("content");
+        if (positions[4] > 0) {
+            this.content = rs.getString(positions[4]);
             if (rs.wasNull()) {
                 this.content = null;
             }
         }
-        if (this.inRec("created")) {
-            this.created = rs.getTimestamp("created");
+        if (positions[5] > 0) {
+            this.created = rs.getTimestamp(positions[5]);
             if (rs.wasNull()) {
                 this.created = null;
             }
         }
         this.rawData = null;
-        if (this.inRec("cost")) {
-            this.cost = rs.getBigDecimal("cost");
+        if (positions[7] > 0) {
+            this.cost = rs.getBigDecimal(positions[7]);
             if (rs.wasNull()) {
                 this.cost = null;
             }
         }
-        if (this.inRec("toDelete")) {
-            Timestamp ts = rs.getTimestamp("toDelete", Calendar.getInstance(TimeZone.getTimeZone("UTC")));
+        if (positions[8] > 0) {
+            Timestamp ts = rs.getTimestamp(positions[8], this.getUtcCalendar());
             if (ts != null) {
                 this.toDelete = ZonedDateTime.of(ts.toLocalDateTime(), ZoneOffset.systemDefault());
             }
@@ -275,7 +283,7 @@ public class TestTableCursor extends Cursor implements Iterable<TestTableCursor>
                 this.toDelete = null;
             }
         }
-        this.setRecversion(rs.getInt("recversion"));
+        this.setRecversion(rs.getInt(positions[9]));
     }
 
     @Override
@@ -117,20 +117,21 @@ public class TestTableMvCursor extends MaterializedViewCursor implements Iterabl
 
     @Override
     protected void _parseResult(ResultSet rs) throws SQLException {
-        if (this.inRec("surrogate_count")) {
-            this.surrogateCount = rs.getInt("surrogate_count");
+        int[] positions = this.getColumnPositions(rs);
+        if (positions[0] > 0) {
+            this.surrogateCount = rs.getInt(positions[0]);
             if (rs.wasNull()) {
                 this.surrogateCount = null;
             }
         }
-        if (this.inRec("c")) {
-            this.c = rs.getInt("c");
+        if (positions[1] > 0) {
+            this.c = rs.getInt(positions[1]);
             if (rs.wasNull()) {
                 this.c = null;
             }
         }
-        if (this.inRec("cost")) {
-            this.cost = rs.getBigDecimal("cost");
+        if (positions[2] > 0) {
+            this.cost = rs.getBigDecimal(positions[2]);
             if (rs.wasNull()) {
                 this.cost = null;
             }
@@ -88,8 +88,9 @@ public class TestTablePvCursor extends ParameterizedViewCursor implements Iterab
 
     @Override
     protected void _parseResult(ResultSet rs) throws SQLException {
-        if (this.inRec("s")) {
-            this.s = rs.getInt("s");
+        int[] positions = this.getColumnPositions(rs);
+        if (positions[0] > 0) {
+            this.s = rs.getInt(positions[0]);
             if (rs.wasNull()) {
                 this.s = null;
             }
@@ -5,11 +5,9 @@ import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
-import java.util.Calendar;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.Objects;
-import java.util.TimeZone;
 import javax.annotation.Generated;
 import ru.curs.celesta.CallContext;
 import ru.curs.celesta.ICelesta;
@@ -92,14 +90,15 @@ public class TestTableVCursor extends ViewCursor implements Iterable<TestTableVC
 
     @Override
     protected void _parseResult(ResultSet rs) throws SQLException {
-        if (this.inRec("id")) {
-            this.id = rs.getInt("id");
+        int[] positions = this.getColumnPositions(rs);
+        if (positions[0] > 0) {
+            this.id = rs.getInt(positions[0]);
             if (rs.wasNull()) {
                 this.id = null;
             }
         }
-        if (this.inRec("toDelete")) {
-            Timestamp ts = rs.getTimestamp("toDelete", Calendar.getInstance(TimeZone.getTimeZone("UTC")));
+        if (positions[1] > 0) {
+            Timestamp ts = rs.getTimestamp(positions[1], this.getUtcCalendar());
             if (ts != null) {
                 this.toDelete = ZonedDateTime.of(ts.toLocalDateTime(), ZoneOffset.systemDefault());
             }
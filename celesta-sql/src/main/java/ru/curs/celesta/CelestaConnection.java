@@ -460,6 +460,9 @@ public abstract class CelestaConnection implements Connection {
    */
   @Override
   public <T> T unwrap(Class<T> iface) throws SQLException {
+    if (iface.isInstance(this)) {
+      return iface.cast(this);
+    }
     return connection.unwrap(iface);
   }
 
@@ -468,7 +471,7 @@ public abstract class CelestaConnection implements Connection {
    */
   @Override
   public boolean isWrapperFor(Class<?> iface) throws SQLException {
-    return connection.isWrapperFor(iface);
+    return iface.isInstance(this) || connection.isWrapperFor(iface);
   }
 
   /**
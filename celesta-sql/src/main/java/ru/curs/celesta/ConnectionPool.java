@@ -15,6 +15,42 @@ public interface ConnectionPool extends AutoCloseable {
 
     boolean isClosed();
 
+    /**
+     * Returns the number of connections leased from the pool.
+     *
+     * @return {@code -1} if the pool does not track its connections
+     */
+    default int getActiveCount() {
+        return -1;
+    }
+
+    /**
+     * Returns the number of idle connections kept in the pool.
+     *
+     * @return {@code -1} if the pool does not track its connections
+     */
+    default int getIdleCount() {
+        return -1;
+    }
+
+    /**
+     * Returns the number of threads waiting for a connection.
+     *
+     * @return {@code -1} if the pool does not track its connections
+     */
+    default int getWaitingCount() {
+        return -1;
+    }
+
+    /**
+     * Returns the total time (in nanoseconds) spent by threads waiting for a connection.
+     *
+     * @return {@code -1} if the pool does not track its connections
+     */
+    default long getTotalWaitTimeNs() {
+        return -1;
+    }
+
     /**
      * Executes 'commit' command on a connection without throwing a checked exception.
      *
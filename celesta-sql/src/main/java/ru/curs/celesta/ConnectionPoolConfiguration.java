@@ -5,9 +5,18 @@ package ru.curs.celesta;
  */
 public final class ConnectionPoolConfiguration {
 
+  private static final long DEFAULT_ACQUIRE_TIMEOUT = 30000;
+  private static final long DEFAULT_VALIDATION_IDLE_TIME = 5000;
+
   private String jdbcConnectionUrl;
   private String login;
   private String password;
+  private int minSize;
+  private int maxSize;
+  private long acquireTimeout = DEFAULT_ACQUIRE_TIMEOUT;
+  private long validationIdleTime = DEFAULT_VALIDATION_IDLE_TIME;
+  private long maxLifetime;
+  private long leakDetectionThreshold;
 
   /**
    * Returns JDBC connection URL.
@@ -57,4 +66,109 @@ public final class ConnectionPoolConfiguration {
     this.password = password;
   }
 
+  /**
+   * Returns the number of connections opened on pool creation.
+   * @return
+   */
+  public int getMinSize() {
+    return minSize;
+  }
+
+  /**
+   * Sets the number of connections opened on pool creation.
+   * @param minSize  number of connections
+   */
+  public void setMinSize(int minSize) {
+    this.minSize = minSize;
+  }
+
+  /**
+   * Returns the maximal number of connections leased from the pool at the same time
+   * (0 means unlimited).
+   * @return
+   */
+  public int getMaxSize() {
+    return maxSize;
+  }
+
+  /**
+   * Sets the maximal number of connections leased from the pool at the same time
+   * (0 means unlimited). Connections leased by threads that already hold a connection
+   * of the pool are limited by a separate reserve of the same size.
+   * @param maxSize  maximal number of connections
+   */
+  public void setMaxSize(int maxSize) {
+    this.maxSize = maxSize;
+  }
+
+  /**
+   * Returns the time (in milliseconds) to wait for a connection when all the connections are leased.
+   * @return
+   */
+  public long getAcquireTimeout() {
+    return acquireTimeout;
+  }
+
+  /**
+   * Sets the time (in milliseconds) to wait for a connection when all the connections are leased.
+   * @param acquireTimeout  timeout in milliseconds
+   */
+  public void setAcquireTimeout(long acquireTimeout) {
+    this.acquireTimeout = acquireTimeout;
+  }
+
+  /**
+   * Returns the time (in milliseconds) a connection can stay idle in the pool
+   * before it is validated on lease.
+   * @return
+   */
+  public long getValidationIdleTime() {
+    return validationIdleTime;
+  }
+
+  /**
+   * Sets the time (in milliseconds) a connection can stay idle in the pool
+   * before it is validated on lease.
+   * @param validationIdleTime  idle time in milliseconds
+   */
+  public void setValidationIdleTime(long validationIdleTime) {
+    this.validationIdleTime = validationIdleTime;
+  }
+
+  /**
+   * Returns the time (in milliseconds) after which a connection is closed instead
+   * of being returned to the pool (0 means unlimited).
+   * @return
+   */
+  public long getMaxLifetime() {
+    return maxLifetime;
+  }
+
+  /**
+   * Sets the time (in milliseconds) after which a connection is closed instead
+   * of being returned to the pool (0 means unlimited).
+   * @param maxLifetime  lifetime in milliseconds
+   */
+  public void setMaxLifetime(long maxLifetime) {
+    this.maxLifetime = maxLifetime;
+  }
+
+  /**
+   * Returns the time (in milliseconds) a connection can be leased before
+   * a possible leak is reported (0 means no leak detection).
+   * @return
+   */
+  public long getLeakDetectionThreshold() {
+    return leakDetectionThreshold;
+  }
+
+  /**
+   * Sets the time (in milliseconds) a connection can be leased before
+   * a possible leak is reported (0 means no leak detection).
+   * @param leakDetectionThreshold  lease time in milliseconds
+   */
+  public void setLeakDetectionThreshold(long leakDetectionThreshold) {
+    this.leakDetectionThreshold = leakDetectionThreshold;
+  }
+
 }
@@ -3,7 +3,17 @@ package ru.curs.celesta;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -14,22 +24,139 @@ import ru.curs.celesta.dbutils.adaptors.DBAdaptor;
 
 /**
  * Database connection pool.
+ * <p>
+ * The number of leased connections can be limited, in this case threads wait for a connection
+ * in a fair queue until the acquisition timeout expires. Idle connections are validated on lease
+ * only if they have been idle longer than the validation idle time. Connections that have
+ * exceeded their maximal lifetime are closed instead of being returned to the pool.
+ * Connections that fail to be committed on return are closed as well.
+ * <p>
+ * If the minimal size or leak detection is set, a housekeeping thread checks the pool periodically:
+ * it reports connections leased longer than the leak detection threshold (i.e. not closed along
+ * with their call context) with the stack trace of the lease, closes idle connections that have
+ * exceeded their maximal lifetime and opens new connections to keep the minimal size of the pool.
+ * <p>
+ * A call context that opens a nested system call context (e.g. for logging or permission loading)
+ * leases a second connection while holding the first one. If the number of leased connections is
+ * limited, a lease by a thread that already holds a connection of the pool takes a permit from
+ * a separate reserve of the same size, so that nested contexts don't wait for connections held by
+ * the contexts they are nested in. Thus the pool can have up to twice the maximal size connections.
  */
 public final class InternalConnectionPool implements ConnectionPool {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(InternalConnectionPool.class);
 
-    private final ConcurrentLinkedQueue<CelestaConnection> pool = new ConcurrentLinkedQueue<>();
+    /**
+     * Interval (in milliseconds) between housekeeping checks of the pool.
+     */
+    private static final long HOUSEKEEPING_INTERVAL = 1000;
+
+    private final ConcurrentLinkedDeque<PooledConnection> pool = new ConcurrentLinkedDeque<>();
+    private final Set<PooledConnection> leased = ConcurrentHashMap.newKeySet();
     private final String jdbcConnectionUrl;
     private final String login;
     private final String password;
+    private final Semaphore permits;
+    private final Semaphore reservePermits;
+    private final ThreadLocal<AtomicInteger> threadLeases = ThreadLocal.withInitial(AtomicInteger::new);
+    private final int minSize;
+    private final int maxSize;
+    private final long acquireTimeout;
+    private final long validationIdleTime;
+    private final long maxLifetime;
+    private final long leakDetectionThreshold;
+    private final LongAdder totalWaitTimeNs = new LongAdder();
+    private final ReentrantLock replenishLock = new ReentrantLock();
+    private final ScheduledExecutorService housekeeper;
     private DBAdaptor dbAdaptor;
     private volatile boolean isClosed;
 
-    private InternalConnectionPool(String jdbcConnectionUrl, String login, String password) {
-        this.login = login;
-        this.password = password;
-        this.jdbcConnectionUrl = jdbcConnectionUrl;
+    /**
+     * Connection that is returned to the pool on closing.
+     */
+    private final class PooledConnection extends CelestaConnection {
+        private final long createdAt = System.currentTimeMillis();
+        private long lastUsedAt = createdAt;
+        private volatile long leasedAt;
+        private volatile Throwable leaseTrace;
+        private volatile boolean leakReported;
+        private volatile Semaphore leasePermits;
+        private volatile AtomicInteger leaseOwner;
+
+        PooledConnection(Connection connection) {
+            super(connection);
+        }
+
+        @Override
+        public void close() {
+            boolean wasLeased = leased.remove(this);
+            try {
+                if (isClosed) {
+                    closePhysically();
+                } else if (wasLeased) {
+                    if (commitOnReturn() && !isExpired(System.currentTimeMillis())) {
+                        lastUsedAt = System.currentTimeMillis();
+                        pool.addFirst(this);
+                    } else {
+                        closePhysically();
+                        scheduleReplenishment();
+                    }
+                }
+            } finally {
+                if (wasLeased && leasePermits != null) {
+                    leaseOwner.decrementAndGet();
+                    leasePermits.release();
+                }
+            }
+        }
+
+        private boolean commitOnReturn() {
+            try {
+                commit();
+                return true;
+            } catch (SQLException ex) {
+                LOGGER.error("Error on committing connection returned to the pool, the connection is closed", ex);
+                return false;
+            }
+        }
+
+        boolean isExpired(long now) {
+            return maxLifetime > 0 && now - createdAt > maxLifetime;
+        }
+
+        void closePhysically() {
+            try {
+                getConnection().close();
+            } catch (SQLException ex) {
+                LOGGER.error("Error on connection closing", ex);
+            }
+        }
+    }
+
+    private InternalConnectionPool(ConnectionPoolConfiguration configuration) {
+        this.login = configuration.getLogin();
+        this.password = configuration.getPassword();
+        this.jdbcConnectionUrl = configuration.getJdbcConnectionUrl();
+        this.minSize = configuration.getMinSize();
+        this.maxSize = configuration.getMaxSize();
+        this.permits = maxSize > 0 ? new Semaphore(maxSize, true) : null;
+        this.reservePermits = maxSize > 0 ? new Semaphore(maxSize, true) : null;
+        this.acquireTimeout = configuration.getAcquireTimeout();
+        this.validationIdleTime = configuration.getValidationIdleTime();
+        this.maxLifetime = configuration.getMaxLifetime();
+        this.leakDetectionThreshold = configuration.getLeakDetectionThreshold();
+
+        if (minSize > 0 || leakDetectionThreshold > 0) {
+            housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "celesta-connection-pool-housekeeper");
+                t.setDaemon(true);
+                return t;
+            });
+            housekeeper.scheduleWithFixedDelay(this::houseKeep,
+                    HOUSEKEEPING_INTERVAL, HOUSEKEEPING_INTERVAL, TimeUnit.MILLISECONDS);
+        } else {
+            housekeeper = null;
+        }
 
         Runtime.getRuntime().addShutdownHook(new Thread(this::close));
     }
@@ -41,8 +168,14 @@ public final class InternalConnectionPool implements ConnectionPool {
      * @return
      */
     public static InternalConnectionPool create(ConnectionPoolConfiguration configuration) {
-        return new InternalConnectionPool(configuration.getJdbcConnectionUrl(),
-                configuration.getLogin(), configuration.getPassword());
+        InternalConnectionPool connectionPool = new InternalConnectionPool(configuration);
+        try {
+            connectionPool.replenish();
+        } catch (RuntimeException e) {
+            connectionPool.close();
+            throw e;
+        }
+        return connectionPool;
     }
 
     /**
@@ -67,49 +200,157 @@ public final class InternalConnectionPool implements ConnectionPool {
             throw new CelestaException("ConnectionPool is closed");
         }
 
+        Semaphore leasePermits = null;
+        AtomicInteger leaseOwner = null;
+        if (permits != null) {
+            leaseOwner = threadLeases.get();
+            // a thread holding a connection leases another one for a nested context
+            leasePermits = leaseOwner.get() > 0 ? reservePermits : permits;
+            acquirePermit(leasePermits);
+            leaseOwner.incrementAndGet();
+        }
+        try {
+            PooledConnection c = takeIdle();
+            if (c == null) {
+                c = connect();
+            }
+            c.leasePermits = leasePermits;
+            c.leaseOwner = leaseOwner;
+            c.leasedAt = System.currentTimeMillis();
+            if (leakDetectionThreshold > 0) {
+                c.leaseTrace = new Throwable("Connection lease");
+                c.leakReported = false;
+            }
+            leased.add(c);
+            return c;
+        } catch (RuntimeException e) {
+            if (leasePermits != null) {
+                leaseOwner.decrementAndGet();
+                leasePermits.release();
+            }
+            throw e;
+        }
+    }
+
+    private void acquirePermit(Semaphore leasePermits) {
+        long start = System.nanoTime();
+        try {
+            if (!leasePermits.tryAcquire(acquireTimeout, TimeUnit.MILLISECONDS)) {
+                throw new CelestaException(
+                        "Could not get a connection within %d ms: all %d connections %sare leased",
+                        acquireTimeout, maxSize, leasePermits == reservePermits ? "reserved for nested contexts " : "");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CelestaException("Interrupted while waiting for a connection", e);
+        } finally {
+            totalWaitTimeNs.add(System.nanoTime() - start);
+        }
+    }
+
+    private PooledConnection takeIdle() {
         // First, we are trying to provide a connection from pool
-        Connection c = pool.poll();
-        while (c != null) {
-            try {
-                if (dbAdaptor.isValidConnection(c, 1)) {
-                    return c;
-                }
-            } catch (CelestaException e) {
-                // do something to make CheckStyle happy ))
-                c = null;
+        PooledConnection c;
+        while ((c = pool.pollFirst()) != null) {
+            long now = System.currentTimeMillis();
+            if (c.isExpired(now)) {
+                c.closePhysically();
+                continue;
+            }
+            if (dbAdaptor == null || now - c.lastUsedAt <= validationIdleTime || isValid(c)) {
+                return c;
             }
-            c = pool.poll();
+            c.closePhysically();
+        }
+        return null;
+    }
+
+    private boolean isValid(Connection c) {
+        try {
+            return dbAdaptor.isValidConnection(c, 1);
+        } catch (CelestaException e) {
+            return false;
         }
+    }
 
+    private PooledConnection connect() {
         try {
+            Connection c;
             if (login.isEmpty()) {
                 c = DriverManager.getConnection(jdbcConnectionUrl);
             } else {
                 c = DriverManager.getConnection(jdbcConnectionUrl, login, password);
             }
             c.setAutoCommit(false);
-
-            return new CelestaConnection(c) {
-                @Override
-                public void close() {
-                    try {
-                        if (isClosed) {
-                            getConnection().close();
-                        } else {
-                            commit();
-                            pool.add(this);
-                        }
-                    } catch (SQLException ex) {
-                        LOGGER.error("Error on connection closing", ex);
-                    }
-                }
-            };
-
+            return new PooledConnection(c);
         } catch (SQLException e) {
             throw new CelestaException("Could not connect to %s with error: %s",
                     PasswordHider.maskPassword(jdbcConnectionUrl), e.getMessage());
         }
+    }
+
+    private void houseKeep() {
+        try {
+            if (leakDetectionThreshold > 0) {
+                detectLeaks();
+            }
+            closeExpired();
+            replenish();
+        } catch (RuntimeException e) {
+            // The scheduled task must not be cancelled
+            LOGGER.error("Error on connection pool housekeeping", e);
+        }
+    }
+
+    private void detectLeaks() {
+        long now = System.currentTimeMillis();
+        for (PooledConnection c : leased) {
+            if (!c.leakReported && now - c.leasedAt > leakDetectionThreshold) {
+                c.leakReported = true;
+                LOGGER.warn(String.format("Connection has been leased for %d ms without being closed, "
+                        + "probably its call context is not closed", now - c.leasedAt), c.leaseTrace);
+            }
+        }
+    }
+
+    private void closeExpired() {
+        long now = System.currentTimeMillis();
+        for (PooledConnection c : pool) {
+            if (c.isExpired(now) && pool.removeFirstOccurrence(c)) {
+                c.closePhysically();
+            }
+        }
+    }
+
+    private void scheduleReplenishment() {
+        if (housekeeper != null && minSize > 0) {
+            try {
+                housekeeper.execute(this::houseKeep);
+            } catch (RejectedExecutionException e) {
+                // The pool is being closed
+            }
+        }
+    }
 
+    /**
+     * Opens connections until the pool has the minimal number of connections (idle and leased ones).
+     */
+    private void replenish() {
+        if (!replenishLock.tryLock()) {
+            return;
+        }
+        try {
+            while (!isClosed && pool.size() + leased.size() < minSize) {
+                PooledConnection c = connect();
+                pool.addLast(c);
+                if (isClosed && pool.removeFirstOccurrence(c)) {
+                    // The pool has been closed while connecting
+                    c.closePhysically();
+                }
+            }
+        } finally {
+            replenishLock.unlock();
+        }
     }
 
     /**
@@ -119,9 +360,12 @@ public final class InternalConnectionPool implements ConnectionPool {
     public void close() {
         if (!isClosed) {
             isClosed = true;
-            CelestaConnection c;
+            if (housekeeper != null) {
+                housekeeper.shutdown();
+            }
+            PooledConnection c;
             while ((c = pool.poll()) != null) {
-                c.close();
+                c.closePhysically();
             }
         }
     }
@@ -136,6 +380,26 @@ public final class InternalConnectionPool implements ConnectionPool {
         return pool.size();
     }
 
+    @Override
+    public int getActiveCount() {
+        return leased.size();
+    }
+
+    @Override
+    public int getIdleCount() {
+        return pool.size();
+    }
+
+    @Override
+    public int getWaitingCount() {
+        return permits == null ? 0 : permits.getQueueLength() + reservePermits.getQueueLength();
+    }
+
+    @Override
+    public long getTotalWaitTimeNs() {
+        return totalWaitTimeNs.sum();
+    }
+
     /**
      * If the poll is closed then this method will return true.
      *
@@ -0,0 +1,270 @@
+package ru.curs.celesta;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Connection that caches prepared statements by SQL text.
+ * <p>
+ * When a statement obtained via {@link #prepareStatement(String)} is closed, it is not
+ * actually closed, but kept for a subsequent request of the same SQL, so that data accessors
+ * created one after another within the same connection do not re-prepare identical SQL.
+ * The number of kept statements is limited, the least recently used ones are closed first.
+ * All the kept statements are closed when this connection is closed.
+ * The cache is guarded by a {@link ReentrantLock}, so that statement preparation does not pin
+ * carrier threads of virtual threads.
+ */
+public final class StatementCachingConnection extends CelestaConnection {
+
+    private final int cacheSize;
+    private final ReentrantLock lock = new ReentrantLock();
+    // Closed (idle) statements by SQL text, in access order
+    private final LinkedHashMap<String, Deque<PreparedStatement>> idle = new LinkedHashMap<>(16, 0.75f, true);
+    private int idleCount;
+    private long cacheHits;
+    private long cacheMisses;
+
+    /**
+     * Creates a statement caching wrapper for a connection.
+     *
+     * @param connection  wrapped connection
+     * @param cacheSize   maximal number of idle statements kept open
+     */
+    public StatementCachingConnection(Connection connection, int cacheSize) {
+        super(connection);
+        if (cacheSize < 1) {
+            throw new CelestaException("Statement cache size should be positive: %d", cacheSize);
+        }
+        this.cacheSize = cacheSize;
+    }
+
+    /**
+     * Returns a cached statement for the SQL if there is one, otherwise prepares a new statement.
+     */
+    @Override
+    public PreparedStatement prepareStatement(String sql) throws SQLException {
+        lock.lock();
+        try {
+            PreparedStatement stmt = null;
+            Deque<PreparedStatement> stmts = idle.get(sql);
+            if (stmts != null) {
+                stmt = stmts.pollFirst();
+                idleCount--;
+                if (stmts.isEmpty()) {
+                    idle.remove(sql);
+                }
+            }
+            if (stmt == null || stmt.isClosed()) {
+                stmt = getConnection().prepareStatement(sql);
+                cacheMisses++;
+            } else {
+                cacheHits++;
+            }
+            return (PreparedStatement) Proxy.newProxyInstance(
+                    PreparedStatement.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class},
+                    new CachedStatementHandler(sql, stmt));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns a cached statement for the SQL if forward-only read-only result sets are requested
+     * (which are the default ones), otherwise prepares a new statement that is not cached.
+     */
+    @Override
+    public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency)
+            throws SQLException {
+        if (resultSetType == ResultSet.TYPE_FORWARD_ONLY && resultSetConcurrency == ResultSet.CONCUR_READ_ONLY) {
+            return prepareStatement(sql);
+        }
+        return super.prepareStatement(sql, resultSetType, resultSetConcurrency);
+    }
+
+    private void release(String sql, PreparedStatement stmt, boolean fetchSizeSet) {
+        lock.lock();
+        try {
+            try {
+                stmt.clearParameters();
+                if (fetchSizeSet) {
+                    stmt.setFetchSize(0);
+                }
+            } catch (SQLException e) {
+                closeQuietly(stmt);
+                return;
+            }
+            idle.computeIfAbsent(sql, k -> new ArrayDeque<>()).addFirst(stmt);
+            idleCount++;
+            Iterator<Map.Entry<String, Deque<PreparedStatement>>> i = idle.entrySet().iterator();
+            while (idleCount > cacheSize) {
+                Deque<PreparedStatement> eldest = i.next().getValue();
+                while (!eldest.isEmpty() && idleCount > cacheSize) {
+                    closeQuietly(eldest.pollLast());
+                    idleCount--;
+                }
+                if (eldest.isEmpty()) {
+                    i.remove();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Closes all the cached statements and the wrapped connection.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            idle.values().forEach(stmts -> stmts.forEach(StatementCachingConnection::closeQuietly));
+            idle.clear();
+            idleCount = 0;
+        } finally {
+            lock.unlock();
+        }
+        try {
+            getConnection().close();
+        } catch (SQLException e) {
+            throw new CelestaException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Returns the number of statement requests served from the cache.
+     *
+     * @return
+     */
+    public long getCacheHits() {
+        lock.lock();
+        try {
+            return cacheHits;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of statement requests that required preparing a statement.
+     *
+     * @return
+     */
+    public long getCacheMisses() {
+        lock.lock();
+        try {
+            return cacheMisses;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of idle statements kept in the cache.
+     *
+     * @return
+     */
+    public int getIdleCount() {
+        lock.lock();
+        try {
+            return idleCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static void closeQuietly(PreparedStatement stmt) {
+        try {
+            stmt.close();
+        } catch (SQLException e) {
+            e = null;
+        }
+    }
+
+    /**
+     * Delegates calls to the statement, returning it to the cache instead of closing.
+     */
+    private final class CachedStatementHandler implements InvocationHandler {
+        private final String sql;
+        private final PreparedStatement stmt;
+        private ResultSet resultSet;
+        private boolean fetchSizeSet;
+        private boolean closed;
+
+        CachedStatementHandler(String sql, PreparedStatement stmt) {
+            this.sql = sql;
+            this.stmt = stmt;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        if (resultSet != null) {
+                            resultSet.close();
+                            resultSet = null;
+                        }
+                        release(sql, stmt, fetchSizeSet);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || stmt.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return stmt.toString();
+                default:
+                    break;
+            }
+            if (closed) {
+                throw new SQLException("Statement is closed");
+            }
+            switch (method.getName()) {
+                case "getConnection":
+                    return StatementCachingConnection.this;
+                case "unwrap":
+                case "isWrapperFor":
+                    // the proxy stands for the statement, so that closing it returns the statement to the cache;
+                    // driver specific interfaces are unwrapped to the driver's statement
+                    if (((Class<?>) args[0]).isInstance(proxy)) {
+                        return "unwrap".equals(method.getName()) ? proxy : Boolean.TRUE;
+                    }
+                    break;
+                case "setFetchSize":
+                    // the next user of the statement gets the default fetch size
+                    fetchSizeSet = true;
+                    break;
+                default:
+                    break;
+            }
+            try {
+                Object result = method.invoke(stmt, args);
+                if (result instanceof ResultSet) {
+                    // the result set is closed along with the statement
+                    resultSet = (ResultSet) result;
+                }
+                return result;
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+}
@@ -20,8 +20,8 @@ public abstract class CsqlBasicDataAccessor<T extends ICallContext> implements C
 
 
     public CsqlBasicDataAccessor(T context) {
-        validateConnection(context);
         validateInitContext(context);
+        validateConnection(context);
         this.context = context;
         this.conn = context.getConn();
         this.db = context.getDbAdaptor();
@@ -47,15 +47,15 @@ public abstract class CsqlBasicDataAccessor<T extends ICallContext> implements C
                     "Invalid context passed to %s constructor: context should not be null.",
                     this.getClass().getName());
         }
+        if (context.isClosed()) {
+            throw new CelestaException("Cannot create %s on a closed CallContext.",
+                    this.getClass().getName());
+        }
         if (context.getConn() == null) {
             throw new CelestaException(
                     "Invalid context passed to %s constructor: connection is null.",
                     this.getClass().getName());
         }
-        if (context.isClosed()) {
-            throw new CelestaException("Cannot create %s on a closed CallContext.",
-                    this.getClass().getName());
-        }
     }
 
     /**
@@ -1,5 +1,7 @@
 package ru.curs.celesta.dbutils;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import ru.curs.celesta.CelestaException;
 import ru.curs.celesta.ConnectionPool;
 import ru.curs.celesta.ICallContext;
@@ -9,6 +11,7 @@ import ru.curs.celesta.dbutils.meta.DbFkInfo;
 import ru.curs.celesta.dbutils.meta.DbIndexInfo;
 import ru.curs.celesta.dbutils.meta.DbPkInfo;
 import ru.curs.celesta.dbutils.meta.DbSequenceInfo;
+import ru.curs.celesta.dbutils.meta.DbSnapshot;
 import ru.curs.celesta.event.TriggerQuery;
 import ru.curs.celesta.event.TriggerType;
 import ru.curs.celesta.score.AbstractScore;
@@ -31,18 +34,29 @@ import ru.curs.celesta.syscursors.ISchemaCursor;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public abstract class DbUpdater<T extends ICallContext> {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(DbUpdater.class);
+
     private static final Comparator<Grain> GRAIN_COMPARATOR = Comparator.comparingInt(Grain::getDependencyOrder);
 
     private static final Set<Integer> EXPECTED_STATUSES;
@@ -58,7 +72,9 @@ public abstract class DbUpdater<T extends ICallContext> {
     protected final AbstractScore score;
     protected final ConnectionPool connectionPool;
     protected ISchemaCursor schemaCursor;
-    private final boolean forceDdInitialize;
+    protected final boolean forceDdInitialize;
+    private int parallelism = 1;
+    private final Map<String, Long> grainUpdateDurations = Collections.synchronizedMap(new LinkedHashMap<>());
 
     public DbUpdater(
             ConnectionPool connectionPool, AbstractScore score, boolean forceDdInitialize, DBAdaptor dbAdaptor) {
@@ -76,6 +92,38 @@ public abstract class DbUpdater<T extends ICallContext> {
 
     protected abstract String getSchemasTableName();
 
+    /**
+     * Creates an updater of the same database and score. It is used to update a grain
+     * with its own call context concurrently with other grains.
+     */
+    protected abstract DbUpdater<T> copy();
+
+    /**
+     * Sets the maximum number of grains updated concurrently. Grains are updated
+     * one after another by default.
+     * <p>
+     * A grain is updated only after the grains it depends on (see {@link Grain#getDependencies()}),
+     * each grain is updated on its own connection.
+     *
+     * @param parallelism  maximum number of grains updated concurrently
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+        }
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Returns durations (in milliseconds) of the updates of grains made by the last {@link #updateDb()}
+     * call, in the order of completion.
+     */
+    public Map<String, Long> getGrainUpdateDurations() {
+        synchronized (grainUpdateDurations) {
+            return new LinkedHashMap<>(grainUpdateDurations);
+        }
+    }
+
     /**
      * Updates system schema.
      */
@@ -142,23 +190,10 @@ public abstract class DbUpdater<T extends ICallContext> {
             List<Grain> grains = new ArrayList<>(score.getGrains().values());
             grains.sort(GRAIN_COMPARATOR);
 
-            // Выполняем итерацию по гранулам.
-            boolean success = true;
-            for (Grain g : grains) {
-                if (!g.isAutoupdate()) {
-                    continue;
-                }
-                // Запись о грануле есть?
-                GrainInfo gi = dbGrains.get(g.getName());
-                if (gi == null) {
-                    insertGrainRec(g);
-                    success = updateGrain(g) & success;
-                } else {
-                    // Запись есть -- решение об апгрейде принимается на основе
-                    // версии и контрольной суммы.
-                    success = decideToUpgrade(g, gi) & success;
-                }
-            }
+            grainUpdateDurations.clear();
+            boolean success = parallelism > 1
+                    ? updateGrainsConcurrently(grains, dbGrains)
+                    : updateGrains(grains, dbGrains);
             if (!success) {
                 throw new CelestaException(
                         "Not all %s were updated successfully, see %s.%s table data for details.",
@@ -169,6 +204,115 @@ public abstract class DbUpdater<T extends ICallContext> {
     }
 
 
+    private boolean updateGrains(List<Grain> grains, Map<String, GrainInfo> dbGrains) {
+        // Выполняем итерацию по гранулам.
+        boolean success = true;
+        for (Grain g : grains) {
+            if (!g.isAutoupdate()) {
+                continue;
+            }
+            // Запись о грануле есть?
+            GrainInfo gi = dbGrains.get(g.getName());
+            if (gi == null) {
+                insertGrainRec(g);
+                success = updateGrainTimed(this, g) & success;
+            } else {
+                // Запись есть -- решение об апгрейде принимается на основе
+                // версии и контрольной суммы.
+                success = (!needsUpgrade(g, gi) || updateGrainTimed(this, g)) & success;
+            }
+        }
+        return success;
+    }
+
+    private boolean updateGrainsConcurrently(List<Grain> grains, Map<String, GrainInfo> dbGrains) {
+        // Решения об апгрейде принимаются до начала обновления, записи о новых гранулах
+        // фиксируются, чтобы обновляющие их соединения их видели.
+        boolean success = true;
+        List<Grain> grainsToUpdate = new ArrayList<>();
+        for (Grain g : grains) {
+            if (!g.isAutoupdate()) {
+                continue;
+            }
+            GrainInfo gi = dbGrains.get(g.getName());
+            if (gi == null) {
+                insertGrainRec(g);
+            } else if (!needsUpgrade(g, gi)) {
+                continue;
+            }
+            if (score.getSysSchemaName().equals(g.getName())) {
+                // Системная гранула содержит таблицу с записями о гранулах, её обновляем до остальных.
+                success = updateGrainTimed(this, g);
+            } else {
+                grainsToUpdate.add(g);
+            }
+        }
+        connectionPool.commit(schemaCursor.callContext().getConn());
+
+        AtomicInteger threadCounter = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, r -> {
+            Thread t = new Thread(r, "celesta-dbupdater-" + threadCounter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            // Гранулы упорядочены по зависимостям, так что обновления тех гранул,
+            // от которых зависит текущая, уже запланированы.
+            Map<Grain, CompletableFuture<Boolean>> updates = new HashMap<>();
+            for (Grain g : grainsToUpdate) {
+                CompletableFuture<?>[] dependencies = g.getDependencies().stream()
+                        .map(updates::get)
+                        .filter(Objects::nonNull)
+                        .toArray(CompletableFuture<?>[]::new);
+                updates.put(g, CompletableFuture.allOf(dependencies)
+                        .thenApplyAsync(v -> updateGrainInOwnContext(g), executor));
+            }
+            return awaitUpdates(grainsToUpdate, updates) & success;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static boolean awaitUpdates(List<Grain> grains, Map<Grain, CompletableFuture<Boolean>> updates) {
+        boolean success = true;
+        RuntimeException error = null;
+        for (Grain g : grains) {
+            try {
+                success = updates.get(g).join() & success;
+            } catch (CompletionException e) {
+                if (error == null) {
+                    error = e.getCause() instanceof RuntimeException
+                            ? (RuntimeException) e.getCause() : e;
+                }
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
+        return success;
+    }
+
+    private boolean updateGrainInOwnContext(Grain g) {
+        DbUpdater<T> worker = copy();
+        try (T context = worker.createContext()) {
+            worker.initDataAccessors(context);
+            return updateGrainTimed(worker, g);
+        }
+    }
+
+    private boolean updateGrainTimed(DbUpdater<T> updater, Grain g) {
+        long start = System.nanoTime();
+        boolean result = updater.updateGrain(g);
+        long duration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        grainUpdateDurations.put(g.getName(), duration);
+        if (result) {
+            LOGGER.info("Grain '{}' updated in {} ms.", g.getName(), duration);
+        } else {
+            LOGGER.error("Grain '{}' update failed in {} ms.", g.getName(), duration);
+        }
+        return result;
+    }
+
     /**
      * Updates system grain.
      *
@@ -212,13 +356,13 @@ public abstract class DbUpdater<T extends ICallContext> {
                 .insert();
     }
 
-    private boolean decideToUpgrade(Grain g, GrainInfo gi) {
+    private boolean needsUpgrade(Grain g, GrainInfo gi) {
         if (gi.lock) {
-            return true;
+            return false;
         }
 
         if (gi.recover) {
-            return updateGrain(g);
+            return true;
         }
 
         // Как соотносятся версии?
@@ -238,15 +382,13 @@ public abstract class DbUpdater<T extends ICallContext> {
                         g.getName(), g.getVersion().toString(), gi.version.toString());
             case GREATER:
                 // Версия выросла -- апгрейдим.
-                return updateGrain(g);
+                return true;
             case EQUALS:
                 // Версия не изменилась: апгрейдим лишь в том случае, если
                 // изменилась контрольная сумма.
-                if (gi.length != g.getLength() || gi.checksum != g.getChecksum()) {
-                    return updateGrain(g);
-                }
+                return gi.length != g.getLength() || gi.checksum != g.getChecksum();
             default:
-                return true;
+                return false;
         }
     }
 
@@ -269,6 +411,9 @@ public abstract class DbUpdater<T extends ICallContext> {
 
             beforeGrainUpdating(g);
 
+            // Загружаем структуру объектов гранулы в базе данных
+            DbSnapshot snapshot = dbAdaptor.getSnapshot(schemaCursor.callContext().getConn(), g);
+
             // Удаляем все представления
             dropAllViews(g);
             // Удаляем все параметризованные представления
@@ -276,18 +421,18 @@ public abstract class DbUpdater<T extends ICallContext> {
 
             // Выполняем удаление ненужных индексов, чтобы облегчить задачу
             // обновления столбцов на таблицах.
-            dropOrphanedGrainIndices(g);
+            dropOrphanedGrainIndices(g, snapshot);
 
             // Сбрасываем внешние ключи, более не включённые в метаданные
-            List<DbFkInfo> dbFKeys = dropOrphanedGrainFKeys(g);
+            List<DbFkInfo> dbFKeys = dropOrphanedGrainFKeys(g, snapshot);
 
             Set<String> modifiedTablesMap = new HashSet<>();
 
-            updateSequences(g);
+            updateSequences(g, snapshot);
 
             // Обновляем все таблицы.
             for (BasicTable t : g.getElements(BasicTable.class).values()) {
-                if (updateTable(t, dbFKeys)) {
+                if (updateTable(t, dbFKeys, snapshot)) {
                     modifiedTablesMap.add(t.getName());
                 }
             }
@@ -304,7 +449,7 @@ public abstract class DbUpdater<T extends ICallContext> {
             // Обновляем все материализованные представления.
             for (MaterializedView mv : g.getElements(MaterializedView.class).values()) {
                 String tableName = mv.getRefTable().getTable().getName();
-                updateMaterializedView(mv, modifiedTablesMap.contains(tableName));
+                updateMaterializedView(mv, modifiedTablesMap.contains(tableName), snapshot);
             }
 
             //Для всех таблиц обновляем триггеры материализованных представлений
@@ -389,12 +534,12 @@ public abstract class DbUpdater<T extends ICallContext> {
         }
     }
 
-    final void updateSequences(Grain g) {
+    final void updateSequences(Grain g, DbSnapshot snapshot) {
         Connection conn = schemaCursor.callContext().getConn();
 
         for (SequenceElement s : g.getElements(SequenceElement.class).values()) {
-            if (dbAdaptor.sequenceExists(conn, g.getName(), s.getName())) {
-                DbSequenceInfo sequenceInfo = dbAdaptor.getSequenceInfo(conn, s);
+            if (snapshot.sequenceExists(s.getName())) {
+                DbSequenceInfo sequenceInfo = snapshot.getSequenceInfo(s.getName());
                 if (sequenceInfo.reflects(s)) {
                     dbAdaptor.alterSequence(conn, s);
                 }
@@ -437,9 +582,9 @@ public abstract class DbUpdater<T extends ICallContext> {
         }
     }
 
-    final List<DbFkInfo> dropOrphanedGrainFKeys(Grain g) {
+    final List<DbFkInfo> dropOrphanedGrainFKeys(Grain g, DbSnapshot snapshot) {
         Connection conn = schemaCursor.callContext().getConn();
-        List<DbFkInfo> dbFKeys = dbAdaptor.getFKInfo(conn, g);
+        List<DbFkInfo> dbFKeys = new ArrayList<>(snapshot.getFKInfo());
         Map<String, ForeignKey> fKeys = new HashMap<>();
         for (BasicTable t : g.getElements(BasicTable.class).values()) {
             for (ForeignKey fk : t.getForeignKeys()) {
@@ -458,7 +603,7 @@ public abstract class DbUpdater<T extends ICallContext> {
         return dbFKeys;
     }
 
-    final void dropOrphanedGrainIndices(Grain g) {
+    final void dropOrphanedGrainIndices(Grain g, DbSnapshot snapshot) {
         /*
          * In general this method repeats the code from updateGrainIndices but only
          * in the part of deletion of indices. It is needed to clear up all indices
@@ -466,8 +611,7 @@ public abstract class DbUpdater<T extends ICallContext> {
          * structure is performed. That raises the probability of a successful outcome:
          * hanging at fields indices may interfere with the process.
          */
-        final Connection conn = schemaCursor.callContext().getConn();
-        Map<String, DbIndexInfo> dbIndices = dbAdaptor.getIndices(conn, g);
+        Map<String, DbIndexInfo> dbIndices = snapshot.getIndices();
         Map<String, Index> myIndices = g.getIndices();
         // Deletion of indices that don't exist in the metadata.
         for (DbIndexInfo dBIndexInfo : dbIndices.values()) {
@@ -487,7 +631,7 @@ public abstract class DbUpdater<T extends ICallContext> {
 
                 // Deletion of indices at those fields that will undergo a change
                 for (Map.Entry<String, Column<?>> ee : e.getValue().getColumns().entrySet()) {
-                    DbColumnInfo ci = dbAdaptor.getColumnInfo(conn, ee.getValue());
+                    DbColumnInfo ci = snapshot.getColumnInfo(ee.getValue());
                     if (ci == null || !ci.reflects(ee.getValue())) {
                         dbAdaptor.dropIndex(g, dBIndexInfo);
                         break;
@@ -520,7 +664,7 @@ public abstract class DbUpdater<T extends ICallContext> {
         }
     }
 
-    final boolean updateTable(BasicTable t, List<DbFkInfo> dbFKeys) {
+    final boolean updateTable(BasicTable t, List<DbFkInfo> dbFKeys, DbSnapshot snapshot) {
         // If table was compiled with option NO AUTOUPDATE then nothing is to be done
         if (!t.isAutoUpdate()) {
             return false;
@@ -528,26 +672,26 @@ public abstract class DbUpdater<T extends ICallContext> {
 
         final Connection conn = schemaCursor.callContext().getConn();
 
-        if (!dbAdaptor.tableExists(conn, t.getGrain().getName(), t.getName())) {
+        if (!snapshot.tableExists(t.getName())) {
             // Table doesn't exist in the DB, create it from scratch.
             dbAdaptor.createTable(conn, t);
             return true;
         }
 
-        DbPkInfo pkInfo;
-        Set<String> dbColumns = dbAdaptor.getColumns(conn, t);
-        boolean modified = updateColumns(t, conn, dbColumns, dbFKeys);
+        Set<String> dbColumns = snapshot.getColumns(t);
+        boolean modified = updateColumns(t, conn, dbColumns, dbFKeys, snapshot);
 
         // For versioned tables synchronize 'recversion' field
         if (t instanceof Table) {
             Table tab = (Table) t;
-            modified = processRecVersion(conn, dbColumns, modified, tab);
+            modified = processRecVersion(conn, dbColumns, modified, tab, snapshot);
         }
 
         // Once again check the primary key, and if needed (in case it doesn't exist or
-        // had been dropped) create it.
-        pkInfo = dbAdaptor.getPKInfo(conn, t);
-        if (pkInfo.isEmpty()) {
+        // had been dropped) create it. The primary key of the unmodified table is dropped
+        // only if it didn't reflect the metadata, so the snapshot is enough to check it.
+        boolean pkExists = modified ? !dbAdaptor.getPKInfo(conn, t).isEmpty() : snapshot.getPKInfo(t).reflects(t);
+        if (!pkExists) {
             dbAdaptor.createPK(conn, t);
         }
 
@@ -556,10 +700,11 @@ public abstract class DbUpdater<T extends ICallContext> {
         return modified;
     }
 
-    private boolean processRecVersion(Connection conn, Set<String> dbColumns, boolean modified, Table tab) {
+    private boolean processRecVersion(
+            Connection conn, Set<String> dbColumns, boolean modified, Table tab, DbSnapshot snapshot) {
         if (tab.isVersioned()) {
             if (dbColumns.contains(VersionedElement.REC_VERSION)) {
-                DbColumnInfo ci = dbAdaptor.getColumnInfo(conn, tab.getRecVersionField());
+                DbColumnInfo ci = snapshot.getColumnInfo(tab.getRecVersionField());
                 if (!ci.reflects(tab.getRecVersionField())) {
                     dbAdaptor.updateColumn(conn, tab.getRecVersionField(), ci);
                     modified = true;
@@ -572,23 +717,27 @@ public abstract class DbUpdater<T extends ICallContext> {
         return modified;
     }
 
-    final void updateMaterializedView(MaterializedView mv, boolean refTableIsModified) {
+    final void updateMaterializedView(MaterializedView mv, boolean refTableIsModified, DbSnapshot snapshot) {
         final Connection conn = schemaCursor.callContext().getConn();
 
-        boolean mViewExists = dbAdaptor.tableExists(conn, mv.getGrain().getName(), mv.getName());
+        boolean mViewExists = snapshot.tableExists(mv.getName());
 
+        //В теле insert-триггера хранятся контрольная сумма и отметка об отложенном обновлении.
+        Optional<String> insertTriggerBody = Optional.empty();
         if (mViewExists) {
+            String insertTriggerName = mv.getTriggerName(TriggerType.POST_INSERT);
+            TriggerQuery query = new TriggerQuery()
+                    .withSchema(mv.getGrain().getName())
+                    .withTableName(mv.getRefTable().getTable().getName())
+                    .withName(insertTriggerName);
+            insertTriggerBody = dbAdaptor.getTriggerBody(conn, query);
+        }
+        boolean wasDeferred = insertTriggerBody
+                .map(b -> b.contains(MaterializedView.DEFERRED_REFRESH_COMMENT)).orElse(false);
 
-            if (!refTableIsModified) {
-
-                //В теле insert-триггера должна храниться контрольная сумма.
-                String insertTriggerName = mv.getTriggerName(TriggerType.POST_INSERT);
-                TriggerQuery query = new TriggerQuery()
-                        .withSchema(mv.getGrain().getName())
-                        .withTableName(mv.getRefTable().getTable().getName())
-                        .withName(insertTriggerName);
+        if (mViewExists) {
 
-                Optional<String> insertTriggerBody = dbAdaptor.getTriggerBody(conn, query);
+            if (!refTableIsModified) {
                 boolean checksumIsMatched = insertTriggerBody.map(b -> b.contains(
                         String.format(MaterializedView.CHECKSUM_COMMENT_TEMPLATE, mv.getChecksum()))).orElse(false);
                 if (checksumIsMatched) {
@@ -600,17 +749,25 @@ public abstract class DbUpdater<T extends ICallContext> {
             dbAdaptor.dropTable(conn, mv);
         }
 
+        //Накопленные изменения отложенного обновления не нужны: данные инициализируются заново
+        if (wasDeferred) {
+            dbAdaptor.dropChangeLog(conn, mv);
+        }
+
         //1. Таблицы не существует в базе данных, создаём с нуля.
         dbAdaptor.createTable(conn, mv);
+        if (mv.getRefreshMode() == MaterializedView.RefreshMode.DEFERRED) {
+            dbAdaptor.createChangeLog(conn, mv);
+        }
         //2. Проинициализировать данные материального представления
         dbAdaptor.initDataForMaterializedView(conn, mv);
     }
 
-    private boolean updateColumns(
-            TableElement t, final Connection conn, Set<String> dbColumns, List<DbFkInfo> dbFKeys) {
+    private boolean updateColumns(TableElement t, final Connection conn, Set<String> dbColumns,
+                                  List<DbFkInfo> dbFKeys, DbSnapshot snapshot) {
         // Таблица существует в базе данных, определяем: надо ли удалить
         // первичный ключ
-        DbPkInfo pkInfo = dbAdaptor.getPKInfo(conn, t);
+        DbPkInfo pkInfo = snapshot.getPKInfo(t);
         boolean result = false;
         boolean keyDropped = pkInfo.isEmpty();
         if (!(pkInfo.reflects(t) || keyDropped)) {
@@ -624,7 +781,7 @@ public abstract class DbUpdater<T extends ICallContext> {
                 // Таблица содержит колонку с таким именем, надо проверить
                 // все её атрибуты и при необходимости -- попытаться
                 // обновить.
-                DbColumnInfo ci = dbAdaptor.getColumnInfo(conn, e.getValue());
+                DbColumnInfo ci = snapshot.getColumnInfo(e.getValue());
                 if (!ci.reflects(e.getValue())) {
                     // Если колонка, требующая обновления, входит в первичный
                     // ключ -- сбрасываем первичный ключ.
@@ -0,0 +1,246 @@
+package ru.curs.celesta.dbutils;
+
+import ru.curs.celesta.CelestaException;
+import ru.curs.celesta.dbutils.adaptors.DBAdaptor;
+import ru.curs.celesta.score.Column;
+import ru.curs.celesta.score.Count;
+import ru.curs.celesta.score.DateTimeColumn;
+import ru.curs.celesta.score.Expr;
+import ru.curs.celesta.score.MaterializedView;
+import ru.curs.celesta.score.Sum;
+import ru.curs.celesta.score.TableElement;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * Refresher of a materialized view with {@link MaterializedView.RefreshMode#DEFERRED deferred} refresh.
+ * <p>
+ * Changes recorded to the change log are summed up per group with a single query, the resulting deltas
+ * are applied to the materialized view group by group, then the change log is cleared. A SUM that becomes zero
+ * is computed anew from the referenced table, since removing its last non-null value has to leave NULL
+ * instead of zero. The refresh is made
+ * in a serializable transaction, so that changes recorded concurrently are neither applied nor cleared
+ * and wait for the next refresh. Refreshes of the same materialized view do not run in parallel
+ * within the application.
+ * <p>
+ * Draining the change log relies on the SERIALIZABLE isolation level, which is implemented differently
+ * by the databases. PostgreSQL and Oracle use snapshots, so writers are not blocked, but a refresh
+ * may fail with a serialization error and has to be retried. MS SQL Server takes range locks on the change
+ * log and the materialized view, so the transactions modifying the referenced table wait until
+ * the refresh is committed. Behaviour of other databases depends on their locking implementation.
+ */
+public final class MaterializedViewRefresher {
+
+    private final MaterializedView mv;
+    private final ReentrantLock lock = new ReentrantLock();
+    /**
+     * Whether aggregate column is a SUM column, in the order of the aggregate columns in statements.
+     */
+    private final List<Boolean> sumColumns = new ArrayList<>();
+    /**
+     * Whether group by column is a date truncated to day, in the order of the keys in statements.
+     */
+    private final List<Boolean> dateKeys = new ArrayList<>();
+    /**
+     * Statements computing a SUM column of a group anew, by the index of the aggregate column.
+     */
+    private final Map<Integer, String> recomputeSumSqls = new HashMap<>();
+    private final int keyCount;
+    private final String selectDeltasSql;
+    private final String updateSql;
+    private final String insertSql;
+    private final String deleteEmptyGroupsSql;
+    private final String clearLogSql;
+
+    public MaterializedViewRefresher(DBAdaptor dbAdaptor, MaterializedView mv) {
+        this.mv = mv;
+        String mvName = dbAdaptor.tableString(mv.getGrain().getName(), mv.getName());
+        String logName = dbAdaptor.tableString(mv.getGrain().getName(), mv.getChangeLogName());
+        String surrogateCount = "\"" + MaterializedView.SURROGATE_COUNT + "\"";
+        TableElement t = mv.getRefTable().getTable();
+        String tName = dbAdaptor.tableString(t.getGrain().getName(), t.getName());
+
+        List<String> keys = new ArrayList<>();
+        List<String> tKeyTerms = new ArrayList<>();
+        for (String alias : mv.getPrimaryKey().keySet()) {
+            keys.add("\"" + alias + "\"");
+            Column<?> colRef = mv.getColumnRef(alias);
+            boolean isDate = DateTimeColumn.CELESTA_TYPE.equals(colRef.getCelestaType());
+            dateKeys.add(isDate);
+            // Dates are grouped by day, the day is matched as a range to keep the query database independent
+            tKeyTerms.add(isDate
+                    ? String.format("\"%1$s\" >= ? AND \"%1$s\" < ?", colRef.getName())
+                    : String.format("\"%s\" = ?", colRef.getName()));
+        }
+        keyCount = keys.size();
+        String keyCondition = keys.stream().map(key -> key + " = ?").collect(Collectors.joining(" AND "));
+
+        List<String> aggregates = new ArrayList<>();
+        List<String> deltas = new ArrayList<>();
+        List<String> setTerms = new ArrayList<>();
+        for (Map.Entry<String, Expr> aggregate : mv.getAggregateColumns().entrySet()) {
+            String alias = "\"" + aggregate.getKey() + "\"";
+            if (aggregate.getValue() instanceof Sum) {
+                sumColumns.add(Boolean.TRUE);
+                // Values of removed rows are subtracted, NULL values do not change the sum
+                deltas.add(String.format("SUM(%s * %s)", alias, surrogateCount));
+                setTerms.add(String.format("%1$s = COALESCE(%1$s + ?, %1$s, ?)", alias));
+                recomputeSumSqls.put(aggregates.size(), String.format(
+                        "UPDATE %1$s SET %2$s = (SELECT SUM(\"%3$s\") FROM %4$s WHERE %5$s) WHERE %6$s AND %2$s = 0",
+                        mvName, alias, mv.getColumnRef(aggregate.getKey()).getName(), tName,
+                        String.join(" AND ", tKeyTerms), keyCondition));
+                aggregates.add(alias);
+            } else if (aggregate.getValue() instanceof Count) {
+                sumColumns.add(Boolean.FALSE);
+                deltas.add(String.format("SUM(%s)", alias));
+                setTerms.add(String.format("%1$s = %1$s + ?", alias));
+                aggregates.add(alias);
+            }
+        }
+        sumColumns.add(Boolean.FALSE);
+        aggregates.add(surrogateCount);
+        deltas.add(String.format("SUM(%s)", surrogateCount));
+        setTerms.add(String.format("%1$s = %1$s + ?", surrogateCount));
+
+        String keyList = String.join(", ", keys);
+        selectDeltasSql = String.format("SELECT %s, %s FROM %s GROUP BY %s",
+                keyList, String.join(", ", deltas), logName, keyList);
+        updateSql = String.format("UPDATE %s SET %s WHERE %s", mvName, String.join(", ", setTerms), keyCondition);
+        insertSql = String.format("INSERT INTO %s (%s, %s) VALUES (%s)", mvName, keyList,
+                String.join(", ", aggregates),
+                String.join(", ", Collections.nCopies(keys.size() + aggregates.size(), "?")));
+        deleteEmptyGroupsSql = String.format("DELETE FROM %s WHERE %s = 0", mvName, surrogateCount);
+        clearLogSql = "DELETE FROM " + logName;
+    }
+
+    /**
+     * Applies the changes recorded to the change log to the materialized view and commits the transaction.
+     *
+     * @param conn  connection not used by any call context
+     */
+    public void refresh(Connection conn) {
+        lock.lock();
+        try {
+            int isolation = conn.getTransactionIsolation();
+            conn.setTransactionIsolation(Connection.TRANSACTION_SERIALIZABLE);
+            try {
+                applyDeltas(conn);
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setTransactionIsolation(isolation);
+            }
+        } catch (SQLException e) {
+            throw new CelestaException(String.format("Cannot refresh materialized view %s.%s: %s",
+                    mv.getGrain().getName(), mv.getName(), e.getMessage()), e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void applyDeltas(Connection conn) throws SQLException {
+        Map<Integer, PreparedStatement> recomputeSums = new HashMap<>();
+        try (PreparedStatement select = conn.prepareStatement(selectDeltasSql);
+             PreparedStatement update = conn.prepareStatement(updateSql);
+             PreparedStatement insert = conn.prepareStatement(insertSql);
+             ResultSet rs = select.executeQuery()) {
+            for (Map.Entry<Integer, String> e : recomputeSumSqls.entrySet()) {
+                recomputeSums.put(e.getKey(), conn.prepareStatement(e.getValue()));
+            }
+            int columnCount = keyCount + sumColumns.size();
+            while (rs.next()) {
+                Object[] row = new Object[columnCount];
+                for (int i = 0; i < columnCount; i++) {
+                    row[i] = rs.getObject(i + 1);
+                }
+                if (isEmptyDelta(row)) {
+                    continue;
+                }
+
+                int p = 0;
+                for (int i = 0; i < sumColumns.size(); i++) {
+                    Object delta = row[keyCount + i];
+                    update.setObject(++p, delta);
+                    if (sumColumns.get(i)) {
+                        update.setObject(++p, delta);
+                    }
+                }
+                for (int i = 0; i < keyCount; i++) {
+                    update.setObject(++p, row[i]);
+                }
+
+                if (update.executeUpdate() == 0) {
+                    for (int i = 0; i < columnCount; i++) {
+                        insert.setObject(i + 1, row[i]);
+                    }
+                    insert.executeUpdate();
+                }
+                recomputeZeroSums(recomputeSums, rs, row);
+            }
+        } finally {
+            for (PreparedStatement recompute : recomputeSums.values()) {
+                recompute.close();
+            }
+        }
+
+        try (PreparedStatement delete = conn.prepareStatement(deleteEmptyGroupsSql);
+             PreparedStatement clear = conn.prepareStatement(clearLogSql)) {
+            delete.executeUpdate();
+            clear.executeUpdate();
+        }
+    }
+
+    /**
+     * Computes anew the sums of the group that were changed and became zero: a sum of a group
+     * is NULL when all its values are NULL, while subtraction of the last non-null value leaves zero.
+     */
+    private void recomputeZeroSums(Map<Integer, PreparedStatement> recomputeSums, ResultSet rs, Object[] row)
+            throws SQLException {
+        for (Map.Entry<Integer, PreparedStatement> e : recomputeSums.entrySet()) {
+            if (row[keyCount + e.getKey()] == null) {
+                continue;
+            }
+            PreparedStatement recompute = e.getValue();
+            int p = 0;
+            for (int i = 0; i < keyCount; i++) {
+                if (dateKeys.get(i)) {
+                    Timestamp day = rs.getTimestamp(i + 1);
+                    recompute.setTimestamp(++p, day);
+                    recompute.setTimestamp(++p, Timestamp.valueOf(day.toLocalDateTime().plusDays(1)));
+                } else {
+                    recompute.setObject(++p, row[i]);
+                }
+            }
+            for (int i = 0; i < keyCount; i++) {
+                recompute.setObject(++p, row[i]);
+            }
+            recompute.executeUpdate();
+        }
+    }
+
+    /**
+     * Whether the changes of a group compensate each other, e.g. the rows were inserted and deleted.
+     */
+    private boolean isEmptyDelta(Object[] row) {
+        for (int i = keyCount; i < row.length; i++) {
+            if (row[i] != null && ((Number) row[i]).doubleValue() != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
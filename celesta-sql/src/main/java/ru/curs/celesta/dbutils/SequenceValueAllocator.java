@@ -0,0 +1,72 @@
+package ru.curs.celesta.dbutils;
+
+import ru.curs.celesta.dbutils.adaptors.DBAdaptor;
+import ru.curs.celesta.score.SequenceElement;
+
+import java.sql.Connection;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Allocator of sequence values that are reserved in the DB by portions.
+ * <p>
+ * A portion of {@link SequenceElement#getCacheSize()} values is retrieved from the DB sequence
+ * with a single query, then the values are handed out one by one without DB round trips.
+ * The allocator is thread-safe and shared by all the call contexts working with the same DB adaptor.
+ * Values that have been reserved but not handed out are lost on application shutdown.
+ */
+public final class SequenceValueAllocator {
+
+    private final DBAdaptor dbAdaptor;
+    private final SequenceElement sequence;
+    private final ReentrantLock lock = new ReentrantLock();
+    private long[] values = new long[0];
+    private int next;
+
+    public SequenceValueAllocator(DBAdaptor dbAdaptor, SequenceElement sequence) {
+        this.dbAdaptor = dbAdaptor;
+        this.sequence = sequence;
+    }
+
+    /**
+     * Returns the sequence the values are allocated for.
+     *
+     * @return sequence element
+     */
+    public SequenceElement getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Returns the next reserved value of the sequence, reserving a new portion of values if needed.
+     *
+     * @param conn  connection used for reserving values
+     * @return next value of the sequence
+     */
+    public long nextValue(Connection conn) {
+        lock.lock();
+        try {
+            if (next == values.length) {
+                values = dbAdaptor.nextSequenceValues(conn, sequence, sequence.getCacheSize());
+                next = 0;
+            }
+            return values[next++];
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of reserved values that have not been handed out yet.
+     *
+     * @return number of values available without DB round trips
+     */
+    public int getReservedCount() {
+        lock.lock();
+        try {
+            return values.length - next;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+}
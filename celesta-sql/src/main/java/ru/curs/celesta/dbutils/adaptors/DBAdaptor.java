@@ -40,7 +40,9 @@ import org.slf4j.LoggerFactory;
 import ru.curs.celesta.CelestaException;
 import ru.curs.celesta.ConnectionPool;
 import ru.curs.celesta.DBType;
+import ru.curs.celesta.dbutils.MaterializedViewRefresher;
 import ru.curs.celesta.dbutils.QueryBuildingHelper;
+import ru.curs.celesta.dbutils.SequenceValueAllocator;
 import ru.curs.celesta.dbutils.adaptors.column.ColumnDefiner;
 import ru.curs.celesta.dbutils.adaptors.column.ColumnDefinerFactory;
 import ru.curs.celesta.dbutils.adaptors.ddl.DdlAdaptor;
@@ -51,8 +53,10 @@ import ru.curs.celesta.dbutils.meta.DbFkInfo;
 import ru.curs.celesta.dbutils.meta.DbIndexInfo;
 import ru.curs.celesta.dbutils.meta.DbPkInfo;
 import ru.curs.celesta.dbutils.meta.DbSequenceInfo;
+import ru.curs.celesta.dbutils.meta.DbSnapshot;
 import ru.curs.celesta.dbutils.query.FromClause;
 import ru.curs.celesta.dbutils.stmt.ParameterSetter;
+import ru.curs.celesta.dbutils.stmt.PreparedStmtHolder;
 import ru.curs.celesta.event.TriggerQuery;
 import ru.curs.celesta.score.BasicTable;
 import ru.curs.celesta.score.BinaryColumn;
@@ -93,6 +97,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
@@ -138,6 +143,8 @@ public abstract class DBAdaptor implements QueryBuildingHelper, StaticDataAdapto
 
     protected final ConnectionPool connectionPool;
     DdlAdaptor ddlAdaptor;
+    private final Map<String, SequenceValueAllocator> sequenceValueAllocators = new ConcurrentHashMap<>();
+    private final Map<String, MaterializedViewRefresher> materializedViewRefreshers = new ConcurrentHashMap<>();
 
     protected DBAdaptor(ConnectionPool connectionPool, DdlConsumer ddlConsumer) {
         this.connectionPool = connectionPool;
@@ -158,7 +165,9 @@ public abstract class DBAdaptor implements QueryBuildingHelper, StaticDataAdapto
      */
     static PreparedStatement prepareStatement(Connection conn, String sql) {
         try {
-            return conn.prepareStatement(sql);
+            PreparedStatement result = conn.prepareStatement(sql);
+            PreparedStmtHolder.sqlPrepared(sql);
+            return result;
         } catch (SQLException e) {
             throw new CelestaException(e.getMessage(), e);
         }
@@ -258,6 +267,43 @@ public abstract class DBAdaptor implements QueryBuildingHelper, StaticDataAdapto
 
         return sqlfrom + sqlwhere + " order by " + orderBy;
     }
+
+    /**
+     * Returns MERGE statement that inserts a record into a table only if there is
+     * no record with the same primary key. Primary key values are bound both in ON
+     * condition and in VALUES clause, so that the types of all the parameters are
+     * inferred from the table columns.
+     *
+     * @param t         table
+     * @param nullsMask null-flags (if set the corresponding field is not inserted)
+     * @param program   collects parameters that can be set with the query
+     * @param target    MERGE target (table with optional hints)
+     * @param source    one-row source of the MERGE
+     */
+    final String getMergeInsertIfAbsentSql(BasicTable t, boolean[] nullsMask, List<ParameterSetter> program,
+                                           String target, String source) {
+        String on = t.getPrimaryKey().keySet().stream()
+                .map(c -> String.format("\"%s\" = ?", c))
+                .collect(Collectors.joining(" and "));
+        for (String c : t.getPrimaryKey().keySet()) {
+            program.add(ParameterSetter.create(t.getColumnIndex(c), this));
+        }
+
+        List<String> fields = new ArrayList<>();
+        List<String> params = new ArrayList<>();
+        int i = 0;
+        for (String c : t.getColumns().keySet()) {
+            if (!nullsMask[i]) {
+                fields.add(String.format("\"%s\"", c));
+                params.add("?");
+                program.add(ParameterSetter.create(i, this));
+            }
+            i++;
+        }
+
+        return String.format("merge into %s using %s on (%s) when not matched then insert (%s) values (%s)",
+                target, source, on, String.join(", ", fields), String.join(", ", params));
+    }
     // =========> END PACKAGE-PRIVATE FINAL METHODS <=========
 
 
@@ -429,6 +475,42 @@ public abstract class DBAdaptor implements QueryBuildingHelper, StaticDataAdapto
         return prepareStatement(conn, sql);
     }
 
+    /**
+     * Returns prepared statement for inserting a record that does not return generated
+     * values, so that it can be executed in a JDBC batch. Columns that are marked
+     * in {@code nullsMask} are omitted and get their DB default values.
+     *
+     * @param conn       DB connection
+     * @param t          table
+     * @param nullsMask  nulls mask
+     * @param program    collects parameter predicates
+     */
+    public final PreparedStatement getBatchInsertRecordStatement(
+            Connection conn, BasicTable t, boolean[] nullsMask, List<ParameterSetter> program) {
+        StringBuilder fields = new StringBuilder();
+        StringBuilder params = new StringBuilder();
+        int i = 0;
+        for (String c : t.getColumns().keySet()) {
+            if (!nullsMask[i]) {
+                padComma(fields);
+                padComma(params);
+                fields.append(String.format("\"%s\"", c));
+                params.append('?');
+                program.add(ParameterSetter.create(i, this));
+            }
+            i++;
+        }
+        if (fields.length() == 0) {
+            throw new CelestaException("No values to insert into %s.%s", t.getGrain().getName(), t.getName());
+        }
+
+        String sql = String.format("insert into %s (%s) values (%s)",
+                tableString(t.getGrain().getName(), t.getName()), fields, params);
+
+        LOGGER.trace(sql);
+        return prepareStatement(conn, sql);
+    }
+
     /**
      * Creates a table index in the DB.
      *
@@ -479,6 +561,28 @@ public abstract class DBAdaptor implements QueryBuildingHelper, StaticDataAdapto
     public final PreparedStatement getRecordSetStatement(
             Connection conn, FromClause from, String whereClause,
             String orderBy, long offset, long rowCount, Set<String> fields
+    ) {
+        // CHECKSTYLE:ON
+        return getRecordSetStatement(conn, from, whereClause, orderBy, offset, rowCount, fields, 0);
+    }
+
+    /**
+     * Returns forward-only read-only {@link PreparedStatement} containing a filtered set of entries
+     * which are fetched from the DB by portions of the given size.
+     *
+     * @param conn        Connection
+     * @param from        Object for forming FROM part of the query
+     * @param whereClause Where clause
+     * @param orderBy     Sort order
+     * @param offset      Number of entries to skip
+     * @param rowCount    Number of entries to return (limit filter)
+     * @param fields      Requested columns. If none are provided all columns are requested
+     * @param fetchSize   Number of entries fetched from the DB at a time (0 - JDBC driver's default)
+     */
+    // CHECKSTYLE:OFF 8 parameters
+    public final PreparedStatement getRecordSetStatement(
+            Connection conn, FromClause from, String whereClause,
+            String orderBy, long offset, long rowCount, Set<String> fields, int fetchSize
     ) {
         // CHECKSTYLE:ON
         String sql;
@@ -494,13 +598,65 @@ public abstract class DBAdaptor implements QueryBuildingHelper, StaticDataAdapto
             LOGGER.trace(sql);
         }
         try {
-            PreparedStatement result = conn.prepareStatement(sql);
+            PreparedStatement result = conn.prepareStatement(sql,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            PreparedStmtHolder.sqlPrepared(sql);
+            if (fetchSize > 0) {
+                if (fetchSizeRequiresTransaction() && conn.getAutoCommit()) {
+                    // The driver would ignore the fetch size and read the whole result set at once
+                    LOGGER.warn("Fetch size {} is ignored for a connection in auto-commit mode: {}",
+                            fetchSize, sql);
+                }
+                result.setFetchSize(fetchSize);
+            }
             return result;
         } catch (SQLException e) {
             throw new CelestaException(e.getMessage(), e);
         }
     }
 
+    /**
+     * Returns the allocator handing out values of a sequence which are reserved in the DB by portions.
+     * The allocator is shared by all the connections of this adaptor. Values reserved by the allocator
+     * are discarded when the sequence is created, altered or dropped by this adaptor, and when
+     * the sequence element is replaced by another one, i.e. the score is reloaded.
+     *
+     * @param s  sequence
+     */
+    public final SequenceValueAllocator getSequenceValueAllocator(SequenceElement s) {
+        return sequenceValueAllocators.compute(getSequenceKey(s),
+                (k, allocator) -> allocator != null && allocator.getSequence() == s
+                        ? allocator : new SequenceValueAllocator(this, s));
+    }
+
+    private void discardSequenceValueAllocator(SequenceElement s) {
+        sequenceValueAllocators.remove(getSequenceKey(s));
+    }
+
+    private static String getSequenceKey(SequenceElement s) {
+        return s.getGrain().getName() + "." + s.getName();
+    }
+
+    /**
+     * Applies changes accumulated in the change log to the materialized view with deferred refresh.
+     * The refresh is made on a separate connection, so changes that are not committed yet are applied
+     * by the next refresh. Does nothing for materialized views with other refresh modes.
+     *
+     * @param mv  materialized view
+     */
+    public final void refreshMaterializedView(MaterializedView mv) {
+        if (mv.getRefreshMode() != MaterializedView.RefreshMode.DEFERRED) {
+            return;
+        }
+        MaterializedViewRefresher refresher = materializedViewRefreshers.computeIfAbsent(
+                mv.getGrain().getName() + "." + mv.getName(), k -> new MaterializedViewRefresher(this, mv));
+        try (Connection conn = connectionPool.get()) {
+            refresher.refresh(conn);
+        } catch (SQLException e) {
+            throw new CelestaException(e.getMessage(), e);
+        }
+    }
+
     /**
      * Builds a SELECT COUNT statement.
      *
@@ -673,6 +829,56 @@ public abstract class DBAdaptor implements QueryBuildingHelper, StaticDataAdapto
         return result;
     }
 
+    /**
+     * Returns the structure of the grain objects in the database: tables of the grain with
+     * their columns and primary keys, materialized views, foreign keys,
+     * indices and sequences. The information is taken for the whole grain at once, so that
+     * the database structure can be compared with the score without a catalog query per column.
+     * <p>
+     * Default implementation queries each object separately, adaptors override it
+     * with queries loading the objects of all the grain tables at once.
+     *
+     * @param conn DB connection
+     * @param g    grain
+     */
+    public DbSnapshot getSnapshot(Connection conn, Grain g) {
+        DbSnapshot snapshot = new DbSnapshot(this);
+        for (BasicTable t : g.getElements(BasicTable.class).values()) {
+            addTableToSnapshot(conn, t, snapshot);
+        }
+        for (MaterializedView mv : g.getElements(MaterializedView.class).values()) {
+            if (tableExists(conn, g.getName(), mv.getName())) {
+                snapshot.addTable(mv.getName());
+            }
+        }
+        snapshot.setFKInfo(getFKInfo(conn, g));
+        snapshot.setIndices(getIndices(conn, g));
+        for (SequenceElement s : g.getElements(SequenceElement.class).values()) {
+            if (sequenceExists(conn, g.getName(), s.getName())) {
+                snapshot.addSequence(s.getName(), getSequenceInfo(conn, s));
+            }
+        }
+        return snapshot;
+    }
+
+    private void addTableToSnapshot(Connection conn, BasicTable t, DbSnapshot snapshot) {
+        if (!tableExists(conn, t.getGrain().getName(), t.getName())) {
+            return;
+        }
+        snapshot.addTable(t.getName());
+        List<Column<?>> columns = new ArrayList<>(t.getColumns().values());
+        if (t instanceof Table) {
+            columns.add(((Table) t).getRecVersionField());
+        }
+        Set<String> dbColumns = getColumns(conn, t);
+        for (Column<?> c : columns) {
+            if (dbColumns.contains(c.getName())) {
+                snapshot.addColumn(t.getName(), getColumnInfo(conn, c));
+            }
+        }
+        snapshot.setPKInfo(t.getName(), getPKInfo(conn, t));
+    }
+
     /**
      * Drops a foreign key from the database.
      *
@@ -740,6 +946,7 @@ public abstract class DBAdaptor implements QueryBuildingHelper, StaticDataAdapto
      */
     public void createSequence(Connection conn, SequenceElement s) {
         ddlAdaptor.createSequence(conn, s);
+        discardSequenceValueAllocator(s);
     }
 
     /**
@@ -750,6 +957,7 @@ public abstract class DBAdaptor implements QueryBuildingHelper, StaticDataAdapto
      */
     public void alterSequence(Connection conn, SequenceElement s) {
         ddlAdaptor.alterSequence(conn, s);
+        discardSequenceValueAllocator(s);
     }
 
     /**
@@ -761,6 +969,7 @@ public abstract class DBAdaptor implements QueryBuildingHelper, StaticDataAdapto
     public void dropSequence(Connection conn, SequenceElement s) {
         String sql = String.format("DROP SEQUENCE " + sequenceString(s.getGrain().getName(), s.getName()));
         executeUpdate(conn, sql);
+        discardSequenceValueAllocator(s);
     }
 
     /**
@@ -830,6 +1039,26 @@ public abstract class DBAdaptor implements QueryBuildingHelper, StaticDataAdapto
         this.ddlAdaptor.initDataForMaterializedView(conn, mv);
     }
 
+    /**
+     * Creates the change log table of a materialized view with deferred refresh.
+     *
+     * @param conn connection
+     * @param mv   materialized view
+     */
+    public void createChangeLog(Connection conn, MaterializedView mv) {
+        this.ddlAdaptor.createChangeLog(conn, mv);
+    }
+
+    /**
+     * Drops the change log table of a materialized view.
+     *
+     * @param conn connection
+     * @param mv   materialized view
+     */
+    public void dropChangeLog(Connection conn, MaterializedView mv) {
+        this.ddlAdaptor.dropChangeLog(conn, mv);
+    }
+
     /**
      * Returned strings ordered by the database according to the current collation. This method is required
      * for operations that depend on collation rules.
@@ -979,6 +1208,56 @@ public abstract class DBAdaptor implements QueryBuildingHelper, StaticDataAdapto
         return z;
     }
 
+    /**
+     * Whether the table records can be inserted with the statement returned by
+     * {@link #getInsertIfAbsentRecordStatement(Connection, BasicTable, boolean[], List)}.
+     * <p>
+     * Tables with auto-incremented columns are not supported, as the generated value
+     * has to be returned by the insertion statement.
+     *
+     * @param t table
+     */
+    public boolean supportsInsertIfAbsent(BasicTable t) {
+        return !t.getAutoincrementedColumn().isPresent();
+    }
+
+    /**
+     * Whether the table records can be updated without reading them first, i.e. whether
+     * the update count returned by the update statement is the number of updated records
+     * of the table.
+     *
+     * @param t table
+     */
+    public boolean supportsBlindUpdate(BasicTable t) {
+        return true;
+    }
+
+    /**
+     * Retrieves several next values from the sequence.
+     * <p>
+     * The default implementation retrieves the values one by one,
+     * adaptors override it to retrieve all the values with a single query.
+     *
+     * @param conn  DB connection
+     * @param s     sequence
+     * @param count number of values
+     */
+    public long[] nextSequenceValues(Connection conn, SequenceElement s, int count) {
+        long[] result = new long[count];
+        for (int i = 0; i < count; i++) {
+            result[i] = nextSequenceValue(conn, s);
+        }
+        return result;
+    }
+
+    /**
+     * Whether the JDBC driver honors the fetch size of a statement only within a transaction,
+     * reading the whole result set at once when the connection is in auto-commit mode.
+     */
+    public boolean fetchSizeRequiresTransaction() {
+        return false;
+    }
+
     // =========> END PUBLIC METHODS <=========
 
     // =========> PUBLIC ABSTRACT METHODS <=========
@@ -1058,6 +1337,20 @@ public abstract class DBAdaptor implements QueryBuildingHelper, StaticDataAdapto
     public abstract PreparedStatement getInsertRecordStatement(Connection conn, BasicTable t, boolean[] nullsMask,
                                                                List<ParameterSetter> program);
 
+    /**
+     * Creates a PreparedStatement object for a statement that inserts a record into a table
+     * only if there is no record with the same primary key. The update count of the statement
+     * is 0 if the record already exists.
+     *
+     * @param conn      DB connection
+     * @param t         table
+     * @param nullsMask null-flags (if set the corresponding field at n-th position becomes {@code null})
+     * @param program   collects parameters that can be set with the query
+     */
+    public abstract PreparedStatement getInsertIfAbsentRecordStatement(Connection conn, BasicTable t,
+                                                                       boolean[] nullsMask,
+                                                                       List<ParameterSetter> program);
+
     /**
      * Returns current identity value for the table.
      *
@@ -251,11 +251,7 @@ public final class FirebirdAdaptor extends DBAdaptor {
         // Готовим запрос на удаление
         String sql = String.format("delete from " + tableString(t.getGrain().getName(), t.getName()) + " %s;",
                 where.isEmpty() ? "" : "where " + where);
-        try {
-            return conn.prepareStatement(sql);
-        } catch (SQLException e) {
-            throw new CelestaException(e.getMessage(), e);
-        }
+        return prepareStatement(conn, sql);
     }
 
     @Override
@@ -296,6 +292,14 @@ public final class FirebirdAdaptor extends DBAdaptor {
         return prepareStatement(conn, sql);
     }
 
+    @Override
+    public PreparedStatement getInsertIfAbsentRecordStatement(Connection conn, BasicTable t, boolean[] nullsMask,
+                                                              List<ParameterSetter> program) {
+        String sql = getMergeInsertIfAbsentSql(t, nullsMask, program,
+                tableString(t.getGrain().getName(), t.getName()), "rdb$database");
+        return prepareStatement(conn, sql);
+    }
+
     @Override
     public int getCurrentIdent(Connection conn, BasicTable t) {
         IntegerColumn idColumn = t.getAutoincrementedColumn()
@@ -145,6 +145,14 @@ public final class H2Adaptor extends OpenSourceDbAdaptor {
         return prepareStatement(conn, sql);
     }
 
+    @Override
+    public PreparedStatement getInsertIfAbsentRecordStatement(Connection conn, BasicTable t, boolean[] nullsMask,
+                                                              List<ParameterSetter> program) {
+        String sql = getMergeInsertIfAbsentSql(t, nullsMask, program,
+                tableString(t.getGrain().getName(), t.getName()), "(select 1)");
+        return prepareStatement(conn, sql);
+    }
+
     @Override
     public List<String> getParameterizedViewList(Connection conn, Grain g) {
         String sql = String.format(
@@ -171,35 +179,7 @@ public final class H2Adaptor extends OpenSourceDbAdaptor {
 
             try (ResultSet rs = metaData.getColumns(null, grainName, tableName, c.getName())) {
                 if (rs.next()) {
-                    DbColumnInfo result = new DbColumnInfo();
-                    result.setName(rs.getString(COLUMN_NAME));
-                    String typeName = rs.getString("TYPE_NAME");
-                    String columnDefault = rs.getString("COLUMN_DEF");
-
-                    if ("character large object".equalsIgnoreCase(typeName)) {
-                        result.setType(StringColumn.class);
-                        result.setMax(true);
-                    } else {
-                        for (Class<? extends Column<?>> cc : COLUMN_CLASSES) {
-                            if (getColumnDefiner(cc).dbFieldType().equalsIgnoreCase(typeName)) {
-                                result.setType(cc);
-                                break;
-                            }
-                        }
-                    }
-                    result.setNullable(rs.getInt("NULLABLE") != DatabaseMetaData.columnNoNulls);
-                    if (result.getType() == StringColumn.class || result.getType() == DecimalColumn.class) {
-                        result.setLength(rs.getInt("COLUMN_SIZE"));
-                    }
-                    if (result.getType() == DecimalColumn.class) {
-                        result.setScale(rs.getInt("DECIMAL_DIGITS"));
-                    }
-
-                    if (columnDefault != null) {
-                        columnDefault = modifyDefault(result, columnDefault, conn);
-                        result.setDefaultValue(columnDefault);
-                    }
-                    return result;
+                    return readColumnInfo(conn, rs);
                 } else {
                     return null;
                 }
@@ -209,6 +189,39 @@ public final class H2Adaptor extends OpenSourceDbAdaptor {
         }
     }
 
+    @Override
+    DbColumnInfo readColumnInfo(Connection conn, ResultSet rs) throws SQLException {
+        DbColumnInfo result = new DbColumnInfo();
+        result.setName(rs.getString(COLUMN_NAME));
+        String typeName = rs.getString("TYPE_NAME");
+        String columnDefault = rs.getString("COLUMN_DEF");
+
+        if ("character large object".equalsIgnoreCase(typeName)) {
+            result.setType(StringColumn.class);
+            result.setMax(true);
+        } else {
+            for (Class<? extends Column<?>> cc : COLUMN_CLASSES) {
+                if (getColumnDefiner(cc).dbFieldType().equalsIgnoreCase(typeName)) {
+                    result.setType(cc);
+                    break;
+                }
+            }
+        }
+        result.setNullable(rs.getInt("NULLABLE") != DatabaseMetaData.columnNoNulls);
+        if (result.getType() == StringColumn.class || result.getType() == DecimalColumn.class) {
+            result.setLength(rs.getInt("COLUMN_SIZE"));
+        }
+        if (result.getType() == DecimalColumn.class) {
+            result.setScale(rs.getInt("DECIMAL_DIGITS"));
+        }
+
+        if (columnDefault != null) {
+            columnDefault = modifyDefault(result, columnDefault, conn);
+            result.setDefaultValue(columnDefault);
+        }
+        return result;
+    }
+
     private String modifyDefault(DbColumnInfo ci, String defaultBody, Connection conn) {
         String result = defaultBody;
         if (IntegerColumn.class == ci.getType()) {
@@ -465,9 +478,12 @@ public final class H2Adaptor extends OpenSourceDbAdaptor {
 
     @Override
     String getSelectTriggerBodySql(TriggerQuery query) {
-        String sql = String.format("select SQL from information_schema.triggers where "
-                + "        table_schema = '%s' and table_name = '%s'"
-                + "        and trigger_name = '%s'", query.getSchema(), query.getTableName(), query.getName());
+        String sql = String.format("select remarks from information_schema.triggers where "
+                + "        trigger_schema = '%s' and event_object_table = '%s'"
+                + "        and trigger_name = '%s'",
+                query.getSchema().replace("\"", ""),
+                query.getTableName().replace("\"", ""),
+                query.getName());
 
         return sql;
     }
@@ -482,6 +498,11 @@ public final class H2Adaptor extends OpenSourceDbAdaptor {
         return DBType.H2;
     }
 
+    @Override
+    public long[] nextSequenceValues(Connection conn, SequenceElement s, int count) {
+        return nextSequenceValues(conn, s, count, "SYSTEM_RANGE(1, ?)");
+    }
+
     @Override
     public DbSequenceInfo getSequenceInfo(Connection conn, SequenceElement s) {
         String sql = "SELECT INCREMENT, MINIMUM_VALUE, MAXIMUM_VALUE, CYCLE_OPTION "
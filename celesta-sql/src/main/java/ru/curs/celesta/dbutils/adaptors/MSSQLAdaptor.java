@@ -202,6 +202,27 @@ public final class MSSQLAdaptor extends DBAdaptor {
         return prepareStatement(conn, sql);
     }
 
+    @Override
+    public PreparedStatement getInsertIfAbsentRecordStatement(Connection conn, BasicTable t, boolean[] nullsMask,
+                                                              List<ParameterSetter> program) {
+        String sql = getMergeInsertIfAbsentSql(t, nullsMask, program,
+                tableString(t.getGrain().getName(), t.getName()) + " with (holdlock)",
+                "(select 1 as \"one\") as \"src\"");
+        return prepareStatement(conn, sql + ";");
+    }
+
+    @Override
+    public boolean supportsInsertIfAbsent(BasicTable t) {
+        // Update counts of materialized views' triggers are mixed with the one of the insertion.
+        return super.supportsInsertIfAbsent(t) && !t.hasMaterializedViews();
+    }
+
+    @Override
+    public boolean supportsBlindUpdate(BasicTable t) {
+        // Update counts of materialized views' triggers are mixed with the one of the update.
+        return !t.hasMaterializedViews();
+    }
+
     @Override
     public PreparedStatement getDeleteRecordStatement(Connection conn, TableElement t, String where) {
         String sql = String.format("delete " + tableString(t.getGrain().getName(), t.getName()) + WHERE_S, where);
@@ -213,12 +234,7 @@ public final class MSSQLAdaptor extends DBAdaptor {
         // Готовим запрос на удаление
         String sql = String.format("delete " + tableString(t.getGrain().getName(), t.getName()) + " %s;",
                 where.isEmpty() ? "" : "where " + where);
-        try {
-            PreparedStatement result = conn.prepareStatement(sql);
-            return result;
-        } catch (SQLException e) {
-            throw new CelestaException(e.getMessage(), e);
-        }
+        return prepareStatement(conn, sql);
     }
 
     @Override
@@ -632,8 +648,8 @@ public final class MSSQLAdaptor extends DBAdaptor {
     public long nextSequenceValue(Connection conn, SequenceElement s) {
         String sql = "SELECT NEXT VALUE FOR " + sequenceString(s.getGrain().getName(), s.getName());
 
-        try (Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+        try (PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
             rs.next();
             return rs.getLong(1);
         } catch (SQLException e) {
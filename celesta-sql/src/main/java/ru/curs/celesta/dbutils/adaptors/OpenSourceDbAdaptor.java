@@ -6,17 +6,23 @@ import ru.curs.celesta.CelestaException;
 import ru.curs.celesta.ConnectionPool;
 import ru.curs.celesta.dbutils.adaptors.ddl.DdlConsumer;
 import ru.curs.celesta.dbutils.jdbc.SqlUtils;
+import ru.curs.celesta.dbutils.meta.DbColumnInfo;
+import ru.curs.celesta.dbutils.meta.DbPkInfo;
+import ru.curs.celesta.dbutils.meta.DbSequenceInfo;
+import ru.curs.celesta.dbutils.meta.DbSnapshot;
 import ru.curs.celesta.dbutils.query.FromClause;
+import ru.curs.celesta.score.BasicTable;
 import ru.curs.celesta.score.Column;
 import ru.curs.celesta.score.DataGrainElement;
+import ru.curs.celesta.score.Grain;
 import ru.curs.celesta.score.SequenceElement;
 import ru.curs.celesta.score.TableElement;
 
 import java.sql.Connection;
+import java.sql.DatabaseMetaData;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.util.Set;
 import java.util.regex.Pattern;
 
@@ -102,17 +108,115 @@ public abstract class OpenSourceDbAdaptor extends DBAdaptor {
         return sqlToStringSet(conn, sql);
     }
 
+    @Override
+    public DbSnapshot getSnapshot(Connection conn, Grain g) {
+        DbSnapshot snapshot = new DbSnapshot(this);
+        String schema = g.getName().replace("\"", "");
+        Set<String> tables = g.getElements(BasicTable.class).keySet();
+        try {
+            loadTables(conn, schema, snapshot);
+            loadColumns(conn, schema, tables, snapshot);
+            loadPKInfo(conn, schema, tables, snapshot);
+            loadSequences(conn, schema, snapshot);
+        } catch (SQLException e) {
+            throw new CelestaException("Could not get structure of grain %s: %s", g.getName(), e.getMessage());
+        }
+        snapshot.setFKInfo(getFKInfo(conn, g));
+        snapshot.setIndices(getIndices(conn, g));
+        return snapshot;
+    }
+
+    private static void loadTables(Connection conn, String schema, DbSnapshot snapshot) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "SELECT table_name FROM information_schema.tables WHERE table_schema = ?")) {
+            stmt.setString(1, schema);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    snapshot.addTable(rs.getString(1));
+                }
+            }
+        }
+    }
+
+    private void loadColumns(Connection conn, String schema, Set<String> tables, DbSnapshot snapshot)
+            throws SQLException {
+        DatabaseMetaData metaData = conn.getMetaData();
+        try (ResultSet rs = metaData.getColumns(null, schema, null, null)) {
+            while (rs.next()) {
+                String tableName = rs.getString("TABLE_NAME");
+                // Schema name is a pattern, and only tables of the score are compared with the database
+                if (schema.equals(rs.getString("TABLE_SCHEM")) && tables.contains(tableName)) {
+                    snapshot.addColumn(tableName, readColumnInfo(conn, rs));
+                }
+            }
+        }
+    }
+
+    private void loadPKInfo(Connection conn, String schema, Set<String> tables, DbSnapshot snapshot)
+            throws SQLException {
+        String sql = "SELECT tc.TABLE_NAME, tc.CONSTRAINT_NAME, kcu.COLUMN_NAME "
+                + "FROM INFORMATION_SCHEMA.TABLE_CONSTRAINTS tc "
+                + "INNER JOIN INFORMATION_SCHEMA.KEY_COLUMN_USAGE kcu "
+                + "ON kcu.CONSTRAINT_CATALOG = tc.CONSTRAINT_CATALOG "
+                + "AND kcu.CONSTRAINT_SCHEMA = tc.CONSTRAINT_SCHEMA "
+                + "AND kcu.CONSTRAINT_NAME = tc.CONSTRAINT_NAME "
+                + "WHERE tc.CONSTRAINT_TYPE = 'PRIMARY KEY' AND tc.TABLE_SCHEMA = ? "
+                + "ORDER BY tc.TABLE_NAME, kcu.ORDINAL_POSITION";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, schema);
+            try (ResultSet rs = stmt.executeQuery()) {
+                DbPkInfo pkInfo = null;
+                String pkTableName = null;
+                while (rs.next()) {
+                    String tableName = rs.getString("TABLE_NAME");
+                    if (!tables.contains(tableName)) {
+                        continue;
+                    }
+                    if (!tableName.equals(pkTableName)) {
+                        pkTableName = tableName;
+                        pkInfo = new DbPkInfo(this);
+                        pkInfo.setName(rs.getString("CONSTRAINT_NAME"));
+                        snapshot.setPKInfo(tableName, pkInfo);
+                    }
+                    pkInfo.addColumnName(rs.getString(COLUMN_NAME));
+                }
+            }
+        }
+    }
+
+    private static void loadSequences(Connection conn, String schema, DbSnapshot snapshot) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "SELECT SEQUENCE_NAME, INCREMENT, MINIMUM_VALUE, MAXIMUM_VALUE, CYCLE_OPTION "
+                        + "FROM INFORMATION_SCHEMA.SEQUENCES WHERE SEQUENCE_SCHEMA = ?")) {
+            stmt.setString(1, schema);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    DbSequenceInfo sequenceInfo = new DbSequenceInfo();
+                    sequenceInfo.setIncrementBy(rs.getLong("INCREMENT"));
+                    sequenceInfo.setMinValue(rs.getLong("MINIMUM_VALUE"));
+                    sequenceInfo.setMaxValue(rs.getLong("MAXIMUM_VALUE"));
+                    sequenceInfo.setCycle(rs.getBoolean("CYCLE_OPTION"));
+                    snapshot.addSequence(rs.getString("SEQUENCE_NAME"), sequenceInfo);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads information on a column from the current row of
+     * {@link DatabaseMetaData#getColumns(String, String, String, String)} result.
+     *
+     * @param conn DB connection
+     * @param rs   result set positioned on the column row
+     */
+    abstract DbColumnInfo readColumnInfo(Connection conn, ResultSet rs) throws SQLException;
+
     @Override
     public PreparedStatement deleteRecordSetStatement(Connection conn, TableElement t, String where) {
         // Готовим запрос на удаление
         String sql = String.format("delete from " + tableString(t.getGrain().getName(), t.getName()) + " %s;",
                 where.isEmpty() ? "" : "where " + where);
-        try {
-            PreparedStatement result = conn.prepareStatement(sql);
-            return result;
-        } catch (SQLException e) {
-            throw new CelestaException(e.getMessage(), e);
-        }
+        return prepareStatement(conn, sql);
     }
 
     @Override
@@ -144,8 +248,8 @@ public abstract class OpenSourceDbAdaptor extends DBAdaptor {
     public long nextSequenceValue(Connection conn, SequenceElement s) {
         String sql = "SELECT NEXTVAL('" + sequenceString(s.getGrain().getName(), s.getName()) + "')";
 
-        try (Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+        try (PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
             rs.next();
             return rs.getLong(1);
         } catch (SQLException e) {
@@ -155,6 +259,35 @@ public abstract class OpenSourceDbAdaptor extends DBAdaptor {
         }
     }
 
+    /**
+     * Retrieves several next values from the sequence with a single query.
+     *
+     * @param conn   DB connection
+     * @param s      sequence
+     * @param count  number of values
+     * @param series table expression returning the number of rows given by its only parameter
+     */
+    final long[] nextSequenceValues(Connection conn, SequenceElement s, int count, String series) {
+        String sql = "SELECT NEXTVAL('" + sequenceString(s.getGrain().getName(), s.getName()) + "') FROM "
+                + series;
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, count);
+            long[] result = new long[count];
+            try (ResultSet rs = stmt.executeQuery()) {
+                for (int i = 0; i < count; i++) {
+                    rs.next();
+                    result[i] = rs.getLong(1);
+                }
+            }
+            return result;
+        } catch (SQLException e) {
+            throw new CelestaException(
+                    "Can't get next values of sequence " + tableString(s.getGrain().getName(), s.getName()), e
+            );
+        }
+    }
+
     @Override
     public boolean sequenceExists(Connection conn, String schema, String name) {
         try (
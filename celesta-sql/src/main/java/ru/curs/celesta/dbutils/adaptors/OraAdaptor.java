@@ -234,6 +234,14 @@ public final class OraAdaptor extends DBAdaptor {
         return prepareStatement(conn, sql);
     }
 
+    @Override
+    public PreparedStatement getInsertIfAbsentRecordStatement(Connection conn, BasicTable t, boolean[] nullsMask,
+                                                              List<ParameterSetter> program) {
+        String sql = getMergeInsertIfAbsentSql(t, nullsMask, program,
+                tableString(t.getGrain().getName(), t.getName()), "dual");
+        return prepareStatement(conn, sql);
+    }
+
     @Override
     public PreparedStatement getDeleteRecordStatement(Connection conn, TableElement t, String where) {
         String sql = String.format("delete " + tableString(t.getGrain().getName(), t.getName()) + " where %s", where);
@@ -263,12 +271,7 @@ public final class OraAdaptor extends DBAdaptor {
     public PreparedStatement deleteRecordSetStatement(Connection conn, TableElement t, String where) {
         String sql = String.format("delete from " + tableString(t.getGrain().getName(), t.getName()) + " %s",
                 where.isEmpty() ? "" : "where " + where);
-        try {
-            PreparedStatement result = conn.prepareStatement(sql);
-            return result;
-        } catch (SQLException e) {
-            throw new CelestaException(e.getMessage(), e);
-        }
+        return prepareStatement(conn, sql);
     }
 
     @Override
@@ -825,8 +828,8 @@ public final class OraAdaptor extends DBAdaptor {
     public long nextSequenceValue(Connection conn, SequenceElement s) {
         String sql = "SELECT " + sequenceString(s.getGrain().getName(), s.getName()) + ".nextval from DUAL";
 
-        try (Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+        try (PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
             rs.next();
             return rs.getLong(1);
         } catch (SQLException e) {
@@ -836,6 +839,28 @@ public final class OraAdaptor extends DBAdaptor {
         }
     }
 
+    @Override
+    public long[] nextSequenceValues(Connection conn, SequenceElement s, int count) {
+        String sql = "SELECT " + sequenceString(s.getGrain().getName(), s.getName())
+                + ".nextval from DUAL CONNECT BY LEVEL <= ?";
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, count);
+            long[] result = new long[count];
+            try (ResultSet rs = stmt.executeQuery()) {
+                for (int i = 0; i < count; i++) {
+                    rs.next();
+                    result[i] = rs.getLong(1);
+                }
+            }
+            return result;
+        } catch (SQLException e) {
+            throw new CelestaException(
+                    "Can't get next values of sequence " + tableString(s.getGrain().getName(), s.getName()), e
+            );
+        }
+    }
+
     @Override
     public boolean sequenceExists(Connection conn, final String schema, final String name) {
         String sql = String.format(
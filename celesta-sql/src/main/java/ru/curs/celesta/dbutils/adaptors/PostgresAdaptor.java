@@ -75,6 +75,7 @@ import java.sql.Statement;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
@@ -87,6 +88,7 @@ import java.util.stream.Collectors;
 
 import static ru.curs.celesta.dbutils.adaptors.constants.OpenSourceConstants.CONJUGATE_INDEX_POSTFIX;
 import static ru.curs.celesta.dbutils.adaptors.constants.OpenSourceConstants.NOW;
+import static ru.curs.celesta.dbutils.adaptors.function.CommonFunctions.getFieldList;
 
 
 /**
@@ -169,6 +171,29 @@ public final class PostgresAdaptor extends OpenSourceDbAdaptor {
         return prepareStatement(conn, sql);
     }
 
+    @Override
+    public PreparedStatement getInsertIfAbsentRecordStatement(Connection conn, BasicTable t, boolean[] nullsMask,
+                                                              List<ParameterSetter> program) {
+        List<String> fields = new ArrayList<>();
+        List<String> params = new ArrayList<>();
+        int i = 0;
+        for (String c : t.getColumns().keySet()) {
+            if (!nullsMask[i]) {
+                fields.add(String.format("\"%s\"", c));
+                params.add("?");
+                program.add(ParameterSetter.create(i, this));
+            }
+            i++;
+        }
+
+        String sql = String.format("insert into %s (%s) values (%s) on conflict (%s) do nothing;",
+                tableString(t.getGrain().getName(), t.getName()),
+                String.join(", ", fields), String.join(", ", params),
+                getFieldList(t.getPrimaryKey().keySet()));
+
+        return prepareStatement(conn, sql);
+    }
+
     @Override
     public DbColumnInfo getColumnInfo(Connection conn, Column<?> c) {
         try {
@@ -178,47 +203,7 @@ public final class PostgresAdaptor extends OpenSourceDbAdaptor {
                     c.getParentTable().getName().replace("\"", ""), c.getName()
                             .replace("\"", ""))) {
                 if (rs.next()) {
-                    DbColumnInfo result = new DbColumnInfo();
-                    result.setName(rs.getString(COLUMN_NAME));
-                    String typeName = rs.getString("TYPE_NAME");
-                    if ("serial".equalsIgnoreCase(typeName)) {
-                        result.setType(IntegerColumn.class);
-                        result.setNullable(rs.getInt("NULLABLE") != DatabaseMetaData.columnNoNulls);
-
-                        String defaultBody = rs.getString("COLUMN_DEF");
-                        Pattern p = Pattern.compile("nextval\\('[\"]?[^\"]+[\"]?\\.[\"]?([^\"]+)+[\"]?'::regclass\\)");
-                        Matcher m = p.matcher(defaultBody);
-
-                        if (m.matches()) {
-                            String sequenceName = m.group(1);
-                            result.setDefaultValue("NEXTVAL(" + sequenceName + ")");
-                        }
-
-                        return result;
-                    } else if ("text".equalsIgnoreCase(typeName)) {
-                        result.setType(StringColumn.class);
-                        result.setMax(true);
-                    } else {
-                        for (Class<? extends Column<?>> cc : COLUMN_CLASSES) {
-                            if (getColumnDefiner(cc).dbFieldType().equalsIgnoreCase(typeName)) {
-                                result.setType(cc);
-                                break;
-                            }
-                        }
-                    }
-                    result.setNullable(rs.getInt("NULLABLE") != DatabaseMetaData.columnNoNulls);
-                    if (result.getType() == StringColumn.class || result.getType() == DecimalColumn.class) {
-                        result.setLength(rs.getInt("COLUMN_SIZE"));
-                    }
-                    if (result.getType() == DecimalColumn.class) {
-                        result.setScale(rs.getInt("DECIMAL_DIGITS"));
-                    }
-                    String defaultBody = rs.getString("COLUMN_DEF");
-                    if (defaultBody != null) {
-                        defaultBody = modifyDefault(result, defaultBody);
-                        result.setDefaultValue(defaultBody);
-                    }
-                    return result;
+                    return readColumnInfo(conn, rs);
                 } else {
                     return null;
                 }
@@ -228,6 +213,51 @@ public final class PostgresAdaptor extends OpenSourceDbAdaptor {
         }
     }
 
+    @Override
+    DbColumnInfo readColumnInfo(Connection conn, ResultSet rs) throws SQLException {
+        DbColumnInfo result = new DbColumnInfo();
+        result.setName(rs.getString(COLUMN_NAME));
+        String typeName = rs.getString("TYPE_NAME");
+        if ("serial".equalsIgnoreCase(typeName)) {
+            result.setType(IntegerColumn.class);
+            result.setNullable(rs.getInt("NULLABLE") != DatabaseMetaData.columnNoNulls);
+
+            String defaultBody = rs.getString("COLUMN_DEF");
+            Pattern p = Pattern.compile("nextval\\('[\"]?[^\"]+[\"]?\\.[\"]?([^\"]+)+[\"]?'::regclass\\)");
+            Matcher m = p.matcher(defaultBody);
+
+            if (m.matches()) {
+                String sequenceName = m.group(1);
+                result.setDefaultValue("NEXTVAL(" + sequenceName + ")");
+            }
+
+            return result;
+        } else if ("text".equalsIgnoreCase(typeName)) {
+            result.setType(StringColumn.class);
+            result.setMax(true);
+        } else {
+            for (Class<? extends Column<?>> cc : COLUMN_CLASSES) {
+                if (getColumnDefiner(cc).dbFieldType().equalsIgnoreCase(typeName)) {
+                    result.setType(cc);
+                    break;
+                }
+            }
+        }
+        result.setNullable(rs.getInt("NULLABLE") != DatabaseMetaData.columnNoNulls);
+        if (result.getType() == StringColumn.class || result.getType() == DecimalColumn.class) {
+            result.setLength(rs.getInt("COLUMN_SIZE"));
+        }
+        if (result.getType() == DecimalColumn.class) {
+            result.setScale(rs.getInt("DECIMAL_DIGITS"));
+        }
+        String defaultBody = rs.getString("COLUMN_DEF");
+        if (defaultBody != null) {
+            defaultBody = modifyDefault(result, defaultBody);
+            result.setDefaultValue(defaultBody);
+        }
+        return result;
+    }
+
     private String modifyDefault(DbColumnInfo ci, String defaultBody) {
         String result = defaultBody;
         if (DateTimeColumn.class == ci.getType()) {
@@ -516,11 +546,21 @@ public final class PostgresAdaptor extends OpenSourceDbAdaptor {
         return DBType.POSTGRESQL;
     }
 
+    @Override
+    public long[] nextSequenceValues(Connection conn, SequenceElement s, int count) {
+        return nextSequenceValues(conn, s, count, "generate_series(1, ?)");
+    }
+
     @Override
     public boolean supportsCortegeComparing() {
         return true;
     }
 
+    @Override
+    public boolean fetchSizeRequiresTransaction() {
+        return true;
+    }
+
     @Override
     public DbSequenceInfo getSequenceInfo(Connection conn, SequenceElement s) {
         String sql = "SELECT INCREMENT, MINIMUM_VALUE, MAXIMUM_VALUE, CYCLE_OPTION"
@@ -357,6 +357,36 @@ public final class DdlAdaptor {
 
     }
 
+    /**
+     * Creates the change log table of a materialized view with deferred refresh.
+     *
+     * @param conn  DB connection
+     * @param mv  materialized view
+     */
+    public void createChangeLog(Connection conn, MaterializedView mv) {
+        try {
+            processSql(conn, ddlGenerator.createChangeLog(mv));
+            conn.commit();
+        } catch (SQLException | CelestaException e) {
+            throw new CelestaException("Error on creating change log of %s: %s", mv.getName(), e.getMessage());
+        }
+    }
+
+    /**
+     * Drops the change log table of a materialized view.
+     *
+     * @param conn  DB connection
+     * @param mv  materialized view
+     */
+    public void dropChangeLog(Connection conn, MaterializedView mv) {
+        processSql(conn, ddlGenerator.dropChangeLog(mv));
+        try {
+            conn.commit();
+        } catch (Exception e) {
+            throw new CelestaException(e);
+        }
+    }
+
     //TODO: Javadoc
     public void dropTableTriggersForMaterializedViews(Connection conn, BasicTable t) {
         List<String> sqlList = this.ddlGenerator.dropTableTriggersForMaterializedViews(conn, t);
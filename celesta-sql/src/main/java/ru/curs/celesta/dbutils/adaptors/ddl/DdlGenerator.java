@@ -497,6 +497,79 @@ public abstract class DdlGenerator {
         return Arrays.asList(deleteSql, insertSql);
     }
 
+    /**
+     * Generates SQL for creation of the change log table of a materialized view with deferred refresh.
+     * <p>
+     * The table has the columns of the materialized view and no primary key. Every record holds the group
+     * values and the aggregated values of a row inserted to or deleted from the referenced table, the sign
+     * of the change is kept in the count columns.
+     *
+     * @param mv  materialized view
+     */
+    final String createChangeLog(MaterializedView mv) {
+        String columns = mv.getColumns().values().stream()
+                .map(c -> {
+                    @SuppressWarnings("unchecked")
+                    final Class<? extends Column<?>> cClass = (Class<Column<?>>) c.getClass();
+                    return "  " + ColumnDefinerFactory.getColumnDefiner(getType(), cClass).getMainDefinition(c);
+                })
+                .collect(Collectors.joining(",\n"));
+        return "create table " + tableString(mv.getGrain().getName(), mv.getChangeLogName()) + "(\n"
+                + columns + "\n)";
+    }
+
+    final String dropChangeLog(MaterializedView mv) {
+        return "DROP TABLE " + tableString(mv.getGrain().getName(), mv.getChangeLogName());
+    }
+
+    /**
+     * Returns comma separated list of the change log table columns.
+     *
+     * @param mv  materialized view
+     */
+    final String changeLogColumns(MaterializedView mv) {
+        return mv.getColumns().keySet().stream()
+                .map(alias -> "\"" + alias + "\"")
+                .collect(Collectors.joining(", "));
+    }
+
+    /**
+     * Returns comma separated list of values of a change log record for a row of the referenced table.
+     *
+     * @param mv  materialized view
+     * @param rowRef  reference to the row in the trigger, e.g. {@code NEW}
+     * @param sign  {@code 1} for an added row, {@code -1} for a removed one
+     */
+    final String changeLogValues(MaterializedView mv, String rowRef, int sign) {
+        return mv.getColumns().keySet().stream()
+                .map(alias -> {
+                    Expr aggregate = mv.getAggregateColumns().get(alias);
+                    if (MaterializedView.SURROGATE_COUNT.equals(alias) || aggregate instanceof Count) {
+                        return Integer.toString(sign);
+                    }
+                    Column<?> colRef = mv.getColumnRef(alias);
+                    String value = rowRef + ".\"" + colRef.getName() + "\"";
+                    if (aggregate == null && DateTimeColumn.CELESTA_TYPE.equals(colRef.getCelestaType())) {
+                        return truncDate(value);
+                    }
+                    return value;
+                })
+                .collect(Collectors.joining(", "));
+    }
+
+    /**
+     * Generates INSERT statement recording a row of the referenced table to the change log.
+     *
+     * @param mv  materialized view
+     * @param rowRef  reference to the row in the trigger, e.g. {@code NEW}
+     * @param sign  {@code 1} for an added row, {@code -1} for a removed one
+     */
+    final String insertIntoChangeLog(MaterializedView mv, String rowRef, int sign) {
+        return String.format("INSERT INTO %s (%s) VALUES (%s);",
+                tableString(mv.getGrain().getName(), mv.getChangeLogName()),
+                changeLogColumns(mv), changeLogValues(mv, rowRef, sign));
+    }
+
     /**
      * Generates TRUNCATE TABLE script.
      * @param tableName name of the table to truncate
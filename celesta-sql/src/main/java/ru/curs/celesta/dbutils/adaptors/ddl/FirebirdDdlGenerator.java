@@ -794,7 +794,11 @@ public final class FirebirdDdlGenerator extends DdlGenerator {
         String fullTableName = tableString(t.getGrain().getName(), t.getName());
 
         for (MaterializedView mv : mvList) {
-            createTableTriggerForMv(result, fullTableName, mv);
+            if (mv.getRefreshMode() == MaterializedView.RefreshMode.DEFERRED) {
+                createChangeLogTriggersForMv(result, fullTableName, mv);
+            } else {
+                createTableTriggerForMv(result, fullTableName, mv);
+            }
         }
 
         return result;
@@ -940,6 +944,27 @@ public final class FirebirdDdlGenerator extends DdlGenerator {
         result.add(sql);
     }
 
+    /**
+     * Creates triggers recording the changed rows to the change log of the materialized view
+     * with deferred refresh.
+     */
+    private void createChangeLogTriggersForMv(List<String> result, String fullTableName, MaterializedView mv) {
+        String triggerTemplate = "CREATE TRIGGER \"%s\" for " + fullTableName + " AFTER %s \n"
+                + " AS \n"
+                + " BEGIN \n"
+                + String.format(MaterializedView.CHECKSUM_COMMENT_TEMPLATE, mv.getChecksum())
+                + MaterializedView.DEFERRED_REFRESH_COMMENT
+                + "\n %s\n END;";
+
+        String insertSql = insertIntoChangeLog(mv, "NEW", 1);
+        String deleteSql = insertIntoChangeLog(mv, "OLD", -1);
+
+        result.add(String.format(triggerTemplate, mv.getTriggerName(TriggerType.POST_INSERT), "INSERT", insertSql));
+        result.add(String.format(triggerTemplate, mv.getTriggerName(TriggerType.POST_DELETE), "DELETE", deleteSql));
+        result.add(String.format(triggerTemplate, mv.getTriggerName(TriggerType.POST_UPDATE), "UPDATE",
+                deleteSql + "\n " + insertSql));
+    }
+
     @Override
     String truncDate(String dateStr) {
         return String.format("CAST(CAST(%s as Date) AS TIMESTAMP)", dateStr);
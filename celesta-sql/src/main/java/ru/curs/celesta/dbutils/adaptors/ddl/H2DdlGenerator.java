@@ -55,6 +55,12 @@ public final class H2DdlGenerator extends OpenSourceDdlGenerator {
         return DBType.H2;
     }
 
+    @Override
+    String dropTriggerSql(TriggerQuery query) {
+        //H2 triggers belong to the schema, not to the table
+        return String.format("DROP TRIGGER %s", tableString(query.getSchema(), query.getName()));
+    }
+
     @Override
     List<String> updateVersioningTrigger(Connection conn, TableElement t)  {
         // First of all, we are about to check if trigger exists
@@ -285,12 +291,16 @@ public final class H2DdlGenerator extends OpenSourceDdlGenerator {
             //INSERT
             sql = String.format(
                     "CREATE TRIGGER \"" + insertTriggerName + "\" AFTER INSERT ON "
-                            + tableString(t.getGrain().getName(), t.getName()) + " FOR EACH ROW CALL %n "
-                            + MaterializedView.CHECKSUM_COMMENT_TEMPLATE + "%n"
-                            + "\"%s\"",
-                    mv.getChecksum(),
+                            + tableString(t.getGrain().getName(), t.getName()) + " FOR EACH ROW CALL \"%s\"",
                     MaterializedViewInsertTrigger.class.getName());
             result.add(sql);
+            //H2 does not keep the source of a Java trigger, the checksum is kept in the trigger remarks
+            sql = String.format(
+                    "COMMENT ON TRIGGER \"%s\".\"%s\" IS '" + MaterializedView.CHECKSUM_COMMENT_TEMPLATE + "%s'",
+                    t.getGrain().getName(), insertTriggerName, mv.getChecksum(),
+                    mv.getRefreshMode() == MaterializedView.RefreshMode.DEFERRED
+                            ? MaterializedView.DEFERRED_REFRESH_COMMENT : "");
+            result.add(sql);
             this.rememberTrigger(query.withName(insertTriggerName));
             //UPDATE
             sql = String.format(
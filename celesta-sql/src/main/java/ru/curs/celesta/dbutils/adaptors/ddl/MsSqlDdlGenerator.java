@@ -345,7 +345,11 @@ public final class MsSqlDdlGenerator extends DdlGenerator {
 
         String fullTableName = tableString(t.getGrain().getName(), t.getName());
         for (MaterializedView mv : mvList) {
-            createTableTriggerForMv(t, result, fullTableName, afterUpdateTriggerTsql, query, mv);
+            if (mv.getRefreshMode() == MaterializedView.RefreshMode.DEFERRED) {
+                createChangeLogTriggersForMv(t, result, fullTableName, afterUpdateTriggerTsql, query, mv);
+            } else {
+                createTableTriggerForMv(t, result, fullTableName, afterUpdateTriggerTsql, query, mv);
+            }
         }
 
 
@@ -517,4 +521,41 @@ public final class MsSqlDdlGenerator extends DdlGenerator {
         this.rememberTrigger(query.withName(deleteTriggerName));
     }
 
+    /**
+     * Creates triggers recording the changed rows to the change log of the materialized view
+     * with deferred refresh.
+     */
+    private void createChangeLogTriggersForMv(BasicTable t, List<String> result, String fullTableName,
+                                              StringBuilder afterUpdateTriggerTsql,
+                                              TriggerQuery query, MaterializedView mv) {
+        String insertTriggerName = mv.getTriggerName(TriggerType.POST_INSERT);
+        String deleteTriggerName = mv.getTriggerName(TriggerType.POST_DELETE);
+
+        String insertTemplate = "INSERT INTO " + tableString(mv.getGrain().getName(), mv.getChangeLogName())
+                + " (" + changeLogColumns(mv) + ") SELECT %s FROM %s;";
+        String insertSql = String.format(insertTemplate, changeLogValues(mv, "inserted", 1), "inserted");
+        String deleteSql = String.format(insertTemplate, changeLogValues(mv, "deleted", -1), "deleted");
+
+        String sql;
+        //INSERT
+        sql = String.format("create trigger \"%s\".\"%s\" "
+                        + "on %s after insert as begin %n"
+                        + MaterializedView.CHECKSUM_COMMENT_TEMPLATE + MaterializedView.DEFERRED_REFRESH_COMMENT
+                        + "%n %s %n END;",
+                t.getGrain().getName(), insertTriggerName, fullTableName, mv.getChecksum(), insertSql);
+        LOGGER.trace(sql);
+        result.add(sql);
+        this.rememberTrigger(query.withName(insertTriggerName));
+
+        //UPDATE
+        afterUpdateTriggerTsql.append(String.format("%n%s%n %n%s%n", deleteSql, insertSql));
+
+        //DELETE
+        sql = String.format("create trigger \"%s\".\"%s\" on %s after delete as begin %n %s %n END;",
+                t.getGrain().getName(), deleteTriggerName, fullTableName, deleteSql);
+        LOGGER.trace(sql);
+        result.add(sql);
+        this.rememberTrigger(query.withName(deleteTriggerName));
+    }
+
 }
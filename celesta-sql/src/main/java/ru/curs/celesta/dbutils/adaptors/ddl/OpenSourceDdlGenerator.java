@@ -41,7 +41,7 @@ public abstract class OpenSourceDdlGenerator extends DdlGenerator {
     }
 
     @Override
-    final String dropTriggerSql(TriggerQuery query) {
+    String dropTriggerSql(TriggerQuery query) {
         String sql = String.format(
                 "DROP TRIGGER \"%s\" ON %s",
                 query.getName(), tableString(query.getSchema(), query.getTableName())
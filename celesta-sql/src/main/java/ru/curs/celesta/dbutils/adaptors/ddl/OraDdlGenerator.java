@@ -766,7 +766,11 @@ public final class OraDdlGenerator extends DdlGenerator {
 
         String fullTableName = tableString(t.getGrain().getName(), t.getName());
         for (MaterializedView mv : mvList) {
-            createTableTriggerForMv(result, fullTableName, query, mv);
+            if (mv.getRefreshMode() == MaterializedView.RefreshMode.DEFERRED) {
+                createChangeLogTriggersForMv(result, fullTableName, query, mv);
+            } else {
+                createTableTriggerForMv(result, fullTableName, query, mv);
+            }
         }
 
         return result;
@@ -893,6 +897,51 @@ public final class OraDdlGenerator extends DdlGenerator {
         this.rememberTrigger(query.withName(deleteTriggerName));
     }
 
+    /**
+     * Creates triggers recording the changed rows to the change log of the materialized view
+     * with deferred refresh.
+     */
+    private void createChangeLogTriggersForMv(List<String> result, String fullTableName,
+                                              TriggerQuery query, MaterializedView mv) {
+        String insertTriggerName = mv.getTriggerName(TriggerType.POST_INSERT);
+        String updateTriggerName = mv.getTriggerName(TriggerType.POST_UPDATE);
+        String deleteTriggerName = mv.getTriggerName(TriggerType.POST_DELETE);
+
+        String insertSql = insertIntoChangeLog(mv, ":new", 1);
+        String deleteSql = insertIntoChangeLog(mv, ":old", -1);
+
+        String sql;
+
+        //INSERT
+        sql = String.format(
+                "create or replace trigger \"%s\" after insert "
+                        + "on %s for each row\n"
+                        + "begin \n" + MaterializedView.CHECKSUM_COMMENT_TEMPLATE
+                        + MaterializedView.DEFERRED_REFRESH_COMMENT
+                        + "\n %s \n END;",
+                insertTriggerName, fullTableName, mv.getChecksum(), insertSql);
+        traceAndAdd(result, sql);
+        this.rememberTrigger(query.withName(insertTriggerName));
+
+        //UPDATE
+        sql = String.format(
+                "create or replace trigger \"%s\" after update "
+                        + "on %s for each row\n"
+                        + "begin %s\n %s\n END;",
+                updateTriggerName, fullTableName, deleteSql, insertSql);
+        traceAndAdd(result, sql);
+        this.rememberTrigger(query.withName(updateTriggerName));
+
+        //DELETE
+        sql = String.format(
+                "create or replace trigger \"%s\" after delete "
+                        + "on %s for each row\n "
+                        + " begin %s\n END;",
+                deleteTriggerName, fullTableName, deleteSql);
+        traceAndAdd(result, sql);
+        this.rememberTrigger(query.withName(deleteTriggerName));
+    }
+
     private static String getSetStatementTemplate(MaterializedView mv) {
         return mv.getAggregateColumns().entrySet().stream()
                 .map(e -> {
@@ -37,6 +37,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static ru.curs.celesta.dbutils.adaptors.constants.CommonConstants.ALTER_TABLE;
 import static ru.curs.celesta.dbutils.adaptors.constants.OpenSourceConstants.CONJUGATE_INDEX_POSTFIX;
@@ -48,6 +49,15 @@ public final class PostgresDdlGenerator extends OpenSourceDdlGenerator {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(PostgresDdlGenerator.class);
 
+    private static final String STATEMENT_TRIGGER_FUNCTION_TEMPLATE =
+            "CREATE OR REPLACE FUNCTION %s RETURNS trigger AS $BODY$ \n "
+                    + "BEGIN \n"
+                    + "%s"
+                    + "%s"
+                    + "RETURN NULL; END; $BODY$\n" + "  LANGUAGE plpgsql VOLATILE COST 100;";
+    private static final String STATEMENT_TRIGGER_TEMPLATE = "CREATE TRIGGER \"%s\" AFTER %s ON %s REFERENCING %s "
+            + "FOR EACH STATEMENT EXECUTE PROCEDURE %s";
+
     public PostgresDdlGenerator(DBAdaptor dmlAdaptor) {
         super(dmlAdaptor);
     }
@@ -363,7 +373,13 @@ public final class PostgresDdlGenerator extends OpenSourceDdlGenerator {
                 .withTableName(t.getName());
 
         for (MaterializedView mv : mvList) {
-            createTableTriggersForMv(t, result, fullTableName, query, mv);
+            if (mv.getRefreshMode() == MaterializedView.RefreshMode.CONCURRENT) {
+                createStatementTableTriggersForMv(t, result, fullTableName, query, mv);
+            } else if (mv.getRefreshMode() == MaterializedView.RefreshMode.DEFERRED) {
+                createChangeLogTableTriggersForMv(t, result, fullTableName, query, mv);
+            } else {
+                createTableTriggersForMv(t, result, fullTableName, query, mv);
+            }
         }
 
         return result;
@@ -507,6 +523,168 @@ public final class PostgresDdlGenerator extends OpenSourceDdlGenerator {
         this.rememberTrigger(query.withName(deleteTriggerName));
     }
 
+    /**
+     * Creates statement level triggers maintaining the materialized view without locking it.
+     * <p>
+     * Rows changed by a statement are taken from transition tables, their contribution to the aggregates
+     * is summed up per group once per statement and applied with INSERT ... ON CONFLICT DO UPDATE,
+     * so that concurrent writers lock only the rows of the groups they modify.
+     */
+    private void createStatementTableTriggersForMv(BasicTable t, List<String> result, String fullTableName,
+                                                   TriggerQuery query, MaterializedView mv) {
+        String fullMvName = tableString(mv.getGrain().getName(), mv.getName());
+
+        String insertTriggerName = mv.getTriggerName(TriggerType.POST_INSERT);
+        String updateTriggerName = mv.getTriggerName(TriggerType.POST_UPDATE);
+        String deleteTriggerName = mv.getTriggerName(TriggerType.POST_DELETE);
+
+        String insertTriggerFunctionFullName = String.format("\"%s\".\"%s_insertTriggerFunc\"()",
+                t.getGrain().getName(), mv.getName());
+        String updateTriggerFunctionFullName = String.format("\"%s\".\"%s_updateTriggerFunc\"()",
+                t.getGrain().getName(), mv.getName());
+        String deleteTriggerFunctionFullName = String.format("\"%s\".\"%s_deleteTriggerFunc\"()",
+                t.getGrain().getName(), mv.getName());
+
+        List<String> groupByAliases = new ArrayList<>(mv.getPrimaryKey().keySet());
+        Map<String, Expr> aggregates = mv.getAggregateColumns();
+        String groupByColumns = groupByAliases.stream()
+                .map(alias -> "\"" + alias + "\"")
+                .collect(Collectors.joining(", "));
+
+        // The first argument is the transition table, the second one is the sign of the rows' contribution
+        String groupByExprTemplate = groupByAliases.stream()
+                .map(alias -> {
+                    Column<?> colRef = mv.getColumnRef(alias);
+                    if (DateTimeColumn.CELESTA_TYPE.equals(colRef.getCelestaType())) {
+                        return "date_trunc('DAY', %1$s.\"" + colRef.getName() + "\")";
+                    }
+                    return "%1$s.\"" + colRef.getName() + "\"";
+                })
+                .collect(Collectors.joining(", "));
+        String deltaTemplate = "SELECT " + groupByAliases.stream()
+                .map(alias -> {
+                    Column<?> colRef = mv.getColumnRef(alias);
+                    if (DateTimeColumn.CELESTA_TYPE.equals(colRef.getCelestaType())) {
+                        return "date_trunc('DAY', %1$s.\"" + colRef.getName() + "\") AS \"" + alias + "\"";
+                    }
+                    return "%1$s.\"" + colRef.getName() + "\" AS \"" + alias + "\"";
+                })
+                .collect(Collectors.joining(", "))
+                + aggregates.entrySet().stream()
+                .map(e -> {
+                    String value = e.getValue() instanceof Count
+                            ? "1" : "%1$s.\"" + mv.getColumnRef(e.getKey()).getName() + "\"";
+                    return ", %2$s" + value + " AS \"" + e.getKey() + "\"";
+                })
+                .collect(Collectors.joining())
+                + ", %2$s1 AS \"" + MaterializedView.SURROGATE_COUNT + "\" FROM %1$s";
+
+        String mvColumns = groupByColumns
+                + aggregates.keySet().stream().map(alias -> ", \"" + alias + "\"").collect(Collectors.joining())
+                + ", \"" + MaterializedView.SURROGATE_COUNT + "\"";
+        String deltaColumns = groupByColumns
+                + aggregates.keySet().stream()
+                    .map(alias -> ", COALESCE(SUM(\"" + alias + "\"), 0)")
+                    .collect(Collectors.joining())
+                + ", SUM(\"" + MaterializedView.SURROGATE_COUNT + "\")";
+        // Groups with no net change (e.g. updates of columns the view does not depend on) are skipped
+        String havingCondition = Stream.concat(
+                        Stream.of(MaterializedView.SURROGATE_COUNT),
+                        aggregates.entrySet().stream()
+                                .filter(e -> e.getValue() instanceof Sum)
+                                .map(Map.Entry::getKey))
+                .map(alias -> "SUM(\"" + alias + "\") <> 0")
+                .collect(Collectors.joining(" OR "));
+        String setStatement = Stream.concat(aggregates.keySet().stream(), Stream.of(MaterializedView.SURROGATE_COUNT))
+                .map(alias -> String.format("\"%1$s\" = m.\"%1$s\" + EXCLUDED.\"%1$s\"", alias))
+                .collect(Collectors.joining(", "));
+
+        // The argument is the delta query
+        String applyDeltaTemplate = "INSERT INTO " + fullMvName + " AS m (" + mvColumns + ")\n"
+                + " SELECT " + deltaColumns + " FROM (%s) AS delta\n"
+                + " GROUP BY " + groupByColumns + " HAVING " + havingCondition
+                + " ORDER BY " + groupByColumns + "\n"
+                + " ON CONFLICT (" + groupByColumns + ") DO UPDATE SET " + setStatement + ";\n";
+        String deleteEmptyGroupsSql = "DELETE FROM " + fullMvName + " AS m WHERE m.\""
+                + MaterializedView.SURROGATE_COUNT + "\" = 0 AND ("
+                + groupByAliases.stream().map(alias -> "m.\"" + alias + "\"").collect(Collectors.joining(", "))
+                + ") IN (SELECT " + String.format(groupByExprTemplate, "old_rows") + " FROM old_rows);\n";
+
+        String insertSql = String.format(applyDeltaTemplate, String.format(deltaTemplate, "new_rows", ""));
+        String updateSql = String.format(applyDeltaTemplate,
+                String.format(deltaTemplate, "new_rows", "") + " UNION ALL "
+                        + String.format(deltaTemplate, "old_rows", "-"))
+                + deleteEmptyGroupsSql;
+        String deleteSql = String.format(applyDeltaTemplate, String.format(deltaTemplate, "old_rows", "-"))
+                + deleteEmptyGroupsSql;
+
+        //INSERT
+        traceAndAdd(result, String.format(STATEMENT_TRIGGER_FUNCTION_TEMPLATE, insertTriggerFunctionFullName,
+                String.format(MaterializedView.CHECKSUM_COMMENT_TEMPLATE, mv.getChecksum()) + "\n", insertSql));
+        traceAndAdd(result, String.format(STATEMENT_TRIGGER_TEMPLATE, insertTriggerName, "INSERT", fullTableName,
+                "NEW TABLE AS new_rows", insertTriggerFunctionFullName));
+        this.rememberTrigger(query.withName(insertTriggerName));
+
+        //UPDATE
+        traceAndAdd(result, String.format(STATEMENT_TRIGGER_FUNCTION_TEMPLATE, updateTriggerFunctionFullName,
+                "", updateSql));
+        traceAndAdd(result, String.format(STATEMENT_TRIGGER_TEMPLATE, updateTriggerName, "UPDATE", fullTableName,
+                "OLD TABLE AS old_rows NEW TABLE AS new_rows", updateTriggerFunctionFullName));
+        this.rememberTrigger(query.withName(updateTriggerName));
+
+        //DELETE
+        traceAndAdd(result, String.format(STATEMENT_TRIGGER_FUNCTION_TEMPLATE, deleteTriggerFunctionFullName,
+                "", deleteSql));
+        traceAndAdd(result, String.format(STATEMENT_TRIGGER_TEMPLATE, deleteTriggerName, "DELETE", fullTableName,
+                "OLD TABLE AS old_rows", deleteTriggerFunctionFullName));
+        this.rememberTrigger(query.withName(deleteTriggerName));
+    }
+
+    /**
+     * Creates statement level triggers recording the rows changed by a statement to the change log
+     * of the materialized view with deferred refresh.
+     */
+    private void createChangeLogTableTriggersForMv(BasicTable t, List<String> result, String fullTableName,
+                                                   TriggerQuery query, MaterializedView mv) {
+        String insertTriggerName = mv.getTriggerName(TriggerType.POST_INSERT);
+        String updateTriggerName = mv.getTriggerName(TriggerType.POST_UPDATE);
+        String deleteTriggerName = mv.getTriggerName(TriggerType.POST_DELETE);
+
+        String insertTriggerFunctionFullName = String.format("\"%s\".\"%s_insertTriggerFunc\"()",
+                t.getGrain().getName(), mv.getName());
+        String updateTriggerFunctionFullName = String.format("\"%s\".\"%s_updateTriggerFunc\"()",
+                t.getGrain().getName(), mv.getName());
+        String deleteTriggerFunctionFullName = String.format("\"%s\".\"%s_deleteTriggerFunc\"()",
+                t.getGrain().getName(), mv.getName());
+
+        String insertTemplate = "INSERT INTO " + tableString(mv.getGrain().getName(), mv.getChangeLogName())
+                + " (" + changeLogColumns(mv) + ")\n SELECT %s FROM %s AS r;\n";
+        String insertSql = String.format(insertTemplate, changeLogValues(mv, "r", 1), "new_rows");
+        String deleteSql = String.format(insertTemplate, changeLogValues(mv, "r", -1), "old_rows");
+
+        //INSERT
+        traceAndAdd(result, String.format(STATEMENT_TRIGGER_FUNCTION_TEMPLATE, insertTriggerFunctionFullName,
+                String.format(MaterializedView.CHECKSUM_COMMENT_TEMPLATE, mv.getChecksum())
+                        + MaterializedView.DEFERRED_REFRESH_COMMENT + "\n", insertSql));
+        traceAndAdd(result, String.format(STATEMENT_TRIGGER_TEMPLATE, insertTriggerName, "INSERT", fullTableName,
+                "NEW TABLE AS new_rows", insertTriggerFunctionFullName));
+        this.rememberTrigger(query.withName(insertTriggerName));
+
+        //UPDATE
+        traceAndAdd(result, String.format(STATEMENT_TRIGGER_FUNCTION_TEMPLATE, updateTriggerFunctionFullName,
+                deleteSql, insertSql));
+        traceAndAdd(result, String.format(STATEMENT_TRIGGER_TEMPLATE, updateTriggerName, "UPDATE", fullTableName,
+                "OLD TABLE AS old_rows NEW TABLE AS new_rows", updateTriggerFunctionFullName));
+        this.rememberTrigger(query.withName(updateTriggerName));
+
+        //DELETE
+        traceAndAdd(result, String.format(STATEMENT_TRIGGER_FUNCTION_TEMPLATE, deleteTriggerFunctionFullName,
+                "", deleteSql));
+        traceAndAdd(result, String.format(STATEMENT_TRIGGER_TEMPLATE, deleteTriggerName, "DELETE", fullTableName,
+                "OLD TABLE AS old_rows", deleteTriggerFunctionFullName));
+        this.rememberTrigger(query.withName(deleteTriggerName));
+    }
+
     private static String getSetStatementTemplate(MaterializedView mv) {
         return mv.getAggregateColumns().entrySet().stream()
                 .map(e -> {
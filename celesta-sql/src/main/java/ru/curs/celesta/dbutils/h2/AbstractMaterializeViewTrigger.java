@@ -1,6 +1,7 @@
 package ru.curs.celesta.dbutils.h2;
 
 import org.h2.api.Trigger;
+import org.h2.jdbc.JdbcConnection;
 import ru.curs.celesta.CurrentScore;
 import ru.curs.celesta.event.TriggerType;
 import ru.curs.celesta.score.AbstractScore;
@@ -11,7 +12,6 @@ import ru.curs.celesta.score.DateTimeColumn;
 import ru.curs.celesta.score.Expr;
 import ru.curs.celesta.score.Grain;
 import ru.curs.celesta.score.MaterializedView;
-import ru.curs.celesta.score.ParseException;
 import ru.curs.celesta.score.Sum;
 
 import java.sql.Connection;
@@ -19,10 +19,11 @@ import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.concurrent.locks.ReentrantLock;
 
 
 /**
@@ -44,12 +45,26 @@ public abstract class AbstractMaterializeViewTrigger implements Trigger {
     private BasicTable t;
     private MaterializedView mv;
 
-    private String tFullName;
-    private String mvFullName;
-    private String keySearchTerm;
-    private String mvAllColumns;
     private final HashMap<Integer, String> tGroupByColumnIndices = new LinkedHashMap<>();
     private final HashMap<Integer, String> mvColumnRefs = new LinkedHashMap<>();
+    private final List<Integer> tSumColumnIndices = new ArrayList<>();
+    /**
+     * Statements computing a SUM column of a group anew, in the order of {@link #tSumColumnIndices}.
+     */
+    private final List<String> recomputeSumSqls = new ArrayList<>();
+    /**
+     * Row indices of the values of change log columns, negative index stands for the sign of the change.
+     */
+    private final List<Integer> logValueIndices = new ArrayList<>();
+
+    private String addSql;
+    private String subtractSql;
+    private String insertSql;
+    private String deleteSql;
+    private String logSql;
+
+    private final Map<Object, Statements> statements = new HashMap<>();
+    private final ReentrantLock statementsLock = new ReentrantLock();
 
     @Override
     public void init(Connection connection, String schemaName, String triggerName, String tableName,
@@ -68,25 +83,25 @@ public abstract class AbstractMaterializeViewTrigger implements Trigger {
             throw new RuntimeException(e);
         }
 
-        tFullName = String.format("\"%s\".\"%s\"", t.getGrain().getName(), t.getName());
-        mvFullName = String.format("\"%s\".\"%s\"", mv.getGrain().getName(), mv.getName());
-
-        mvAllColumns = mv.getColumns().keySet().stream()
-                .filter(alias -> !MaterializedView.SURROGATE_COUNT.equals(alias))
-                .map(v -> "\"" + v + "\"")
-                .collect(Collectors.joining(", "));
+        String mvFullName = String.format("\"%s\".\"%s\"", mv.getGrain().getName(), mv.getName());
 
         List<String> keySearchTerms = new ArrayList<>();
+        List<String> tKeySearchTerms = new ArrayList<>();
+        List<String> keyColumns = new ArrayList<>();
+        List<String> keyValues = new ArrayList<>();
         List<String> columnRefNames = mv.getColumnRefNames();
         int curIndex = 0;
         for (String tCol : t.getColumns().keySet()) {
             for (Map.Entry<String, Column<?>> col : mv.getColumns().entrySet()) {
                 if (mv.isGroupByColumn(col.getKey()) && tCol.equals(mv.getColumnRef(col.getKey()).getName())) {
                     tGroupByColumnIndices.put(curIndex, tCol);
-                    keySearchTerms.add(String.format("(\"%s\" = %s)",
-                            col.getKey(),
-                            DateTimeColumn.CELESTA_TYPE.equals(
-                                    col.getValue().getCelestaType()) ? "DATE_TRUNC(DAY, CAST(? AS TIMESTAMP))" : "?"));
+                    boolean isDate = DateTimeColumn.CELESTA_TYPE.equals(col.getValue().getCelestaType());
+                    String value = isDate ? "DATE_TRUNC(DAY, CAST(? AS TIMESTAMP))" : "?";
+                    keySearchTerms.add(String.format("(\"%s\" = %s)", col.getKey(), value));
+                    tKeySearchTerms.add(String.format("(%s = %s)",
+                            isDate ? "DATE_TRUNC(DAY, \"" + tCol + "\")" : "\"" + tCol + "\"", value));
+                    keyColumns.add("\"" + col.getKey() + "\"");
+                    keyValues.add(value);
                     break;
                 }
             }
@@ -96,112 +111,246 @@ public abstract class AbstractMaterializeViewTrigger implements Trigger {
             }
             ++curIndex;
         }
-        keySearchTerm = String.join(" and ", keySearchTerms);
+        String whereCondition = keySearchTerms.isEmpty() ? "" : " WHERE " + String.join(" AND ", keySearchTerms);
+
+        // Contributions of a row to the aggregates: SUM columns get the row's values
+        // (NULL values do not change the sum), COUNT columns get 1.
+        List<String> tColumnNames = new ArrayList<>(t.getColumns().keySet());
+        List<String> addTerms = new ArrayList<>();
+        List<String> subtractTerms = new ArrayList<>();
+        List<String> aggregateColumns = new ArrayList<>();
+        List<String> aggregateValues = new ArrayList<>();
+        List<String> sumAliases = new ArrayList<>();
+        for (Map.Entry<String, Expr> aggregate : mv.getAggregateColumns().entrySet()) {
+            String alias = aggregate.getKey();
+            aggregateColumns.add("\"" + alias + "\"");
+            if (aggregate.getValue() instanceof Sum) {
+                tSumColumnIndices.add(tColumnNames.indexOf(mv.getColumnRef(alias).getName()));
+                addTerms.add(String.format("\"%1$s\" = COALESCE(\"%1$s\" + ?, \"%1$s\", ?)", alias));
+                subtractTerms.add(String.format("\"%1$s\" = COALESCE(\"%1$s\" - ?, \"%1$s\")", alias));
+                sumAliases.add(alias);
+                aggregateValues.add("?");
+            } else if (aggregate.getValue() instanceof Count) {
+                addTerms.add(String.format("\"%1$s\" = \"%1$s\" + 1", alias));
+                subtractTerms.add(String.format("\"%1$s\" = \"%1$s\" - 1", alias));
+                aggregateValues.add("1");
+            }
+        }
+        String surrogateCount = "\"" + MaterializedView.SURROGATE_COUNT + "\"";
+        addTerms.add(surrogateCount + " = " + surrogateCount + " + 1");
+        subtractTerms.add(surrogateCount + " = " + surrogateCount + " - 1");
+        aggregateColumns.add(surrogateCount);
+        aggregateValues.add("1");
+
+        addSql = String.format("UPDATE %s SET %s%s", mvFullName, String.join(", ", addTerms), whereCondition);
+        subtractSql = String.format("UPDATE %s SET %s%s",
+                mvFullName, String.join(", ", subtractTerms), whereCondition);
+        keyColumns.addAll(aggregateColumns);
+        keyValues.addAll(aggregateValues);
+        insertSql = String.format("INSERT INTO %s (%s) VALUES (%s)",
+                mvFullName, String.join(", ", keyColumns), String.join(", ", keyValues));
+        deleteSql = String.format("DELETE FROM %s%s%s", mvFullName,
+                whereCondition.isEmpty() ? " WHERE " : whereCondition + " AND ", surrogateCount + " = 0");
+
+        initRecomputeSums(sumAliases, tKeySearchTerms, mvFullName, whereCondition);
+
+        if (mv.getRefreshMode() == MaterializedView.RefreshMode.DEFERRED) {
+            initLog(tColumnNames);
+        }
     }
 
-
-    final void delete(Connection conn, Object[] row) throws SQLException {
-
-        HashMap<String, Object> groupByColumnValues = getTableRowGroupByColumns(row);
-
-        String deleteSql = String.format("DELETE FROM %s WHERE %s", mvFullName, keySearchTerm);
-
-        setParamsAndRun(conn, groupByColumnValues, deleteSql);
+    /**
+     * Subtraction of the last non-null value leaves zero in a SUM column, while the sum of NULL values is NULL.
+     * Such sums are computed anew from the referenced table.
+     */
+    private void initRecomputeSums(List<String> sumAliases, List<String> tKeySearchTerms,
+                                   String mvFullName, String whereCondition) {
+        String tFullName = String.format("\"%s\".\"%s\"", t.getGrain().getName(), t.getName());
+        String tWhereCondition = tKeySearchTerms.isEmpty() ? "" : " WHERE " + String.join(" AND ", tKeySearchTerms);
+        for (String alias : sumAliases) {
+            recomputeSumSqls.add(String.format("UPDATE %s SET \"%s\" = (SELECT SUM(\"%s\") FROM %s%s)%s\"%s\" = 0",
+                    mvFullName, alias, mv.getColumnRef(alias).getName(), tFullName, tWhereCondition,
+                    whereCondition.isEmpty() ? " WHERE " : whereCondition + " AND ", alias));
+        }
     }
 
-    final void insert(Connection conn, Object[] row) throws SQLException {
-
-        HashMap<String, Object> groupByColumnValues = getTableRowGroupByColumns(row);
-
-        String whereCondition = groupByColumnValues.keySet().stream()
-                .map(alias -> {
-                    try {
-                        return DateTimeColumn.CELESTA_TYPE.equals(
-                                t.getColumn(alias).getCelestaType())
-                                ? "DATE_TRUNC(DAY, \"" + alias + "\") = DATE_TRUNC(DAY, CAST(? AS TIMESTAMP))"
-                                : "\"" + alias + "\" = ?";
-                    } catch (ParseException e) {
-                        throw new RuntimeException(e);
-                    }
-                })
-                .collect(Collectors.joining(" AND "));
-
-
-        String selectPartOfScript = mv.getColumns().keySet().stream()
-                .filter(alias -> !MaterializedView.SURROGATE_COUNT.equals(alias))
-                .map(alias -> {
-                    Column<?> colRef = mv.getColumnRef(alias);
-
-                    Map<String, Expr> aggrCols = mv.getAggregateColumns();
-                    if (aggrCols.containsKey(alias)) {
-                        if (colRef == null) {
-                            if (aggrCols.get(alias) instanceof Count) {
-                                return "COUNT(*) as \"" + alias + "\"";
-                            }
-                            return "";
-                        } else if (aggrCols.get(alias) instanceof Sum) {
-                            return "SUM(\"" + colRef.getName() + "\") as \"" + alias + "\"";
-                        } else {
-                            return "";
-                        }
-                    }
-
-                    if (DateTimeColumn.CELESTA_TYPE.equals(colRef.getCelestaType())) {
-                        return "DATE_TRUNC(DAY, \"" + colRef.getName() + "\") as \"" + alias + "\"";
-                    }
-
-                    return "\"" + colRef.getName() + "\" as " + "\"" + alias + "\"";
-                })
-                .filter(str -> !str.isEmpty())
-                .collect(Collectors.joining(", "))
-                .concat(", COUNT(*) AS " + MaterializedView.SURROGATE_COUNT);
-
-        StringBuilder selectStmtBuilder = new StringBuilder("SELECT ")
-                .append(selectPartOfScript)
-                .append(" FROM ").append(tFullName).append(" ");
-        selectStmtBuilder.append(" WHERE ").append(whereCondition)
-                .append(mv.getGroupByPartOfScript());
+    private void initLog(List<String> tColumnNames) {
+        List<String> logColumns = new ArrayList<>();
+        List<String> logValues = new ArrayList<>();
+        for (Map.Entry<String, Column<?>> col : mv.getColumns().entrySet()) {
+            String alias = col.getKey();
+            logColumns.add("\"" + alias + "\"");
+            Expr aggregate = mv.getAggregateColumns().get(alias);
+            if (MaterializedView.SURROGATE_COUNT.equals(alias) || aggregate instanceof Count) {
+                logValueIndices.add(-1);
+                logValues.add("?");
+            } else {
+                logValueIndices.add(tColumnNames.indexOf(mv.getColumnRef(alias).getName()));
+                logValues.add(aggregate == null
+                        && DateTimeColumn.CELESTA_TYPE.equals(col.getValue().getCelestaType())
+                        ? "DATE_TRUNC(DAY, CAST(? AS TIMESTAMP))" : "?");
+            }
+        }
+        logSql = String.format("INSERT INTO \"%s\".\"%s\" (%s) VALUES (%s)",
+                mv.getGrain().getName(), mv.getChangeLogName(),
+                String.join(", ", logColumns), String.join(", ", logValues));
+    }
 
-        String insertSql = String.format("INSERT INTO %s (%s) %s", mvFullName,
-                mvAllColumns + ", \"" + MaterializedView.SURROGATE_COUNT + "\"", selectStmtBuilder);
+    /**
+     * Records the row to the change log of the materialized view with deferred refresh.
+     */
+    private void log(Connection conn, Object[] row, int sign) throws SQLException {
+        PreparedStatement log = getStatements(conn).get(logSql);
+        int i = 0;
+        for (int index : logValueIndices) {
+            log.setObject(++i, index < 0 ? sign : row[index]);
+        }
+        log.executeUpdate();
+    }
 
+    /**
+     * Adds the contribution of the row to its group of the materialized view, creating the group if needed
+     * (records the row to the change log in case of deferred refresh).
+     */
+    final void add(Connection conn, Object[] row) throws SQLException {
+        if (logSql != null) {
+            log(conn, row, 1);
+            return;
+        }
+        Statements s = getStatements(conn);
+        PreparedStatement add = s.get(addSql);
+        int i = 0;
+        for (int index : tSumColumnIndices) {
+            add.setObject(++i, row[index]);
+            add.setObject(++i, row[index]);
+        }
+        setGroupByValues(add, i, row);
+        if (add.executeUpdate() == 0) {
+            PreparedStatement insert = s.get(insertSql);
+            i = setGroupByValues(insert, 0, row);
+            for (int index : tSumColumnIndices) {
+                insert.setObject(++i, row[index]);
+            }
+            insert.executeUpdate();
+        }
+    }
 
-        setParamsAndRun(conn, groupByColumnValues, insertSql);
+    /**
+     * Subtracts the contribution of the row from its group of the materialized view,
+     * removing the group when no rows are left in it and computing anew the sums that became zero
+     * (records the row to the change log in case of deferred refresh).
+     */
+    final void subtract(Connection conn, Object[] row) throws SQLException {
+        if (logSql != null) {
+            log(conn, row, -1);
+            return;
+        }
+        Statements s = getStatements(conn);
+        PreparedStatement subtract = s.get(subtractSql);
+        int i = 0;
+        for (int index : tSumColumnIndices) {
+            subtract.setObject(++i, row[index]);
+        }
+        setGroupByValues(subtract, i, row);
+        subtract.executeUpdate();
+
+        PreparedStatement delete = s.get(deleteSql);
+        setGroupByValues(delete, 0, row);
+        delete.executeUpdate();
+
+        for (int k = 0; k < tSumColumnIndices.size(); k++) {
+            if (row[tSumColumnIndices.get(k)] != null) {
+                PreparedStatement recompute = s.get(recomputeSumSqls.get(k));
+                setGroupByValues(recompute, setGroupByValues(recompute, 0, row), row);
+                recompute.executeUpdate();
+            }
+        }
     }
 
-    private void setParamsAndRun(
-            Connection conn, HashMap<String, Object> groupByColumnValues, String insertSql) throws SQLException {
+    private int setGroupByValues(PreparedStatement stmt, int offset, Object[] row) throws SQLException {
+        int i = offset;
+        for (int index : tGroupByColumnIndices.keySet()) {
+            stmt.setObject(++i, row[index]);
+        }
+        return i;
+    }
 
-        try (PreparedStatement stmt = conn.prepareStatement(insertSql)) {
-            int i = 0;
-            for (Object value : groupByColumnValues.values()) {
-                stmt.setObject(++i, value);
+    /**
+     * Returns statements of the connection's session. H2 passes a new connection object
+     * on every trigger call, while the statements stay valid for the whole session.
+     */
+    private Statements getStatements(Connection conn) throws SQLException {
+        Object session = conn instanceof JdbcConnection ? ((JdbcConnection) conn).getSession() : conn;
+        statementsLock.lock();
+        try {
+            Statements s = statements.get(session);
+            if (s == null) {
+                // Forget statements of closed sessions
+                Iterator<Statements> it = statements.values().iterator();
+                while (it.hasNext()) {
+                    Statements old = it.next();
+                    if (old.conn.isClosed()) {
+                        it.remove();
+                    }
+                }
+                s = new Statements(conn);
+                statements.put(session, s);
             }
-            stmt.execute();
+            return s;
+        } finally {
+            statementsLock.unlock();
         }
     }
 
     @Override
-    public void close() {
-        //nothing to do
+    public void close() throws SQLException {
+        statementsLock.lock();
+        try {
+            for (Statements s : statements.values()) {
+                s.close();
+            }
+            statements.clear();
+        } finally {
+            statementsLock.unlock();
+        }
     }
 
     @Override
-    public void remove() {
-        //nothing to do
+    public void remove() throws SQLException {
+        close();
     }
 
     abstract String getNamePrefix();
 
-    private HashMap<String, Object> getTableRowGroupByColumns(Object[] row) {
-        HashMap<String, Object> result = new LinkedHashMap<>();
+    final HashMap<Integer, String> getMvColumnRefs() {
+        return mvColumnRefs;
+    }
 
-        tGroupByColumnIndices.forEach((key, value) -> result.put(value, row[key]));
+    /**
+     * Statements of a session prepared on the first call of the trigger in the session.
+     */
+    private static final class Statements {
+        private final Connection conn;
+        private final Map<String, PreparedStatement> prepared = new HashMap<>();
 
-        return result;
-    }
+        Statements(Connection conn) {
+            this.conn = conn;
+        }
 
-    final HashMap<Integer, String> getMvColumnRefs() {
-        return mvColumnRefs;
+        PreparedStatement get(String sql) throws SQLException {
+            PreparedStatement stmt = prepared.get(sql);
+            if (stmt == null) {
+                stmt = conn.prepareStatement(sql);
+                prepared.put(sql, stmt);
+            }
+            return stmt;
+        }
+
+        void close() throws SQLException {
+            for (PreparedStatement stmt : prepared.values()) {
+                stmt.close();
+            }
+            prepared.clear();
+        }
     }
 }
@@ -15,8 +15,7 @@ public final class MaterializedViewDeleteTrigger extends AbstractMaterializeView
 
   @Override
   public void fire(Connection connection, Object[] oldRow, Object[] newRow) throws SQLException {
-    delete(connection, oldRow);
-    insert(connection, oldRow);
+    subtract(connection, oldRow);
   }
 
   @Override
@@ -18,12 +18,9 @@ public final class MaterializedViewUpdateTrigger extends AbstractMaterializeView
   @Override
   public void fire(Connection connection, Object[] oldRow, Object[] newRow) throws SQLException {
     if (mvColumnsAreChanged(oldRow, newRow)) {
-      //process old
-      delete(connection, oldRow);
-      insert(connection, oldRow);
-      //process new
-      delete(connection, newRow);
-      insert(connection, newRow);
+      //the new row is added first, so that the group is not removed when the row stays in it
+      add(connection, newRow);
+      subtract(connection, oldRow);
     }
   }
 
@@ -0,0 +1,162 @@
+package ru.curs.celesta.dbutils.meta;
+
+import ru.curs.celesta.dbutils.adaptors.DBAdaptor;
+import ru.curs.celesta.score.Column;
+import ru.curs.celesta.score.TableElement;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Structure of the grain objects taken from the database at once: tables, their columns
+ * and primary keys, foreign keys, indices and sequences.
+ * <p>
+ * The snapshot is not updated when the database structure is changed.
+ */
+public final class DbSnapshot {
+    private final DBAdaptor dbAdaptor;
+
+    private final Set<String> tables = new HashSet<>();
+    private final Map<String, Map<String, DbColumnInfo>> columns = new HashMap<>();
+    private final Map<String, DbPkInfo> pks = new HashMap<>();
+    private final Map<String, DbSequenceInfo> sequences = new HashMap<>();
+    private List<DbFkInfo> fks = new LinkedList<>();
+    private Map<String, DbIndexInfo> indices = new HashMap<>();
+
+    public DbSnapshot(DBAdaptor dbAdaptor) {
+        this.dbAdaptor = dbAdaptor;
+    }
+
+    /**
+     * Adds a table existing in the database.
+     *
+     * @param tableName  table name
+     */
+    public void addTable(String tableName) {
+        tables.add(tableName);
+    }
+
+    /**
+     * Adds information on a column of the table.
+     *
+     * @param tableName  table name
+     * @param columnInfo  column information
+     */
+    public void addColumn(String tableName, DbColumnInfo columnInfo) {
+        columns.computeIfAbsent(tableName, t -> new LinkedHashMap<>()).put(columnInfo.getName(), columnInfo);
+    }
+
+    /**
+     * Sets information on the primary key of the table.
+     *
+     * @param tableName  table name
+     * @param pkInfo  primary key information
+     */
+    public void setPKInfo(String tableName, DbPkInfo pkInfo) {
+        pks.put(tableName, pkInfo);
+    }
+
+    /**
+     * Sets information on the foreign keys of the grain.
+     *
+     * @param fkInfo  foreign keys information
+     */
+    public void setFKInfo(List<DbFkInfo> fkInfo) {
+        fks = fkInfo;
+    }
+
+    /**
+     * Sets information on the indices of the grain.
+     *
+     * @param indices  indices information by index names
+     */
+    public void setIndices(Map<String, DbIndexInfo> indices) {
+        this.indices = indices;
+    }
+
+    /**
+     * Adds a sequence existing in the database.
+     *
+     * @param sequenceName  sequence name
+     * @param sequenceInfo  sequence information
+     */
+    public void addSequence(String sequenceName, DbSequenceInfo sequenceInfo) {
+        sequences.put(sequenceName, sequenceInfo);
+    }
+
+    /**
+     * Whether the table exists in the database.
+     *
+     * @param tableName  table name
+     */
+    public boolean tableExists(String tableName) {
+        return tables.contains(tableName);
+    }
+
+    /**
+     * Returns names of the table columns existing in the database.
+     *
+     * @param t  table
+     */
+    public Set<String> getColumns(TableElement t) {
+        Map<String, DbColumnInfo> tableColumns = columns.get(t.getName());
+        return tableColumns == null ? Collections.emptySet() : tableColumns.keySet();
+    }
+
+    /**
+     * Returns information on the column or {@code null} if the column doesn't exist in the database.
+     *
+     * @param c  column
+     */
+    public DbColumnInfo getColumnInfo(Column<?> c) {
+        return columns.getOrDefault(c.getParentTable().getName(), Collections.emptyMap()).get(c.getName());
+    }
+
+    /**
+     * Returns information on the primary key of the table.
+     *
+     * @param t  table
+     */
+    public DbPkInfo getPKInfo(TableElement t) {
+        return pks.computeIfAbsent(t.getName(), n -> new DbPkInfo(dbAdaptor));
+    }
+
+    /**
+     * Returns information on the foreign keys of the grain.
+     */
+    public List<DbFkInfo> getFKInfo() {
+        return fks;
+    }
+
+    /**
+     * Returns information on the indices of the grain by index names.
+     */
+    public Map<String, DbIndexInfo> getIndices() {
+        return indices;
+    }
+
+    /**
+     * Whether the sequence exists in the database.
+     *
+     * @param sequenceName  sequence name
+     */
+    public boolean sequenceExists(String sequenceName) {
+        return sequences.containsKey(sequenceName);
+    }
+
+    /**
+     * Returns information on the sequence or {@code null} if the sequence doesn't exist in the database.
+     *
+     * @param sequenceName  sequence name
+     */
+    public DbSequenceInfo getSequenceInfo(String sequenceName) {
+        return sequences.get(sequenceName);
+    }
+
+}
@@ -0,0 +1,159 @@
+package ru.curs.celesta.dbutils.stmt;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Statement wrapper reporting preparation and execution of the statement to {@link StatementListener}.
+ * Execution of a batch is reported as a single execution.
+ * <p>
+ * Parameters bound to the statement are recorded, so that they can be reported along with
+ * the execution. Records fetched from result sets of queries are counted and reported when
+ * the result set is closed.
+ */
+final class InstrumentedStatement implements InvocationHandler {
+
+    private static final Object[] NO_PARAMETERS = new Object[0];
+    private static final Set<String> EXECUTE_METHODS = Set.of(
+            "executeQuery", "executeUpdate", "executeLargeUpdate", "execute", "executeBatch", "executeLargeBatch");
+
+    private final PreparedStatement stmt;
+    private final String sql;
+    private final StatementInfo info;
+    private final StatementListener listener;
+    private final Supplier<String> procName;
+    private Object[] parameters = NO_PARAMETERS;
+
+    private InstrumentedStatement(PreparedStatement stmt, String sql, StatementInfo info,
+                                  StatementListener listener, Supplier<String> procName) {
+        this.stmt = stmt;
+        this.sql = sql;
+        this.info = info;
+        this.listener = listener;
+        this.procName = procName;
+    }
+
+    static PreparedStatement wrap(PreparedStatement stmt, String sql, StatementInfo info,
+                                  StatementListener listener, Supplier<String> procName) {
+        return (PreparedStatement) Proxy.newProxyInstance(
+                PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class},
+                new InstrumentedStatement(stmt, sql, info, listener, procName));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        String name = method.getName();
+        boolean noArgs = args == null || args.length == 0;
+        if (noArgs && EXECUTE_METHODS.contains(name)) {
+            return execute(method);
+        }
+        if (!noArgs && name.startsWith("set") && args.length >= 2
+                && method.getParameterTypes()[0] == int.class) {
+            bind((Integer) args[0], "setNull".equals(name) ? null : args[1]);
+        } else if ("clearParameters".equals(name)) {
+            Arrays.fill(parameters, null);
+        } else if ("equals".equals(name)) {
+            return proxy == args[0];
+        } else if ("hashCode".equals(name)) {
+            return System.identityHashCode(proxy);
+        }
+        return delegate(stmt, method, args);
+    }
+
+    private void bind(int index, Object value) {
+        if (index > parameters.length) {
+            parameters = Arrays.copyOf(parameters, index);
+        }
+        if (index > 0) {
+            parameters[index - 1] = value;
+        }
+    }
+
+    private Object execute(Method method) throws Throwable {
+        long start = System.nanoTime();
+        Object result = delegate(stmt, method, null);
+        long durationNs = System.nanoTime() - start;
+        long updateCount = getUpdateCount(result);
+        listener.onExecute(info, new StatementExecution(sql, parameters.clone(), procName.get(),
+                durationNs, updateCount));
+        if (result instanceof ResultSet) {
+            return Proxy.newProxyInstance(
+                    ResultSet.class.getClassLoader(),
+                    new Class<?>[]{ResultSet.class},
+                    new CountingResultSet((ResultSet) result));
+        }
+        return result;
+    }
+
+    private static long getUpdateCount(Object result) {
+        if (result instanceof Number) {
+            return ((Number) result).longValue();
+        } else if (result instanceof int[]) {
+            return Arrays.stream((int[]) result).mapToLong(c -> c).reduce(0, InstrumentedStatement::addCount);
+        } else if (result instanceof long[]) {
+            return Arrays.stream((long[]) result).reduce(0, InstrumentedStatement::addCount);
+        } else {
+            return -1;
+        }
+    }
+
+    private static long addCount(long total, long count) {
+        // Counts of batches are unknown if any of their statements doesn't report it
+        return total < 0 || count < 0 ? -1 : total + count;
+    }
+
+    private static Object delegate(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Counts records fetched from a result set.
+     */
+    private final class CountingResultSet implements InvocationHandler {
+        private final ResultSet rs;
+        private long rowCount;
+        private boolean reported;
+
+        CountingResultSet(ResultSet rs) {
+            this.rs = rs;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "next":
+                    Object result = delegate(rs, method, args);
+                    if (Boolean.TRUE.equals(result)) {
+                        rowCount++;
+                    }
+                    return result;
+                case "close":
+                    if (!reported) {
+                        reported = true;
+                        listener.onFetch(info, rowCount);
+                    }
+                    break;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    break;
+            }
+            return delegate(rs, method, args);
+        }
+    }
+
+}
@@ -1,44 +1,158 @@
 package ru.curs.celesta.dbutils.stmt;
 
 import java.sql.PreparedStatement;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * Holder for a statement which depends on nulls mask.
+ * <p>
+ * Statements prepared for recently used masks are kept open (up to the cache size),
+ * so that switching between a few recurring masks does not cause re-preparation of
+ * the statements.
  */
 public abstract class MaskedStatementHolder extends PreparedStmtHolder {
+    /**
+     * Default maximal number of statements kept by the holder.
+     */
+    public static final int DEFAULT_CACHE_SIZE = 8;
+
+    private final int cacheSize;
+    // Statements for masks other than the current one, in access order
+    private final LinkedHashMap<BitSet, ProgrammedStatement> cache = new LinkedHashMap<>(16, 0.75f, true);
     private int[] nullsMaskIndices;
     private boolean[] nullsMask;
+    private BitSet mask;
+    private long cacheHits;
+    private long cacheMisses;
+
+    public MaskedStatementHolder() {
+        this(DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * Creates the holder.
+     *
+     * @param cacheSize  maximal number of statements (for different masks) kept by the holder
+     */
+    public MaskedStatementHolder(int cacheSize) {
+        if (cacheSize < 1) {
+            throw new IllegalArgumentException("Cache size should be positive: " + cacheSize);
+        }
+        this.cacheSize = cacheSize;
+    }
 
     @Override
-    public synchronized PreparedStatement getStatement(Object[] rec, int recversion)  {
-        reusable: if (isStmtValid()) {
-            for (int i = 0; i < nullsMask.length; i++) {
-                if (rec[nullsMaskIndices[i]] == null != nullsMask[i]) {
-                    close();
-                    break reusable;
+    public PreparedStatement getStatement(Object[] rec, int recversion) {
+        lock.lock();
+        try {
+            if (nullsMaskIndices == null) {
+                nullsMaskIndices = getNullsMaskIndices();
+            }
+            boolean[] newNullsMask = new boolean[nullsMaskIndices.length];
+            BitSet newMask = new BitSet();
+            for (int i = 0; i < newNullsMask.length; i++) {
+                newNullsMask[i] = rec[nullsMaskIndices[i]] == null;
+                newMask.set(i, newNullsMask[i]);
+            }
+            boolean[] additionalMask = getAdditionalMask();
+            if (additionalMask != null) {
+                for (int i = 0; i < additionalMask.length; i++) {
+                    newMask.set(newNullsMask.length + i, additionalMask[i]);
+                }
+            }
+
+            if (!(isStmtValid() && newMask.equals(mask))) {
+                ProgrammedStatement cached = cache.remove(newMask);
+                if (isStmtValid()) {
+                    cache(mask, detach());
+                }
+                if (cached != null) {
+                    attach(cached);
                 }
+                mask = newMask;
+                nullsMask = newNullsMask;
+            }
+
+            if (isStmtValid()) {
+                cacheHits++;
+            } else {
+                cacheMisses++;
             }
             return super.getStatement(rec, recversion);
+        } finally {
+            lock.unlock();
         }
-        nullsMaskIndices = getNullsMaskIndices();
-        nullsMask = new boolean[nullsMaskIndices.length];
-        for (int i = 0; i < nullsMask.length; i++) {
-            nullsMask[i] = rec[nullsMaskIndices[i]] == null;
-        }
+    }
 
-        return super.getStatement(rec, recversion);
+    private void cache(BitSet key, ProgrammedStatement ps) {
+        cache.put(key, ps);
+        // the current statement takes one place as well
+        Iterator<Map.Entry<BitSet, ProgrammedStatement>> i = cache.entrySet().iterator();
+        while (cache.size() > cacheSize - 1) {
+            i.next().getValue().close();
+            i.remove();
+        }
     }
 
     @Override
-    public synchronized void close() {
-        super.close();
-        nullsMaskIndices = null;
+    public void close() {
+        lock.lock();
+        try {
+            super.close();
+            cache.values().forEach(ProgrammedStatement::close);
+            cache.clear();
+            nullsMaskIndices = null;
+            mask = null;
+        } finally {
+            lock.unlock();
+        }
     }
 
     public final boolean[] getNullsMask() {
         return nullsMask;
     }
 
+    /**
+     * Returns the number of statement requests served without preparing a statement.
+     *
+     * @return
+     */
+    public final long getCacheHits() {
+        lock.lock();
+        try {
+            return cacheHits;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of statement requests that required preparing a statement.
+     *
+     * @return
+     */
+    public final long getCacheMisses() {
+        lock.lock();
+        try {
+            return cacheMisses;
+        } finally {
+            lock.unlock();
+        }
+    }
+
     protected abstract int[] getNullsMaskIndices();
 
+    /**
+     * Returns a mask which the statement depends on in addition to the nulls mask
+     * (e.g. a mask of updated fields), or {@code null} if there is no such mask.
+     *
+     * @return
+     */
+    protected boolean[] getAdditionalMask() {
+        return null;
+    }
+
 }
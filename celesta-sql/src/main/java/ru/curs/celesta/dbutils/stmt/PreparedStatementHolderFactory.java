@@ -41,6 +41,28 @@ public final class PreparedStatementHolderFactory {
         };
     }
 
+    public static MaskedStatementHolder createInsertIfAbsentHolder(BasicTable meta, DBAdaptor dbAdaptor,
+                                                                   Connection conn) {
+        return new MaskedStatementHolder() {
+
+            @Override
+            protected int[] getNullsMaskIndices()  {
+                // we monitor all columns for nulls
+                int[] result = new int[meta.getColumns().size()];
+                for (int i = 0; i < result.length; i++) {
+                    result[i] = i;
+                }
+                return result;
+            }
+
+            @Override
+            protected PreparedStatement initStatement(List<ParameterSetter> program)  {
+                return dbAdaptor.getInsertIfAbsentRecordStatement(conn, meta, getNullsMask(), program);
+            }
+
+        };
+    }
+
     public static PreparedStmtHolder createGetHolder(TableElement meta, DBAdaptor dbAdaptor, Connection conn) {
         return new PreparedStmtHolder() {
             @Override
@@ -52,10 +74,26 @@ public final class PreparedStatementHolderFactory {
         };
     }
 
-    public static PreparedStmtHolder createUpdateHolder(BasicTable meta, DBAdaptor dbAdaptor, Connection conn,
-                                                        Supplier<boolean[]> updateMaskSupplier,
-                                                        Supplier<boolean[]> nullUpdateMaskSupplier) {
-        return new PreparedStmtHolder() {
+    public static MaskedStatementHolder createUpdateHolder(BasicTable meta, DBAdaptor dbAdaptor, Connection conn,
+                                                           Supplier<boolean[]> updateMaskSupplier,
+                                                           Supplier<boolean[]> nullUpdateMaskSupplier) {
+        return new MaskedStatementHolder() {
+
+            @Override
+            protected int[] getNullsMaskIndices()  {
+                // we monitor all columns for nulls
+                int[] result = new int[meta.getColumns().size()];
+                for (int i = 0; i < result.length; i++) {
+                    result[i] = i;
+                }
+                return result;
+            }
+
+            @Override
+            protected boolean[] getAdditionalMask() {
+                return updateMaskSupplier.get();
+            }
+
             @Override
             protected PreparedStatement initStatement(List<ParameterSetter> program)  {
                 WhereTerm where = CsqlWhereTermsMaker.getPKWhereTerm(meta);
@@ -74,7 +112,8 @@ public final class PreparedStatementHolderFactory {
             DBAdaptor dbAdaptor, Connection conn, Supplier<FromClause> fromClauseSupplier,
             Supplier<FromTerm> fromTermSupplier, Supplier<WhereTerm> whereTermSupplier,
             Supplier<String> orderBySupplier, Supplier<Long> offsetSupplier,
-            Supplier<Long> rowCountSupplier, Supplier<Set<String>> fieldsForStatementSupplier) {
+            Supplier<Long> rowCountSupplier, Supplier<Set<String>> fieldsForStatementSupplier,
+            Supplier<Integer> fetchSizeSupplier) {
         return new PreparedStmtHolder() {
             @Override
             protected PreparedStatement initStatement(List<ParameterSetter> program) {
@@ -89,7 +128,8 @@ public final class PreparedStatementHolderFactory {
                 fromTerm.programParams(program, dbAdaptor);
                 where.programParams(program, dbAdaptor);
                 return dbAdaptor.getRecordSetStatement(conn, from, where.getWhere(), orderBySupplier.get(),
-                        offsetSupplier.get(), rowCountSupplier.get(), fieldsForStatementSupplier.get());
+                        offsetSupplier.get(), rowCountSupplier.get(), fieldsForStatementSupplier.get(),
+                        fetchSizeSupplier.get());
             }
         };
     }
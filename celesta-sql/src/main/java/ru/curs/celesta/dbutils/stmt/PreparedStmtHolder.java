@@ -8,26 +8,55 @@ import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
 
 /**
  * A container for parameterized prepared statement.
+ * <p>
+ * The holder is guarded by a {@link ReentrantLock} rather than by its monitor, so that
+ * JDBC calls made while holding it do not pin carrier threads of virtual threads.
+ * <p>
+ * If a {@link StatementListener} is set, the holder reports statement preparation to it
+ * and returns statements that report their executions. SQL text of the statement is recorded
+ * by the DB adaptor via {@link #sqlPrepared(String)} while the statement is being initialized.
  */
 public abstract class PreparedStmtHolder {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(PreparedStmtHolder.class);
 
+    // SQL text of the statement being initialized by the holder of the current thread
+    private static final ThreadLocal<String[]> PREPARED_SQL = new ThreadLocal<>();
+
+    /**
+     * Lock guarding the state of the holder and of its subclasses.
+     */
+    final ReentrantLock lock = new ReentrantLock();
+
     private PreparedStatement stmt;
-    private final List<ParameterSetter> program = new ArrayList<>();
+    private String sql;
+    private List<ParameterSetter> program = new ArrayList<>();
+    private StatementListener listener;
+    private StatementInfo statementInfo;
+    private Supplier<String> procName;
+    // Reporting wrapper of the current statement
+    private PreparedStatement instrumented;
+    private PreparedStatement instrumentedTarget;
 
     /**
      * Whether statement is valid.
      *
      */
-    public synchronized boolean isStmtValid()  {
+    public boolean isStmtValid() {
+        lock.lock();
         try {
-            return !(stmt == null || stmt.isClosed());
-        } catch (SQLException e) {
-            throw new CelestaException(e.getMessage(), e);
+            try {
+                return !(stmt == null || stmt.isClosed());
+            } catch (SQLException e) {
+                throw new CelestaException(e.getMessage(), e);
+            }
+        } finally {
+            lock.unlock();
         }
     }
 
@@ -38,38 +67,165 @@ public abstract class PreparedStmtHolder {
      * @param recversion  record version
      *
      */
-    public synchronized PreparedStatement getStatement(Object[] rec, int recversion) {
-        if (!isStmtValid()) {
-            program.clear();
-            stmt = initStatement(program);
-            // everything should be initialized at this point
+    public PreparedStatement getStatement(Object[] rec, int recversion) {
+        lock.lock();
+        try {
             if (!isStmtValid()) {
-                throw new IllegalStateException();
+                program.clear();
+                sql = null;
+                if (listener != null) {
+                    String[] preparedSql = new String[1];
+                    PREPARED_SQL.set(preparedSql);
+                    try {
+                        stmt = initStatement(program);
+                    } finally {
+                        PREPARED_SQL.remove();
+                    }
+                    sql = preparedSql[0];
+                } else {
+                    stmt = initStatement(program);
+                }
+                // everything should be initialized at this point
+                if (!isStmtValid()) {
+                    throw new IllegalStateException();
+                }
+                if (listener != null) {
+                    listener.onPrepare(statementInfo);
+                }
+            }
+            PreparedStatement result = stmt;
+            if (listener != null) {
+                if (instrumentedTarget != stmt) {
+                    instrumented = InstrumentedStatement.wrap(stmt, sql == null ? stmt.toString() : sql,
+                            statementInfo, listener, procName);
+                    instrumentedTarget = stmt;
+                }
+                result = instrumented;
+            }
+            int i = 1;
+            for (ParameterSetter f : program) {
+                f.execute(result, i++, rec, recversion);
             }
+            LOGGER.trace("{}", stmt);
+            return result;
+        } finally {
+            lock.unlock();
         }
-        int i = 1;
-        for (ParameterSetter f : program) {
-            f.execute(stmt, i++, rec, recversion);
+    }
+
+    /**
+     * Records SQL text of the statement prepared for the holder initializing its statement
+     * in the current thread. Does nothing if there is no such holder or it has no listener.
+     *
+     * @param preparedSql  SQL text of the prepared statement
+     */
+    public static void sqlPrepared(String preparedSql) {
+        String[] slot = PREPARED_SQL.get();
+        if (slot != null) {
+            slot[0] = preparedSql;
+        }
+    }
+
+    /**
+     * Sets the listener of preparation and execution of statements of the holder.
+     *
+     * @param statementListener  statement listener ({@code null} switches reporting off)
+     * @param info               identification of the holder statements
+     * @param procNameSupplier   supplier of the name of the procedure the statements are executed in
+     */
+    public final void setStatementListener(StatementListener statementListener, StatementInfo info,
+                                           Supplier<String> procNameSupplier) {
+        lock.lock();
+        try {
+            listener = statementListener;
+            statementInfo = info;
+            procName = procNameSupplier;
+            instrumented = null;
+            instrumentedTarget = null;
+        } finally {
+            lock.unlock();
         }
-        LOGGER.trace("{}", stmt);
-        return stmt;
     }
 
     /**
      * Closes the statement.
      */
-    public synchronized void close() {
+    public void close() {
+        lock.lock();
         try {
-            if (stmt != null) {
-                stmt.close();
+            try {
+                if (stmt != null) {
+                    stmt.close();
+                }
+            } catch (SQLException e) {
+                e = null;
             }
-        } catch (SQLException e) {
-            e = null;
+            stmt = null;
+            sql = null;
+            program.clear();
+            instrumented = null;
+            instrumentedTarget = null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Detaches the statement along with its parameters setting program from the holder
+     * without closing it. The holder becomes empty.
+     */
+    final ProgrammedStatement detach() {
+        lock.lock();
+        try {
+            ProgrammedStatement result = new ProgrammedStatement(stmt, sql, program);
+            stmt = null;
+            sql = null;
+            program = new ArrayList<>();
+            return result;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Attaches a previously detached statement to the holder which has no valid statement.
+     *
+     * @param ps  statement along with its parameters setting program
+     */
+    final void attach(ProgrammedStatement ps) {
+        lock.lock();
+        try {
+            stmt = ps.stmt;
+            sql = ps.sql;
+            program = ps.program;
+        } finally {
+            lock.unlock();
         }
-        stmt = null;
-        program.clear();
     }
 
     protected abstract PreparedStatement initStatement(List<ParameterSetter> program);
 
+    /**
+     * Prepared statement along with its parameters setting program.
+     */
+    static final class ProgrammedStatement {
+        private final PreparedStatement stmt;
+        private final String sql;
+        private final List<ParameterSetter> program;
+
+        private ProgrammedStatement(PreparedStatement stmt, String sql, List<ParameterSetter> program) {
+            this.stmt = stmt;
+            this.sql = sql;
+            this.program = program;
+        }
+
+        void close() {
+            try {
+                stmt.close();
+            } catch (SQLException e) {
+                e = null;
+            }
+        }
+    }
+
 }
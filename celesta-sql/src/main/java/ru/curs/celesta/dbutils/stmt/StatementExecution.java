@@ -0,0 +1,71 @@
+package ru.curs.celesta.dbutils.stmt;
+
+/**
+ * Data on a single statement execution passed to {@link StatementListener}.
+ */
+public final class StatementExecution {
+
+    private final String sql;
+    private final Object[] parameters;
+    private final String procName;
+    private final long durationNs;
+    private final long updateCount;
+
+    StatementExecution(String sql, Object[] parameters, String procName,
+                       long durationNs, long updateCount) {
+        this.sql = sql;
+        this.parameters = parameters;
+        this.procName = procName;
+        this.durationNs = durationNs;
+        this.updateCount = updateCount;
+    }
+
+    /**
+     * Returns SQL text of the statement as prepared by the DB adaptor.
+     *
+     * @return
+     */
+    public String getSql() {
+        return sql;
+    }
+
+    /**
+     * Returns values of the statement parameters bound for the execution
+     * (for a batch, the ones bound for its last record).
+     *
+     * @return
+     */
+    public Object[] getParameters() {
+        return parameters.clone();
+    }
+
+    /**
+     * Returns name of the procedure of the call context the statement was executed in.
+     *
+     * @return
+     */
+    public String getProcName() {
+        return procName;
+    }
+
+    /**
+     * Returns duration of the statement execution in nanoseconds
+     * (for queries fetching of the result set is not included).
+     *
+     * @return
+     */
+    public long getDurationNs() {
+        return durationNs;
+    }
+
+    /**
+     * Returns the number of records affected by the statement (for a batch, the total number
+     * of records affected by its statements), or -1 for queries and for statements that do not report it.
+     *
+     * @return
+     */
+    public long getUpdateCount() {
+        return updateCount;
+    }
+
+}
@@ -0,0 +1,65 @@
+package ru.curs.celesta.dbutils.stmt;
+
+import java.util.Objects;
+
+/**
+ * Identifies statements of a statement holder: the grain element the statement is executed
+ * against and the kind of the statement.
+ */
+public final class StatementInfo {
+
+    private final String element;
+    private final StatementKind kind;
+
+    /**
+     * Creates statement identification.
+     *
+     * @param element  grain element name qualified with the grain name
+     * @param kind     statement kind
+     */
+    public StatementInfo(String element, StatementKind kind) {
+        this.element = Objects.requireNonNull(element);
+        this.kind = Objects.requireNonNull(kind);
+    }
+
+    /**
+     * Returns grain element name qualified with the grain name.
+     *
+     * @return
+     */
+    public String getElement() {
+        return element;
+    }
+
+    /**
+     * Returns statement kind.
+     *
+     * @return
+     */
+    public StatementKind getKind() {
+        return kind;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof StatementInfo)) {
+            return false;
+        }
+        StatementInfo that = (StatementInfo) o;
+        return element.equals(that.element) && kind == that.kind;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(element, kind);
+    }
+
+    @Override
+    public String toString() {
+        return element + " (" + kind + ")";
+    }
+
+}
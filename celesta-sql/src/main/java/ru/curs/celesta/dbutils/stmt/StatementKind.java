@@ -0,0 +1,35 @@
+package ru.curs.celesta.dbutils.stmt;
+
+/**
+ * Kind of a statement executed by a data accessor.
+ */
+public enum StatementKind {
+    /**
+     * Selection of a record set.
+     */
+    SET,
+    /**
+     * Counting of records.
+     */
+    COUNT,
+    /**
+     * Navigation within a record set.
+     */
+    NAVIGATION,
+    /**
+     * Selection of a record by its primary key.
+     */
+    GET,
+    /**
+     * Insertion of records.
+     */
+    INSERT,
+    /**
+     * Update of records.
+     */
+    UPDATE,
+    /**
+     * Deletion of records.
+     */
+    DELETE
+}
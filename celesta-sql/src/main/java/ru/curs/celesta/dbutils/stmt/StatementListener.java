@@ -0,0 +1,32 @@
+package ru.curs.celesta.dbutils.stmt;
+
+/**
+ * Listener of statements prepared and executed by data accessors. Implementations are called
+ * synchronously from the thread executing the statement, so they should be thread-safe and fast.
+ */
+public interface StatementListener {
+
+    /**
+     * Called when a statement is prepared.
+     *
+     * @param statement  statement identification
+     */
+    void onPrepare(StatementInfo statement);
+
+    /**
+     * Called when a statement is executed.
+     *
+     * @param statement  statement identification
+     * @param execution  execution data
+     */
+    void onExecute(StatementInfo statement, StatementExecution execution);
+
+    /**
+     * Called when a result set of a query is closed.
+     *
+     * @param statement  statement identification
+     * @param rowCount   number of records fetched from the result set
+     */
+    void onFetch(StatementInfo statement, long rowCount);
+
+}
@@ -44,6 +44,7 @@ import ru.curs.celesta.score.validator.IdentifierParser;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
@@ -53,6 +54,8 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -61,7 +64,7 @@ import java.util.zip.CRC32;
 /**
  * Root class for complete data model of grains.
  */
-public abstract class AbstractScore {
+public abstract class AbstractScore implements Serializable {
 
     static final String DEPENDENCY_SCHEMA_DOES_NOT_EXIST_ERROR_TEMPLATE
             = "Couldn't parse schema '%s'. Dependency schema '%s' does not exist.";
@@ -70,30 +73,52 @@ public abstract class AbstractScore {
             + "due to previous parsing errors or "
             + "cycle reference involving grains '%s' and '%s'.";
 
+    private static final long serialVersionUID = 1L;
+
     private final Map<String, Grain> grains = new HashMap<>();
 
     private final Map<String, List<GrainPart>> grainNameToGrainParts = new LinkedHashMap<>();
 
-    private int orderCounter;
+    private final AtomicInteger orderCounter = new AtomicInteger();
+
+    private final Set<GrainPart> currentlyParsingGrainParts = ConcurrentHashMap.newKeySet();
 
-    private final Set<GrainPart> currentlyParsingGrainParts = new HashSet<>();
+    private transient ConcurrentGrainParser concurrentParser;
 
     protected AbstractScore() {
     }
 
     /**
-     * Core initialization by providing a set of paths to 'score' directories
-     * delimited by semicolon.
+     * Core initialization by providing a set of discovered grain resources,
+     * parsing up to {@code parallelism} grains concurrently.
+     * <p>
+     * Errors of concurrent parsing may differ from the sequential ones (e.g. the grain reported
+     * for cyclic references), so the score that failed to be parsed concurrently should be parsed
+     * sequentially anew to report the errors.
      *
+     * @param grainResources  grain resources
+     * @param parallelism  maximum number of grains parsed concurrently
      * @throws CelestaException in case if non-existing path is provided or in case if
      *                          there's a double definition of a grain with the same name.
      */
-    void init(ScoreDiscovery scoreDiscovery) throws ParseException {
-
-        Set<Resource> grainResources = scoreDiscovery.discoverScore();
+    void init(Set<Resource> grainResources, int parallelism) throws ParseException {
 
         initSystemGrain();
 
+        if (parallelism > 1) {
+            try (ConcurrentGrainParser parser = new ConcurrentGrainParser(this, parallelism)) {
+                concurrentParser = parser;
+                parser.readSources(grainResources);
+                fillGrainNameToGrainParts(grainResources);
+                parser.parseGrains(grainNameToGrainParts.keySet());
+            } finally {
+                concurrentParser = null;
+            }
+            // Grains are finalized in arbitrary order when parsed concurrently
+            reorderGrains();
+            return;
+        }
+
         //The first parsing step - the grouping of resources by grain names.
         fillGrainNameToGrainParts(grainResources);
 
@@ -216,21 +241,35 @@ public abstract class AbstractScore {
             return currentGrain;
         }
 
-        if (g.isModified()) {
-            try {
-                this.parseGrain(dependencyGrainName);
-            } catch (RepeatedParseException e) {
-                throwParseExceptionOnCyclicReferences(currentGrain.getName(), dependencyGrainName);
-            }
+        try {
+            parseDependency(g);
+        } catch (RepeatedParseException e) {
+            throwParseExceptionOnCyclicReferences(currentGrain.getName(), dependencyGrainName);
         }
 
         if (!g.isParsingComplete()) {
             throwParseExceptionOnCyclicReferences(currentGrain.getName(), dependencyGrainName);
         }
 
+        currentGrain.addDependency(g);
         return g;
     }
 
+    /**
+     * Parses the grain referred to by the grain being parsed unless it is already parsed
+     * (or is being parsed concurrently, in which case waits for it to be parsed).
+     *
+     * @param dependency  referred grain
+     * @throws ParseException  when the referred grain parsing fails
+     */
+    final void parseDependency(Grain dependency) throws ParseException {
+        if (concurrentParser != null) {
+            concurrentParser.parseGrain(dependency, true);
+        } else if (dependency.isModified()) {
+            parseGrain(dependency.getName());
+        }
+    }
+
     private static void throwParseExceptionOnCyclicReferences(String currentGrainName, String dependencyGrainName)
             throws ParseException {
         throw new ParseException(
@@ -253,8 +292,8 @@ public abstract class AbstractScore {
         try (
                 ChecksumInputStream is =
                         cis == null
-                                ? new ChecksumInputStream(r.getInputStream())
-                                : new ChecksumInputStream(r.getInputStream(), cis)
+                                ? new ChecksumInputStream(openSource(r))
+                                : new ChecksumInputStream(openSource(r), cis)
         ) {
             CelestaParser parser = new CelestaParser(is, "utf-8");
             try {
@@ -278,7 +317,7 @@ public abstract class AbstractScore {
 
     private GrainPart extractGrainInfo(Resource r, boolean isSystem) throws ParseException {
         try (ChecksumInputStream is = isSystem ? new ChecksumInputStream(getSysSchemaInputStream())
-                : new ChecksumInputStream(r.getInputStream())) {
+                : new ChecksumInputStream(openSource(r))) {
             CelestaParser parser = new CelestaParser(is, "utf-8");
             try {
                 return parser.extractGrainInfo(this, r);
@@ -291,6 +330,10 @@ public abstract class AbstractScore {
         }
     }
 
+    private InputStream openSource(Resource r) throws IOException {
+        return concurrentParser == null ? r.getInputStream() : concurrentParser.openSource(r);
+    }
+
     private void initSystemGrain() {
         try (ChecksumInputStream is = new ChecksumInputStream(getSysSchemaInputStream())) {
             GrainPart grainPart = extractGrainInfo(null, true);
@@ -311,7 +354,7 @@ public abstract class AbstractScore {
         }
     }
 
-    private InputStream getSysSchemaInputStream() {
+    final InputStream getSysSchemaInputStream() {
         return this.getClass().getResourceAsStream(getSysSchemaName() + ".sql");
     }
 
@@ -333,7 +376,30 @@ public abstract class AbstractScore {
     }
 
     final int nextOrderCounter() {
-        return ++orderCounter;
+        return orderCounter.incrementAndGet();
+    }
+
+    /**
+     * Assigns dependency orders to the grains the same way sequential parsing does:
+     * each grain follows the grains it refers to, in order of the references.
+     */
+    private void reorderGrains() {
+        Grain sysGrain = grains.get(getSysSchemaName());
+        orderCounter.set(sysGrain.getDependencyOrder());
+        Set<Grain> ordered = new HashSet<>();
+        ordered.add(sysGrain);
+        for (String grainName : grainNameToGrainParts.keySet()) {
+            reorderGrain(grains.get(grainName), ordered);
+        }
+    }
+
+    private void reorderGrain(Grain g, Set<Grain> ordered) {
+        if (ordered.add(g)) {
+            for (Grain dependency : g.getDependencies()) {
+                reorderGrain(dependency, ordered);
+            }
+            g.setDependencyOrder(nextOrderCounter());
+        }
     }
 
     /**
@@ -343,6 +409,7 @@ public abstract class AbstractScore {
      */
     public static final class ScoreBuilder<T extends AbstractScore> {
         private ScoreDiscovery scoreDiscovery;
+        private int parallelism = 1;
         private final Class<T> scoreClass;
 
         public ScoreBuilder(Class<T> scoreClass) {
@@ -373,15 +440,56 @@ public abstract class AbstractScore {
             return this;
         }
 
+        /**
+         * Sets maximum number of grains parsed concurrently (1 by default, i.e. grains
+         * are parsed one after another).
+         *
+         * @param parallelism maximum number of grains parsed concurrently
+         */
+        @SuppressWarnings("HiddenField")
+        public ScoreBuilder<T> parallelism(int parallelism) {
+            if (parallelism < 1) {
+                throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+            }
+            this.parallelism = parallelism;
+            return this;
+        }
+
         /**
          * Builds the score.
+         * <p>
+         * The score is read from its precompiled snapshot (see {@link ScoreSnapshot}) if the score discovery
+         * provides one and none of the grain sources has changed since the snapshot was made.
+         * <p>
+         * If concurrent parsing of the score fails, the score is parsed sequentially anew,
+         * so that the same errors are reported regardless of the parallelism.
          *
          * @throws ParseException when score parsing fails
          */
         public T build() throws ParseException {
             try {
+                Set<Resource> grainResources = this.scoreDiscovery.discoverScore();
+
+                Resource snapshot = this.scoreDiscovery.discoverScoreSnapshot();
+                if (snapshot != null) {
+                    T t = ScoreSnapshot.read(scoreClass, snapshot, grainResources);
+                    if (t != null) {
+                        return t;
+                    }
+                }
+
+                if (parallelism > 1) {
+                    try {
+                        T t = scoreClass.getDeclaredConstructor().newInstance();
+                        t.init(grainResources, parallelism);
+                        return t;
+                    } catch (ParseException | RuntimeException e) {
+                        // Reported by sequential parsing below
+                    }
+                }
+
                 T t = scoreClass.getDeclaredConstructor().newInstance();
-                t.init(this.scoreDiscovery);
+                t.init(grainResources, 1);
 
                 return t;
 
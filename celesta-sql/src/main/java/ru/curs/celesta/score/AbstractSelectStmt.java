@@ -1,6 +1,7 @@
 package ru.curs.celesta.score;
 
 import java.io.PrintWriter;
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -11,7 +12,9 @@ import java.util.stream.Collectors;
 /**
  * A segment of a UNION chain in a SQL UNION ALL query.
  */
-public abstract class AbstractSelectStmt {
+public abstract class AbstractSelectStmt implements Serializable {
+    private static final long serialVersionUID = 1L;
+
     final AbstractView view;
 
     final Map<String, Expr> columns = new LinkedHashMap<>();
@@ -22,6 +22,8 @@ public abstract class AbstractView extends DataGrainElement {
     static final Map<Class<? extends Expr>, Function<Expr, Column<?>>> EXPR_CLASSES_AND_COLUMN_EXTRACTORS =
             new HashMap<>();
 
+    private static final long serialVersionUID = 1L;
+
     static {
         EXPR_CLASSES_AND_COLUMN_EXTRACTORS.put(Count.class, (Expr frExpr) -> null);
 
@@ -20,7 +20,11 @@ import java.util.Set;
  */
 public abstract class BasicTable extends DataGrainElement implements TableElement {
 
+    private static final long serialVersionUID = 1L;
+
     final NamedElementHolder<Column<?>> pk = new NamedElementHolder<>() {
+        private static final long serialVersionUID = 1L;
+
         @Override
         protected String getErrorMsg(String name) {
             return String.format("Column '%s' defined more than once for primary key in table '%s'.", name, getName());
@@ -29,6 +33,8 @@ public abstract class BasicTable extends DataGrainElement implements TableElemen
     };
 
     private final NamedElementHolder<Column<?>> columns = new NamedElementHolder<>() {
+        private static final long serialVersionUID = 1L;
+
         @Override
         protected String getErrorMsg(String name) {
             return String.format("Column '%s' defined more than once in table '%s'.", name, getName());
@@ -11,6 +11,9 @@ public final class BinaryColumn extends Column<String> {
      * Celesta type of the column data.
      */
     public static final String CELESTA_TYPE = "BLOB";
+
+    private static final long serialVersionUID = 1L;
+
     private String defaultvalue;
 
     public BinaryColumn(TableElement table, String name) throws ParseException {
@@ -19,6 +19,8 @@ public final class BinaryLogicalOp extends LogicValuedExpr {
      */
     static final String[] OPS = {" AND ", " OR "};
 
+    private static final long serialVersionUID = 1L;
+
     private final int operator;
     private final List<Expr> operands;
 
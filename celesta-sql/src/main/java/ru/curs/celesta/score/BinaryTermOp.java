@@ -32,6 +32,8 @@ public final class BinaryTermOp extends Expr {
      */
     static final String[] OPS = {" + ", " - ", " * ", " / ", " || "};
 
+    private static final long serialVersionUID = 1L;
+
     private ViewColumnMeta<?> meta;
 
     private final int operator;
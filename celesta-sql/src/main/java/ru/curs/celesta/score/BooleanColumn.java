@@ -8,6 +8,9 @@ public final class BooleanColumn extends Column<Boolean> {
      * Celesta type of the column data.
      */
     public static final String CELESTA_TYPE = "BIT";
+
+    private static final long serialVersionUID = 1L;
+
     private Boolean defaultvalue;
 
     public BooleanColumn(TableElement table, String name) throws ParseException {
@@ -164,6 +164,10 @@ public final class CelestaSerializer {
             writer.write("CYCLE ");
         }
 
+        if (s.getCacheSize() > 1) {
+            writer.printf("CACHE %d ", s.getCacheSize());
+        }
+
         writer.println(";");
         writer.println();
     }
@@ -513,6 +517,9 @@ public final class CelestaSerializer {
         SQLGenerator gen = new MaterializedViewCelestaSQLGen(mv);
         writer.println(gen.preamble(mv));
         mv.selectScript(writer, gen);
+        if (mv.getRefreshMode() != MaterializedView.RefreshMode.IMMEDIATE) {
+            writer.write(" WITH " + mv.getRefreshMode().name() + " REFRESH");
+        }
         writer.println(";");
         writer.println();
     }
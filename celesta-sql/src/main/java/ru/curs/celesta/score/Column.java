@@ -13,6 +13,8 @@ import java.util.List;
  */
 public abstract class Column<V> extends NamedElement implements ColumnMeta<V> {
 
+    private static final long serialVersionUID = 1L;
+
     private final TableElement parentTable;
     private boolean nullable = true;
 
@@ -0,0 +1,238 @@
+package ru.curs.celesta.score;
+
+import ru.curs.celesta.CelestaException;
+import ru.curs.celesta.score.io.Resource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Concurrent parser of score grains.
+ * <p>
+ * Grain sources are read in parallel first. Then each grain is parsed in its own fork-join task.
+ * A grain referred to by the grain being parsed is parsed in the same task unless another task
+ * has already started to parse it, in which case the task waits for that grain to be parsed
+ * and fails with the error of the referred grain if its parsing fails.
+ * Waiting that would close a cycle of grain references isn't performed: the referred grain
+ * remains incomplete, so the reference fails the same way it does on sequential parsing.
+ * <p>
+ * Tasks wait on futures of the grains rather than on monitors, so that no carrier thread
+ * is pinned while waiting.
+ */
+final class ConcurrentGrainParser implements AutoCloseable {
+
+    private final AbstractScore score;
+    private final ForkJoinPool pool;
+
+    private final Map<Resource, byte[]> sources = new ConcurrentHashMap<>();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    // Guarded by lock
+    private final Map<Grain, Thread> owners = new HashMap<>();
+    private final Map<Thread, Grain> awaitedGrains = new HashMap<>();
+    private final Map<Grain, CompletableFuture<Void>> results = new HashMap<>();
+
+    ConcurrentGrainParser(AbstractScore score, int parallelism) {
+        this.score = score;
+        this.pool = new ForkJoinPool(parallelism);
+    }
+
+    /**
+     * Reads contents of the grain sources in parallel.
+     * <p>
+     * Sources that can't be read are skipped, so that the error is reported on their parsing.
+     *
+     * @param resources  grain sources
+     */
+    void readSources(Set<Resource> resources) {
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(resources.size());
+        for (Resource r : resources) {
+            tasks.add(pool.submit(() -> {
+                try (InputStream is = r.getInputStream()) {
+                    sources.put(r, is.readAllBytes());
+                } catch (IOException e) {
+                    // Reported on parsing
+                }
+            }));
+        }
+        tasks.forEach(ForkJoinTask::join);
+    }
+
+    /**
+     * Opens the grain source, using its content read beforehand if available.
+     *
+     * @param r  grain source
+     * @throws IOException  when the source can't be opened
+     */
+    InputStream openSource(Resource r) throws IOException {
+        byte[] content = sources.get(r);
+        return content == null ? r.getInputStream() : new ByteArrayInputStream(content);
+    }
+
+    /**
+     * Parses the grains concurrently and waits for all of them to be parsed.
+     *
+     * @param grainNames  names of the grains
+     * @throws ParseException  the error of the first failed grain in the passed in order
+     */
+    void parseGrains(Collection<String> grainNames) throws ParseException {
+        // Errors are returned by the tasks as is, since the fork-join pool rethrows their copies
+        List<Future<Throwable>> tasks = new ArrayList<>(grainNames.size());
+        for (String grainName : grainNames) {
+            tasks.add(pool.submit(() -> {
+                try {
+                    parseGrain(score.getGrain(grainName), false);
+                    return null;
+                } catch (ParseException | RuntimeException | Error e) {
+                    return e;
+                }
+            }));
+        }
+
+        Throwable error = null;
+        for (Future<Throwable> task : tasks) {
+            try {
+                Throwable taskError = task.get();
+                if (error == null) {
+                    error = taskError;
+                }
+            } catch (ExecutionException e) {
+                if (error == null) {
+                    error = e.getCause();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CelestaException("Score parsing was interrupted.");
+            }
+        }
+
+        if (error != null) {
+            throwError(error);
+        }
+    }
+
+    /**
+     * Parses the grain unless it is parsed or being parsed by another task.
+     *
+     * @param grain  grain to parse
+     * @param asDependency  whether the grain is referred to by the grain being parsed
+     *                      and thus has to be waited for if being parsed by another task
+     * @throws ParseException  when the grain parsing fails
+     */
+    void parseGrain(Grain grain, boolean asDependency) throws ParseException {
+        CompletableFuture<Void> result = claim(grain, asDependency);
+        if (result == null) {
+            return;
+        }
+        try {
+            score.parseGrain(grain.getName());
+        } catch (ParseException | RuntimeException | Error e) {
+            complete(grain, result, e);
+            throw e;
+        }
+        complete(grain, result, null);
+    }
+
+    /**
+     * Claims the grain for parsing by the current task or waits for the grain to be parsed
+     * by another task.
+     *
+     * @return future of the grain parsing result if the grain is claimed, {@code null} otherwise
+     */
+    private CompletableFuture<Void> claim(Grain grain, boolean asDependency) throws ParseException {
+        Thread current = Thread.currentThread();
+        CompletableFuture<Void> result;
+        lock.lock();
+        try {
+            result = results.get(grain);
+            if (result == null) {
+                result = new CompletableFuture<>();
+                results.put(grain, result);
+                owners.put(grain, current);
+                return result;
+            }
+            Thread owner = owners.get(grain);
+            if (!asDependency || owner != null && closesCycle(owner, current)) {
+                return null;
+            }
+            awaitedGrains.put(current, grain);
+        } finally {
+            lock.unlock();
+        }
+
+        try {
+            result.get();
+        } catch (ExecutionException e) {
+            throwError(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CelestaException("Score parsing was interrupted.");
+        } finally {
+            lock.lock();
+            try {
+                awaitedGrains.remove(current);
+            } finally {
+                lock.unlock();
+            }
+        }
+        return null;
+    }
+
+    private void complete(Grain grain, CompletableFuture<Void> result, Throwable error) {
+        lock.lock();
+        try {
+            owners.remove(grain);
+        } finally {
+            lock.unlock();
+        }
+        if (error == null) {
+            result.complete(null);
+        } else {
+            result.completeExceptionally(error);
+        }
+    }
+
+    private boolean closesCycle(Thread owner, Thread current) {
+        Thread t = owner;
+        while (t != current) {
+            Grain awaited = awaitedGrains.get(t);
+            t = awaited == null ? null : owners.get(awaited);
+            if (t == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void throwError(Throwable error) throws ParseException {
+        if (error instanceof ParseException) {
+            throw (ParseException) error;
+        } else if (error instanceof RuntimeException) {
+            throw (RuntimeException) error;
+        } else if (error instanceof Error) {
+            throw (Error) error;
+        } else {
+            throw new CelestaException(error);
+        }
+    }
+
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+}
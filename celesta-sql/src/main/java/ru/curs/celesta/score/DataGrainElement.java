@@ -12,6 +12,8 @@ package ru.curs.celesta.score;
  * @since 2017-08-09
  */
 public abstract class DataGrainElement extends GrainElement implements HasColumns {
+  private static final long serialVersionUID = 1L;
+
   public DataGrainElement(GrainPart gp, String name) throws ParseException {
     super(gp, name);
   }
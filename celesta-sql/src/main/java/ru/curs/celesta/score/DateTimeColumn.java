@@ -17,6 +17,8 @@ public final class DateTimeColumn extends Column<Date> {
      */
     public static final String CELESTA_TYPE = "DATETIME";
 
+    private static final long serialVersionUID = 1L;
+
     private static final Pattern P = Pattern
             .compile("'(\\d\\d\\d\\d)([01]\\d)([0123]\\d)'");
 
@@ -20,6 +20,8 @@ public final class DecimalColumn extends Column<BigDecimal> {
      */
     public static final String CELESTA_TYPE = "DECIMAL";
 
+    private static final long serialVersionUID = 1L;
+
     private int precision;
     private int scale;
 
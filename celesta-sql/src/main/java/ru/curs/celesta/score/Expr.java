@@ -2,6 +2,7 @@ package ru.curs.celesta.score;
 
 import ru.curs.celesta.dbutils.QueryBuildingHelper;
 
+import java.io.Serializable;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -12,7 +13,9 @@ import java.util.stream.Stream;
 /**
  * Scalar SQL expression.
  */
-public abstract class Expr {
+public abstract class Expr implements Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     final void assertType(ViewColumnType t) throws ParseException {
         // INT and REAL are both numeric types, so they are comparable
@@ -116,6 +119,8 @@ public abstract class Expr {
  * Expression in parentheses.
  */
 final class ParenthesizedExpr extends Expr {
+    private static final long serialVersionUID = 1L;
+
     private final Expr parenthesized;
 
     ParenthesizedExpr(Expr parenthesized) {
@@ -148,6 +153,8 @@ final class ParenthesizedExpr extends Expr {
  * ... IN (..., ..., ...).
  */
 final class In extends LogicValuedExpr {
+    private static final long serialVersionUID = 1L;
+
     private final Expr left;
     private final List<Expr> operands;
 
@@ -196,6 +203,8 @@ final class In extends LogicValuedExpr {
  * BETWEEN.
  */
 final class Between extends LogicValuedExpr {
+    private static final long serialVersionUID = 1L;
+
     private final Expr left;
     private final Expr right1;
     private final Expr right2;
@@ -252,6 +261,8 @@ final class Between extends LogicValuedExpr {
  * IS NULL.
  */
 final class IsNull extends LogicValuedExpr {
+    private static final long serialVersionUID = 1L;
+
     private final Expr expr;
 
     IsNull(Expr expr) throws ParseException {
@@ -287,6 +298,8 @@ final class IsNull extends LogicValuedExpr {
  * NOT.
  */
 final class NotExpr extends LogicValuedExpr {
+    private static final long serialVersionUID = 1L;
+
     private final Expr expr;
 
     NotExpr(Expr expr) {
@@ -319,6 +332,8 @@ final class NotExpr extends LogicValuedExpr {
  * Unary minus.
  */
 final class UnaryMinus extends Expr {
+    private static final long serialVersionUID = 1L;
+
     private final Expr arg;
 
     UnaryMinus(Expr arg) {
@@ -346,6 +361,8 @@ final class UnaryMinus extends Expr {
  * UPPER(..) operation.
  */
 final class Upper extends Expr {
+    private static final long serialVersionUID = 1L;
+
     private final Expr arg;
 
     Upper(Expr arg) {
@@ -372,6 +389,8 @@ final class Upper extends Expr {
  * LOWER(..) operation.
  */
 final class Lower extends Expr {
+    private static final long serialVersionUID = 1L;
+
     private final Expr arg;
 
     Lower(Expr arg) {
@@ -398,6 +417,8 @@ final class Lower extends Expr {
  * Base class for literal expressions.
  */
 abstract class Literal extends Expr {
+    private static final long serialVersionUID = 1L;
+
     private final ViewColumnType type;
     private ViewColumnMeta<?> meta;
 
@@ -419,6 +440,8 @@ abstract class Literal extends Expr {
  * Numeric numeral with a floating point.
  */
 final class RealLiteral extends Literal {
+    private static final long serialVersionUID = 1L;
+
     private final String lexValue;
 
     RealLiteral(String lexValue) {
@@ -445,6 +468,8 @@ final class RealLiteral extends Literal {
  * Numeric numeral.
  */
 final class IntegerLiteral extends Literal {
+    private static final long serialVersionUID = 1L;
+
     private final String lexValue;
 
     IntegerLiteral(String lexValue) {
@@ -472,6 +497,8 @@ final class IntegerLiteral extends Literal {
  */
 final class BooleanLiteral extends Literal {
 
+    private static final long serialVersionUID = 1L;
+
     private final boolean val;
 
     BooleanLiteral(boolean val) {
@@ -494,6 +521,8 @@ final class BooleanLiteral extends Literal {
  * Text literal.
  */
 final class TextLiteral extends Literal {
+    private static final long serialVersionUID = 1L;
+
     private final String lexValue;
 
     TextLiteral(String lexValue) {
@@ -518,6 +547,8 @@ final class TextLiteral extends Literal {
 }
 
 final class GetDate extends Expr {
+    private static final long serialVersionUID = 1L;
+
     @Override
     public ViewColumnMeta<?> getMeta() {
         return new ViewColumnMeta<>(ViewColumnType.DATE);
@@ -532,5 +563,7 @@ final class GetDate extends Expr {
 
 abstract class Aggregate extends Expr {
 
+    private static final long serialVersionUID = 1L;
+
 }
 
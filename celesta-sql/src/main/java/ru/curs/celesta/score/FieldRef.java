@@ -5,6 +5,8 @@ package ru.curs.celesta.score;
  * Reference to a table column.
  */
 public final class FieldRef extends Expr {
+    private static final long serialVersionUID = 1L;
+
     private String tableNameOrAlias;
     private String columnName;
     private Column<?> column = null;
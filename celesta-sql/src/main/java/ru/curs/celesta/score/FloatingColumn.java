@@ -9,6 +9,8 @@ public final class FloatingColumn extends Column<Double> {
      */
     public static final String CELESTA_TYPE = "REAL";
 
+    private static final long serialVersionUID = 1L;
+
     private Double defaultValue;
 
     public FloatingColumn(TableElement table, String name) throws ParseException {
@@ -3,6 +3,7 @@ package ru.curs.celesta.score;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.Serializable;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
@@ -11,7 +12,9 @@ import java.util.Map;
 /**
  * Foreign key class.
  */
-public final class ForeignKey {
+public final class ForeignKey implements Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ForeignKey.class);
 
@@ -22,6 +25,8 @@ public final class ForeignKey {
     private String constraintName;
 
     private final NamedElementHolder<Column<?>> columns = new NamedElementHolder<>() {
+        private static final long serialVersionUID = 1L;
+
         @Override
         protected String getErrorMsg(String name) {
             return String
@@ -178,10 +183,8 @@ public final class ForeignKey {
             AbstractScore score = parentTable.getGrain().getScore();
             gm = score.getGrain(grain);
 
-            if (gm.isModified()) {
-                //TODO:Костыль, используем как флаг того, что гранула начала парситься - must be removed
-                score.parseGrain(grain);
-            }
+            //TODO:Костыль, используем как флаг того, что гранула начала парситься - must be removed
+            score.parseDependency(gm);
 
             if (!gm.isParsingComplete()) {
                 throw new ParseException(
@@ -192,6 +195,7 @@ public final class ForeignKey {
                                 parentTable.getName(), grain, table,
                                 parentTable.getGrain().getName(), grain));
             }
+            parentTable.getGrain().addDependency(gm);
         }
 
         // Извлечение таблицы по имени.
@@ -3,6 +3,7 @@ package ru.curs.celesta.score;
 import ru.curs.celesta.DBType;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -14,6 +15,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -23,6 +25,8 @@ import java.util.stream.Collectors;
  */
 public final class Grain extends NamedElement {
 
+    private static final long serialVersionUID = 1L;
+
     private static final Pattern NATIVE_SQL = Pattern.compile("--\\{\\{(.*)--}}", Pattern.DOTALL);
 
     private final AbstractScore score;
@@ -46,9 +50,11 @@ public final class Grain extends NamedElement {
     private Namespace namespace;
 
     private final Map<Class<? extends GrainElement>, NamedElementHolder<? extends GrainElement>> grainElements
-            = new HashMap<>();
+            = new ConcurrentHashMap<>();
 
     private final NamedElementHolder<Index> indices = new NamedElementHolder<>() {
+        private static final long serialVersionUID = 1L;
+
         @Override
         protected String getErrorMsg(String name) {
             return String.format("Index '%s' defined more than once in a grain.", name);
@@ -57,6 +63,8 @@ public final class Grain extends NamedElement {
 
     private final Set<String> constraintNames = new HashSet<>();
 
+    private final Set<Grain> dependencies = new LinkedHashSet<>();
+
     private final Map<DBType, List<NativeSqlElement>> beforeSql = new HashMap<>();
     private final Map<DBType, List<NativeSqlElement>> afterSql = new HashMap<>();
 
@@ -72,6 +80,8 @@ public final class Grain extends NamedElement {
     @SuppressWarnings("unchecked")
     private <T extends GrainElement> NamedElementHolder<T> getElementsHolder(Class<T> cls) {
         return (NamedElementHolder<T>) grainElements.computeIfAbsent(cls, c -> new NamedElementHolder<T>() {
+            private static final long serialVersionUID = 1L;
+
             @Override
             protected String getErrorMsg(String name) {
                 return String.format("%s '%s' defined more than once in a grain.", c.getSimpleName(), name);
@@ -377,6 +387,25 @@ public final class Grain extends NamedElement {
         return dependencyOrder;
     }
 
+    void setDependencyOrder(int dependencyOrder) {
+        this.dependencyOrder = dependencyOrder;
+    }
+
+    /**
+     * Returns grains that objects of this grain refer to by foreign keys or in views.
+     * The grain has to be updated in the database after the grains it depends on.
+     *
+     */
+    public Set<Grain> getDependencies() {
+        return Collections.unmodifiableSet(dependencies);
+    }
+
+    void addDependency(Grain g) {
+        if (g != this) {
+            dependencies.add(g);
+        }
+    }
+
     /**
      * Indicates that the grain parsing is completed. A system method.
      *
@@ -397,6 +426,25 @@ public final class Grain extends NamedElement {
             }
         }
 
+        for (MaterializedView mv : getElements(MaterializedView.class).values()) {
+            if (mv.getRefreshMode() != MaterializedView.RefreshMode.DEFERRED) {
+                continue;
+            }
+            String changeLogName = mv.getChangeLogName();
+            for (Class<? extends GrainElement> cls
+                    : Arrays.asList(BasicTable.class, View.class, MaterializedView.class, ParameterizedView.class)) {
+                if (getElementsHolder(cls).get(changeLogName) != null) {
+                    throw new ParseException(
+                            String.format(
+                                    "Identifier %s can't be used for the naming of %s as it is reserved by Celesta "
+                                            + "for the change log of materialized view %s.",
+                                    changeLogName, cls.getSimpleName(), mv.getName()
+                            )
+                    );
+                }
+            }
+        }
+
         parsingComplete = true;
         modified = false;
         dependencyOrder = score.nextOrderCounter();
@@ -5,6 +5,8 @@ package ru.curs.celesta.score;
  */
 public abstract class GrainElement extends NamedElement {
 
+    private static final long serialVersionUID = 1L;
+
     /**
      * Grain that current element belongs to.
      */
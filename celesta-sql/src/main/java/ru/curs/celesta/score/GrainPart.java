@@ -2,12 +2,16 @@ package ru.curs.celesta.score;
 
 import ru.curs.celesta.score.io.Resource;
 
-public final class GrainPart {
+import java.io.Serializable;
+
+public final class GrainPart implements Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     private final Grain grain;
     private final boolean isDefinition;
 
-    private final Resource source;
+    private transient Resource source;
 
     public GrainPart(Grain grain, boolean isDefinition, Resource source) {
         this.grain = grain;
@@ -55,6 +59,16 @@ public final class GrainPart {
         return source;
     }
 
+    /**
+     * Binds the grain part to the resource it was loaded from, which isn't stored
+     * in a score snapshot.
+     *
+     * @param source  grain part resource
+     */
+    void setSource(Resource source) {
+        this.source = source;
+    }
+
     public boolean isDefinition() {
         return isDefinition;
     }
@@ -13,11 +13,15 @@ import java.util.Map;
  */
 public class Index extends GrainElement implements HasColumns {
 
+    private static final long serialVersionUID = 1L;
+
     private static final Logger LOGGER = LoggerFactory.getLogger(Index.class);
 
     private static final String INDEX_CREATION_ERROR = "Error while creating index '%s': column '%s' in table '%s' is ";
     private final BasicTable table;
     private final NamedElementHolder<Column<?>> columns = new NamedElementHolder<>() {
+        private static final long serialVersionUID = 1L;
+
         @Override
         protected String getErrorMsg(String name) {
             return String.format("Column '%s' is defined more than once in index '%s'", name, getName());
@@ -13,6 +13,9 @@ public final class IntegerColumn extends Column<Integer> {
      * Celesta type of the column data.
      */
     public static final String CELESTA_TYPE = "INT";
+
+    private static final long serialVersionUID = 1L;
+
     private Integer defaultvalue;
     private SequenceElement sequence;
 
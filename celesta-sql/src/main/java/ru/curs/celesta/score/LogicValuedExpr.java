@@ -6,6 +6,8 @@ import java.util.List;
  * Expression with logical value. Celestadoc and nullable is not actual.
  */
 public abstract class LogicValuedExpr extends Expr {
+    private static final long serialVersionUID = 1L;
+
     private static final ViewColumnMeta<?> META;
 
     static {
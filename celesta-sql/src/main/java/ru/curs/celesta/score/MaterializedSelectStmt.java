@@ -3,6 +3,8 @@ package ru.curs.celesta.score;
 import java.util.Map;
 
 final class MaterializedSelectStmt extends AbstractSelectStmt {
+    private static final long serialVersionUID = 1L;
+
     final MaterializedView view;
 
     MaterializedSelectStmt(MaterializedView view) {
@@ -29,11 +29,42 @@ public final class MaterializedView extends AbstractView implements TableElement
      * Checksum comment template.
      */
     public static final String CHECKSUM_COMMENT_TEMPLATE = "/*CHECKSUM%sCHECKSUM*/";
+    /**
+     * Comment marking the insert trigger of a materialized view with deferred refresh.
+     * It tells that the change log exists in the database.
+     */
+    public static final String DEFERRED_REFRESH_COMMENT = "/*DEFERRED_REFRESH*/";
+
+    /**
+     * Way of maintenance of materialized view data on modifications of the referenced table.
+     */
+    public enum RefreshMode {
+        /**
+         * Data is maintained by row level triggers that lock the materialized view exclusively.
+         */
+        IMMEDIATE,
+        /**
+         * Data is maintained by statement level triggers that apply the aggregated changes of the statement
+         * without locking the materialized view. Falls back to {@link #IMMEDIATE} for databases
+         * that do not support statement level triggers with transition tables (only PostgreSQL supports them).
+         */
+        CONCURRENT,
+        /**
+         * Changes of the referenced table are recorded by triggers to the change log table
+         * (see {@link MaterializedView#getChangeLogName()}) and applied to the materialized view
+         * in bulk on refresh. Data of the materialized view is stale until it is refreshed.
+         */
+        DEFERRED
+    }
 
     static final Map<Class<? extends Column<?>>, MatColFabricFunction>
             COL_CLASSES_AND_FABRIC_FUNCS = new HashMap<>();
 
+    private static final long serialVersionUID = 1L;
+
     final NamedElementHolder<Column<?>> pk = new NamedElementHolder<>() {
+        private static final long serialVersionUID = 1L;
+
         @Override
         protected String getErrorMsg(String name) {
             return String.format("Column '%s' defined more than once for primary key in table '%s'.", name, getName());
@@ -42,12 +73,16 @@ public final class MaterializedView extends AbstractView implements TableElement
 
     private final IntegerColumn surrogateCount;
     private final NamedElementHolder<Column<?>> realColumns = new NamedElementHolder<>() {
+        private static final long serialVersionUID = 1L;
+
         @Override
         protected String getErrorMsg(String name) {
             return String.format("Column '%s' defined more than once in table '%s'.", name, getName());
         }
     };
 
+    private RefreshMode refreshMode = RefreshMode.IMMEDIATE;
+
     public MaterializedView(GrainPart grainPart, String name) throws ParseException {
         super(grainPart, name);
         getGrain().addElement(this);
@@ -59,6 +94,40 @@ public final class MaterializedView extends AbstractView implements TableElement
         return surrogateCount;
     }
 
+    /**
+     * Returns the way of maintenance of the materialized view data.
+     *
+     * @return
+     */
+    public RefreshMode getRefreshMode() {
+        return refreshMode;
+    }
+
+    /**
+     * Sets the way of maintenance of the materialized view data.
+     *
+     * @param refreshMode  refresh mode
+     * @throws ParseException  if concurrent or deferred refresh is set for a materialized view without GROUP BY
+     */
+    public void setRefreshMode(RefreshMode refreshMode) throws ParseException {
+        if (refreshMode != RefreshMode.IMMEDIATE && !hasPrimeKey()) {
+            throw new ParseException(String.format(
+                    "%s '%s.%s' must have GROUP BY columns to use %s refresh.",
+                    viewType(), getGrain().getName(), getName(), refreshMode.name().toLowerCase()));
+        }
+        getGrain().modify();
+        this.refreshMode = refreshMode;
+    }
+
+    /**
+     * Returns name of the change log table of the materialized view with deferred refresh.
+     *
+     * @return
+     */
+    public String getChangeLogName() {
+        return limitName(getName(), "_log");
+    }
+
     @FunctionalInterface
     interface MatColFabricFunction {
         Column<?> apply(MaterializedView mView, Column<?> colRef, String alias) throws ParseException;
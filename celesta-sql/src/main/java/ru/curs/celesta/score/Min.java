@@ -4,6 +4,8 @@ package ru.curs.celesta.score;
  * Created by ioann on 10.07.2017.
  */
 public final class Min  extends Aggregate {
+  private static final long serialVersionUID = 1L;
+
   Expr term;
 
   Min(Expr term) {
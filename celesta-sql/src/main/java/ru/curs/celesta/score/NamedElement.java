@@ -2,6 +2,7 @@ package ru.curs.celesta.score;
 
 import ru.curs.celesta.score.validator.IdentifierParser;
 
+import java.io.Serializable;
 import java.util.Objects;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -10,13 +11,15 @@ import java.util.regex.Pattern;
  * A named element of metamodel (e.g. table or column) that must have
  * a unique identifier name.
  */
-public abstract class NamedElement {
+public abstract class NamedElement implements Serializable {
 
     /**
      * The maximal length of an identifier of Celesta.
      */
     public static final int MAX_IDENTIFIER_LENGTH = 30;
 
+    private static final long serialVersionUID = 1L;
+
     private static final Pattern COMMENT = Pattern.compile("/\\*\\*(.*)\\*/", Pattern.DOTALL);
 
     private final String name;
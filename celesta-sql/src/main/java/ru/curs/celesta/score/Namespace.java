@@ -1,5 +1,7 @@
 package ru.curs.celesta.score;
 
+import java.io.Serializable;
+
 /**
  * Grain name space.
  * <p>
@@ -14,13 +16,15 @@ package ru.curs.celesta.score;
  * @author Pavel Perminov (packpaul@mail.ru)
  * @since 2019-03-09
  */
-public final class Namespace {
+public final class Namespace implements Serializable {
 
     /**
      * Default namespace instance.
      */
     public static final Namespace DEFAULT = new Namespace();
 
+    private static final long serialVersionUID = 1L;
+
     private final String value;
 
     private Namespace() {
@@ -43,4 +47,8 @@ public final class Namespace {
         return value;
     }
 
+    private Object readResolve() {
+        return value.isEmpty() ? DEFAULT : this;
+    }
+
 }
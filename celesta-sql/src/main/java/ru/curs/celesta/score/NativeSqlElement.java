@@ -1,9 +1,13 @@
 package ru.curs.celesta.score;
 
+import java.io.Serializable;
+
 /**
  * Native SQL holder for a grain part.
  */
-public final class NativeSqlElement {
+public final class NativeSqlElement implements Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     private final GrainPart grainPart;
     private final String sql;
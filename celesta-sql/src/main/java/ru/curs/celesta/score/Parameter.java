@@ -13,6 +13,8 @@ import java.sql.Timestamp;
  */
 public final class Parameter extends NamedElement {
 
+  private static final long serialVersionUID = 1L;
+
   private final ViewColumnType type;
 
   public Parameter(String name, ViewColumnType type) throws ParseException {
@@ -2,6 +2,8 @@ package ru.curs.celesta.score;
 
 public final class ParameterRef extends Expr {
 
+    private static final long serialVersionUID = 1L;
+
     private Parameter parameter;
     private final String name;
     private ViewColumnMeta<?> meta;
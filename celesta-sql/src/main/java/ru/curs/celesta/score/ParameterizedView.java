@@ -17,9 +17,11 @@ import java.util.function.Supplier;
  */
 public final class ParameterizedView extends View {
 
+    private static final long serialVersionUID = 1L;
+
     final Map<String, Parameter> parameters = new LinkedHashMap<>();
     final List<String> parameterRefsWithOrder = new ArrayList<>();
-    private final List<Supplier<Set<String>>> unusedParametersSuppliers = new ArrayList<>();
+    private final transient List<Supplier<Set<String>>> unusedParametersSuppliers = new ArrayList<>();
 
     public ParameterizedView(GrainPart grainPart, String name) throws ParseException {
         super(grainPart, name);
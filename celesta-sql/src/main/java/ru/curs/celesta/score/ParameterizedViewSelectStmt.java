@@ -7,6 +7,8 @@ import java.util.Set;
 
 public final class ParameterizedViewSelectStmt extends ViewSelectStmt {
 
+    private static final long serialVersionUID = 1L;
+
     final ParameterizedView view;
     private Set<String> unusedParameters;
 
@@ -8,6 +8,8 @@ package ru.curs.celesta.score;
  */
 public final class ReadOnlyTable extends BasicTable {
 
+    private static final long serialVersionUID = 1L;
+
     public ReadOnlyTable(GrainPart gp, String name) throws ParseException {
         super(gp, name, true);
     }
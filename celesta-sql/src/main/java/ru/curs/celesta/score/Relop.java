@@ -39,6 +39,8 @@ public final class Relop extends LogicValuedExpr {
 
     static final String[] OPS = {" > ", " < ", " >= ", " <= ", " <> ", " = ", " LIKE "};
 
+    private static final long serialVersionUID = 1L;
+
     private final Expr left;
     private final Expr right;
     private final int relop;
@@ -0,0 +1,332 @@
+package ru.curs.celesta.score;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.curs.celesta.score.io.Resource;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.ObjectStreamField;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+
+/**
+ * Precompiled snapshot of a score.
+ * <p>
+ * The snapshot holds the parsed score model (grains with their tables, columns, foreign keys,
+ * views with parsed expressions etc.) along with checksums of the grain sources it was parsed from.
+ * It is generated at build time next to the score index file and lets the score be built without
+ * CelestaSQL parsing as long as none of the grain sources has changed.
+ */
+public final class ScoreSnapshot {
+
+    /**
+     * Name of the snapshot file in score resources.
+     */
+    public static final String SNAPSHOT_FILE_NAME = "score.snapshot";
+
+    /**
+     * Version of the snapshot format.
+     * <p>
+     * Serialized score classes have fixed serial version UIDs, so changes of these classes are
+     * tracked separately: the snapshot header lists every score class of the snapshot along with
+     * the fingerprint of its serializable fields, and a snapshot made by a build with different
+     * score classes is not read.
+     */
+    static final int FORMAT_VERSION = 2;
+
+    private static final String SCORE_PACKAGE_PREFIX = "ru.curs.celesta.score.";
+    /**
+     * Fingerprint of a missing class, never equal to a CRC32 value.
+     */
+    private static final long NO_FINGERPRINT = -1;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ScoreSnapshot.class);
+
+    /**
+     * Classes that may be deserialized from a snapshot: score classes and the JDK types
+     * they are made of. Anything else in the snapshot is rejected.
+     */
+    private static final ObjectInputFilter SCORE_CLASSES_FILTER = ObjectInputFilter.Config.createFilter(
+            String.join(";",
+                    "ru.curs.celesta.score.**",
+                    "java.lang.Object",
+                    "java.lang.String",
+                    "java.lang.Enum",
+                    "java.lang.Number",
+                    "java.lang.Boolean",
+                    "java.lang.Integer",
+                    "java.lang.Long",
+                    "java.lang.Double",
+                    "java.math.BigInteger",
+                    "java.math.BigDecimal",
+                    "java.util.*",
+                    "java.util.concurrent.ConcurrentHashMap*",
+                    "java.util.concurrent.atomic.AtomicInteger",
+                    "java.util.concurrent.locks.ReentrantLock*",
+                    "java.util.concurrent.locks.AbstractQueuedSynchronizer",
+                    "java.util.concurrent.locks.AbstractOwnableSynchronizer",
+                    "!*"));
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private ScoreSnapshot() {
+        throw new AssertionError();
+    }
+
+    /**
+     * Writes snapshot of the score.
+     * <p>
+     * Grain part sources are stored by their paths relative to the snapshot location, the same
+     * way they are listed in the score index file.
+     *
+     * @param score  parsed score
+     * @param relativePath  function returning path of a grain part source relative to the snapshot
+     * @param out  output stream to write the snapshot to
+     * @throws IOException  when a grain part source can't be read or the snapshot can't be written
+     */
+    public static void write(AbstractScore score, Function<Resource, String> relativePath, OutputStream out)
+            throws IOException {
+        List<Grain> grains = new ArrayList<>();
+        for (Grain g : score.getGrains().values()) {
+            if (g.getGrainParts().stream().allMatch(gp -> gp.getSource() != null)) {
+                grains.add(g);
+            }
+        }
+        grains.sort(Comparator.comparing(NamedElement::getName));
+
+        Map<String, Long> scoreClasses = scoreClassFingerprints(score);
+
+        ObjectOutputStream oos = new ObjectOutputStream(new BufferedOutputStream(out));
+        oos.writeInt(FORMAT_VERSION);
+        oos.writeUTF(score.getClass().getName());
+        oos.writeInt(scoreClasses.size());
+        for (Map.Entry<String, Long> e : scoreClasses.entrySet()) {
+            oos.writeUTF(e.getKey());
+            oos.writeLong(e.getValue());
+        }
+        oos.writeInt(grains.size());
+        for (Grain g : grains) {
+            oos.writeUTF(g.getName());
+            oos.writeInt(g.getGrainParts().size());
+            for (GrainPart gp : g.getGrainParts()) {
+                SourceChecksum checksum = SourceChecksum.of(gp.getSource());
+                oos.writeUTF(relativePath.apply(gp.getSource()));
+                oos.writeUTF(gp.getNamespace().getValue());
+                oos.writeInt(checksum.crc32);
+                oos.writeInt(checksum.length);
+            }
+        }
+        oos.writeObject(score);
+        oos.flush();
+    }
+
+    /**
+     * Reads the score from the snapshot if the snapshot was made of exactly the passed in
+     * grain resources and none of them has changed since then.
+     *
+     * @param scoreClass  score class
+     * @param snapshot  snapshot resource
+     * @param grainResources  discovered grain resources of the score
+     * @return  the score or {@code null} if the snapshot is missing, outdated or can't be read.
+     */
+    static <T extends AbstractScore> T read(Class<T> scoreClass, Resource snapshot, Set<Resource> grainResources) {
+        InputStream is;
+        try {
+            is = snapshot.getInputStream();
+        } catch (FileNotFoundException e) {
+            return null;
+        } catch (IOException e) {
+            LOGGER.warn("Unable to open score snapshot {}: {}", snapshot, e.getMessage());
+            return null;
+        }
+
+        try (ObjectInputStream ois = new ObjectInputStream(new BufferedInputStream(is))) {
+            ois.setObjectInputFilter(SCORE_CLASSES_FILTER);
+            if (ois.readInt() != FORMAT_VERSION || !scoreClass.getName().equals(ois.readUTF())) {
+                LOGGER.info("Score snapshot {} has incompatible format, the score is parsed.", snapshot);
+                return null;
+            }
+
+            String changedClass = readChangedScoreClass(ois, scoreClass.getClassLoader());
+            if (changedClass != null) {
+                LOGGER.info("Score class {} has changed since score snapshot {} was made, the score is parsed.",
+                        changedClass, snapshot);
+                return null;
+            }
+
+            Set<Resource> snapshotResources = new HashSet<>();
+            List<String> grainNames = new ArrayList<>();
+            List<List<Resource>> grainPartSources = new ArrayList<>();
+            int grainCount = ois.readInt();
+            for (int i = 0; i < grainCount; i++) {
+                grainNames.add(ois.readUTF());
+                int partCount = ois.readInt();
+                List<Resource> sources = new ArrayList<>(partCount);
+                for (int j = 0; j < partCount; j++) {
+                    String path = ois.readUTF();
+                    String ns = ois.readUTF();
+                    Resource source = snapshot.createRelative(
+                            path, ns.isEmpty() ? Namespace.DEFAULT : new Namespace(ns));
+                    if (!SourceChecksum.of(source).matches(ois.readInt(), ois.readInt())) {
+                        LOGGER.info("Grain source {} has changed since score snapshot {} was made, "
+                                + "the score is parsed.", source, snapshot);
+                        return null;
+                    }
+                    sources.add(source);
+                    snapshotResources.add(source);
+                }
+                grainPartSources.add(sources);
+            }
+            if (!snapshotResources.equals(grainResources)) {
+                LOGGER.info("Score snapshot {} doesn't match discovered grains, the score is parsed.", snapshot);
+                return null;
+            }
+
+            T score = scoreClass.cast(ois.readObject());
+            for (int i = 0; i < grainNames.size(); i++) {
+                Iterator<Resource> sources = grainPartSources.get(i).iterator();
+                for (GrainPart gp : score.getGrains().get(grainNames.get(i)).getGrainParts()) {
+                    gp.setSource(sources.next());
+                }
+            }
+
+            Grain sysGrain = score.getGrains().get(score.getSysSchemaName());
+            try (InputStream sysIs = score.getSysSchemaInputStream()) {
+                if (!SourceChecksum.of(sysIs).matches(sysGrain.getChecksum(), sysGrain.getLength())) {
+                    LOGGER.info("System grain has changed since score snapshot {} was made, the score is parsed.",
+                            snapshot);
+                    return null;
+                }
+            }
+
+            return score;
+        } catch (IOException | ClassNotFoundException | RuntimeException e) {
+            LOGGER.warn("Unable to read score snapshot {}, the score is parsed: {}", snapshot, e.toString());
+            return null;
+        }
+    }
+
+    /**
+     * Collects fingerprints of the score classes the score is serialized with.
+     */
+    private static Map<String, Long> scoreClassFingerprints(AbstractScore score) throws IOException {
+        Map<String, Long> result = new TreeMap<>();
+        try (ObjectOutputStream oos = new ObjectOutputStream(OutputStream.nullOutputStream()) {
+            @Override
+            protected void annotateClass(Class<?> cl) {
+                if (cl.getName().startsWith(SCORE_PACKAGE_PREFIX)) {
+                    result.put(cl.getName(), fingerprint(cl));
+                }
+            }
+        }) {
+            oos.writeObject(score);
+        }
+        return result;
+    }
+
+    /**
+     * Reads score class fingerprints of the snapshot header and returns the name of the first class
+     * whose fingerprint differs from the one of the current build, or {@code null} if all classes match.
+     */
+    private static String readChangedScoreClass(ObjectInputStream ois, ClassLoader classLoader) throws IOException {
+        String changedClass = null;
+        int classCount = ois.readInt();
+        for (int i = 0; i < classCount; i++) {
+            String className = ois.readUTF();
+            if (ois.readLong() != fingerprint(className, classLoader) && changedClass == null) {
+                changedClass = className;
+            }
+        }
+        return changedClass;
+    }
+
+    /**
+     * Returns fingerprint of a score class of the current build, or {@link #NO_FINGERPRINT}
+     * if there is no such serializable class.
+     */
+    private static long fingerprint(String className, ClassLoader classLoader) {
+        if (!className.startsWith(SCORE_PACKAGE_PREFIX)) {
+            return NO_FINGERPRINT;
+        }
+        try {
+            return fingerprint(Class.forName(className, false, classLoader));
+        } catch (ClassNotFoundException e) {
+            return NO_FINGERPRINT;
+        }
+    }
+
+    /**
+     * Calculates CRC32 of the serial version UID and of names and types of serializable fields
+     * of the class, so that a changed class is detected in spite of its fixed serial version UID.
+     */
+    private static long fingerprint(Class<?> cl) {
+        ObjectStreamClass osc = ObjectStreamClass.lookup(cl);
+        if (osc == null) {
+            return NO_FINGERPRINT;
+        }
+        StringBuilder sb = new StringBuilder().append(osc.getSerialVersionUID());
+        for (ObjectStreamField f : osc.getFields()) {
+            sb.append(';').append(f.getName()).append(':').append(f.getTypeCode());
+            if (!f.isPrimitive()) {
+                sb.append(f.getTypeString());
+            }
+        }
+        CRC32 crc = new CRC32();
+        crc.update(sb.toString().getBytes(StandardCharsets.UTF_8));
+        return crc.getValue();
+    }
+
+    /**
+     * CRC32 checksum and length of a grain source, calculated the same way as for grains.
+     */
+    private static final class SourceChecksum {
+        private final int crc32;
+        private final int length;
+
+        private SourceChecksum(int crc32, int length) {
+            this.crc32 = crc32;
+            this.length = length;
+        }
+
+        static SourceChecksum of(Resource source) throws IOException {
+            try (InputStream is = source.getInputStream()) {
+                return of(is);
+            }
+        }
+
+        static SourceChecksum of(InputStream is) throws IOException {
+            CRC32 crc = new CRC32();
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int count = 0;
+            int n;
+            while ((n = is.read(buffer)) >= 0) {
+                crc.update(buffer, 0, n);
+                count += n;
+            }
+            return new SourceChecksum((int) crc.getValue(), count);
+        }
+
+        boolean matches(int otherCrc32, int otherLength) {
+            return crc32 == otherCrc32 && length == otherLength;
+        }
+    }
+
+}
@@ -9,9 +9,12 @@ import java.util.Objects;
  */
 public final class SequenceElement extends GrainElement {
 
+    private static final long serialVersionUID = 1L;
+
     private static final String DUPLICATE_ENTRANCE_TEMPLATE = "Duplicate entrance of %s was detected for sequence %s";
 
     private final Map<Argument, Object> arguments = new LinkedHashMap<>();
+    private Integer cacheSize;
 
     SequenceElement(GrainPart grainPart, String name) throws ParseException {
         super(grainPart, name);
@@ -105,6 +108,26 @@ public final class SequenceElement extends GrainElement {
         }
     }
 
+    /**
+     * Sets value for {@code CACHE} option of the sequence.
+     *
+     * @param cache  value of {@code CACHE} option
+     * @throws ParseException
+     */
+    void cache(Long cache) throws ParseException {
+        if (cache < 1 || cache > Integer.MAX_VALUE) {
+            throw new ParseException(
+                    String.format("Sequence %s has illegal value %d for CACHE expression.", getName(), cache)
+            );
+        }
+        if (cacheSize != null) {
+            throw new ParseException(
+                    String.format(DUPLICATE_ENTRANCE_TEMPLATE, "CACHE", getName())
+            );
+        }
+        cacheSize = cache.intValue();
+    }
+
     void finalizeParsing() throws ParseException {
         arguments.putIfAbsent(Argument.START_WITH, 1L);
         arguments.putIfAbsent(Argument.INCREMENT_BY, 1L);
@@ -218,6 +241,15 @@ public final class SequenceElement extends GrainElement {
         return (Boolean) arguments.get(Argument.CYCLE);
     }
 
+    /**
+     * Returns CACHE parameter for this SEQUENCE: the number of sequence values
+     * that are reserved in the DB at a time and then handed out by the application
+     * without DB round trips (1 if the values are not cached).
+     */
+    public int getCacheSize() {
+        return cacheSize == null ? 1 : cacheSize;
+    }
+
     /**
      * Sequence arguments.
      */
@@ -13,6 +13,8 @@ public final class StringColumn extends Column<String> {
      */
     public static final String TEXT = "TEXT";
 
+    private static final long serialVersionUID = 1L;
+
     private static final String INVALID_QUOTED_FORMAT = "Invalid quoted string format.";
 
     private String defaultvalue;
@@ -4,6 +4,8 @@ package ru.curs.celesta.score;
  * Created by ioann on 10.07.2017.
  */
 public final class Sum extends Aggregate {
+  private static final long serialVersionUID = 1L;
+
   final Expr term;
 
   Sum(Expr term) {
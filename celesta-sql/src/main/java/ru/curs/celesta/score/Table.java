@@ -5,6 +5,8 @@ package ru.curs.celesta.score;
  */
 public final class Table extends BasicTable implements VersionedElement {
 
+    private static final long serialVersionUID = 1L;
+
     private boolean versioned = true;
 
     private final IntegerColumn recVersion = new IntegerColumn(this);
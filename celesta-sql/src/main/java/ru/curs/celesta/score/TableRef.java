@@ -1,9 +1,13 @@
 package ru.curs.celesta.score;
 
+import java.io.Serializable;
+
 /**
  * Table reference in SQL query.
  */
-public class TableRef {
+public class TableRef implements Serializable {
+    private static final long serialVersionUID = 1L;
+
     /**
      * JOIN type. FULL JOIN isn't supported because of historical reasons,
      * maybe someday it will be added. CROSS JOIN isn't supported for
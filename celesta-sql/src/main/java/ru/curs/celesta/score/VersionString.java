@@ -1,5 +1,6 @@
 package ru.curs.celesta.score;
 
+import java.io.Serializable;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -10,7 +11,7 @@ import java.util.regex.Pattern;
 /**
  * Version string that has to consist of comma separated version tags.
  */
-public final class VersionString {
+public final class VersionString implements Serializable {
 
     /**
      * Default version string for newly created dynamic grains.
@@ -18,6 +19,8 @@ public final class VersionString {
      */
     public static final VersionString DEFAULT;
 
+    private static final long serialVersionUID = 1L;
+
     /**
      * The result of comparison of VersionStrings on which a partial order is
      * defined. (the use of standard interface Comparable is impossible, for it
@@ -12,6 +12,8 @@ import java.util.Map;
  */
 public class View extends AbstractView {
 
+    private static final long serialVersionUID = 1L;
+
     Map<String, ViewColumnMeta<?>> columnTypes = null;
 
 
@@ -1,5 +1,6 @@
 package ru.curs.celesta.score;
 
+import java.io.Serializable;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -8,7 +9,9 @@ import java.util.regex.Pattern;
  *
  * @param <V>  Java class of column value
  */
-public final class ViewColumnMeta<V> implements ColumnMeta<V> {
+public final class ViewColumnMeta<V> implements Serializable, ColumnMeta<V> {
+
+    private static final long serialVersionUID = 1L;
 
     private static final Pattern COMMENT = Pattern.compile("/\\*\\*(.*)\\*/", Pattern.DOTALL);
 
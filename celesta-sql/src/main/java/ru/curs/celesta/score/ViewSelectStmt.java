@@ -5,6 +5,8 @@ import java.util.ArrayList;
 import java.util.List;
 
 class ViewSelectStmt extends AbstractSelectStmt {
+    private static final long serialVersionUID = 1L;
+
     protected Expr whereCondition;
 
     ViewSelectStmt(AbstractView view) {
@@ -11,6 +11,8 @@ public final class ZonedDateTimeColumn extends Column<ZonedDateTime> {
      */
     public static final String CELESTA_TYPE = "DATETIME WITH TIME ZONE";
 
+    private static final long serialVersionUID = 1L;
+
 
     public ZonedDateTimeColumn(TableElement table, String name) throws ParseException {
         super(table, name);
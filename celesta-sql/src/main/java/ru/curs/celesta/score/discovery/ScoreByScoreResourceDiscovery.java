@@ -4,6 +4,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import ru.curs.celesta.CelestaException;
 import ru.curs.celesta.score.Namespace;
+import ru.curs.celesta.score.ScoreSnapshot;
 import ru.curs.celesta.score.io.Resource;
 import ru.curs.celesta.score.io.UrlResource;
 
@@ -31,20 +32,45 @@ public final class ScoreByScoreResourceDiscovery implements ScoreDiscovery {
 
     @Override
     public Set<Resource> discoverScore() {
-
-        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
         try {
-            Enumeration<URL> urls = (classLoader != null)
-                    ? classLoader.getResources(SCORE_FILES_LOCATION)
-                    : ClassLoader.getSystemResources(SCORE_FILES_LOCATION);
-
-            return discoverScore(urls);
+            return discoverScore(getScoreFilesUrls());
+        } catch (IOException ex) {
+            throw new CelestaException("Unable to load score files from resources.", ex);
+        }
+    }
 
+    /**
+     * Returns the snapshot located next to the score index file. The snapshot is only
+     * discovered when the score is contained in a single JAR-file, since a snapshot
+     * describes the whole score it was generated for.
+     */
+    @Override
+    public Resource discoverScoreSnapshot() {
+        try {
+            return discoverScoreSnapshot(getScoreFilesUrls());
         } catch (IOException ex) {
             throw new CelestaException("Unable to load score files from resources.", ex);
         }
     }
 
+    private Enumeration<URL> getScoreFilesUrls() throws IOException {
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        return (classLoader != null)
+                ? classLoader.getResources(SCORE_FILES_LOCATION)
+                : ClassLoader.getSystemResources(SCORE_FILES_LOCATION);
+    }
+
+    Resource discoverScoreSnapshot(Enumeration<URL> scoreFilesUrls) throws IOException {
+        if (!scoreFilesUrls.hasMoreElements()) {
+            return null;
+        }
+        Resource scoreFilesResource = new UrlResource(scoreFilesUrls.nextElement());
+        if (scoreFilesUrls.hasMoreElements()) {
+            return null;
+        }
+        return scoreFilesResource.createRelative(ScoreSnapshot.SNAPSHOT_FILE_NAME);
+    }
+
     Set<Resource> discoverScore(Enumeration<URL> scoreFilesUrls) throws IOException {
 
         Map<String, Resource> grainNameToResourceMap = new LinkedHashMap<>();
@@ -16,4 +16,13 @@ public interface ScoreDiscovery {
      */
     Set<Resource> discoverScore();
 
+    /**
+     * Discovers precompiled snapshot of the score.
+     *
+     * @return  a resource pointing to the score snapshot, or {@code null} if the score has no snapshot.
+     */
+    default Resource discoverScoreSnapshot() {
+        return null;
+    }
+
 }
@@ -8,6 +8,8 @@ import java.util.regex.Pattern;
  * Identifiers like <b>"celestaIdentifier"</b> are processed.
  */
 public final class AnsiQuotedIdentifierParser extends IdentifierParser {
+    private static final long serialVersionUID = 1L;
+
     private static final Pattern NAME_PATTERN = Pattern.compile(
             "(\"([^\"]+)\")|(" + PLAIN_NAME_PATTERN_STR + ")"
     );
@@ -2,18 +2,21 @@ package ru.curs.celesta.score.validator;
 
 import ru.curs.celesta.score.ParseException;
 
+import java.io.Serializable;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
  * Identifier parser and validator.
  */
-public abstract class IdentifierParser {
+public abstract class IdentifierParser implements Serializable {
     /**
      * Plain name regular expression.
      */
     public static final String PLAIN_NAME_PATTERN_STR = "[a-zA-Z_][0-9a-zA-Z_]*";
 
+    private static final long serialVersionUID = 1L;
+
     /**
      * Parses the passed in identifier checking it for validity and returns
      * a normalized version of it (e.g. strips down the quotes).
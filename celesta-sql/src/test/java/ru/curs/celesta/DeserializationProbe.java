@@ -0,0 +1,25 @@
+package ru.curs.celesta;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+
+/**
+ * Serializable object that records its deserialization.
+ */
+public final class DeserializationProbe implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static volatile boolean deserialized;
+
+    public static boolean isDeserialized() {
+        return deserialized;
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        deserialized = true;
+    }
+
+}
@@ -0,0 +1,129 @@
+package ru.curs.celesta;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+
+class StatementCachingConnectionTest {
+
+    Connection mockConn = Mockito.mock(Connection.class);
+
+    List<PreparedStatement> prepared = new ArrayList<>();
+
+    StatementCachingConnection conn = new StatementCachingConnection(mockConn, 2);
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        Mockito.when(mockConn.prepareStatement(Mockito.anyString())).thenAnswer(i -> {
+            PreparedStatement stmt = Mockito.mock(PreparedStatement.class);
+            prepared.add(stmt);
+            return stmt;
+        });
+    }
+
+    @Test
+    void closedStatementIsReused() throws SQLException {
+        PreparedStatement s1 = conn.prepareStatement("select 1");
+        PreparedStatement s2 = conn.prepareStatement("select 1");
+        s1.setInt(1, 5);
+        s1.close();
+        assertTrue(s1.isClosed());
+        assertThrows(SQLException.class, s1::executeQuery);
+        Mockito.verify(prepared.get(0)).clearParameters();
+
+        PreparedStatement s3 = conn.prepareStatement("select 1");
+        assertFalse(s3.isClosed());
+        s3.setInt(1, 6);
+        Mockito.verify(prepared.get(0)).setInt(1, 6);
+        s2.close();
+        s3.close();
+
+        Mockito.verify(mockConn, times(2)).prepareStatement("select 1");
+        assertEquals(1, conn.getCacheHits());
+        assertEquals(2, conn.getCacheMisses());
+        assertEquals(2, conn.getIdleCount());
+    }
+
+    @Test
+    void resultSetIsClosedWithStatement() throws SQLException {
+        PreparedStatement s = conn.prepareStatement("select 1");
+        ResultSet rs = Mockito.mock(ResultSet.class);
+        Mockito.when(prepared.get(0).executeQuery()).thenReturn(rs);
+
+        assertSame(rs, s.executeQuery());
+        s.close();
+        Mockito.verify(rs).close();
+        Mockito.verify(prepared.get(0), never()).close();
+    }
+
+    @Test
+    void leastRecentlyUsedStatementsAreEvicted() throws SQLException {
+        PreparedStatement a = conn.prepareStatement("a");
+        PreparedStatement b = conn.prepareStatement("b");
+        PreparedStatement c = conn.prepareStatement("c");
+        a.close();
+        b.close();
+        c.close();
+
+        assertEquals(2, conn.getIdleCount());
+        Mockito.verify(prepared.get(0)).close();
+        Mockito.verify(prepared.get(2), never()).close();
+
+        conn.close();
+        Mockito.verify(prepared.get(1)).close();
+        Mockito.verify(prepared.get(2)).close();
+        Mockito.verify(mockConn).close();
+        assertEquals(0, conn.getIdleCount());
+    }
+
+    @Test
+    void readOnlyStatementIsCachedAndFetchSizeIsReset() throws SQLException {
+        PreparedStatement s1 = conn.prepareStatement("select 1",
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        s1.setFetchSize(100);
+        s1.close();
+        Mockito.verify(prepared.get(0)).setFetchSize(0);
+
+        PreparedStatement s2 = conn.prepareStatement("select 1");
+        s2.close();
+        Mockito.verify(prepared.get(0), times(1)).setFetchSize(0);
+        assertEquals(1, conn.getCacheHits());
+    }
+
+    @Test
+    void wrappersAreUnwrappedToDriverObjects() throws SQLException {
+        DriverConnection driverConnection = Mockito.mock(DriverConnection.class);
+        Mockito.when(mockConn.unwrap(DriverConnection.class)).thenReturn(driverConnection);
+        assertSame(conn, conn.unwrap(StatementCachingConnection.class));
+        assertTrue(conn.isWrapperFor(CelestaConnection.class));
+        assertSame(driverConnection, conn.unwrap(DriverConnection.class));
+
+        PreparedStatement s = conn.prepareStatement("select 1");
+        DriverStatement driverStatement = Mockito.mock(DriverStatement.class);
+        Mockito.when(prepared.get(0).unwrap(DriverStatement.class)).thenReturn(driverStatement);
+        assertSame(conn, s.getConnection());
+        assertSame(s, s.unwrap(PreparedStatement.class));
+        assertTrue(s.isWrapperFor(PreparedStatement.class));
+        assertSame(driverStatement, s.unwrap(DriverStatement.class));
+        s.close();
+        assertEquals(1, conn.getIdleCount());
+    }
+
+    interface DriverConnection extends Connection {
+    }
+
+    interface DriverStatement extends PreparedStatement {
+    }
+
+}
@@ -110,4 +110,77 @@ public class MaterializedViewParsingTest extends AbstractParsingTest {
     assertThrows(ParseException.class, () -> parse(f));
   }
 
+  @Test
+  public void testParsingOfConcurrentRefresh() throws Exception {
+    File f = ResourceUtil.getResourceAsFile(
+            ParserTest.class,
+            "materializedView/testParsingOfConcurrentRefresh.sql"
+    );
+    Grain g = parse(f);
+
+    MaterializedView concurrent = g.getElement("testView1", MaterializedView.class);
+    assertEquals(MaterializedView.RefreshMode.CONCURRENT, concurrent.getRefreshMode());
+    MaterializedView immediate = g.getElement("testView2", MaterializedView.class);
+    assertEquals(MaterializedView.RefreshMode.IMMEDIATE, immediate.getRefreshMode());
+
+    assertTrue(CelestaSerializer.toString(concurrent).contains(" WITH CONCURRENT REFRESH;"));
+    assertNotEquals(concurrent.getChecksum(), immediate.getChecksum());
+  }
+
+  @Test
+  public void testParsingFailsWithConcurrentRefreshWithoutGroupBy() {
+    File f = ResourceUtil.getResourceAsFile(
+            ParserTest.class,
+            "materializedView/testParsingFailsWithConcurrentRefreshWithoutGroupBy.sql"
+    );
+    assertThrows(ParseException.class, () -> parse(f));
+  }
+
+  @Test
+  public void testParsingOfDeferredRefresh() throws Exception {
+    File f = ResourceUtil.getResourceAsFile(
+            ParserTest.class,
+            "materializedView/testParsingOfDeferredRefresh.sql"
+    );
+    Grain g = parse(f);
+
+    MaterializedView deferred = g.getElement("testView1", MaterializedView.class);
+    assertEquals(MaterializedView.RefreshMode.DEFERRED, deferred.getRefreshMode());
+    assertEquals("testView1_log", deferred.getChangeLogName());
+    MaterializedView concurrent = g.getElement("testView2", MaterializedView.class);
+
+    assertTrue(CelestaSerializer.toString(deferred).contains(" WITH DEFERRED REFRESH;"));
+    assertNotEquals(deferred.getChecksum(), concurrent.getChecksum());
+  }
+
+  @Test
+  public void testParsingFailsWithDeferredRefreshWithoutGroupBy() {
+    File f = ResourceUtil.getResourceAsFile(
+            ParserTest.class,
+            "materializedView/testParsingFailsWithDeferredRefreshWithoutGroupBy.sql"
+    );
+    assertThrows(ParseException.class, () -> parse(f));
+  }
+
+  @Test
+  public void testParsingFailsWhenTableNamedAsChangeLog() {
+    File f = ResourceUtil.getResourceAsFile(
+            ParserTest.class,
+            "materializedView/testParsingFailsWhenTableNamedAsChangeLog.sql"
+    );
+    ParseException e = assertThrows(ParseException.class, () -> parse(f));
+    assertTrue(e.getMessage().contains("testView_log"));
+  }
+
+  @Test
+  public void testParsingOfTableNamedAsChangeLogOfImmediateView() throws Exception {
+    File f = ResourceUtil.getResourceAsFile(
+            ParserTest.class,
+            "materializedView/testParsingOfTableNamedAsChangeLogOfImmediateView.sql"
+    );
+    Grain g = parse(f);
+
+    assertNotNull(g.getElement("testView_log", BasicTable.class));
+  }
+
 }
@@ -1,10 +1,13 @@
 package ru.curs.celesta.score;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
 import ru.curs.celesta.CelestaException;
 import ru.curs.celesta.score.discovery.ScoreByScorePathDiscovery;
 
 import java.io.File;
+import java.util.Collections;
 import java.util.StringJoiner;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -36,6 +39,17 @@ public class ParseScoreWithReferencesTest {
         assertEquals(expectedMessage, e.getMessage());
     }
 
+    @Test
+    void testReferenceToNotExistingSchemaOnParallelParsing() {
+        AbstractScore.ScoreBuilder<?> scoreBuilder = new AbstractScore.ScoreBuilder<>(CelestaSqlTestScore.class)
+                .scoreDiscovery(new ScoreByScorePathDiscovery(SCORE_WITH_REFERENCE_TO_NOT_EXISTING_SCHEMA))
+                .parallelism(2);
+
+        CelestaException e = assertThrows(CelestaException.class, scoreBuilder::build);
+        String expectedMessage = String.format(DEPENDENCY_SCHEMA_DOES_NOT_EXIST_ERROR_TEMPLATE, "a", "b");
+        assertEquals(expectedMessage, e.getMessage());
+    }
+
     @Test
     void testSelfReference() throws Exception {
         new AbstractScore.ScoreBuilder<>(CelestaSqlTestScore.class)
@@ -45,9 +59,14 @@ public class ParseScoreWithReferencesTest {
 
     @Test
     void testReferenceToExistingSchema() throws Exception {
-        new AbstractScore.ScoreBuilder<>(CelestaSqlTestScore.class)
+        CelestaSqlTestScore score = new AbstractScore.ScoreBuilder<>(CelestaSqlTestScore.class)
                 .scoreDiscovery(new ScoreByScorePathDiscovery(SCORE_WITH_REFERENCE_TO_EXISTING_SCHEMA))
                 .build();
+
+        Grain a = score.getGrain("a");
+        Grain b = score.getGrain("b");
+        assertEquals(Collections.singleton(b), a.getDependencies());
+        assertTrue(b.getDependencies().isEmpty());
     }
 
     @Test
@@ -69,4 +88,38 @@ public class ParseScoreWithReferencesTest {
                 e.getMessage().contains(expectedMessagePart1) || e.getMessage().contains(expectedMessagePart2)
         );
     }
+
+    @Test
+    void testCyclicReferencesOnParallelParsing() {
+        ScoreByScorePathDiscovery discovery = new ScoreByScorePathDiscovery(SCORE_WITH_CYCLIC_REFERENCES);
+        ParseException expected = assertThrows(ParseException.class,
+                new AbstractScore.ScoreBuilder<>(CelestaSqlTestScore.class).scoreDiscovery(discovery)::build);
+
+        for (int i = 0; i < 10; i++) {
+            AbstractScore.ScoreBuilder<?> scoreBuilder = new AbstractScore.ScoreBuilder<>(CelestaSqlTestScore.class)
+                    .scoreDiscovery(discovery)
+                    .parallelism(2);
+
+            ParseException e = assertThrows(ParseException.class, scoreBuilder::build);
+            assertEquals(expected.getMessage(), e.getMessage());
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"cyclicReferences", "referenceToNotExistingSchema"})
+    void testErrorsDoNotDependOnParallelism(String scoreName) {
+        ScoreByScorePathDiscovery discovery = new ScoreByScorePathDiscovery(
+                SCORE_PATH_PREFIX + File.separator + scoreName);
+        Exception sequential = assertThrows(Exception.class,
+                new AbstractScore.ScoreBuilder<>(CelestaSqlTestScore.class).scoreDiscovery(discovery)
+                        .parallelism(1)::build);
+
+        for (int i = 0; i < 10; i++) {
+            Exception parallel = assertThrows(Exception.class,
+                    new AbstractScore.ScoreBuilder<>(CelestaSqlTestScore.class).scoreDiscovery(discovery)
+                            .parallelism(4)::build);
+            assertEquals(sequential.getClass(), parallel.getClass());
+            assertEquals(sequential.getMessage(), parallel.getMessage());
+        }
+    }
 }
@@ -0,0 +1,201 @@
+package ru.curs.celesta.score;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.curs.celesta.DeserializationProbe;
+import ru.curs.celesta.score.discovery.ScoreDiscovery;
+import ru.curs.celesta.score.io.Resource;
+import ru.curs.celesta.score.io.UrlResource;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ScoreSnapshotTest {
+
+    private static final List<String> GRAIN_PATHS = Arrays.asList("shop/customers.sql", "shop/orders.sql");
+
+    @TempDir
+    Path scoreDir;
+
+    private Resource snapshot;
+    private final Map<Resource, String> grainPaths = new HashMap<>();
+    private final Set<Resource> grainResources = new LinkedHashSet<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Path sourceDir = Path.of(getClass().getResource("/scores/snapshotScore/").toURI());
+        Files.createDirectories(scoreDir.resolve("shop"));
+        Files.copy(sourceDir.resolve("score.files"), scoreDir.resolve("score.files"));
+
+        UrlResource scoreFiles = new UrlResource(scoreDir.resolve("score.files").toUri().toURL());
+        for (String grainPath : GRAIN_PATHS) {
+            Files.copy(sourceDir.resolve(grainPath), scoreDir.resolve(grainPath));
+            Resource grainResource = scoreFiles.createRelative(grainPath, new Namespace("shop"));
+            grainResources.add(grainResource);
+            grainPaths.put(grainResource, grainPath);
+        }
+        snapshot = scoreFiles.createRelative(ScoreSnapshot.SNAPSHOT_FILE_NAME);
+    }
+
+    @Test
+    void testScoreIsReadFromSnapshot() throws Exception {
+        CelestaSqlTestScore parsed = parseAndWriteSnapshot();
+
+        CelestaSqlTestScore read = ScoreSnapshot.read(CelestaSqlTestScore.class, snapshot, grainResources);
+
+        assertNotNull(read);
+        assertEquals(parsed.getGrains().keySet(), read.getGrains().keySet());
+        for (Grain parsedGrain : parsed.getGrains().values()) {
+            Grain readGrain = read.getGrain(parsedGrain.getName());
+            assertEquals(parsedGrain.getChecksum(), readGrain.getChecksum());
+            assertEquals(parsedGrain.getLength(), readGrain.getLength());
+            assertEquals(parsedGrain.getDependencyOrder(), readGrain.getDependencyOrder());
+            assertEquals(save(parsedGrain), save(readGrain));
+        }
+
+        Grain orders = read.getGrain("orders");
+        assertEquals(Collections.singleton(read.getGrain("customers")), orders.getDependencies());
+        assertSame(read.getGrain("customers"),
+                orders.getElement("orderHeader", Table.class).getForeignKeys().iterator().next()
+                        .getReferencedTable().getGrain());
+        assertEquals("shop", orders.getNamespace().getValue());
+        assertEquals("shop/orders.sql", grainPaths.get(orders.getGrainParts().iterator().next().getSource()));
+        assertSame(Namespace.DEFAULT, read.getGrain(read.getSysSchemaName()).getNamespace());
+    }
+
+    @Test
+    void testChangedGrainSourceIsParsed() throws Exception {
+        parseAndWriteSnapshot();
+        Files.write(scoreDir.resolve("shop/orders.sql"), "\n".getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
+
+        assertNull(ScoreSnapshot.read(CelestaSqlTestScore.class, snapshot, grainResources));
+    }
+
+    @Test
+    void testSnapshotOfOtherGrainsIsNotRead() throws Exception {
+        parseAndWriteSnapshot();
+        grainResources.remove(grainResources.iterator().next());
+
+        assertNull(ScoreSnapshot.read(CelestaSqlTestScore.class, snapshot, grainResources));
+    }
+
+    @Test
+    void testMissingSnapshotIsNotRead() {
+        assertNull(ScoreSnapshot.read(CelestaSqlTestScore.class, snapshot, grainResources));
+    }
+
+    @Test
+    void testSnapshotOfForeignClassesIsNotRead() throws Exception {
+        try (ObjectOutputStream oos = new ObjectOutputStream(
+                Files.newOutputStream(scoreDir.resolve(ScoreSnapshot.SNAPSHOT_FILE_NAME)))) {
+            oos.writeInt(ScoreSnapshot.FORMAT_VERSION);
+            oos.writeUTF(CelestaSqlTestScore.class.getName());
+            oos.writeInt(0);
+            oos.writeInt(0);
+            oos.writeObject(new DeserializationProbe());
+        }
+
+        assertNull(ScoreSnapshot.read(CelestaSqlTestScore.class, snapshot, Collections.emptySet()));
+        assertFalse(DeserializationProbe.isDeserialized());
+    }
+
+    @Test
+    void testSnapshotOfChangedScoreClassesIsNotRead() throws Exception {
+        CelestaSqlTestScore score = new AbstractScore.ScoreBuilder<>(CelestaSqlTestScore.class)
+                .scoreDiscovery(Collections::emptySet)
+                .build();
+
+        writeSnapshotWithClass(score, null);
+        assertNotNull(ScoreSnapshot.read(CelestaSqlTestScore.class, snapshot, Collections.emptySet()));
+
+        writeSnapshotWithClass(score, Grain.class.getName());
+        assertNull(ScoreSnapshot.read(CelestaSqlTestScore.class, snapshot, Collections.emptySet()));
+
+        writeSnapshotWithClass(score, "ru.curs.celesta.score.RemovedElement");
+        assertNull(ScoreSnapshot.read(CelestaSqlTestScore.class, snapshot, Collections.emptySet()));
+    }
+
+    private void writeSnapshotWithClass(CelestaSqlTestScore score, String className) throws IOException {
+        try (ObjectOutputStream oos = new ObjectOutputStream(
+                Files.newOutputStream(scoreDir.resolve(ScoreSnapshot.SNAPSHOT_FILE_NAME)))) {
+            oos.writeInt(ScoreSnapshot.FORMAT_VERSION);
+            oos.writeUTF(CelestaSqlTestScore.class.getName());
+            if (className == null) {
+                oos.writeInt(0);
+            } else {
+                oos.writeInt(1);
+                oos.writeUTF(className);
+                oos.writeLong(0);
+            }
+            oos.writeInt(0);
+            oos.writeObject(score);
+        }
+    }
+
+    @Test
+    void testScoreBuilderReadsSnapshot() throws Exception {
+        parseAndWriteSnapshot();
+
+        CelestaSqlTestScore score = new AbstractScore.ScoreBuilder<>(CelestaSqlTestScore.class)
+                .scoreDiscovery(new SnapshotDiscovery())
+                .build();
+        assertEquals(grainResources, Set.of(
+                score.getGrain("customers").getGrainParts().iterator().next().getSource(),
+                score.getGrain("orders").getGrainParts().iterator().next().getSource()));
+
+        Files.delete(scoreDir.resolve(ScoreSnapshot.SNAPSHOT_FILE_NAME));
+        score = new AbstractScore.ScoreBuilder<>(CelestaSqlTestScore.class)
+                .scoreDiscovery(new SnapshotDiscovery())
+                .build();
+        assertNotNull(score.getGrain("orders").getElement("bigOrders", View.class));
+    }
+
+    private CelestaSqlTestScore parseAndWriteSnapshot() throws Exception {
+        CelestaSqlTestScore score = new AbstractScore.ScoreBuilder<>(CelestaSqlTestScore.class)
+                .scoreDiscovery(() -> grainResources)
+                .build();
+        try (OutputStream out = Files.newOutputStream(scoreDir.resolve(ScoreSnapshot.SNAPSHOT_FILE_NAME))) {
+            ScoreSnapshot.write(score, grainPaths::get, out);
+        }
+        return score;
+    }
+
+    private static String save(Grain grain) throws IOException {
+        StringWriter sw = new StringWriter();
+        try (PrintWriter pw = new PrintWriter(sw)) {
+            new CelestaSerializer(pw).save(grain);
+        }
+        return sw.toString();
+    }
+
+    private final class SnapshotDiscovery implements ScoreDiscovery {
+        @Override
+        public Set<Resource> discoverScore() {
+            return grainResources;
+        }
+
+        @Override
+        public Resource discoverScoreSnapshot() {
+            return snapshot;
+        }
+    }
+
+}
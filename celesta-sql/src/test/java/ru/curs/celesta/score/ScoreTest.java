@@ -538,6 +538,39 @@ public class ScoreTest {
         );
     }
 
+    @Test
+    void testParallelParsing() throws Exception {
+        ScoreByScorePathDiscovery discovery = new ScoreByScorePathDiscovery(
+                COMPOSITE_SCORE_PATH_2 + File.pathSeparator + COMPOSITE_SCORE_PATH_1);
+        AbstractScore expected = new AbstractScore.ScoreBuilder<>(CelestaSqlTestScore.class)
+                .scoreDiscovery(discovery)
+                .build();
+
+        for (int i = 0; i < 10; i++) {
+            // Parsed without falling back to sequential parsing
+            AbstractScore s = new CelestaSqlTestScore();
+            s.init(discovery.discoverScore(), 3);
+
+            assertEquals(expected.getGrains().keySet(), s.getGrains().keySet());
+            for (Grain expectedGrain : expected.getGrains().values()) {
+                Grain g = s.getGrain(expectedGrain.getName());
+                assertEquals(expectedGrain.getDependencyOrder(), g.getDependencyOrder());
+                assertEquals(expectedGrain.getChecksum(), g.getChecksum());
+                assertEquals(save(expectedGrain), save(g));
+            }
+            assertSame(s.getGrain("grain1"), s.getGrain("grain2").getElement("b", BasicTable.class)
+                    .getForeignKeys().iterator().next().getReferencedTable().getGrain());
+        }
+    }
+
+    private static String save(Grain grain) throws IOException {
+        StringWriter sw = new StringWriter();
+        try (PrintWriter pw = new PrintWriter(sw)) {
+            new CelestaSerializer(pw).save(grain);
+        }
+        return sw.toString();
+    }
+
     @Test
     void testDescribe() throws Exception {
         Path scoreDir = Files.createTempDirectory("testDescribe");
@@ -22,7 +22,8 @@ public class SequenceParsingTest extends AbstractParsingTest {
                 () -> assertEquals(1L, s1.getIncrementBy()),
                 () -> assertEquals(1L, s1.getMinValue()),
                 () -> assertEquals(Long.MAX_VALUE, s1.getMaxValue()),
-                () -> assertEquals(false, s1.isCycle())
+                () -> assertEquals(false, s1.isCycle()),
+                () -> assertEquals(1, s1.getCacheSize())
         );
 
         SequenceElement s2 = g.getElement("s2", SequenceElement.class);
@@ -151,6 +152,24 @@ public class SequenceParsingTest extends AbstractParsingTest {
                 () -> assertEquals(56L, s15.getMaxValue()),
                 () -> assertEquals(true, s15.isCycle())
         );
+
+        SequenceElement s16 = g.getElement("s16", SequenceElement.class);
+        assertAll(
+                () -> assertEquals(3L, s16.getStartWith()),
+                () -> assertEquals(2L, s16.getIncrementBy()),
+                () -> assertEquals(1000L, s16.getMaxValue()),
+                () -> assertEquals(50, s16.getCacheSize()),
+                () -> assertEquals(false, s16.isCycle())
+        );
+    }
+
+    @Test
+    void testParsingFailsOnZeroCache() {
+        File f = ResourceUtil.getResourceAsFile(
+                ParserTest.class,
+                "sequence/testParsingFailsOnZeroCache.sql"
+        );
+        assertThrows(ParseException.class, () -> parse(f));
     }
 
     @Test
@@ -252,6 +271,15 @@ public class SequenceParsingTest extends AbstractParsingTest {
         assertThrows(ParseException.class, () -> parse(f));
     }
 
+    @Test
+    void testParsingFailsOnCacheDuplication() {
+        File f = ResourceUtil.getResourceAsFile(
+                ParserTest.class,
+                "sequence/testParsingFailsOnCacheDuplication.sql"
+        );
+        assertThrows(ParseException.class, () -> parse(f));
+    }
+
     @Test
     void testParsingFailsWhenSequenceIdentifierIsReservedByCelesta() {
         File f = ResourceUtil.getResourceAsFile(
@@ -5,6 +5,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import ru.curs.celesta.CelestaException;
 import ru.curs.celesta.score.Namespace;
+import ru.curs.celesta.score.ScoreSnapshot;
 import ru.curs.celesta.score.io.Resource;
 import ru.curs.celesta.score.io.UrlResource;
 
@@ -96,4 +97,20 @@ public class ScoreByScoreResourceDiscoveryTest {
         LOGGER.info(ex.getMessage());
     }
 
+    @Test
+    void testDiscoverScoreSnapshot() throws IOException {
+
+        final URL scoreAUrl = getClass().getResource("/scores/resourceDiscoveryScore/score_A/");
+        final URL scoreBUrl = getClass().getResource("/scores/resourceDiscoveryScore/score_B/");
+
+        Resource snapshot = scoreDiscovery.discoverScoreSnapshot(Collections.enumeration(
+                Collections.singletonList(new URL(scoreAUrl, SCORE_FILES))));
+        assertEquals(new UrlResource(scoreAUrl).createRelative(ScoreSnapshot.SNAPSHOT_FILE_NAME), snapshot);
+
+        snapshot = scoreDiscovery.discoverScoreSnapshot(Collections.enumeration(Arrays.asList(
+                new URL(scoreAUrl, SCORE_FILES),
+                new URL(scoreBUrl, SCORE_FILES))));
+        assertNull(snapshot);
+    }
+
 }
@@ -0,0 +1,9 @@
+CREATE GRAIN test VERSION '1.0';
+
+CREATE table testTable (
+  id INT NOT NULL PRIMARY KEY,
+  f1 int NOT NULL
+);
+
+CREATE MATERIALIZED VIEW testView AS
+  select count(*) as c from testTable with deferred refresh;
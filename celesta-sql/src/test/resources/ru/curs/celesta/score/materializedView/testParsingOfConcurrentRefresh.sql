@@ -0,0 +1,13 @@
+CREATE GRAIN test VERSION '1.0';
+
+CREATE table testTable (
+  id INT NOT NULL PRIMARY KEY,
+  f1 int NOT NULL,
+  f3 VARCHAR (2) NOT NULL
+);
+
+CREATE MATERIALIZED VIEW testView1 AS
+  select sum (f1) as sumv, f3 from testTable group by f3 with concurrent refresh;
+
+CREATE MATERIALIZED VIEW testView2 AS
+  select sum (f1) as sumv, f3 from testTable group by f3;
@@ -0,0 +1,14 @@
+CREATE GRAIN test VERSION '1.0';
+
+CREATE table testTable (
+  id INT NOT NULL PRIMARY KEY,
+  f1 int NOT NULL,
+  f3 VARCHAR (2) NOT NULL
+);
+
+CREATE table testView_log (
+  id INT NOT NULL PRIMARY KEY
+);
+
+CREATE MATERIALIZED VIEW testView AS
+  select sum (f1) as sumv, count(*) as c, f3 from testTable group by f3;
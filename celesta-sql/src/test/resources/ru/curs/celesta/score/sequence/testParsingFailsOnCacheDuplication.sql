@@ -0,0 +1,3 @@
+CREATE GRAIN test VERSION '1.0';
+
+CREATE SEQUENCE s1 CACHE 10 CACHE 20;
\ No newline at end of file
@@ -23,4 +23,5 @@ CREATE SEQUENCE s11 MAXVALUE 56;
 CREATE SEQUENCE s12 CYCLE  MAXVALUE 5;
 CREATE SEQUENCE s13 INCREMENT BY -1 CYCLE MINVALUE -1 MAXVALUE 1;
 CREATE SEQUENCE s14 START WITH 5 INCREMENT BY 2 MINVALUE 5 MAXVALUE 56 CYCLE;
-CREATE SEQUENCE s15 START WITH 5 CYCLE MAXVALUE 56 INCREMENT BY 2 MINVALUE 5;
\ No newline at end of file
+CREATE SEQUENCE s15 START WITH 5 CYCLE MAXVALUE 56 INCREMENT BY 2 MINVALUE 5;
+CREATE SEQUENCE s16 START WITH 3 INCREMENT BY 2 CACHE 50 MAXVALUE 1000;
\ No newline at end of file
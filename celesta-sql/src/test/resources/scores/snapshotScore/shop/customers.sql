@@ -0,0 +1,11 @@
+create schema customers version '1.0';
+
+create sequence customerSeq;
+
+create table customer (
+  id int not null default nextval(customerSeq) primary key,
+  name varchar(50) not null,
+  registered datetime default getdate()
+);
+
+create index idxCustomerName on customer (name);
@@ -0,0 +1,21 @@
+create schema orders version '1.0';
+
+create table orderHeader (
+  id int not null primary key,
+  customerId int not null foreign key references customers.customer(id),
+  amount decimal(10, 2) not null default 0.00
+);
+
+create view bigOrders as
+  select h.id as id, c.name as customerName, h.amount * 2 as doubled
+  from orderHeader as h inner join customers.customer as c on h.customerId = c.id
+  where h.amount > 100 and c.name like 'A%';
+
+create materialized view orderTotals as
+  select sum(amount) as total, count(*) as cnt, customerId
+  from orderHeader
+  group by customerId;
+
+create function ordersOfCustomer(cid int) as
+  select id, amount from orderHeader
+  where customerId = $cid;
@@ -11,10 +11,14 @@ import ru.curs.celesta.dbutils.IProfiler;
 import ru.curs.celesta.dbutils.LoggingManager;
 import ru.curs.celesta.dbutils.PermissionManager;
 import ru.curs.celesta.dbutils.ProfilingManager;
+import ru.curs.celesta.dbutils.StatementMetrics;
 import ru.curs.celesta.dbutils.adaptors.DBAdaptor;
 import ru.curs.celesta.dbutils.adaptors.configuration.DbAdaptorFactory;
 import ru.curs.celesta.dbutils.adaptors.ddl.JdbcDdlConsumer;
+import ru.curs.celesta.dbutils.stmt.StatementListener;
 import ru.curs.celesta.event.TriggerDispatcher;
+import ru.curs.celesta.score.Grain;
+import ru.curs.celesta.score.MaterializedView;
 import ru.curs.celesta.score.ParseException;
 import ru.curs.celesta.score.Score;
 import ru.curs.celesta.score.discovery.ScoreByScorePathDiscovery;
@@ -28,6 +32,12 @@ import java.io.InputStream;
 import java.sql.SQLException;
 import java.util.Optional;
 import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 /**
  * Celesta instance.
@@ -55,6 +65,10 @@ public final class Celesta implements ICelesta {
     private final LoggingManager loggingManager;
     private final PermissionManager permissionManager;
     private final ProfilingManager profiler;
+    private final StatementMetrics statementMetrics;
+    private volatile int statementCacheSize;
+    private volatile StatementListener statementListener;
+    private final ScheduledExecutorService materializedViewRefresher;
 
     Celesta(BaseAppSettings appSettings, ConnectionPool connectionPool) {
         this.appSettings = appSettings;
@@ -71,6 +85,7 @@ public final class Celesta implements ICelesta {
                     : new ScoreByScorePathDiscovery(appSettings.getScorePath());
             this.score = new Score.ScoreBuilder<>(Score.class)
                     .scoreDiscovery(scoreDiscovery)
+                    .parallelism(Math.max(appSettings.getScoreParsingParallelism(), 1))
                     .build();
         } catch (ParseException e) {
             throw new CelestaException(e);
@@ -91,9 +106,10 @@ public final class Celesta implements ICelesta {
 
         dbAdaptor = dac.createDbAdaptor();
 
-        this.loggingManager = new LoggingManager(this);
+        this.loggingManager = new LoggingManager(this, appSettings.getLogBufferSize());
         this.permissionManager = new PermissionManager(this);
         this.profiler = new ProfilingManager(this);
+        this.statementMetrics = new StatementMetrics(appSettings.getSlowQueryThreshold());
 
         if (!appSettings.getSkipDBUpdate()) {
             LOGGER.info("Celesta initialization: database {} upgrade...",
@@ -104,6 +120,7 @@ public final class Celesta implements ICelesta {
                     .connectionPool(connectionPool)
                     .score(score)
                     .forceDdInitialize(appSettings.getForceDBInitialize())
+                    .parallelism(Math.max(appSettings.getDbUpdateParallelism(), 1))
                     .setCelesta(this)
                     .build();
 
@@ -113,6 +130,24 @@ public final class Celesta implements ICelesta {
             LOGGER.info("Celesta initialization: database upgrade...skipped.");
         }
 
+        // Statements are cached only after the database structure is updated
+        statementCacheSize = appSettings.getStatementCacheSize();
+        if (appSettings.isStatementMetrics() || appSettings.getSlowQueryThreshold() > 0) {
+            statementListener = statementMetrics;
+        }
+
+        int refreshInterval = appSettings.getMaterializedViewRefreshInterval();
+        if (refreshInterval > 0) {
+            materializedViewRefresher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "celesta-mview-refresher");
+                t.setDaemon(true);
+                return t;
+            });
+            materializedViewRefresher.scheduleWithFixedDelay(this::refreshMaterializedViewsQuietly,
+                    refreshInterval, refreshInterval, TimeUnit.MILLISECONDS);
+        } else {
+            materializedViewRefresher = null;
+        }
     }
 
     @Override
@@ -140,11 +175,83 @@ public final class Celesta implements ICelesta {
         return profiler;
     }
 
+    /**
+     * Returns the profiling manager, which gives access to the profiling settings
+     * and to the collected call statistics.
+     *
+     * @return
+     */
+    public ProfilingManager getProfilingManager() {
+        return profiler;
+    }
+
     @Override
     public DBAdaptor getDBAdaptor() {
         return dbAdaptor;
     }
 
+    @Override
+    public boolean isConnectionReleasedOnCommit() {
+        return appSettings.isConnectionReleaseOnCommit();
+    }
+
+    @Override
+    public int getStatementCacheSize() {
+        return statementCacheSize;
+    }
+
+    @Override
+    public int getFetchSize() {
+        return appSettings.getFetchSize();
+    }
+
+    @Override
+    public StatementListener getStatementListener() {
+        return statementListener;
+    }
+
+    /**
+     * Sets listener of statements prepared and executed by cursors, e.g. {@link #getStatementMetrics()}
+     * or a listener passing statement metrics to a monitoring system. The listener is used by cursors
+     * created after the call.
+     *
+     * @param statementListener  statement listener ({@code null} switches reporting off)
+     */
+    public void setStatementListener(StatementListener statementListener) {
+        this.statementListener = statementListener;
+    }
+
+    /**
+     * Returns the built-in collector of statement statistics and slow queries. The collector is used
+     * if {@code statement.metrics} setting is on or {@code slow.query.threshold} setting is set.
+     *
+     * @return
+     */
+    public StatementMetrics getStatementMetrics() {
+        return statementMetrics;
+    }
+
+    /**
+     * Applies changes accumulated since the last refresh to all the materialized views with deferred refresh.
+     * The refresh is made in the background as well if {@code materialized.view.refresh.interval}
+     * setting is set.
+     */
+    public void refreshMaterializedViews() {
+        for (Grain g : score.getGrains().values()) {
+            for (MaterializedView mv : g.getElements(MaterializedView.class).values()) {
+                dbAdaptor.refreshMaterializedView(mv);
+            }
+        }
+    }
+
+    private void refreshMaterializedViewsQuietly() {
+        try {
+            refreshMaterializedViews();
+        } catch (CelestaException e) {
+            LOGGER.error("Error while refreshing materialized views", e);
+        }
+    }
+
     @Override
     public TriggerDispatcher getTriggerDispatcher() {
         return this.triggerDispatcher;
@@ -155,11 +262,65 @@ public final class Celesta implements ICelesta {
         return score;
     }
 
+    /**
+     * Runs a procedure within a new call context. The transaction is committed if the procedure
+     * completes normally and rolled back if it throws an exception, the context is closed in both cases.
+     *
+     * @param userId    user identifier
+     * @param procName  name of the called procedure
+     * @param procedure procedure to run
+     * @param <T>       type of the procedure result
+     * @return procedure result
+     */
+    public <T> T runInContext(String userId, String procName, Function<CallContext, T> procedure) {
+        try (CallContext context = new CallContext(userId, this, procName)) {
+            try {
+                T result = procedure.apply(context);
+                context.commit();
+                return result;
+            } catch (RuntimeException | Error e) {
+                context.rollback();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Runs a procedure within a new call context asynchronously on the given executor
+     * (see {@link #runInContext(String, String, Function)}).
+     * <p>
+     * Call contexts borrow connections only while they access the database and Celesta does not
+     * block on object monitors, so on Java 21+ an executor creating a virtual thread per task
+     * (i.e. {@code Executors.newVirtualThreadPerTaskExecutor()}) can be used to run thousands
+     * of concurrent contexts; their database access is then limited by the connection pool size.
+     *
+     * @param executor  executor to run the procedure on
+     * @param userId    user identifier
+     * @param procName  name of the called procedure
+     * @param procedure procedure to run
+     * @param <T>       type of the procedure result
+     * @return future of the procedure result
+     */
+    public <T> CompletableFuture<T> runInContext(Executor executor, String userId, String procName,
+                                                 Function<CallContext, T> procedure) {
+        return CompletableFuture.supplyAsync(() -> runInContext(userId, procName, procedure), executor);
+    }
+
     /**
      * Stops working of Celesta. After the call the instance of Celesta becomes unusable.
      */
     @Override
     public void close() {
+        if (materializedViewRefresher != null) {
+            materializedViewRefresher.shutdown();
+            try {
+                materializedViewRefresher.awaitTermination(
+                        appSettings.getMaterializedViewRefreshInterval(), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        profiler.close();
         connectionPool.close();
         server.ifPresent(Server::shutdown);
     }
@@ -207,6 +368,12 @@ public final class Celesta implements ICelesta {
         cpc.setJdbcConnectionUrl(appSettings.getDatabaseConnection());
         cpc.setLogin(appSettings.getDBLogin());
         cpc.setPassword(appSettings.getDBPassword());
+        cpc.setMinSize(appSettings.getPoolMinSize());
+        cpc.setMaxSize(appSettings.getPoolMaxSize());
+        cpc.setAcquireTimeout(appSettings.getPoolAcquireTimeout());
+        cpc.setValidationIdleTime(appSettings.getPoolValidationIdleTime());
+        cpc.setMaxLifetime(appSettings.getPoolMaxLifetime());
+        cpc.setLeakDetectionThreshold(appSettings.getPoolLeakDetectionThreshold());
         return new Celesta(appSettings, InternalConnectionPool.create(cpc));
     }
 
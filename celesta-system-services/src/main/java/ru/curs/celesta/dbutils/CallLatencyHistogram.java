@@ -0,0 +1,130 @@
+package ru.curs.celesta.dbutils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of procedure call durations.
+ * <p>
+ * Durations are counted in logarithmic buckets, each power of two being split into
+ * {@value #SUB_BUCKETS} linear sub-buckets, so that percentiles are reported with
+ * a relative error of at most 1/{@value #SUB_BUCKETS}. Recording is wait-free and
+ * does not allocate, so the histogram can be updated by all the threads concurrently.
+ */
+public final class CallLatencyHistogram {
+
+    private static final int SUB_BUCKETS = 8;
+    private static final int SUB_BUCKET_BITS = 3;
+    // Durations less than this value are counted exactly
+    private static final int LINEAR_LIMIT = 2 * SUB_BUCKETS;
+    private static final int BUCKETS = LINEAR_LIMIT + (Long.SIZE - SUB_BUCKET_BITS - 2) * SUB_BUCKETS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNs = new LongAdder();
+    private final AtomicLong maxNs = new AtomicLong();
+
+    /**
+     * Records a call duration.
+     *
+     * @param durationNs  call duration in nanoseconds
+     */
+    public void record(long durationNs) {
+        long v = Math.max(durationNs, 0);
+        buckets.incrementAndGet(bucketIndex(v));
+        count.increment();
+        totalNs.add(v);
+        if (v > maxNs.get()) {
+            maxNs.accumulateAndGet(v, Math::max);
+        }
+    }
+
+    /**
+     * Returns the number of recorded calls.
+     *
+     * @return
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Returns the total duration of recorded calls in nanoseconds.
+     *
+     * @return
+     */
+    public long getTotalNs() {
+        return totalNs.sum();
+    }
+
+    /**
+     * Returns the mean duration of recorded calls in nanoseconds.
+     *
+     * @return
+     */
+    public long getMeanNs() {
+        long n = getCount();
+        return n == 0 ? 0 : getTotalNs() / n;
+    }
+
+    /**
+     * Returns the maximal duration of recorded calls in nanoseconds.
+     *
+     * @return
+     */
+    public long getMaxNs() {
+        return maxNs.get();
+    }
+
+    /**
+     * Returns the duration (in nanoseconds) that the given share of recorded calls
+     * did not exceed, e.g. {@code getPercentileNs(0.99)} for the 99th percentile.
+     *
+     * @param quantile  share of calls, from 0 to 1
+     * @return
+     */
+    public long getPercentileNs(double quantile) {
+        if (quantile < 0 || quantile > 1) {
+            throw new IllegalArgumentException("Quantile should be between 0 and 1: " + quantile);
+        }
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(bucketUpperBound(i), getMaxNs());
+            }
+        }
+        return getMaxNs();
+    }
+
+    static int bucketIndex(long v) {
+        if (v < LINEAR_LIMIT) {
+            return (int) v;
+        }
+        int exp = Long.SIZE - 1 - Long.numberOfLeadingZeros(v);
+        int sub = (int) (v >>> (exp - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return LINEAR_LIMIT + (exp - SUB_BUCKET_BITS - 1) * SUB_BUCKETS + sub;
+    }
+
+    static long bucketUpperBound(int index) {
+        if (index < LINEAR_LIMIT) {
+            return index;
+        }
+        int exp = (index - LINEAR_LIMIT) / SUB_BUCKETS + SUB_BUCKET_BITS + 1;
+        int sub = (index - LINEAR_LIMIT) % SUB_BUCKETS;
+        long lower = (long) (SUB_BUCKETS + sub) << (exp - SUB_BUCKET_BITS);
+        return lower + (1L << (exp - SUB_BUCKET_BITS)) - 1;
+    }
+
+}
@@ -13,6 +13,7 @@ public final class DbUpdaterBuilder {
     private ConnectionPool connectionPool;
     private Score score;
     private boolean forceDdInitialize;
+    private int parallelism = 1;
     private ICelesta celesta;
 
     /**
@@ -64,6 +65,19 @@ public final class DbUpdaterBuilder {
         return this;
     }
 
+    /**
+     * Sets the maximum number of grains updated concurrently.
+     *
+     * @param parallelism  maximum number of grains updated concurrently
+     *                     ({@code 1} - grains are updated one after another)
+     * @return {@code this}
+     */
+    @SuppressWarnings("HiddenField")
+    public DbUpdaterBuilder parallelism(int parallelism) {
+        this.parallelism = parallelism;
+        return this;
+    }
+
     /**
      * Sets Celesta instance.
      *
@@ -81,8 +95,10 @@ public final class DbUpdaterBuilder {
      *
      */
     public DbUpdaterImpl build() {
-        return new DbUpdaterImpl(connectionPool, score, forceDdInitialize,
+        DbUpdaterImpl dbUpdater = new DbUpdaterImpl(connectionPool, score, forceDdInitialize,
                 dbAdaptor, celesta);
+        dbUpdater.setParallelism(parallelism);
+        return dbUpdater;
     }
 
 }
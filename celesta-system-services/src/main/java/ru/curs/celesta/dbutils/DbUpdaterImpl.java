@@ -57,6 +57,11 @@ public final class DbUpdaterImpl extends DbUpdater<CallContext> {
         return new SystemCallContext(celesta);
     }
 
+    @Override
+    protected DbUpdaterImpl copy() {
+        return new DbUpdaterImpl(connectionPool, (Score) score, forceDdInitialize, dbAdaptor, celesta);
+    }
+
     /**
      * Updates the system grain.
      */
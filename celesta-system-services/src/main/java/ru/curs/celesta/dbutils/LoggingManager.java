@@ -1,14 +1,34 @@
 package ru.curs.celesta.dbutils;
 
 import ru.curs.celesta.CallContext;
+import ru.curs.celesta.CelestaException;
 import ru.curs.celesta.ICelesta;
 import ru.curs.celesta.SystemCallContext;
+import ru.curs.celesta.dbutils.adaptors.DBAdaptor;
+import ru.curs.celesta.dbutils.stmt.ParameterSetter;
 import ru.curs.celesta.score.BasicTable;
+import ru.curs.celesta.score.StringColumn;
+import ru.curs.celesta.score.Table;
 import ru.curs.celesta.syscursors.LogCursor;
 import ru.curs.celesta.syscursors.LogsetupCursor;
 
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * Logging manager. Writes to log changed values (if needed).
+ * <p>
+ * If the log buffer size is positive, log entries are not written immediately
+ * in a separate system call context, but are buffered for the call context that
+ * made the changes and written with a batched insert using the context's connection
+ * before its transaction is committed (or when the buffer is full). Thus the log entries
+ * are committed or rolled back along with the logged changes.
  */
 public final class LoggingManager implements ILoggingManager {
     /**
@@ -24,8 +44,14 @@ public final class LoggingManager implements ILoggingManager {
 
     private final ICelesta celesta;
 
+    private final int bufferSize;
+
     private final CacheEntry[] cache = new CacheEntry[CACHE_SIZE];
 
+    private final Map<CallContext, List<Object[]>> buffers = new ConcurrentHashMap<>();
+
+    private volatile BasicTable logTable;
+
     /**
      * Entry of the internal cache.
      */
@@ -61,7 +87,22 @@ public final class LoggingManager implements ILoggingManager {
     }
 
     public LoggingManager(ICelesta celesta) {
+        this(celesta, 0);
+    }
+
+    /**
+     * Creates logging manager.
+     *
+     * @param celesta     Celesta instance
+     * @param bufferSize  maximal number of log entries buffered for a call context
+     *                    (0 means the entries are written immediately)
+     */
+    public LoggingManager(ICelesta celesta, int bufferSize) {
+        if (bufferSize < 0) {
+            throw new CelestaException("Log buffer size should not be negative: %d", bufferSize);
+        }
         this.celesta = celesta;
+        this.bufferSize = bufferSize;
     }
 
     boolean isLoggingNeeded(CallContext sysContext, BasicTable t, Action a) {
@@ -78,6 +119,17 @@ public final class LoggingManager implements ILoggingManager {
         return ce.isLoggingNeeded(a);
     }
 
+    private boolean isLoggingNeeded(BasicTable t, Action a) {
+        CacheEntry ce = cache[CacheEntry.hash(t) & (CACHE_SIZE - 1)];
+        if (ce != null && !ce.isExpired() && ce.table == t) {
+            return ce.isLoggingNeeded(a);
+        }
+        // the system context is opened on a cache miss only
+        try (CallContext sysContext = new SystemCallContext(celesta, "log")) {
+            return isLoggingNeeded(sysContext, t, a);
+        }
+    }
+
     private CacheEntry refreshLogging(CallContext sysContext, BasicTable t) {
         LogsetupCursor logsetup = new LogsetupCursor(sysContext);
         int loggingMask = 0;
@@ -101,11 +153,14 @@ public final class LoggingManager implements ILoggingManager {
         if (a == Action.READ) {
             throw new IllegalArgumentException();
         }
-        // No logging for celesta.grains (this is needed for smooth update from
-        // versions having no recversion fields).
-        if ("celesta".equals(c.meta().getGrain().getName())
-                && ("grains".equals(c.meta().getName())
-                || "tables".equals(c.meta().getName()))) {
+        if (isNeverLogged(c)) {
+            return;
+        }
+
+        if (bufferSize > 0) {
+            if (isLoggingNeeded(c.meta(), a)) {
+                buffer(c, a);
+            }
             return;
         }
 
@@ -117,6 +172,19 @@ public final class LoggingManager implements ILoggingManager {
         }
     }
 
+    @Override
+    public boolean isLoggingNeeded(Cursor c, Action a) {
+        return !isNeverLogged(c) && isLoggingNeeded(c.meta(), a);
+    }
+
+    private static boolean isNeverLogged(Cursor c) {
+        // No logging for celesta.grains (this is needed for smooth update from
+        // versions having no recversion fields).
+        return "celesta".equals(c.meta().getGrain().getName())
+                && ("grains".equals(c.meta().getName())
+                || "tables".equals(c.meta().getName()));
+    }
+
     private void writeToLog(Cursor c, Action a, CallContext sysContext) {
         LogCursor log = new LogCursor(sysContext);
         log.init();
@@ -125,47 +193,130 @@ public final class LoggingManager implements ILoggingManager {
         log.setTablename(c._objectName());
         log.setActionType(a.shortId());
         Object[] o = c._currentKeyValues();
+        log.setPkvalue1(keyValue(o, 0, log.getMaxStrLen(log.COLUMNS.pkvalue1())));
+        log.setPkvalue2(keyValue(o, 1, log.getMaxStrLen(log.COLUMNS.pkvalue2())));
+        log.setPkvalue3(keyValue(o, 2, log.getMaxStrLen(log.COLUMNS.pkvalue3())));
 
-        String value;
-        int len;
-        if (o.length > 0) {
-            value = o[0] == null ? "NULL" : o[0].toString();
-            len = log.getMaxStrLen(log.COLUMNS.pkvalue1());
-            log.setPkvalue1(trimValue(value, len));
-        }
-        if (o.length > 1) {
-            value = o[1] == null ? "NULL" : o[1].toString();
-            len = log.getMaxStrLen(log.COLUMNS.pkvalue2());
-            log.setPkvalue2(trimValue(value, len));
-        }
-        if (o.length > 2) {
-            value = o[2] == null ? "NULL" : o[2].toString();
-            len = log.getMaxStrLen(log.COLUMNS.pkvalue3());
-            log.setPkvalue3(trimValue(value, len));
-        }
-
-        len = log.getMaxStrLen(log.COLUMNS.newvalues());
-        switch (a) {
-            case INSERT:
-                value = c.asCSVLine();
-                log.setNewvalues(trimValue(value, len));
-                break;
-            case MODIFY:
-                value = c.asCSVLine();
-                log.setNewvalues(trimValue(value, len));
-
-                value = c.getXRec().asCSVLine();
-                log.setOldvalues(trimValue(value, len));
-                break;
-            case DELETE:
-                value = c.getXRec().asCSVLine();
-                log.setOldvalues(trimValue(value, len));
-                break;
-            default:
-        }
+        int len = log.getMaxStrLen(log.COLUMNS.newvalues());
+        log.setNewvalues(newValues(c, a, len));
+        log.setOldvalues(oldValues(c, a, len));
         log.insert();
     }
 
+    private void buffer(Cursor c, Action a) {
+        BasicTable t = logTable();
+        Object[] values = new Object[t.getColumns().size()];
+        values[t.getColumnIndex("entry_time")] = new Date();
+        values[t.getColumnIndex("userid")] = c.callContext().getUserId();
+        values[t.getColumnIndex("grainid")] = c.meta().getGrain().getName();
+        values[t.getColumnIndex("tablename")] = c._objectName();
+        values[t.getColumnIndex("action_type")] = a.shortId();
+        Object[] o = c._currentKeyValues();
+        values[t.getColumnIndex("pkvalue1")] = keyValue(o, 0, maxLength(t, "pkvalue1"));
+        values[t.getColumnIndex("pkvalue2")] = keyValue(o, 1, maxLength(t, "pkvalue2"));
+        values[t.getColumnIndex("pkvalue3")] = keyValue(o, 2, maxLength(t, "pkvalue3"));
+        int len = maxLength(t, "newvalues");
+        values[t.getColumnIndex("newvalues")] = newValues(c, a, len);
+        values[t.getColumnIndex("oldvalues")] = oldValues(c, a, len);
+
+        CallContext context = c.callContext();
+        List<Object[]> entries = buffers.computeIfAbsent(context, k -> new ArrayList<>());
+        entries.add(values);
+        if (entries.size() >= bufferSize) {
+            // the buffer is bounded: the caller writes the entries out within its transaction
+            flush(context);
+        }
+    }
+
+    /**
+     * Writes log entries buffered for the call context with a batched insert
+     * using the context's connection.
+     *
+     * @param context  call context
+     */
+    @Override
+    public void flush(CallContext context) {
+        List<Object[]> entries = buffers.remove(context);
+        if (entries == null) {
+            return;
+        }
+        BasicTable t = logTable();
+        DBAdaptor db = context.getDbAdaptor();
+        // consecutive entries with the same nulls mask share the statement,
+        // so that the entries are written in the order of the events
+        try {
+            int from = 0;
+            while (from < entries.size()) {
+                boolean[] nullsMask = nullsMask(entries.get(from));
+                int to = from + 1;
+                while (to < entries.size() && Arrays.equals(nullsMask, nullsMask(entries.get(to)))) {
+                    to++;
+                }
+                List<ParameterSetter> program = new ArrayList<>();
+                try (PreparedStatement stmt = db.getBatchInsertRecordStatement(
+                        context.getConn(), t, nullsMask, program)) {
+                    for (Object[] values : entries.subList(from, to)) {
+                        int i = 1;
+                        for (ParameterSetter f : program) {
+                            f.execute(stmt, i++, values, 0);
+                        }
+                        stmt.addBatch();
+                    }
+                    stmt.executeBatch();
+                }
+                from = to;
+            }
+        } catch (SQLException e) {
+            throw new CelestaException(String.format("Log entries writing failure: %s", e.getMessage()), e);
+        }
+    }
+
+    private static boolean[] nullsMask(Object[] values) {
+        boolean[] nullsMask = new boolean[values.length];
+        for (int i = 0; i < values.length; i++) {
+            nullsMask[i] = values[i] == null;
+        }
+        return nullsMask;
+    }
+
+    /**
+     * Discards log entries buffered for the call context.
+     *
+     * @param context  call context
+     */
+    @Override
+    public void discard(CallContext context) {
+        buffers.remove(context);
+    }
+
+    private BasicTable logTable() {
+        BasicTable t = logTable;
+        if (t == null) {
+            t = celesta.getScore().getGrains().get("celesta").getElements(Table.class).get("log");
+            logTable = t;
+        }
+        return t;
+    }
+
+    private static int maxLength(BasicTable t, String columnName) {
+        return ((StringColumn) t.getColumns().get(columnName)).getLength();
+    }
+
+    private static String keyValue(Object[] keyValues, int i, int len) {
+        if (keyValues.length <= i) {
+            return null;
+        }
+        return trimValue(keyValues[i] == null ? "NULL" : keyValues[i].toString(), len);
+    }
+
+    private static String newValues(Cursor c, Action a, int len) {
+        return a == Action.DELETE ? null : trimValue(c.asCSVLine(), len);
+    }
+
+    private static String oldValues(Cursor c, Action a, int len) {
+        return a == Action.INSERT ? null : trimValue(c.getXRec().asCSVLine(), len);
+    }
+
     private static String trimValue(String value, int len) {
         return value.length() > len ? value.substring(0, len) : value;
     }
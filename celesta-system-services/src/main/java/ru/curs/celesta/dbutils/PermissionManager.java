@@ -5,25 +5,37 @@ import ru.curs.celesta.ICelesta;
 import ru.curs.celesta.SystemCallContext;
 import ru.curs.celesta.score.GrainElement;
 import ru.curs.celesta.syscursors.PermissionsCursor;
+import ru.curs.celesta.syscursors.RolesCursor;
 import ru.curs.celesta.syscursors.UserrolesCursor;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Objects;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Permission manager. It determines if a user has rights for operations with a table.
  * The rights are defined by contents of the system tables for access rights distribution.
  * <p>
- * To optimize work the object contains cache.
+ * To optimize work the object contains a cache of permissions of all the grain elements
+ * per user. The permissions of a user are loaded at once and are invalidated when
+ * <b>celesta.permissions</b>, <b>celesta.roles</b> or <b>celesta.userroles</b> tables
+ * are modified through cursors. Since the tables can also be modified bypassing cursors
+ * (e.g. with {@code deleteAll()} or by other applications), the cache entries also expire.
+ * <p>
+ * Permissions are loaded from the committed data, so while a transaction that modified
+ * the tables is open, the loaded permissions are not cached, and the cache is invalidated
+ * once more when the transaction is completed.
  */
 public final class PermissionManager implements IPermissionManager {
     /**
-     * Cache size (in number of entries). MUST BE POWER OF TWO!!
+     * Maximal number of users whose permissions are cached.
      */
     private static final int CACHE_SIZE = 8192;
-
-    private static final int ROLE_CACHE_SIZE = 2048;
     /**
      * "Shelf life" of a cache entry (in milliseconds).
      */
@@ -34,68 +46,94 @@ public final class PermissionManager implements IPermissionManager {
             | Action.DELETE.getMask();
 
     private final ICelesta celesta;
-    private final PermissionCacheEntry[] cache = new PermissionCacheEntry[CACHE_SIZE];
-    private final RoleCacheEntry[] rolesCache = new RoleCacheEntry[ROLE_CACHE_SIZE];
+    private final Map<String, UserPermissions> cache = new ConcurrentHashMap<>();
+    // Is incremented on each invalidation, so that permissions loaded concurrently are not cached
+    private final AtomicLong generation = new AtomicLong();
+    // Call contexts whose open transactions modified the permissions
+    private final Set<CallContext> modifyingContexts = ConcurrentHashMap.newKeySet();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+    private final LongAdder loadTimeNs = new LongAdder();
 
     /**
-     * Base class for entry of permission manager cache.
+     * Permissions of a user for all the grain elements.
      */
-    private static class BaseCacheEntry {
+    private static final class UserPermissions {
         private final long expirationTime;
+        private final Set<String> readGrains = new HashSet<>();
+        private final Set<String> editGrains = new HashSet<>();
+        // Permission masks by grain name and element name
+        private final Map<String, Map<String, Integer>> masks = new HashMap<>();
+        private boolean reader;
+        private boolean editor;
 
-        BaseCacheEntry() {
+        UserPermissions() {
             expirationTime = System.currentTimeMillis()
                     + CACHE_ENTRY_SHELF_LIFE;
         }
 
-        public boolean isExpired() {
+        boolean isExpired() {
             return System.currentTimeMillis() > expirationTime;
         }
-    }
 
-    /**
-     * Entry of the internal cache.
-     */
-    private static class PermissionCacheEntry extends BaseCacheEntry {
-        private final String userName;
-        private final GrainElement table;
-        private final int permissionMask;
-
-        PermissionCacheEntry(String userName, GrainElement table,
-                                    int permissionMask) {
-            super();
-            this.userName = Objects.requireNonNull(userName);
-            this.table = table;
-            this.permissionMask = permissionMask;
+        /**
+         * Adds a role of the user, returns {@code false} if the role's permissions
+         * are not defined by the permissions table.
+         */
+        boolean addRole(String roleId) {
+            if (READER.equals(roleId)) {
+                reader = true;
+                return false;
+            } else if (EDITOR.equals(roleId)) {
+                editor = true;
+                return false;
+            } else if (roleId.endsWith('.' + READER)) {
+                readGrains.add(roleId.substring(0, roleId.length() - READER.length() - 1));
+            } else if (roleId.endsWith('.' + EDITOR)) {
+                editGrains.add(roleId.substring(0, roleId.length() - EDITOR.length() - 1));
+            }
+            return true;
         }
 
-        public static int hash(String userName, GrainElement table) {
-            return (userName + '|' + table.getGrain().getName() + '|' + table
-                    .getName()).hashCode();
+        void addPermissions(String roleId, String grainName, String elementName, int mask) {
+            if ((grainName + '.' + READER).equals(roleId)) {
+                // the role grants read-only access to its grain
+                return;
+            }
+            masks.computeIfAbsent(grainName, k -> new HashMap<>()).merge(elementName, mask, (a, b) -> a | b);
         }
 
-        public boolean isActionPermitted(Action a) {
-            return (permissionMask & a.getMask()) != 0;
+        int getMask(GrainElement t) {
+            String grainName = t.getGrain().getName();
+            if (editor || editGrains.contains(grainName)) {
+                return FULL_RIGHTS;
+            }
+            int mask = reader || readGrains.contains(grainName) ? Action.READ.getMask() : 0;
+            return mask | masks.getOrDefault(grainName, Collections.emptyMap()).getOrDefault(t.getName(), 0);
         }
-
     }
 
-    /**
-     * User roles entry for the cache.
-     */
-    private static class RoleCacheEntry extends BaseCacheEntry {
-        private final String userId;
-        private final List<String> roles = new ArrayList<>();
+    public PermissionManager(ICelesta celesta) {
+        this.celesta = celesta;
 
-        RoleCacheEntry(String userId) {
-            super();
-            this.userId = userId;
-        }
+        PermissionsCursor.onPostInsert(celesta, c -> invalidateAll(c.callContext()));
+        PermissionsCursor.onPostUpdate(celesta, c -> invalidateAll(c.callContext()));
+        PermissionsCursor.onPostDelete(celesta, c -> invalidateAll(c.callContext()));
+        RolesCursor.onPostUpdate(celesta, c -> invalidateAll(c.callContext()));
+        RolesCursor.onPostDelete(celesta, c -> invalidateAll(c.callContext()));
+        UserrolesCursor.onPostInsert(celesta, c -> invalidate(c.callContext(), c.getUserid()));
+        UserrolesCursor.onPostUpdate(celesta, c -> invalidateAll(c.callContext()));
+        UserrolesCursor.onPostDelete(celesta, c -> invalidate(c.callContext(), c.getUserid()));
     }
 
+    private void invalidate(CallContext modifyingContext, String userId) {
+        modifyingContexts.add(modifyingContext);
+        invalidate(userId);
+    }
 
-    public PermissionManager(ICelesta celesta) {
-        this.celesta = celesta;
+    private void invalidateAll(CallContext modifyingContext) {
+        modifyingContexts.add(modifyingContext);
+        invalidateAll();
     }
 
     /**
@@ -113,67 +151,122 @@ public final class PermissionManager implements IPermissionManager {
             return true;
         }
 
-        // Вычисляем местоположение данных в кэше.
-        int index = PermissionCacheEntry.hash(c.getUserId(), t)
-                & (CACHE_SIZE - 1);
-
-        // Прежде всего смотрим, нет ли в кэше подходящей непросроченной записи
-        // (в противном случае -- обновляем кэш).
-        PermissionCacheEntry ce = cache[index];
-        if (ce == null || ce.isExpired() || ce.table != t
-                || !ce.userName.equals(c.getUserId())) {
-            ce = refreshPermissions(c, t);
-            cache[index] = ce;
+        UserPermissions p = cache.get(c.getUserId());
+        if (p == null || p.isExpired()) {
+            cacheMisses.increment();
+            p = refreshPermissions(c.getUserId());
+        } else {
+            cacheHits.increment();
         }
-        return ce.isActionPermitted(a);
+        return (p.getMask(t) & a.getMask()) != 0;
     }
 
-    private RoleCacheEntry getRce(String userID, CallContext sysContext) {
-        int index = userID.hashCode() & (ROLE_CACHE_SIZE - 1);
-        RoleCacheEntry rce = rolesCache[index];
-        if (rce == null || rce.isExpired() || !rce.userId.equals(userID)) {
-            rce = new RoleCacheEntry(userID);
+    private UserPermissions refreshPermissions(String userId) {
+        long gen = generation.get();
+        long start = System.nanoTime();
+        UserPermissions p = new UserPermissions();
+        try (CallContext sysContext = new SystemCallContext(celesta, "refreshPermissions")) {
             UserrolesCursor userRoles = new UserrolesCursor(sysContext);
-            userRoles.setRange(userRoles.COLUMNS.userid(), userID);
+            userRoles.setRange(userRoles.COLUMNS.userid(), userId);
+            StringBuilder rolesFilter = new StringBuilder();
             while (userRoles.nextInSet()) {
-                rce.roles.add(userRoles.getRoleid());
+                String roleId = userRoles.getRoleid();
+                if (!p.addRole(roleId)) {
+                    continue;
+                }
+                if (rolesFilter.length() > 0) {
+                    rolesFilter.append('|');
+                }
+                rolesFilter.append('\'').append(roleId.replace("'", "''")).append('\'');
             }
-            rolesCache[index] = rce;
-        }
-        return rce;
-    }
 
-    private PermissionCacheEntry refreshPermissions(CallContext c, GrainElement t) {
-        try (CallContext sysContext = new SystemCallContext(celesta, "refreshPermissions")) {
-            RoleCacheEntry rce = getRce(c.getUserId(), sysContext);
-            PermissionsCursor permissions = new PermissionsCursor(sysContext);
-            int permissionsMask = 0;
-            for (String roleId : rce.roles) {
-                if (permissionsMask == FULL_RIGHTS) {
-                    break;
-                }
-                if (READER.equals(roleId)
-                        || (t.getGrain().getName() + '.' + READER)
-                        .equals(roleId)) {
-                    permissionsMask |= Action.READ.getMask();
-                } else if (EDITOR.equals(roleId)
-                        || (t.getGrain().getName() + '.' + EDITOR)
-                        .equals(roleId)) {
-                    permissionsMask = FULL_RIGHTS;
-                } else if (permissions.tryGet(roleId, t.getGrain().getName(),
-                        t.getName())) {
-                    permissionsMask |= permissions.getR() ? Action.READ
-                            .getMask() : 0;
-                    permissionsMask |= permissions.getI() ? Action.INSERT
-                            .getMask() : 0;
-                    permissionsMask |= permissions.getM() ? Action.MODIFY
-                            .getMask() : 0;
-                    permissionsMask |= permissions.getD() ? Action.DELETE
-                            .getMask() : 0;
+            if (rolesFilter.length() > 0) {
+                // permissions of all the user's roles are read with a single query
+                PermissionsCursor permissions = new PermissionsCursor(sysContext);
+                permissions.setFilter(permissions.COLUMNS.roleid(), rolesFilter.toString());
+                while (permissions.nextInSet()) {
+                    int mask = 0;
+                    mask |= permissions.getR() ? Action.READ.getMask() : 0;
+                    mask |= permissions.getI() ? Action.INSERT.getMask() : 0;
+                    mask |= permissions.getM() ? Action.MODIFY.getMask() : 0;
+                    mask |= permissions.getD() ? Action.DELETE.getMask() : 0;
+                    p.addPermissions(permissions.getRoleid(), permissions.getGrainid(),
+                            permissions.getTablename(), mask);
                 }
             }
-            return new PermissionCacheEntry(c.getUserId(), t, permissionsMask);
         }
+        loadTimeNs.add(System.nanoTime() - start);
+
+        if (cache.size() >= CACHE_SIZE) {
+            cache.values().removeIf(UserPermissions::isExpired);
+            if (cache.size() >= CACHE_SIZE) {
+                cache.clear();
+            }
+        }
+        cache.put(userId, p);
+        if (generation.get() != gen || !modifyingContexts.isEmpty()) {
+            // the permissions might have been changed while loading or are being changed
+            cache.remove(userId, p);
+        }
+        return p;
+    }
+
+    /**
+     * Drops cached permissions of the user.
+     *
+     * @param userId  user id
+     */
+    public void invalidate(String userId) {
+        generation.incrementAndGet();
+        cache.remove(userId);
+    }
+
+    /**
+     * Drops cached permissions of all the users.
+     */
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        cache.clear();
+    }
+
+    /**
+     * Drops cached permissions of all the users if the completed transaction modified them,
+     * since permissions loaded before the completion might have been cached.
+     *
+     * @param context  call context
+     */
+    @Override
+    public void transactionCompleted(CallContext context) {
+        if (modifyingContexts.remove(context)) {
+            invalidateAll();
+        }
+    }
+
+    /**
+     * Returns the number of permission checks served from the cache.
+     *
+     * @return
+     */
+    public long getCacheHits() {
+        return cacheHits.sum();
+    }
+
+    /**
+     * Returns the number of permission checks that required loading of the user's permissions.
+     *
+     * @return
+     */
+    public long getCacheMisses() {
+        return cacheMisses.sum();
+    }
+
+    /**
+     * Returns the total time (in nanoseconds) spent on loading users' permissions.
+     *
+     * @return
+     */
+    public long getLoadTimeNs() {
+        return loadTimeNs.sum();
     }
 
 }
@@ -1,21 +1,82 @@
 package ru.curs.celesta.dbutils;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import ru.curs.celesta.CallContext;
 import ru.curs.celesta.Celesta;
+import ru.curs.celesta.CelestaException;
 import ru.curs.celesta.SystemCallContext;
 import ru.curs.celesta.syscursors.CalllogCursor;
 
-import java.time.Duration;
-import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Call profiling manager.
+ * <p>
+ * In the profiling mode calls are written to <em>calllog</em> table. The calls are queued
+ * in memory and written in batches by a background thread, so that closing of a call context
+ * does not wait for the write. Only a share of calls defined by the sampling rate is written,
+ * calls that do not fit into the queue are dropped. Calls of a batch that failed to be written
+ * are dropped as well, so that a call that can't be written does not block writing of the others.
+ * <p>
+ * In the statistics mode latency histograms are collected in memory per procedure name.
  */
 public final class ProfilingManager implements IProfiler {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProfilingManager.class);
+
+    /**
+     * Maximal number of calls waiting to be written to <em>calllog</em>.
+     */
+    private static final int QUEUE_CAPACITY = 10000;
+    /**
+     * Maximal number of calls written in a single transaction.
+     */
+    private static final int BATCH_SIZE = 1000;
+    /**
+     * Delay between writes of queued calls (in milliseconds).
+     */
+    private static final long FLUSH_DELAY = 1000;
+
     private final Celesta celesta;
-    private boolean profilemode = false;
+    private final BlockingQueue<CallRecord> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final Map<String, CallLatencyHistogram> histograms = new ConcurrentHashMap<>();
+    private final LongAdder droppedCalls = new LongAdder();
+    private final ReentrantLock writerLock = new ReentrantLock();
+    private volatile boolean profilemode = false;
+    private volatile boolean statisticsmode = false;
+    private volatile double samplingRate = 1;
+    private ScheduledExecutorService writer;
 
+    /**
+     * Call data to be written to <em>calllog</em>.
+     */
+    private static final class CallRecord {
+        private final String procName;
+        private final String userId;
+        private final Date startTime;
+        private final long durationNs;
+
+        CallRecord(CallContext context) {
+            procName = context.getProcName();
+            userId = context.getUserId();
+            startTime = context.getStartTime();
+            durationNs = context.getDurationNs();
+        }
+    }
 
     public ProfilingManager(Celesta celesta) {
         this.celesta = celesta;
@@ -27,18 +88,96 @@ public final class ProfilingManager implements IProfiler {
      * @param context  call context
      */
     public void logCall(CallContext context) {
-        if (this.profilemode && !NO_LOG.equals(context.getProcName())) {
-            try (CallContext sysContext = new SystemCallContext(celesta)) {
+        if (NO_LOG.equals(context.getProcName())) {
+            return;
+        }
+        if (this.statisticsmode) {
+            histograms.computeIfAbsent(context.getProcName(), k -> new CallLatencyHistogram())
+                    .record(context.getDurationNs());
+        }
+        if (this.profilemode && (samplingRate >= 1 || ThreadLocalRandom.current().nextDouble() < samplingRate)) {
+            if (!queue.offer(new CallRecord(context))) {
+                droppedCalls.increment();
+            }
+        }
+    }
+
+    /**
+     * Writes calls queued for <em>calllog</em> table.
+     */
+    public void flush() {
+        List<CallRecord> records = new ArrayList<>(BATCH_SIZE);
+        while (queue.drainTo(records, BATCH_SIZE) > 0) {
+            try {
+                write(records);
+            } catch (RuntimeException e) {
+                droppedCalls.add(records.size());
+                throw e;
+            }
+            records.clear();
+        }
+    }
+
+    private void write(List<CallRecord> records) {
+        try (CallContext sysContext = new SystemCallContext(celesta)) {
+            try {
                 CalllogCursor clc = new CalllogCursor(sysContext);
-                clc.setProcname(context.getProcName());
-                clc.setUserid(context.getUserId());
-                clc.setStarttime(context.getStartTime());
-                clc.setDuration((int) Duration.ofNanos(context.getDurationNs()).get(ChronoUnit.MILLIS));
-                clc.insert();
+                clc.setBatchSize(BATCH_SIZE);
+                for (CallRecord r : records) {
+                    clc.clear();
+                    clc.setProcname(r.procName);
+                    clc.setUserid(r.userId);
+                    clc.setStarttime(r.startTime);
+                    clc.setDuration((int) TimeUnit.NANOSECONDS.toMillis(r.durationNs));
+                    clc.insertBatch();
+                }
+                clc.flushBatch();
+            } catch (RuntimeException e) {
+                // Closing of the context would commit the records written so far
+                try {
+                    sysContext.rollback();
+                } catch (RuntimeException e1) {
+                    e.addSuppressed(e1);
+                }
+                throw e;
             }
         }
     }
 
+    private boolean flushQuietly() {
+        try {
+            flush();
+            return true;
+        } catch (RuntimeException e) {
+            LOGGER.error("Error while writing to calllog", e);
+            return false;
+        }
+    }
+
+    /**
+     * Stops the background writing of calls, writing the queued ones. Calls that fail
+     * to be written are dropped.
+     */
+    public void close() {
+        writerLock.lock();
+        try {
+            if (writer != null) {
+                writer.shutdown();
+                try {
+                    writer.awaitTermination(FLUSH_DELAY, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                writer = null;
+            }
+        } finally {
+            writerLock.unlock();
+        }
+        if (!flushQuietly()) {
+            droppedCalls.add(queue.drainTo(new ArrayList<>()));
+        }
+    }
+
     /**
      * Whether the profiling mode is on (is the procedures call time logged to
      * <em>calllog</em> table.
@@ -55,7 +194,88 @@ public final class ProfilingManager implements IProfiler {
      * @param profilemode  profiling mode flag ({@code true} - on, {@code false} - off)
      */
     public void setProfilemode(boolean profilemode) {
+        if (profilemode) {
+            writerLock.lock();
+            try {
+                if (writer == null) {
+                    writer = Executors.newSingleThreadScheduledExecutor(r -> {
+                        Thread t = new Thread(r, "celesta-calllog-writer");
+                        t.setDaemon(true);
+                        return t;
+                    });
+                    writer.scheduleWithFixedDelay(this::flushQuietly, FLUSH_DELAY, FLUSH_DELAY,
+                            TimeUnit.MILLISECONDS);
+                }
+            } finally {
+                writerLock.unlock();
+            }
+        }
         this.profilemode = profilemode;
     }
 
+    /**
+     * Returns the share of calls that are written to <em>calllog</em> table in the profiling mode.
+     *
+     * @return
+     */
+    public double getSamplingRate() {
+        return samplingRate;
+    }
+
+    /**
+     * Sets the share of calls that are written to <em>calllog</em> table in the profiling mode.
+     *
+     * @param samplingRate  share of calls, from 0 to 1 (1 by default)
+     */
+    public void setSamplingRate(double samplingRate) {
+        if (samplingRate < 0 || samplingRate > 1) {
+            throw new CelestaException("Sampling rate should be between 0 and 1: %s", samplingRate);
+        }
+        this.samplingRate = samplingRate;
+    }
+
+    /**
+     * Returns the number of calls that were not written to <em>calllog</em> table
+     * since the queue was full or they failed to be written.
+     *
+     * @return
+     */
+    public long getDroppedCalls() {
+        return droppedCalls.sum();
+    }
+
+    /**
+     * Whether the statistics mode is on (are the procedures call latency histograms collected).
+     *
+     * @return
+     */
+    public boolean isStatisticsmode() {
+        return this.statisticsmode;
+    }
+
+    /**
+     * Sets the statistics mode.
+     *
+     * @param statisticsmode  statistics mode flag ({@code true} - on, {@code false} - off)
+     */
+    public void setStatisticsmode(boolean statisticsmode) {
+        this.statisticsmode = statisticsmode;
+    }
+
+    /**
+     * Returns call latency histograms collected in the statistics mode by procedure names.
+     *
+     * @return
+     */
+    public Map<String, CallLatencyHistogram> getCallStatistics() {
+        return Collections.unmodifiableMap(histograms);
+    }
+
+    /**
+     * Drops the collected call latency histograms.
+     */
+    public void resetCallStatistics() {
+        histograms.clear();
+    }
+
 }
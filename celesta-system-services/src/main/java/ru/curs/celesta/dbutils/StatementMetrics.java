@@ -0,0 +1,109 @@
+package ru.curs.celesta.dbutils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.curs.celesta.dbutils.stmt.StatementExecution;
+import ru.curs.celesta.dbutils.stmt.StatementInfo;
+import ru.curs.celesta.dbutils.stmt.StatementKind;
+import ru.curs.celesta.dbutils.stmt.StatementListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collector of statement statistics by grain elements and statement kinds.
+ * <p>
+ * Statements executed longer than the slow query threshold are logged with their SQL,
+ * bound parameters and the name of the procedure of the call context.
+ */
+public final class StatementMetrics implements StatementListener {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StatementMetrics.class);
+
+    private final Map<StatementInfo, StatementStatistics> statistics = new ConcurrentHashMap<>();
+    private volatile long slowQueryThresholdNs;
+
+    /**
+     * Creates the collector.
+     *
+     * @param slowQueryThreshold  slow query threshold in milliseconds (0 switches slow query logging off)
+     */
+    public StatementMetrics(long slowQueryThreshold) {
+        setSlowQueryThreshold(slowQueryThreshold);
+    }
+
+    @Override
+    public void onPrepare(StatementInfo statement) {
+        get(statement).prepared();
+    }
+
+    @Override
+    public void onExecute(StatementInfo statement, StatementExecution execution) {
+        get(statement).executed(execution.getDurationNs(), execution.getUpdateCount());
+        long threshold = slowQueryThresholdNs;
+        if (threshold > 0 && execution.getDurationNs() >= threshold && LOGGER.isWarnEnabled()) {
+            LOGGER.warn("Slow query on {} ({} ms) in procedure {}: {}, parameters: {}",
+                    statement, TimeUnit.NANOSECONDS.toMillis(execution.getDurationNs()),
+                    execution.getProcName(), execution.getSql(), Arrays.toString(execution.getParameters()));
+        }
+    }
+
+    @Override
+    public void onFetch(StatementInfo statement, long rowCount) {
+        get(statement).fetched(rowCount);
+    }
+
+    private StatementStatistics get(StatementInfo statement) {
+        return statistics.computeIfAbsent(statement, StatementStatistics::new);
+    }
+
+    /**
+     * Returns the slow query threshold in milliseconds.
+     *
+     * @return
+     */
+    public long getSlowQueryThreshold() {
+        return TimeUnit.NANOSECONDS.toMillis(slowQueryThresholdNs);
+    }
+
+    /**
+     * Sets the slow query threshold.
+     *
+     * @param slowQueryThreshold  threshold in milliseconds (0 switches slow query logging off)
+     */
+    public void setSlowQueryThreshold(long slowQueryThreshold) {
+        this.slowQueryThresholdNs = TimeUnit.MILLISECONDS.toNanos(slowQueryThreshold);
+    }
+
+    /**
+     * Returns statistics of statements of the given kind executed against the grain element.
+     *
+     * @param element  grain element name qualified with the grain name
+     * @param kind     statement kind
+     * @return {@code null} if no such statements have been executed
+     */
+    public StatementStatistics getStatistics(String element, StatementKind kind) {
+        return statistics.get(new StatementInfo(element, kind));
+    }
+
+    /**
+     * Returns all the collected statistics.
+     *
+     * @return
+     */
+    public Collection<StatementStatistics> getStatistics() {
+        return new ArrayList<>(statistics.values());
+    }
+
+    /**
+     * Drops the collected statistics.
+     */
+    public void reset() {
+        statistics.clear();
+    }
+
+}
@@ -0,0 +1,93 @@
+package ru.curs.celesta.dbutils;
+
+import ru.curs.celesta.dbutils.stmt.StatementInfo;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statistics of statements of a certain kind executed against a grain element.
+ */
+public final class StatementStatistics {
+
+    private final StatementInfo statement;
+    private final LongAdder prepareCount = new LongAdder();
+    private final LongAdder executeCount = new LongAdder();
+    private final LongAdder rowsFetched = new LongAdder();
+    private final LongAdder rowsAffected = new LongAdder();
+    private final CallLatencyHistogram latency = new CallLatencyHistogram();
+
+    StatementStatistics(StatementInfo statement) {
+        this.statement = statement;
+    }
+
+    void prepared() {
+        prepareCount.increment();
+    }
+
+    void executed(long durationNs, long updateCount) {
+        executeCount.increment();
+        latency.record(durationNs);
+        if (updateCount > 0) {
+            rowsAffected.add(updateCount);
+        }
+    }
+
+    void fetched(long rowCount) {
+        rowsFetched.add(rowCount);
+    }
+
+    /**
+     * Returns identification of the statements.
+     *
+     * @return
+     */
+    public StatementInfo getStatement() {
+        return statement;
+    }
+
+    /**
+     * Returns the number of statement preparations.
+     *
+     * @return
+     */
+    public long getPrepareCount() {
+        return prepareCount.sum();
+    }
+
+    /**
+     * Returns the number of statement executions.
+     *
+     * @return
+     */
+    public long getExecuteCount() {
+        return executeCount.sum();
+    }
+
+    /**
+     * Returns the number of records fetched from result sets of the queries.
+     *
+     * @return
+     */
+    public long getRowsFetched() {
+        return rowsFetched.sum();
+    }
+
+    /**
+     * Returns the number of records affected by the data modification statements.
+     *
+     * @return
+     */
+    public long getRowsAffected() {
+        return rowsAffected.sum();
+    }
+
+    /**
+     * Returns histogram of the statement execution durations.
+     *
+     * @return
+     */
+    public CallLatencyHistogram getLatency() {
+        return latency;
+    }
+
+}
@@ -81,6 +81,35 @@ CREATE materialized view mView6 AS
   from table5
   group by f1;
 
+create sequence table6_id;
+
+create table table6 (
+  id int not null default nextval(table6_id) primary key,
+  numb int,
+  var varchar(2) not null
+);
+
+create materialized view mView7 as
+   select var, sum(numb) as s, count(*) as c
+   FROM mView.table6
+   group by var
+   with concurrent refresh;
+
+create sequence table7_id;
+
+create table table7 (
+  id int not null default nextval(table7_id) primary key,
+  numb int,
+  var varchar(2) not null,
+  d datetime not null
+);
+
+create materialized view mView8 as
+   select var, d, sum(numb) as s, count(*) as c
+   FROM mView.table7
+   group by var, d
+   with deferred refresh;
+
 -- This tests creation of a view based on materialized view
 CREATE view viewFromMView as
     select distinct vvv from mView5;
\ No newline at end of file
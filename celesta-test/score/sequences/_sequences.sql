@@ -24,6 +24,9 @@ CREATE SEQUENCE s13 INCREMENT BY -1 CYCLE MINVALUE -1 MAXVALUE 1;
 CREATE SEQUENCE s14 START WITH 5 INCREMENT BY 2 MINVALUE 5 MAXVALUE 56 CYCLE;
 CREATE SEQUENCE s15 START WITH 5 CYCLE MAXVALUE 56 INCREMENT BY 2 MINVALUE 5;
 
+--TEST CACHE
+CREATE SEQUENCE s16 START WITH 3 INCREMENT BY 2 CACHE 4;
+
 CREATE SEQUENCE t1_sequence START WITH 4 INCREMENT BY 2;
 
 CREATE TABLE t1(
@@ -19,6 +19,7 @@ public abstract class AbstractCelestaTest {
         Properties params = new Properties();
         params.setProperty("score.path", scorePath());
         params.setProperty("h2.in-memory", "true");
+        setUpProperties(params);
         celesta = Celesta.createInstance(params);
 
         assertSame(celesta.getSetupProperties(), params);
@@ -28,6 +29,9 @@ public abstract class AbstractCelestaTest {
 
     protected abstract String scorePath();
 
+    protected void setUpProperties(Properties params) {
+    }
+
     public CallContext cc() {
         return cc;
     }
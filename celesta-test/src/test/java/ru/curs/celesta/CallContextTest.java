@@ -4,6 +4,15 @@ import org.junit.jupiter.api.Test;
 import ru.curs.celesta.dbutils.BasicCursor;
 import ru.curs.celesta.syscursors.GrainsCursor;
 import ru.curs.celesta.syscursors.LogsetupCursor;
+import ru.curs.celesta.syscursors.RolesCursor;
+import ru.curs.celesta.syscursors.UserrolesCursor;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static org.junit.jupiter.api.Assertions.assertAll;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -168,4 +177,106 @@ public class CallContextTest extends AbstractCelestaTest {
         assertTrue(activeCtx.getDBPid() != 0);
         assertEquals(0, voidCtx.getDBPid());
     }
+
+    @Test
+    void connectionIsBorrowedLazilyAndKeptAfterTransaction() {
+        ConnectionPool pool = cc().getCelesta().getConnectionPool();
+        int active = pool.getActiveCount();
+        try (CallContext ctx = new SystemCallContext(cc().getCelesta(), "lazy")) {
+            assertEquals(active, pool.getActiveCount());
+            ctx.commit();
+            assertEquals(active, pool.getActiveCount());
+
+            Connection conn = ctx.getConn();
+            assertEquals(active + 1, pool.getActiveCount());
+            ctx.commit();
+            ctx.rollback();
+            assertSame(conn, ctx.getConn());
+            assertEquals(active + 1, pool.getActiveCount());
+        }
+        assertEquals(active, pool.getActiveCount());
+    }
+
+    @Test
+    void runInContextCommitsOrRollsBack() {
+        Celesta celesta = (Celesta) cc().getCelesta();
+        String userId = "ctxuser";
+        new RolesCursor(cc()).setId("editor").tryInsert();
+        new UserrolesCursor(cc()).setUserid(userId).setRoleid("editor").insert();
+        cc().commit();
+
+        assertEquals("ctxrole1", celesta.runInContext(userId, "test", ctx -> {
+            RolesCursor roles = new RolesCursor(ctx);
+            roles.setId("ctxrole1").insert();
+            return roles.getId();
+        }));
+        assertThrows(IllegalStateException.class, () -> celesta.runInContext(userId, "test", ctx -> {
+            new RolesCursor(ctx).setId("ctxrole2").insert();
+            throw new IllegalStateException();
+        }));
+
+        RolesCursor roles = new RolesCursor(cc());
+        assertTrue(roles.tryGet("ctxrole1"));
+        assertFalse(roles.tryGet("ctxrole2"));
+    }
+
+    @Test
+    void batchedRecordsAreDiscardedOnRollback() {
+        try (CallContext ctx = new SystemCallContext(cc().getCelesta(), "batch")) {
+            RolesCursor roles = new RolesCursor(ctx);
+            roles.setId("batchrole1").insertBatch();
+            ctx.rollback();
+            assertEquals(0, roles.getBatchCount());
+        }
+        Celesta celesta = (Celesta) cc().getCelesta();
+        String userId = "batchuser";
+        new RolesCursor(cc()).setId("editor").tryInsert();
+        new UserrolesCursor(cc()).setUserid(userId).setRoleid("editor").insert();
+        cc().commit();
+        assertThrows(IllegalStateException.class, () -> celesta.runInContext(userId, "batch", ctx -> {
+            new RolesCursor(ctx).setId("batchrole2").insertBatch();
+            throw new IllegalStateException();
+        }));
+
+        RolesCursor roles = new RolesCursor(cc());
+        assertFalse(roles.tryGet("batchrole1"));
+        assertFalse(roles.tryGet("batchrole2"));
+    }
+
+    @Test
+    void batchedRecordsAreInsertedOnCommit() {
+        try (CallContext ctx = new SystemCallContext(cc().getCelesta(), "batch")) {
+            RolesCursor roles = new RolesCursor(ctx);
+            roles.setId("batchrole3").insertBatch();
+            ctx.commit();
+            assertEquals(0, roles.getBatchCount());
+            ctx.rollback();
+        }
+
+        assertTrue(new RolesCursor(cc()).tryGet("batchrole3"));
+    }
+
+    @Test
+    void manyConcurrentContextsShareConnectionPool() {
+        Celesta celesta = (Celesta) cc().getCelesta();
+        String userId = cc().getUserId();
+        ConnectionPool pool = celesta.getConnectionPool();
+        int active = pool.getActiveCount();
+        ExecutorService executor = Executors.newFixedThreadPool(64);
+        try {
+            List<CompletableFuture<Integer>> results = new ArrayList<>();
+            for (int i = 0; i < 2000; i++) {
+                results.add(celesta.runInContext(executor, userId, "load", ctx -> {
+                    GrainsCursor grains = new GrainsCursor(ctx);
+                    return grains.count();
+                }));
+            }
+            for (CompletableFuture<Integer> r : results) {
+                assertTrue(r.join() > 0);
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(active, pool.getActiveCount());
+    }
 }
@@ -0,0 +1,47 @@
+package ru.curs.celesta;
+
+import org.junit.jupiter.api.Test;
+import ru.curs.celesta.syscursors.GrainsCursor;
+
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ConnectionReleaseOnCommitTest extends AbstractCelestaTest {
+
+    @Override
+    protected String scorePath() {
+        return "score";
+    }
+
+    @Override
+    protected void setUpProperties(Properties params) {
+        params.setProperty("connection.release.on.commit", "true");
+    }
+
+    @Test
+    void connectionIsBorrowedLazilyAndReleasedAfterTransaction() {
+        ConnectionPool pool = cc().getCelesta().getConnectionPool();
+        int active = pool.getActiveCount();
+        try (CallContext ctx = new SystemCallContext(cc().getCelesta(), "lazy")) {
+            assertEquals(active, pool.getActiveCount());
+            ctx.commit();
+            ctx.rollback();
+            assertEquals(active, pool.getActiveCount());
+
+            GrainsCursor grainsCursor = new GrainsCursor(ctx);
+            assertEquals(active + 1, pool.getActiveCount());
+            ctx.commit();
+            assertEquals(active + 1, pool.getActiveCount());
+
+            grainsCursor.close();
+            ctx.commit();
+            assertEquals(active, pool.getActiveCount());
+
+            assertTrue(ctx.getDBPid() != 0);
+            assertEquals(active + 1, pool.getActiveCount());
+        }
+        assertEquals(active, pool.getActiveCount());
+    }
+}
@@ -8,10 +8,15 @@ import ru.curs.celesta.dbutils.adaptors.ddl.JdbcDdlConsumer;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 import static org.junit.jupiter.api.Assertions.assertAll;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -113,4 +118,124 @@ public class InternalConnectionPoolTest {
         );
     }
 
+    @Test
+    void leaseTimesOutWhenAllConnectionsAreLeased() throws Exception {
+        ConnectionPoolConfiguration bounded = new ConnectionPoolConfiguration();
+        bounded.setJdbcConnectionUrl(cpc.getJdbcConnectionUrl());
+        bounded.setLogin(cpc.getLogin());
+        bounded.setMaxSize(1);
+        bounded.setAcquireTimeout(100);
+        InternalConnectionPool boundedPool = InternalConnectionPool.create(bounded);
+        try {
+            Connection conn1 = boundedPool.get();
+            assertEquals(1, boundedPool.getActiveCount());
+            assertLeaseInOtherThreadFails(boundedPool);
+            assertTrue(boundedPool.getTotalWaitTimeNs() >= 100_000_000L);
+            assertEquals(0, boundedPool.getWaitingCount());
+
+            conn1.close();
+            conn1.close();
+            assertEquals(0, boundedPool.getActiveCount());
+            assertEquals(1, boundedPool.getIdleCount());
+
+            Connection conn2 = boundedPool.get();
+            assertSame(conn1, conn2);
+            conn2.close();
+        } finally {
+            boundedPool.close();
+        }
+    }
+
+    @Test
+    void nestedLeaseDoesNotWaitForOuterConnections() throws Exception {
+        ConnectionPoolConfiguration bounded = new ConnectionPoolConfiguration();
+        bounded.setJdbcConnectionUrl(cpc.getJdbcConnectionUrl());
+        bounded.setLogin(cpc.getLogin());
+        bounded.setMaxSize(1);
+        bounded.setAcquireTimeout(100);
+        InternalConnectionPool boundedPool = InternalConnectionPool.create(bounded);
+        try {
+            Connection outer = boundedPool.get();
+            Connection nested = boundedPool.get();
+            assertNotSame(outer, nested);
+            assertEquals(2, boundedPool.getActiveCount());
+            assertThrows(CelestaException.class, boundedPool::get);
+            assertLeaseInOtherThreadFails(boundedPool);
+
+            nested.close();
+            assertSame(nested, boundedPool.get());
+            nested.close();
+            outer.close();
+            assertEquals(0, boundedPool.getActiveCount());
+
+            Connection next = boundedPool.get();
+            assertLeaseInOtherThreadFails(boundedPool);
+            next.close();
+        } finally {
+            boundedPool.close();
+        }
+    }
+
+    private static void assertLeaseInOtherThreadFails(ConnectionPool pool) {
+        ExecutionException e = assertThrows(ExecutionException.class,
+                () -> CompletableFuture.supplyAsync(pool::get).get());
+        assertInstanceOf(CelestaException.class, e.getCause());
+    }
+
+    @Test
+    void connectionsAreClosedAfterMaxLifetime() throws Exception {
+        ConnectionPoolConfiguration shortLived = new ConnectionPoolConfiguration();
+        shortLived.setJdbcConnectionUrl(cpc.getJdbcConnectionUrl());
+        shortLived.setLogin(cpc.getLogin());
+        shortLived.setMinSize(1);
+        shortLived.setMaxLifetime(1);
+        InternalConnectionPool shortLivedPool = InternalConnectionPool.create(shortLived);
+        try {
+            assertEquals(1, shortLivedPool.getIdleCount());
+            Thread.sleep(5);
+            Connection conn = shortLivedPool.get();
+            assertEquals(0, shortLivedPool.getIdleCount());
+            Thread.sleep(5);
+            conn.close();
+            assertTrue(conn.isClosed());
+            assertEquals(0, shortLivedPool.getActiveCount());
+        } finally {
+            shortLivedPool.close();
+        }
+    }
+
+    @Test
+    void connectionFailedToBeCommittedIsReplacedToKeepMinSize() throws Exception {
+        ConnectionPoolConfiguration minSized = new ConnectionPoolConfiguration();
+        minSized.setJdbcConnectionUrl(cpc.getJdbcConnectionUrl());
+        minSized.setLogin(cpc.getLogin());
+        minSized.setMinSize(2);
+        InternalConnectionPool minSizedPool = InternalConnectionPool.create(minSized);
+        try {
+            assertEquals(2, minSizedPool.getIdleCount());
+            Connection conn = minSizedPool.get();
+            ((CelestaConnection) conn).getConnection().close();
+            conn.close();
+            assertEquals(0, minSizedPool.getActiveCount());
+
+            long deadline = System.currentTimeMillis() + 5000;
+            while (minSizedPool.getIdleCount() < 2 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(2, minSizedPool.getIdleCount());
+            Connection conn1 = minSizedPool.get();
+            Connection conn2 = minSizedPool.get();
+            assertAll(
+                    () -> assertNotSame(conn, conn1),
+                    () -> assertNotSame(conn, conn2),
+                    () -> assertFalse(conn1.isClosed()),
+                    () -> assertFalse(conn2.isClosed())
+            );
+            conn1.close();
+            conn2.close();
+        } finally {
+            minSizedPool.close();
+        }
+    }
+
 }
@@ -4,10 +4,19 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import ru.curs.celesta.AbstractCelestaTest;
+import ru.curs.celesta.Celesta;
 import ru.curs.celesta.CelestaException;
+import ru.curs.celesta.StatementCachingConnection;
+import ru.curs.celesta.dbutils.stmt.StatementKind;
 import ru.curs.celesta.syscursors.LogCursor;
 import cursors.LogSetupTestCursor;
 
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 public class CursorTest extends AbstractCelestaTest {
@@ -17,6 +26,11 @@ public class CursorTest extends AbstractCelestaTest {
         return "score";
     }
 
+    @Override
+    protected void setUpProperties(Properties params) {
+        params.setProperty("statement.cache.size", "64");
+    }
+
     private Cursor c;
 
 
@@ -232,4 +246,237 @@ public class CursorTest extends AbstractCelestaTest {
         assertThrows(CelestaException.class, () -> c.last());
         assertThrows(CelestaException.class, () -> c.getByValuesArray("foo", "bar"));
     }
+
+    @Test
+    void insertBatchInsertsRecordsOnFlush() {
+        LogSetupTestCursor lsc = (LogSetupTestCursor) c;
+        lsc.deleteAll();
+        lsc.setBatchSize(3);
+        for (int i = 0; i < 5; i++) {
+            lsc.clear();
+            lsc.setGrainId("g" + i);
+            lsc.setTableName("t" + i);
+            // alternate nulls masks to check grouping
+            lsc.setI(i % 2 == 0 ? null : true);
+            lsc.insertBatch();
+        }
+
+        // first three records are flushed automatically
+        assertEquals(2, lsc.getBatchCount());
+        lsc.clear();
+        assertEquals(3, lsc.count());
+
+        assertEquals(2, lsc.flushBatch());
+        assertEquals(0, lsc.getBatchCount());
+        assertEquals(5, lsc.count());
+        assertEquals(0, lsc.flushBatch());
+
+        lsc.get("g1", "t1");
+        assertTrue(lsc.getI());
+        lsc.get("g2", "t2");
+        assertNull(lsc.getI());
+    }
+
+    @Test
+    void flushBatchFailsOnDuplicateKey() {
+        LogSetupTestCursor lsc = (LogSetupTestCursor) c;
+        lsc.deleteAll();
+        lsc.setGrainId("g");
+        lsc.setTableName("t");
+        lsc.insertBatch();
+        lsc.insertBatch();
+        assertThrows(CelestaException.class, lsc::flushBatch);
+        assertEquals(0, lsc.getBatchCount());
+        assertThrows(CelestaException.class, () -> lsc.setBatchSize(0));
+    }
+
+    @Test
+    void flushBatchProcessesRecordsInOrderOfAdding() {
+        List<String> inserted = new ArrayList<>();
+        LogSetupTestCursor.onPostInsert(cc().getCelesta(), rec -> inserted.add(rec.getGrainId()));
+        LogSetupTestCursor lsc = (LogSetupTestCursor) c;
+        lsc.deleteAll();
+        lsc.setGrainId("a").setTableName("t").insertBatch();
+        lsc.setGrainId("b").setTableName("t").setI(true).insertBatch();
+        lsc.setGrainId("c").setTableName("t").setI(null).insertBatch();
+
+        assertEquals(3, lsc.flushBatch());
+        assertEquals(Arrays.asList("a", "b", "c"), inserted);
+    }
+
+    @Test
+    void flushBatchIdentifiesRecordsNotInserted() {
+        LogSetupTestCursor lsc = (LogSetupTestCursor) c;
+        lsc.deleteAll();
+        lsc.setGrainId("dup").setTableName("t").insert();
+        lsc.clear();
+        lsc.setGrainId("a").setTableName("1").insertBatch();
+        lsc.setGrainId("b").setTableName("2").setI(true).insertBatch();
+        lsc.setGrainId("dup").setTableName("t").insertBatch();
+
+        CelestaException e = assertThrows(CelestaException.class, lsc::flushBatch);
+        assertTrue(e.getMessage().contains("[dup, t]"), e.getMessage());
+        assertFalse(e.getMessage().contains("[a, 1]"), e.getMessage());
+        // the records of the preceding JDBC batch are inserted
+        assertTrue(lsc.tryGet("a", "1"));
+    }
+
+    @Test
+    void closeFlushesBatch() {
+        LogSetupTestCursor lsc = new LogSetupTestCursor(cc());
+        lsc.deleteAll();
+        lsc.setGrainId("closed").setTableName("t").insertBatch();
+        lsc.close();
+
+        assertTrue(((LogSetupTestCursor) c).tryGet("closed", "t"));
+    }
+
+    @Test
+    void tryInsertPopulatesXRecForExistingRecord() {
+        LogSetupTestCursor lsc = (LogSetupTestCursor) c;
+        lsc.deleteAll();
+        assertFalse(c.canInsertIfAbsent());
+
+        lsc.setGrainId("existing");
+        lsc.setTableName("record");
+        assertTrue(c.canInsertIfAbsent());
+        lsc.setI(true);
+        assertTrue(lsc.tryInsert());
+
+        lsc.setI(false);
+        assertFalse(lsc.tryInsert());
+        assertTrue(((LogSetupTestCursor) lsc.getXRec()).getI());
+        assertEquals(1, lsc.count());
+    }
+
+    @Test
+    void blindUpdateWritesOnlyModifiedFields() {
+        LogSetupTestCursor lsc = (LogSetupTestCursor) c;
+        lsc.setGrainId("blind");
+        lsc.setTableName("update");
+        lsc.setI(true);
+        lsc.setM(true);
+        lsc.insert();
+
+        try (LogSetupTestCursor other = new LogSetupTestCursor(cc())) {
+            lsc.setBlindUpdate(true);
+            lsc.get("blind", "update");
+            int recversion = lsc.getRecversion();
+            other.get("blind", "update");
+
+            lsc.setI(false);
+            c.setValue("d", true);
+            assertTrue(lsc.tryUpdate());
+            assertEquals(recversion + 1, lsc.getRecversion());
+
+            other.get("blind", "update");
+            assertFalse(other.getI());
+            assertTrue(other.getM());
+            assertTrue(other.getD());
+        }
+    }
+
+    @Test
+    void blindUpdateDetectsMissingAndModifiedRecords() {
+        LogSetupTestCursor lsc = (LogSetupTestCursor) c;
+        lsc.setBlindUpdate(true);
+        lsc.setGrainId("blind");
+        lsc.setTableName("missing");
+        lsc.setRecversion(1);
+        lsc.setI(true);
+        assertFalse(lsc.tryUpdate());
+
+        lsc.setTableName("modified");
+        lsc.insert();
+        try (LogSetupTestCursor other = new LogSetupTestCursor(cc())) {
+            other.get("blind", "modified");
+            other.setM(true);
+            other.update();
+        }
+        lsc.setI(false);
+        assertTrue(
+                assertThrows(CelestaException.class, lsc::update)
+                        .getMessage().contains("has been already modified")
+        );
+    }
+
+    @Test
+    void blindUpdateDoesNotReadRecord() {
+        Celesta celesta = (Celesta) cc().getCelesta();
+        StatementMetrics metrics = celesta.getStatementMetrics();
+        celesta.setStatementListener(metrics);
+        try (LogSetupTestCursor lsc = new LogSetupTestCursor(cc())) {
+            lsc.setGrainId("blind");
+            lsc.setTableName("notRead");
+            lsc.setI(true);
+            lsc.insert();
+            metrics.reset();
+
+            lsc.setBlindUpdate(true);
+            lsc.setI(false);
+            assertTrue(lsc.tryUpdate());
+            assertNull(metrics.getStatistics("cursors.log_setup_test", StatementKind.GET));
+        } finally {
+            celesta.setStatementListener(null);
+        }
+    }
+
+    @Test
+    void newCursorReusesStatementsOfClosedOne() {
+        StatementCachingConnection conn = (StatementCachingConnection) cc().getConn();
+        c.count();
+        c.close();
+        long hits = conn.getCacheHits();
+        long misses = conn.getCacheMisses();
+
+        c = new LogSetupTestCursor(cc());
+        c.count();
+        assertEquals(hits + 1, conn.getCacheHits());
+        assertEquals(misses, conn.getCacheMisses());
+    }
+
+    @Test
+    void recordsAreIteratedWithFetchSize() throws SQLException {
+        LogSetupTestCursor lsc = (LogSetupTestCursor) c;
+        for (String tableName : new String[]{"a", "b", "c"}) {
+            lsc.setGrainId("fetch");
+            lsc.setTableName(tableName);
+            lsc.insert();
+        }
+        assertEquals(0, c.getFetchSize());
+        assertThrows(CelestaException.class, () -> c.setFetchSize(-1));
+
+        c.setFetchSize(2);
+        lsc.setRange(lsc.COLUMNS.grainId(), "fetch");
+        int n = 0;
+        while (c.nextInSet()) {
+            n++;
+        }
+        assertEquals(3, n);
+        assertEquals(2, c.set.getStatement(c._currentValues(), 0).getFetchSize());
+    }
+
+    @Test
+    void pageAfterReturnsRecordsFollowingCurrentOne() {
+        LogSetupTestCursor lsc = (LogSetupTestCursor) c;
+        for (String tableName : new String[]{"t1", "t2", "t3", "t4", "t5"}) {
+            lsc.setGrainId("page");
+            lsc.setTableName(tableName);
+            lsc.insert();
+        }
+        lsc.setRange(lsc.COLUMNS.grainId(), "page");
+        assertThrows(CelestaException.class, () -> c.pageAfter(0));
+
+        lsc.setTableName("t2");
+        assertTrue(c.pageAfter(2));
+        assertEquals("t3", lsc.getTableName());
+        assertTrue(c.nextInSet());
+        assertEquals("t4", lsc.getTableName());
+        assertFalse(c.nextInSet());
+
+        assertTrue(c.pageAfter(2));
+        assertEquals("t5", lsc.getTableName());
+        assertFalse(c.nextInSet());
+        assertFalse(c.pageAfter(2));
+    }
 }
@@ -7,6 +7,7 @@ import ru.curs.celesta.BaseAppSettings;
 import ru.curs.celesta.CelestaException;
 import ru.curs.celesta.ConnectionPool;
 import ru.curs.celesta.ConnectionPoolConfiguration;
+import ru.curs.celesta.CurrentScore;
 import ru.curs.celesta.InternalConnectionPool;
 import ru.curs.celesta.dbutils.adaptors.DBAdaptor;
 import ru.curs.celesta.dbutils.adaptors.H2Adaptor;
@@ -16,6 +17,12 @@ import ru.curs.celesta.score.Score;
 import ru.curs.celesta.score.discovery.ScoreByScorePathDiscovery;
 import ru.curs.celesta.test.mock.CelestaImpl;
 
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -53,8 +60,56 @@ public class DbUpdaterTest {
         );
     }
 
+    @Test
+    void testParallelUpdate() throws Exception {
+        DbUpdater<?> dbUpdater = createDbUpdater("db_updater_test/parallelScore", 3);
+        dbUpdater.updateDb();
+
+        Map<String, Long> durations = dbUpdater.getGrainUpdateDurations();
+        assertTrue(durations.keySet().containsAll(Arrays.asList("parent", "child", "independent")));
+        List<String> order = new ArrayList<>(durations.keySet());
+        assertTrue(order.indexOf("parent") < order.indexOf("child"));
+
+        try (Connection conn = connectionPool.get()) {
+            assertTrue(dbUpdater.dbAdaptor.tableExists(conn, "parent", "parentTable"));
+            assertTrue(dbUpdater.dbAdaptor.tableExists(conn, "child", "childTable"));
+            assertTrue(dbUpdater.dbAdaptor.tableExists(conn, "independent", "independentTable"));
+        }
+    }
+
+    @Test
+    void testChangeLogIsDroppedOnlyForDeferredViews() throws Exception {
+        // H2 triggers of materialized views take the score from the initializing thread
+        DbUpdater<?> dbUpdater = createDbUpdater("db_updater_test/changeLogScore1");
+        CurrentScore.set(dbUpdater.score);
+        dbUpdater.updateDb();
+
+        try (Connection conn = connectionPool.get()) {
+            assertTrue(dbUpdater.dbAdaptor.tableExists(conn, "mvlog", "byRegionDeferred_log"));
+            conn.createStatement().execute("insert into \"mvlog\".\"byRegion_log\" (\"id\") values (1)");
+            connectionPool.commit(conn);
+        }
+        connectionPool.close();
+
+        // Both views are recreated: the first one with a new column, the second one with immediate refresh
+        dbUpdater = createDbUpdater("db_updater_test/changeLogScore2");
+        CurrentScore.set(dbUpdater.score);
+        dbUpdater.updateDb();
+
+        try (Connection conn = connectionPool.get()) {
+            assertFalse(dbUpdater.dbAdaptor.tableExists(conn, "mvlog", "byRegionDeferred_log"));
+            ResultSet rs = conn.createStatement().executeQuery("select count(*) from \"mvlog\".\"byRegion_log\"");
+            rs.next();
+            assertEquals(1, rs.getInt(1));
+        }
+    }
+
 
     private DbUpdater<?> createDbUpdater(String scoreResourcePath) throws Exception {
+        return createDbUpdater(scoreResourcePath, 1);
+    }
+
+    private DbUpdater<?> createDbUpdater(String scoreResourcePath, int parallelism) throws Exception {
         String scorePath = getClass().getResource(scoreResourcePath).getPath();
 
         Properties params = new Properties();
@@ -84,6 +139,7 @@ public class DbUpdaterTest {
                 .connectionPool(this.connectionPool)
                 .score(score)
                 .setCelesta(celesta)
+                .parallelism(parallelism)
                 .build();
 
         return dbUpdater;
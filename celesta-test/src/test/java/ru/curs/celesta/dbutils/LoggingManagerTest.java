@@ -0,0 +1,159 @@
+package ru.curs.celesta.dbutils;
+
+import cursors.LogSetupTestCursor;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import ru.curs.celesta.CallContext;
+import ru.curs.celesta.Celesta;
+import ru.curs.celesta.CelestaException;
+import ru.curs.celesta.SystemCallContext;
+import ru.curs.celesta.syscursors.LogCursor;
+import ru.curs.celesta.syscursors.LogsetupCursor;
+
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class LoggingManagerTest {
+
+    private Celesta celesta;
+
+    @BeforeAll
+    void setUp() {
+        Properties params = new Properties();
+        params.setProperty("score.path", "score");
+        params.setProperty("h2.in-memory", "true");
+        params.setProperty("log.buffer.size", "3");
+        celesta = Celesta.createInstance(params);
+
+        try (CallContext cc = new SystemCallContext(celesta, "setUp")) {
+            LogsetupCursor logsetup = new LogsetupCursor(cc);
+            logsetup.setGrainid("cursors").setTablename("log_setup_test").setI(true).setM(true).setD(true);
+            logsetup.insert();
+        }
+    }
+
+    @AfterAll
+    void tearDown() {
+        try {
+            celesta.getConnectionPool().get().createStatement().execute("SHUTDOWN");
+            celesta.close();
+        } catch (Exception e) {
+            throw new CelestaException(e);
+        }
+    }
+
+    @Test
+    void bufferedEntriesAreWrittenOnCommit() {
+        try (CallContext cc = new SystemCallContext(celesta, "commit")) {
+            LogSetupTestCursor c = new LogSetupTestCursor(cc);
+            LogCursor log = new LogCursor(cc);
+            log.setRange(log.COLUMNS.pkvalue1(), "commit");
+
+            c.setGrainId("commit").setTableName("t1").insert();
+            assertEquals(0, log.count());
+            c.setI(true);
+            c.update();
+            assertEquals(0, log.count());
+            c.delete();
+            // the buffer is full: the entries are written within the transaction
+            assertEquals(3, log.count());
+
+            cc.commit();
+            assertEquals(3, log.count());
+
+            log.orderBy(log.COLUMNS.entryno());
+            log.first();
+            assertEquals(Action.INSERT.shortId(), log.getActionType());
+            assertEquals("t1", log.getPkvalue2());
+            assertNull(log.getPkvalue3());
+            assertNull(log.getOldvalues());
+            assertNotNull(log.getNewvalues());
+            assertNotNull(log.getEntryTime());
+            log.next();
+            assertEquals(Action.MODIFY.shortId(), log.getActionType());
+            assertNotNull(log.getOldvalues());
+            assertNotNull(log.getNewvalues());
+            log.next();
+            assertEquals(Action.DELETE.shortId(), log.getActionType());
+            assertNull(log.getNewvalues());
+        }
+    }
+
+    @Test
+    void bufferedEntriesAreWrittenInOrderOfEvents() {
+        try (CallContext cc = new SystemCallContext(celesta, "order")) {
+            LogSetupTestCursor c = new LogSetupTestCursor(cc);
+            c.setGrainId("order").setTableName("t1").insert();
+            c.delete();
+            c.setGrainId("order").setTableName("t1").insert();
+            // the entries with different nulls masks are written with a single flush
+            cc.commit();
+
+            LogCursor log = new LogCursor(cc);
+            log.setRange(log.COLUMNS.pkvalue1(), "order");
+            log.orderBy(log.COLUMNS.entryno());
+            assertEquals(3, log.count());
+            log.first();
+            assertEquals(Action.INSERT.shortId(), log.getActionType());
+            log.next();
+            assertEquals(Action.DELETE.shortId(), log.getActionType());
+            log.next();
+            assertEquals(Action.INSERT.shortId(), log.getActionType());
+        }
+    }
+
+    @Test
+    void bufferedEntriesAreDiscardedOnRollback() {
+        try (CallContext cc = new SystemCallContext(celesta, "rollback")) {
+            LogSetupTestCursor c = new LogSetupTestCursor(cc);
+            c.setGrainId("rollback").setTableName("t1").insert();
+            cc.rollback();
+
+            LogCursor log = new LogCursor(cc);
+            log.setRange(log.COLUMNS.pkvalue1(), "rollback");
+            assertEquals(0, log.count());
+            cc.commit();
+            assertEquals(0, log.count());
+        }
+    }
+
+    @Test
+    void bufferedEntriesAreWrittenOnClose() {
+        try (CallContext cc = new SystemCallContext(celesta, "close")) {
+            LogSetupTestCursor c = new LogSetupTestCursor(cc);
+            c.setGrainId("close").setTableName("t1").insert();
+        }
+        try (CallContext cc = new SystemCallContext(celesta, "check")) {
+            LogCursor log = new LogCursor(cc);
+            log.setRange(log.COLUMNS.pkvalue1(), "close");
+            assertEquals(1, log.count());
+        }
+    }
+
+    @Test
+    void blindUpdateOfLoggedTableLogsValuesReadFromDb() {
+        try (CallContext cc = new SystemCallContext(celesta, "blind")) {
+            LogSetupTestCursor c = new LogSetupTestCursor(cc);
+            c.setGrainId("blind").setTableName("t1").setI(false).insert();
+            String oldValues = c.getXRec().asCSVLine();
+
+            LogSetupTestCursor blind = new LogSetupTestCursor(cc);
+            blind.setBlindUpdate(true);
+            blind.setGrainId("blind").setTableName("t1");
+            blind.setRecversion(c.getRecversion());
+            blind.setI(true);
+            blind.update();
+            cc.commit();
+
+            LogCursor log = new LogCursor(cc);
+            log.setRange(log.COLUMNS.pkvalue1(), "blind");
+            log.setRange(log.COLUMNS.actionType(), Action.MODIFY.shortId());
+            assertTrue(log.tryFirst());
+            assertEquals(oldValues, log.getOldvalues());
+        }
+    }
+}
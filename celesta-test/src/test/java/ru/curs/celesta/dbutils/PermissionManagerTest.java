@@ -0,0 +1,83 @@
+package ru.curs.celesta.dbutils;
+
+import cursors.LogSetupTestCursor;
+import org.junit.jupiter.api.Test;
+import ru.curs.celesta.AbstractCelestaTest;
+import ru.curs.celesta.CallContext;
+import ru.curs.celesta.score.GrainElement;
+import ru.curs.celesta.syscursors.PermissionsCursor;
+import ru.curs.celesta.syscursors.RolesCursor;
+import ru.curs.celesta.syscursors.UserrolesCursor;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PermissionManagerTest extends AbstractCelestaTest {
+
+    @Override
+    protected String scorePath() {
+        return "score";
+    }
+
+    @Test
+    void permissionsAreCachedAndInvalidatedOnChange() {
+        PermissionManager pm = (PermissionManager) cc().getCelesta().getPermissionManager();
+        GrainElement t = new LogSetupTestCursor(cc()).meta();
+
+        try (CallContext userContext = new CallContext("pmuser", cc().getCelesta(), "test")) {
+            long misses = pm.getCacheMisses();
+            long hits = pm.getCacheHits();
+            assertFalse(pm.isActionAllowed(userContext, t, Action.READ));
+            assertFalse(pm.isActionAllowed(userContext, t, Action.INSERT));
+            assertEquals(misses + 1, pm.getCacheMisses());
+            assertEquals(hits + 1, pm.getCacheHits());
+            assertTrue(pm.getLoadTimeNs() > 0);
+
+            new RolesCursor(cc()).setId("pmrole").insert();
+            UserrolesCursor userRoles = new UserrolesCursor(cc());
+            userRoles.setUserid("pmuser").setRoleid("pmrole").insert();
+            PermissionsCursor permissions = new PermissionsCursor(cc());
+            permissions.setRoleid("pmrole").setGrainid("cursors").setTablename("log_setup_test")
+                    .setR(true).setI(false).setM(false).setD(false);
+            permissions.insert();
+            cc().commit();
+            assertTrue(pm.isActionAllowed(userContext, t, Action.READ));
+            assertFalse(pm.isActionAllowed(userContext, t, Action.INSERT));
+
+            permissions.setI(true);
+            permissions.update();
+            cc().commit();
+            assertTrue(pm.isActionAllowed(userContext, t, Action.INSERT));
+            assertFalse(pm.isActionAllowed(userContext, t, Action.DELETE));
+
+            userRoles.delete();
+            cc().commit();
+            assertFalse(pm.isActionAllowed(userContext, t, Action.READ));
+
+            new RolesCursor(cc()).setId("cursors.editor").insert();
+            userRoles.setUserid("pmuser").setRoleid("cursors.editor").insert();
+            cc().commit();
+            assertTrue(pm.isActionAllowed(userContext, t, Action.DELETE));
+        }
+    }
+
+    @Test
+    void permissionsLoadedBeforeCommitAreNotCached() {
+        PermissionManager pm = (PermissionManager) cc().getCelesta().getPermissionManager();
+        GrainElement t = new LogSetupTestCursor(cc()).meta();
+
+        try (CallContext userContext = new CallContext("pmuser2", cc().getCelesta(), "test")) {
+            new RolesCursor(cc()).setId("pmrole2").insert();
+            new UserrolesCursor(cc()).setUserid("pmuser2").setRoleid("pmrole2").insert();
+            PermissionsCursor permissions = new PermissionsCursor(cc());
+            permissions.setRoleid("pmrole2").setGrainid("cursors").setTablename("log_setup_test")
+                    .setR(true).setI(false).setM(false).setD(false);
+            permissions.insert();
+            // the permissions are loaded from the committed data
+            assertFalse(pm.isActionAllowed(userContext, t, Action.READ));
+            assertFalse(pm.isActionAllowed(userContext, t, Action.READ));
+
+            cc().commit();
+            assertTrue(pm.isActionAllowed(userContext, t, Action.READ));
+        }
+    }
+}
@@ -107,6 +107,39 @@ public class PreparedStatementHolderTest {
         assertEquals("[1->37.8][2->16]", s2.params);
     }
 
+    @Test
+    public void maskedHolderReusesStatementsForRecurringMasks() {
+        B b = new B(2);
+        Integer[] rec1 = { 11, 12, 13, 14, 15 };
+        Integer[] rec2 = { 11, null, 13, 14, 15 };
+        Integer[] rec3 = { 11, 12, 13, null, 15 };
+
+        DummyPreparedStatement s1 = (DummyPreparedStatement) b.getStatement(rec1, 0);
+        DummyPreparedStatement s2 = (DummyPreparedStatement) b.getStatement(rec2, 0);
+        assertNotSame(s1, s2);
+        assertFalse(s1.isClosed());
+        s1.params = "";
+        assertSame(s1, b.getStatement(rec1, 0));
+        assertEquals("[1->12][2->14][3->13]", s1.params);
+        assertArrayEquals(new boolean[]{false, false}, b.getNullsMask());
+        assertSame(s2, b.getStatement(rec2, 0));
+        assertArrayEquals(new boolean[]{true, false}, b.getNullsMask());
+        assertEquals(2, b.getCacheHits());
+        assertEquals(2, b.getCacheMisses());
+
+        // the least recently used statement is evicted and closed
+        DummyPreparedStatement s3 = (DummyPreparedStatement) b.getStatement(rec3, 0);
+        assertTrue(s1.isClosed());
+        assertFalse(s2.isClosed());
+        assertNotSame(s1, b.getStatement(rec1, 0));
+        assertEquals(4, b.getCacheMisses());
+
+        b.close();
+        assertTrue(s2.isClosed());
+        assertTrue(s3.isClosed());
+        assertFalse(b.isStmtValid());
+    }
+
     static class A extends PreparedStmtHolder {
 
         SingleValue filter = new SingleValue(5);
@@ -124,6 +157,13 @@ public class PreparedStatementHolderTest {
 
     static class B extends MaskedStatementHolder {
 
+        B() {
+        }
+
+        B(int cacheSize) {
+            super(cacheSize);
+        }
+
         @Override
         protected int[] getNullsMaskIndices() {
             return new int[] { 1, 3 };
@@ -0,0 +1,114 @@
+package ru.curs.celesta.dbutils;
+
+import org.junit.jupiter.api.Test;
+import ru.curs.celesta.AbstractCelestaTest;
+import ru.curs.celesta.CallContext;
+import ru.curs.celesta.Celesta;
+import ru.curs.celesta.CelestaException;
+import ru.curs.celesta.syscursors.CalllogCursor;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProfilingManagerTest extends AbstractCelestaTest {
+
+    @Override
+    protected String scorePath() {
+        return "score";
+    }
+
+    @Test
+    void histogramReportsPercentiles() {
+        CallLatencyHistogram h = new CallLatencyHistogram();
+        assertEquals(0, h.getPercentileNs(0.5));
+        for (int i = 1; i <= 1000; i++) {
+            h.record(i * 1000L);
+        }
+        assertEquals(1000, h.getCount());
+        assertEquals(1_000_000, h.getMaxNs());
+        assertEquals(500_500, h.getMeanNs());
+
+        long p50 = h.getPercentileNs(0.5);
+        assertTrue(p50 >= 500_000 && p50 <= 500_000 * 9 / 8, String.valueOf(p50));
+        long p99 = h.getPercentileNs(0.99);
+        assertTrue(p99 >= 990_000 && p99 <= 1_000_000, String.valueOf(p99));
+        assertEquals(1_000_000, h.getPercentileNs(1));
+        assertThrows(IllegalArgumentException.class, () -> h.getPercentileNs(1.5));
+    }
+
+    @Test
+    void histogramBucketsCoverAllValues() {
+        long[] values = {0, 1, 15, 16, 17, 31, 32, 1000, Long.MAX_VALUE};
+        for (long v : values) {
+            int i = CallLatencyHistogram.bucketIndex(v);
+            assertTrue(CallLatencyHistogram.bucketUpperBound(i) >= v);
+            assertTrue(i == 0 || CallLatencyHistogram.bucketUpperBound(i - 1) < v);
+        }
+    }
+
+    @Test
+    void callsAreCollectedInStatisticsMode() {
+        ProfilingManager profiler = ((Celesta) cc().getCelesta()).getProfilingManager();
+        profiler.setStatisticsmode(true);
+        try {
+            for (int i = 0; i < 3; i++) {
+                new CallContext("user", cc().getCelesta(), "statproc").close();
+            }
+        } finally {
+            profiler.setStatisticsmode(false);
+        }
+        new CallContext("user", cc().getCelesta(), "statproc").close();
+
+        CallLatencyHistogram h = profiler.getCallStatistics().get("statproc");
+        assertEquals(3, h.getCount());
+        assertTrue(h.getMaxNs() > 0);
+        profiler.resetCallStatistics();
+        assertNull(profiler.getCallStatistics().get("statproc"));
+    }
+
+    @Test
+    void sampledCallsAreWrittenToCalllog() {
+        ProfilingManager profiler = ((Celesta) cc().getCelesta()).getProfilingManager();
+        long dropped = profiler.getDroppedCalls();
+        assertThrows(CelestaException.class, () -> profiler.setSamplingRate(2));
+        profiler.setProfilemode(true);
+        try {
+            new CallContext("user", cc().getCelesta(), "logproc").close();
+            profiler.setSamplingRate(0);
+            new CallContext("user", cc().getCelesta(), "logproc").close();
+        } finally {
+            profiler.setProfilemode(false);
+            profiler.setSamplingRate(1);
+        }
+        profiler.flush();
+
+        CalllogCursor calllog = new CalllogCursor(cc());
+        calllog.setRange(calllog.COLUMNS.procname(), "logproc");
+        assertEquals(1, calllog.count());
+        assertEquals(dropped, profiler.getDroppedCalls());
+    }
+
+    @Test
+    void callsOfFailedBatchAreDropped() {
+        ProfilingManager profiler = ((Celesta) cc().getCelesta()).getProfilingManager();
+        // Stops the background writing started by the other tests, so that the calls are flushed below
+        profiler.close();
+        long dropped = profiler.getDroppedCalls();
+        profiler.setProfilemode(true);
+        try {
+            new CallContext("user", cc().getCelesta(), "failedproc").close();
+            // Doesn't fit into procname column
+            new CallContext("user", cc().getCelesta(), "x".repeat(300)).close();
+            assertThrows(CelestaException.class, profiler::flush);
+            assertEquals(dropped + 2, profiler.getDroppedCalls());
+
+            new CallContext("user", cc().getCelesta(), "failedproc").close();
+        } finally {
+            profiler.setProfilemode(false);
+        }
+        profiler.flush();
+
+        CalllogCursor calllog = new CalllogCursor(cc());
+        calllog.setRange(calllog.COLUMNS.procname(), "failedproc");
+        assertEquals(1, calllog.count());
+    }
+}
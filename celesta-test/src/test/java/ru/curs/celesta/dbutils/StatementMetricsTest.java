@@ -0,0 +1,153 @@
+package ru.curs.celesta.dbutils;
+
+import cursors.LogSetupTestCursor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.curs.celesta.AbstractCelestaTest;
+import ru.curs.celesta.Celesta;
+import ru.curs.celesta.dbutils.stmt.StatementExecution;
+import ru.curs.celesta.dbutils.stmt.StatementInfo;
+import ru.curs.celesta.dbutils.stmt.StatementKind;
+import ru.curs.celesta.dbutils.stmt.StatementListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StatementMetricsTest extends AbstractCelestaTest {
+
+    private static final String ELEMENT = "cursors.log_setup_test";
+
+    @Override
+    protected String scorePath() {
+        return "score";
+    }
+
+    private Celesta celesta() {
+        return (Celesta) cc().getCelesta();
+    }
+
+    @BeforeEach
+    void clearTable() {
+        new LogSetupTestCursor(cc()).deleteAll();
+    }
+
+    @AfterEach
+    void resetListener() {
+        celesta().setStatementListener(null);
+    }
+
+    private void insert(LogSetupTestCursor c, String tableName) {
+        c.clear();
+        c.setGrainId("g").setTableName(tableName).setI(true);
+        c.insert();
+    }
+
+    @Test
+    void statisticsAreCollectedByElementAndKind() {
+        StatementMetrics metrics = celesta().getStatementMetrics();
+        metrics.reset();
+        celesta().setStatementListener(metrics);
+
+        LogSetupTestCursor c = new LogSetupTestCursor(cc());
+        insert(c, "t1");
+        insert(c, "t2");
+        insert(c, "t3");
+        c.clear();
+        int fetched = 0;
+        if (c.tryFindSet()) {
+            do {
+                fetched++;
+            } while (c.nextInSet());
+        }
+        c.setRange(c.COLUMNS.tableName(), "t1");
+        c.deleteAll();
+        c.close();
+
+        StatementStatistics inserts = metrics.getStatistics(ELEMENT, StatementKind.INSERT);
+        assertEquals(1, inserts.getPrepareCount());
+        assertEquals(3, inserts.getExecuteCount());
+        assertEquals(3, inserts.getLatency().getCount());
+
+        StatementStatistics sets = metrics.getStatistics(ELEMENT, StatementKind.SET);
+        assertEquals(1, sets.getExecuteCount());
+        assertEquals(3, fetched);
+        assertEquals(3, sets.getRowsFetched());
+
+        StatementStatistics deletes = metrics.getStatistics(ELEMENT, StatementKind.DELETE);
+        assertEquals(1, deletes.getRowsAffected());
+        assertNull(metrics.getStatistics(ELEMENT, StatementKind.UPDATE));
+    }
+
+    @Test
+    void executionsAreReportedWithParametersAndProcName() {
+        List<StatementExecution> executions = new ArrayList<>();
+        List<Object[]> parameters = new ArrayList<>();
+        celesta().setStatementListener(new StatementListener() {
+            @Override
+            public void onPrepare(StatementInfo statement) {
+            }
+
+            @Override
+            public void onExecute(StatementInfo statement, StatementExecution execution) {
+                if (statement.getKind() == StatementKind.GET) {
+                    executions.add(execution);
+                    parameters.add(execution.getParameters());
+                }
+            }
+
+            @Override
+            public void onFetch(StatementInfo statement, long rowCount) {
+            }
+        });
+
+        LogSetupTestCursor c = new LogSetupTestCursor(cc());
+        insert(c, "t1");
+        executions.clear();
+        parameters.clear();
+        assertTrue(c.tryGet("g", "t1"));
+        assertFalse(c.tryGet("g", "t2"));
+
+        assertEquals(2, executions.size());
+        assertEquals(cc().getProcName(), executions.get(0).getProcName());
+        assertEquals(-1, executions.get(0).getUpdateCount());
+        assertTrue(executions.get(0).getSql().toLowerCase().startsWith("select"));
+        assertTrue(executions.get(0).getSql().contains("log_setup_test"));
+        assertTrue(Arrays.asList(parameters.get(0)).containsAll(Arrays.asList("g", "t1")));
+        assertTrue(Arrays.asList(parameters.get(1)).contains("t2"));
+    }
+
+    @Test
+    void batchIsReportedAsSingleExecution() {
+        StatementMetrics metrics = celesta().getStatementMetrics();
+        metrics.reset();
+        celesta().setStatementListener(metrics);
+
+        LogSetupTestCursor c = new LogSetupTestCursor(cc());
+        c.setBatchSize(10);
+        for (String tableName : Arrays.asList("t1", "t2", "t3")) {
+            c.clear();
+            c.setGrainId("g").setTableName(tableName).setI(true);
+            c.insertBatch();
+        }
+        c.flushBatch();
+        c.close();
+
+        StatementStatistics inserts = metrics.getStatistics(ELEMENT, StatementKind.INSERT);
+        assertEquals(1, inserts.getExecuteCount());
+        assertEquals(3, inserts.getRowsAffected());
+    }
+
+    @Test
+    void statementsAreNotReportedWithoutListener() {
+        StatementMetrics metrics = celesta().getStatementMetrics();
+        metrics.reset();
+
+        LogSetupTestCursor c = new LogSetupTestCursor(cc());
+        insert(c, "t1");
+        assertTrue(metrics.getStatistics().isEmpty());
+    }
+}
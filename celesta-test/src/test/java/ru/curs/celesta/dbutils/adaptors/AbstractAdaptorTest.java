@@ -10,11 +10,13 @@ import ru.curs.celesta.dbutils.BLOB;
 import ru.curs.celesta.dbutils.DbUpdater;
 import ru.curs.celesta.dbutils.DbUpdaterBuilder;
 import ru.curs.celesta.dbutils.DbUpdaterImpl;
+import ru.curs.celesta.dbutils.SequenceValueAllocator;
 import ru.curs.celesta.dbutils.meta.DbColumnInfo;
 import ru.curs.celesta.dbutils.meta.DbFkInfo;
 import ru.curs.celesta.dbutils.meta.DbIndexInfo;
 import ru.curs.celesta.dbutils.meta.DbPkInfo;
 import ru.curs.celesta.dbutils.meta.DbSequenceInfo;
+import ru.curs.celesta.dbutils.meta.DbSnapshot;
 import ru.curs.celesta.dbutils.query.FromClause;
 import ru.curs.celesta.dbutils.stmt.ParameterSetter;
 import ru.curs.celesta.dbutils.term.WhereTerm;
@@ -59,6 +61,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -1182,6 +1185,50 @@ public abstract class AbstractAdaptorTest {
         }
     }
 
+    @Test
+    public void getSnapshot() throws ParseException {
+        Grain g = score.getGrain(GRAIN_NAME);
+        SequenceElement ts = g.getElement("test_id", SequenceElement.class);
+        DbSnapshot snapshot = dba.getSnapshot(conn, g);
+
+        assertTrue(snapshot.tableExists(t.getName()));
+        assertEquals(dba.getColumns(conn, t), new HashSet<>(snapshot.getColumns(t)));
+        for (Column<?> c : t.getColumns().values()) {
+            DbColumnInfo expected = dba.getColumnInfo(conn, c);
+            DbColumnInfo actual = snapshot.getColumnInfo(c);
+            assertNotNull(actual, c.getName());
+            assertEquals(expected.getType(), actual.getType(), c.getName());
+            assertEquals(expected.isNullable(), actual.isNullable(), c.getName());
+            assertEquals(expected.getDefaultValue(), actual.getDefaultValue(), c.getName());
+            assertEquals(expected.getLength(), actual.getLength(), c.getName());
+            assertEquals(expected.getScale(), actual.getScale(), c.getName());
+            assertEquals(expected.isMax(), actual.isMax(), c.getName());
+        }
+
+        DbPkInfo pkInfo = snapshot.getPKInfo(t);
+        assertEquals(dba.pkConstraintString(t), pkInfo.getName());
+        assertEquals(dba.getPKInfo(conn, t).getColumnNames(), pkInfo.getColumnNames());
+        assertTrue(pkInfo.reflects(t));
+
+        assertEquals(dba.getIndices(conn, g).keySet(), snapshot.getIndices().keySet());
+        assertEquals(dba.getFKInfo(conn, g).size(), snapshot.getFKInfo().size());
+
+        assertTrue(snapshot.sequenceExists(ts.getName()));
+        DbSequenceInfo expectedSequence = dba.getSequenceInfo(conn, ts);
+        DbSequenceInfo actualSequence = snapshot.getSequenceInfo(ts.getName());
+        assertEquals(expectedSequence.getIncrementBy(), actualSequence.getIncrementBy());
+        assertEquals(expectedSequence.getMinValue(), actualSequence.getMinValue());
+        assertEquals(expectedSequence.getMaxValue(), actualSequence.getMaxValue());
+        assertEquals(expectedSequence.isCycle(), actualSequence.isCycle());
+
+        dba.dropTable(conn, t);
+        snapshot = dba.getSnapshot(conn, g);
+        assertFalse(snapshot.tableExists(t.getName()));
+        assertTrue(snapshot.getColumns(t).isEmpty());
+        assertNull(snapshot.getColumnInfo(t.getColumn("id")));
+        assertTrue(snapshot.getPKInfo(t).isEmpty());
+    }
+
     @Test
     public void additionalFKTest() throws ParseException {
         Grain g = score.getGrain(GRAIN_NAME);
@@ -1666,6 +1713,32 @@ public abstract class AbstractAdaptorTest {
         dba.dropSequence(conn, sequence);
     }
 
+    @Test
+    void testSequenceValueAllocatorIsDiscardedOnSequenceDdl() throws Exception {
+        Grain g = score.getGrain(GRAIN_NAME);
+        SequenceElement sequence = g.getElement("testSequence", SequenceElement.class);
+
+        if (dba.sequenceExists(conn, g.getName(), sequence.getName()))
+            dba.dropSequence(conn, sequence);
+        dba.createSequence(conn, sequence);
+
+        SequenceValueAllocator allocator = dba.getSequenceValueAllocator(sequence);
+        assertSame(allocator, dba.getSequenceValueAllocator(sequence));
+        assertEquals(5, allocator.nextValue(conn));
+
+        dba.alterSequence(conn, sequence);
+        SequenceValueAllocator alteredAllocator = dba.getSequenceValueAllocator(sequence);
+        assertNotSame(allocator, alteredAllocator);
+        assertEquals(6, alteredAllocator.nextValue(conn));
+
+        dba.dropSequence(conn, sequence);
+        dba.createSequence(conn, sequence);
+        assertNotSame(alteredAllocator, dba.getSequenceValueAllocator(sequence));
+        assertEquals(5, dba.getSequenceValueAllocator(sequence).nextValue(conn));
+
+        dba.dropSequence(conn, sequence);
+    }
+
     @Test
     void testColumnUpdateWithDefaultSequence() throws Exception {
         Grain g = score.getGrain(GRAIN_NAME);
@@ -0,0 +1,120 @@
+package ru.curs.celesta.dbutils.h2;
+
+import mView.MView1Cursor;
+import mView.Table1Cursor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.curs.celesta.AbstractCelestaTest;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MaterializedViewTriggerTest extends AbstractCelestaTest {
+
+    private static final String[] GROUPS = {"A", "B", "C", "D", "E"};
+
+    @Override
+    protected String scorePath() {
+        return "score";
+    }
+
+    @BeforeEach
+    void clearTable() {
+        new Table1Cursor(cc()).deleteAll();
+    }
+
+    @Test
+    void nullValuesDoNotChangeSum() {
+        Table1Cursor t = new Table1Cursor(cc());
+        MView1Cursor mv = new MView1Cursor(cc());
+
+        t.setVar("A").insert();
+        t.clear();
+        mv.get("A");
+        assertNull(mv.getS());
+        assertEquals(1, mv.getC().intValue());
+
+        t.setVar("A").setNumb(5).insert();
+        int valueId = t.getId();
+        t.clear();
+        t.setVar("A").insert();
+        int nullId = t.getId();
+        t.clear();
+        mv.get("A");
+        assertEquals(5, mv.getS().intValue());
+        assertEquals(3, mv.getC().intValue());
+
+        t.get(nullId);
+        t.delete();
+        mv.get("A");
+        assertEquals(5, mv.getS().intValue());
+        assertEquals(2, mv.getC().intValue());
+
+        // The sum of the remaining NULL values is NULL, not zero
+        t.get(valueId);
+        t.delete();
+        mv.get("A");
+        assertNull(mv.getS());
+        assertEquals(1, mv.getC().intValue());
+
+        t.clear();
+        t.setVar("A").setNumb(7).insert();
+        t.setNumb(null).update();
+        mv.get("A");
+        assertNull(mv.getS());
+        assertEquals(2, mv.getC().intValue());
+    }
+
+    @Test
+    void viewIsConsistentAfterBulkModifications() {
+        Table1Cursor t = new Table1Cursor(cc());
+        MView1Cursor mv = new MView1Cursor(cc());
+
+        for (int i = 0; i < 500; i++) {
+            t.clear();
+            t.setVar(GROUPS[i % GROUPS.length]).setNumb(i).insert();
+        }
+        assertConsistent(t, mv);
+
+        // Move every third row to another group and change its value
+        t.clear();
+        t.findSet();
+        do {
+            if (t.getId() % 3 == 0) {
+                t.setVar(GROUPS[(t.getId() / 3) % GROUPS.length]).setNumb(t.getNumb() * 2);
+                t.update();
+            }
+        } while (t.nextInSet());
+        assertConsistent(t, mv);
+
+        t.clear();
+        t.setRange(t.COLUMNS.var(), "B");
+        t.deleteAll();
+        t.clear();
+        t.setRange(t.COLUMNS.numb(), 0, 300);
+        t.deleteAll();
+        assertConsistent(t, mv);
+    }
+
+    private static void assertConsistent(Table1Cursor t, MView1Cursor mv) {
+        Map<String, int[]> expected = new HashMap<>();
+        t.clear();
+        if (t.tryFindSet()) {
+            do {
+                int[] aggregates = expected.computeIfAbsent(t.getVar(), k -> new int[2]);
+                aggregates[0] += t.getNumb();
+                aggregates[1]++;
+            } while (t.nextInSet());
+        }
+
+        mv.clear();
+        assertEquals(expected.size(), mv.count());
+        for (Map.Entry<String, int[]> e : expected.entrySet()) {
+            mv.get(e.getKey());
+            assertEquals(e.getValue()[0], mv.getS().intValue(), e.getKey());
+            assertEquals(e.getValue()[1], mv.getC().intValue(), e.getKey());
+        }
+    }
+}
@@ -10,6 +10,7 @@ import sequences.S12Sequence;
 import sequences.S13Sequence;
 import sequences.S14Sequence;
 import sequences.S15Sequence;
+import sequences.S16Sequence;
 import sequences.S1Sequence;
 import sequences.S2Sequence;
 import sequences.S3Sequence;
@@ -164,6 +165,19 @@ class TestSequences implements ScriptTest {
 
     }
 
+    @TestTemplate
+    void testS16(CallContext context) {
+        S16Sequence s = new S16Sequence(context);
+
+        assertEquals(3L, s.nextValue());
+        assertEquals(5L, s.nextValue());
+        assertEquals(7L, s.nextValue());
+        //values 3..9 are reserved in the DB at once
+        assertEquals(11L, context.getDbAdaptor().nextSequenceValue(context.getConn(), s.meta()));
+        assertEquals(9L, new S16Sequence(context).nextValue());
+        assertEquals(13L, s.nextValue());
+    }
+
     @TestTemplate
     void testDefaultPkColumnValueWithSequence(CallContext context) {
         T1Cursor c = new T1Cursor(context);
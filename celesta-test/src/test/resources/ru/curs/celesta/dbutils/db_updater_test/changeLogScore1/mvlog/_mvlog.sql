@@ -0,0 +1,18 @@
+create schema mvlog version '1.0';
+
+create table sales (
+  id int not null primary key,
+  region varchar(2) not null,
+  amount int not null
+);
+
+create table byRegion_log (
+  id int not null primary key
+);
+
+create materialized view byRegion as
+  select sum(amount) as total, region from sales group by region;
+
+create materialized view byRegionDeferred as
+  select sum(amount) as total, region from sales group by region
+  with deferred refresh;
@@ -0,0 +1,10 @@
+create schema child version '1.0';
+
+create table childTable (
+  id int not null primary key,
+  parentId int foreign key references parent.parentTable(id)
+);
+
+create view childView as
+  select c.id as id, p.name as name
+  from childTable as c inner join parent.parentTable as p on c.parentId = p.id;
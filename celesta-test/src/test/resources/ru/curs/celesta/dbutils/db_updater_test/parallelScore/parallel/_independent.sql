@@ -0,0 +1,5 @@
+create schema independent version '1.0';
+
+create table independentTable (
+  id int not null primary key
+);
@@ -0,0 +1,6 @@
+create schema parent version '1.0';
+
+create table parentTable (
+  id int not null primary key,
+  name varchar(50)
+);